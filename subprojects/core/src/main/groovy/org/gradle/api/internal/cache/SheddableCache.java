@@ -0,0 +1,35 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.cache;
+
+/**
+ * A long-lived in-memory cache that can give up some of its entries when the process is short of heap.
+ */
+public interface SheddableCache {
+    String getDisplayName();
+
+    /**
+     * Returns the number of entries currently held by this cache.
+     */
+    long getEntryCount();
+
+    /**
+     * Discards approximately the given fraction of the entries of this cache, least recently used entries first where the cache tracks
+     * usage. A fraction of 1 discards all entries.
+     */
+    void shed(float fraction);
+}
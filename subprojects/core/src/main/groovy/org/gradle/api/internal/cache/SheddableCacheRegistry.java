@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.cache;
+
+import com.google.common.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Tracks the long-lived in-memory caches of a process, so that entries can be shed when the process runs short of heap.
+ * Caches with a lower priority are shed before caches with a higher priority.
+ */
+public class SheddableCacheRegistry {
+    public static final int PRIORITY_LOW = 0;
+    public static final int PRIORITY_NORMAL = 50;
+    public static final int PRIORITY_HIGH = 100;
+
+    private final List<Registration> registrations = new ArrayList<Registration>();
+
+    public synchronized void register(SheddableCache cache, int priority) {
+        registrations.add(new Registration(cache, priority));
+        Collections.sort(registrations, new Comparator<Registration>() {
+            public int compare(Registration o1, Registration o2) {
+                return o1.priority < o2.priority ? -1 : (o1.priority == o2.priority ? 0 : 1);
+            }
+        });
+    }
+
+    /**
+     * Returns the registered caches, in the order in which they should be shed.
+     */
+    public synchronized List<SheddableCache> getCaches() {
+        List<SheddableCache> caches = new ArrayList<SheddableCache>(registrations.size());
+        for (Registration registration : registrations) {
+            caches.add(registration.cache);
+        }
+        return caches;
+    }
+
+    /**
+     * Discards approximately the given fraction of the entries of a Guava cache. Guava does not expose the access order of its entries,
+     * so the entries to discard are picked in iteration order.
+     */
+    public static void shed(Cache<?, ?> cache, float fraction) {
+        if (fraction >= 1) {
+            cache.invalidateAll();
+            return;
+        }
+        long toRemove = (long) (cache.size() * fraction);
+        Iterator<?> keys = cache.asMap().keySet().iterator();
+        while (toRemove > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            toRemove--;
+        }
+    }
+
+    private static class Registration {
+        final SheddableCache cache;
+        final int priority;
+
+        Registration(SheddableCache cache, int priority) {
+            this.cache = cache;
+            this.priority = priority;
+        }
+    }
+}
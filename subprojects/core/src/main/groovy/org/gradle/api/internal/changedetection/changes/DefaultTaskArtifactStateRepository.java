@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.changedetection.changes;
 
+import org.gradle.api.Nullable;
+import org.gradle.api.Transformer;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.TaskInternal;
@@ -25,6 +27,8 @@ import org.gradle.api.internal.changedetection.rules.TaskStateChange;
 import org.gradle.api.internal.changedetection.rules.TaskStateChanges;
 import org.gradle.api.internal.changedetection.rules.TaskUpToDateState;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshotter;
+import org.gradle.api.internal.changedetection.state.InputFilesNormalizer;
+import org.gradle.api.internal.changedetection.state.InputFilesNormalizerProvider;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
 import org.gradle.api.internal.changedetection.state.TaskHistoryRepository;
 import org.gradle.api.internal.file.FileCollectionFactory;
@@ -32,6 +36,9 @@ import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.internal.reflect.Instantiator;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepository {
 
@@ -41,22 +48,66 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
     private final FileCollectionSnapshotter discoveredInputsSnapshotter;
     private final Instantiator instantiator;
     private final FileCollectionFactory fileCollectionFactory;
+    private final Transformer<FileCollectionSnapshotter, InputFilesNormalizer> normalizingSnapshotterFactory;
+    private final Collection<InputFilesNormalizerProvider> normalizerProviders;
+    private final Map<String, FileCollectionSnapshotter> normalizingSnapshotters = new HashMap<String, FileCollectionSnapshotter>();
 
     public DefaultTaskArtifactStateRepository(TaskHistoryRepository taskHistoryRepository, Instantiator instantiator,
                                               FileCollectionSnapshotter outputFilesSnapshotter, FileCollectionSnapshotter inputFilesSnapshotter,
                                               FileCollectionSnapshotter discoveredInputsSnapshotter, FileCollectionFactory fileCollectionFactory) {
+        this(taskHistoryRepository, instantiator, outputFilesSnapshotter, inputFilesSnapshotter, discoveredInputsSnapshotter, fileCollectionFactory, null,
+            Collections.<InputFilesNormalizerProvider>emptyList());
+    }
+
+    /**
+     * @param normalizingSnapshotterFactory Creates the snapshotter to use for the input files of tasks that have an {@link InputFilesNormalizer}, or null to
+     * always use the contents of the input files.
+     * @param normalizerProviders Provide the normalizers for the input files of tasks.
+     */
+    public DefaultTaskArtifactStateRepository(TaskHistoryRepository taskHistoryRepository, Instantiator instantiator,
+                                              FileCollectionSnapshotter outputFilesSnapshotter, FileCollectionSnapshotter inputFilesSnapshotter,
+                                              FileCollectionSnapshotter discoveredInputsSnapshotter, FileCollectionFactory fileCollectionFactory,
+                                              @Nullable Transformer<FileCollectionSnapshotter, InputFilesNormalizer> normalizingSnapshotterFactory,
+                                              Collection<InputFilesNormalizerProvider> normalizerProviders) {
         this.taskHistoryRepository = taskHistoryRepository;
         this.instantiator = instantiator;
         this.outputFilesSnapshotter = outputFilesSnapshotter;
         this.inputFilesSnapshotter = inputFilesSnapshotter;
         this.discoveredInputsSnapshotter = discoveredInputsSnapshotter;
         this.fileCollectionFactory = fileCollectionFactory;
+        this.normalizingSnapshotterFactory = normalizingSnapshotterFactory;
+        this.normalizerProviders = normalizerProviders;
     }
 
     public TaskArtifactState getStateFor(final TaskInternal task) {
         return new TaskArtifactStateImpl(task, taskHistoryRepository.getHistory(task));
     }
 
+    private FileCollectionSnapshotter getInputFilesSnapshotter(TaskInternal task) {
+        if (normalizingSnapshotterFactory == null) {
+            return inputFilesSnapshotter;
+        }
+        InputFilesNormalizer normalizer = null;
+        for (InputFilesNormalizerProvider provider : normalizerProviders) {
+            normalizer = provider.getInputFilesNormalizer(task);
+            if (normalizer != null) {
+                break;
+            }
+        }
+        if (normalizer == null) {
+            return inputFilesSnapshotter;
+        }
+        synchronized (normalizingSnapshotters) {
+            String key = normalizer.getName() + ":" + normalizer.getVariant();
+            FileCollectionSnapshotter snapshotter = normalizingSnapshotters.get(key);
+            if (snapshotter == null) {
+                snapshotter = normalizingSnapshotterFactory.transform(normalizer);
+                normalizingSnapshotters.put(key, snapshotter);
+            }
+            return snapshotter;
+        }
+    }
+
     private class TaskArtifactStateImpl implements TaskArtifactState, TaskExecutionHistory {
         private final TaskInternal task;
         private final TaskHistoryRepository.History history;
@@ -139,7 +190,7 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         private TaskUpToDateState getStates() {
             if (states == null) {
                 // Calculate initial state - note this is potentially expensive
-                states = new TaskUpToDateState(task, history, outputFilesSnapshotter, inputFilesSnapshotter, discoveredInputsSnapshotter, fileCollectionFactory);
+                states = new TaskUpToDateState(task, history, outputFilesSnapshotter, getInputFilesSnapshotter(task), discoveredInputsSnapshotter, fileCollectionFactory);
             }
             return states;
         }
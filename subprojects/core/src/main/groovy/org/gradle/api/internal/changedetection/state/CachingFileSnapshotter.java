@@ -34,11 +34,26 @@ public class CachingFileSnapshotter implements FileSnapshotter {
     private final PersistentIndexedCache<String, FileInfo> cache;
     private final Hasher hasher;
     private final StringInterner stringInterner;
+    private final String keyPrefix;
 
     public CachingFileSnapshotter(Hasher hasher, PersistentStore store, StringInterner stringInterner) {
+        this(hasher, createCache(store, "fileHashes"), stringInterner, "");
+    }
+
+    /**
+     * @param cache The cache to store the hashes in, as created by {@link #createCache(PersistentStore, String)}. Snapshotters using different hashers
+     * must use different caches, or different key prefixes.
+     * @param keyPrefix Prepended to the path of each file to form the key of its hash in the cache.
+     */
+    public CachingFileSnapshotter(Hasher hasher, PersistentIndexedCache<String, FileInfo> cache, StringInterner stringInterner, String keyPrefix) {
         this.hasher = hasher;
-        this.cache = store.createCache("fileHashes", String.class, new FileInfoSerializer());
+        this.cache = cache;
         this.stringInterner = stringInterner;
+        this.keyPrefix = keyPrefix;
+    }
+
+    public static PersistentIndexedCache<String, FileInfo> createCache(PersistentStore store, String cacheName) {
+        return store.createCache(cacheName, String.class, new FileInfoSerializer());
     }
 
     @Override
@@ -70,8 +85,8 @@ public class CachingFileSnapshotter implements FileSnapshotter {
     }
 
     private FileInfo snapshot(File file, long length, long timestamp) {
-        String absolutePath = file.getAbsolutePath();
-        FileInfo info = cache.get(absolutePath);
+        String key = keyPrefix.isEmpty() ? file.getAbsolutePath() : keyPrefix + file.getAbsolutePath();
+        FileInfo info = cache.get(key);
 
         if (info != null && length == info.length && timestamp == info.timestamp) {
             return info;
@@ -79,7 +94,7 @@ public class CachingFileSnapshotter implements FileSnapshotter {
 
         HashValue hash = hasher.hash(file);
         info = new FileInfo(hash, length, timestamp);
-        cache.put(stringInterner.intern(absolutePath), info);
+        cache.put(stringInterner.intern(key), info);
         return info;
     }
 
@@ -18,6 +18,8 @@ package org.gradle.api.internal.changedetection.state;
 
 import com.google.common.cache.*;
 import org.gradle.api.internal.cache.HeapProportionalCacheSizer;
+import org.gradle.api.internal.cache.SheddableCache;
+import org.gradle.api.internal.cache.SheddableCacheRegistry;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
@@ -29,7 +31,7 @@ import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 
-public class InMemoryTaskArtifactCache implements CacheDecorator {
+public class InMemoryTaskArtifactCache implements CacheDecorator, SheddableCache {
     private final static Logger LOG = Logging.getLogger(InMemoryTaskArtifactCache.class);
     private final static Object NULL = new Object();
     private static final Map<String, Integer> CACHE_CAPS = new CacheCapSizer().calculateCaps();
@@ -66,7 +68,7 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
 
     private final Object lock = new Object();
     private final Cache<String, Cache<Object, Object>> cache = CacheBuilder.newBuilder()
-            .maximumSize(CACHE_CAPS.size() * 2) //X2 to factor in a child build (for example buildSrc)
+            .maximumSize((CACHE_CAPS.size() + 1) * 2) //X2 to factor in a child build (for example buildSrc), +1 for the hashes of a normalized input files snapshotter
             .build();
 
     private final Map<String, FileLock.State> states = new HashMap<String, FileLock.State>();
@@ -124,6 +126,24 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
         };
     }
 
+    public String getDisplayName() {
+        return "in-memory task history cache";
+    }
+
+    public long getEntryCount() {
+        long count = 0;
+        for (Cache<Object, Object> data : cache.asMap().values()) {
+            count += data.size();
+        }
+        return count;
+    }
+
+    public void shed(float fraction) {
+        for (Cache<Object, Object> data : cache.asMap().values()) {
+            SheddableCacheRegistry.shed(data, fraction);
+        }
+    }
+
     private Cache<Object, Object> loadData(String cacheId, String cacheName) {
         Cache<Object, Object> theData;
         synchronized (lock) {
@@ -132,6 +152,10 @@ public class InMemoryTaskArtifactCache implements CacheDecorator {
                 LOG.info("In-memory cache of {}: Size{{}}, {}", cacheId, theData.size() , theData.stats());
             } else {
                 Integer maxSize = CACHE_CAPS.get(cacheName);
+                if (maxSize == null && cacheName.indexOf('-') > 0) {
+                    // A variant of a known cache, such as the file hashes calculated by an input files normalizer
+                    maxSize = CACHE_CAPS.get(cacheName.substring(0, cacheName.indexOf('-')));
+                }
                 assert maxSize != null : "Unknown cache.";
                 LOG.info("Creating In-memory cache of {}: MaxSize{{}}", cacheId, maxSize);
                 LoggingEvictionListener evictionListener = new LoggingEvictionListener(cacheId, maxSize);
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.hash.Hasher;
+
+/**
+ * Calculates the hashes of the input files of a task such that changes to an input file that cannot affect the outputs of the task are
+ * ignored when deciding whether the task is up-to-date.
+ */
+public interface InputFilesNormalizer extends Hasher {
+    /**
+     * Returns a name that identifies the kind of hashes this normalizer calculates. Normalizers with the same name share a cache of hashes.
+     */
+    String getName();
+
+    /**
+     * Returns a key that distinguishes how this normalizer calculates hashes from the other normalizers with the same name, or an empty string
+     * when there is no such difference. Included in the key of each hash in the cache, rather than in the name of the cache, so that the number
+     * of caches does not grow with the number of variants.
+     */
+    String getVariant();
+}
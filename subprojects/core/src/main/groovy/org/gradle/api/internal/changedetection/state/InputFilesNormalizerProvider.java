@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.TaskInternal;
+
+/**
+ * Provides the {@link InputFilesNormalizer} to use to hash the input files of a task, rather than the contents of the files. Implementations
+ * are registered as global services, typically by the plugin that provides the task type.
+ */
+public interface InputFilesNormalizerProvider {
+    /**
+     * Returns the normalizer to use for the input files of the given task, or null when the contents of the files should be used.
+     */
+    @Nullable
+    InputFilesNormalizer getInputFilesNormalizer(TaskInternal task);
+}
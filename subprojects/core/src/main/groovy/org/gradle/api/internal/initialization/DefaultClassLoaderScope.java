@@ -97,7 +97,7 @@ public class DefaultClassLoaderScope implements ClassLoaderScope {
         return new MultiParentClassLoader(parents);
     }
 
-    private void buildEffectiveLoaders() {
+    private synchronized void buildEffectiveLoaders() {
         if (effectiveLocalClassLoader == null) {
             boolean hasExports = !export.isEmpty() || exportLoaders != null;
             boolean hasLocals = !local.isEmpty();
@@ -593,7 +593,9 @@ public abstract class AbstractProject extends AbstractPluginAware implements Pro
     }
 
     private Project evaluationDependsOn(DefaultProject projectToEvaluate) {
-        if (projectToEvaluate.getState().getExecuting()) {
+        // A project being evaluated by another thread is waited for, see LifecycleProjectEvaluator
+        ProjectStateInternal state = projectToEvaluate.getState();
+        if (state.getExecuting() && !state.isEvaluatingInOtherThread()) {
             throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.",
                 projectToEvaluate));
         }
@@ -20,9 +20,10 @@ import org.gradle.api.ProjectState;
 import org.gradle.internal.UncheckedException;
 
 public class ProjectStateInternal implements ProjectState {
-    private boolean executing;
-    private boolean executed;
-    private Throwable failure;
+    private volatile boolean executing;
+    private volatile boolean executed;
+    private volatile Throwable failure;
+    private volatile Thread evaluatingThread;
 
     public boolean getExecuted() {
         return executed;
@@ -46,6 +47,25 @@ public class ProjectStateInternal implements ProjectState {
         this.executing = executing;
     }
 
+    /**
+     * Returns the thread that is evaluating the project, or null when the project is not being evaluated.
+     */
+    public Thread getEvaluatingThread() {
+        return evaluatingThread;
+    }
+
+    public void setEvaluatingThread(Thread evaluatingThread) {
+        this.evaluatingThread = evaluatingThread;
+    }
+
+    /**
+     * Returns true when the project is being evaluated by a thread other than the current thread.
+     */
+    public boolean isEvaluatingInOtherThread() {
+        Thread thread = evaluatingThread;
+        return thread != null && thread != Thread.currentThread();
+    }
+
     public boolean hasFailure() {
         return failure != null;
     }
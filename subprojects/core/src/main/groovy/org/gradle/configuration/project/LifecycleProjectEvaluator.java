@@ -15,13 +15,18 @@
  */
 package org.gradle.configuration.project;
 
+import org.gradle.api.CircularReferenceException;
 import org.gradle.api.ProjectConfigurationException;
 import org.gradle.api.ProjectEvaluationListener;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.ProjectStateInternal;
+import org.gradle.internal.UncheckedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Manages lifecycle concerns while delegating actual evaluation to another evaluator
  *
@@ -31,17 +36,26 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
     private static final Logger LOGGER = LoggerFactory.getLogger(LifecycleProjectEvaluator.class);
 
     private final ProjectEvaluator delegate;
+    private final Object lock = new Object();
+    // The project that each waiting thread is waiting for, used to detect cycles across threads
+    private final Map<Thread, ProjectStateInternal> waiting = new HashMap<Thread, ProjectStateInternal>();
 
     public LifecycleProjectEvaluator(ProjectEvaluator delegate) {
         this.delegate = delegate;
     }
 
     public void evaluate(ProjectInternal project, ProjectStateInternal state) {
-        //TODO this is one of the places to look into thread safety when we implement parallel configuration
-        if (state.getExecuted() || state.getExecuting()) {
+        if (!claim(project, state)) {
             return;
         }
+        try {
+            doEvaluate(project, state);
+        } finally {
+            release(state);
+        }
+    }
 
+    private void doEvaluate(ProjectInternal project, ProjectStateInternal state) {
         ProjectEvaluationListener listener = project.getProjectEvaluationBroadcaster();
         try {
             listener.beforeEvaluate(project);
@@ -62,6 +76,47 @@ public class LifecycleProjectEvaluator implements ProjectEvaluator {
         }
     }
 
+    /**
+     * Claims the evaluation of the given project for the current thread. Projects may be configured concurrently by the parallel project configurer,
+     * so waits while another thread is evaluating the project, and fails when that thread is itself waiting for the current thread.
+     *
+     * @return true when the current thread should evaluate the project, false when it has already been evaluated or is being evaluated by the current thread.
+     */
+    private boolean claim(ProjectInternal project, ProjectStateInternal state) {
+        Thread current = Thread.currentThread();
+        synchronized (lock) {
+            while (state.isEvaluatingInOtherThread()) {
+                ProjectStateInternal awaited = state;
+                while (awaited != null && awaited.getEvaluatingThread() != null) {
+                    if (awaited.getEvaluatingThread() == current) {
+                        throw new CircularReferenceException(String.format("Circular referencing during evaluation for %s.", project));
+                    }
+                    awaited = waiting.get(awaited.getEvaluatingThread());
+                }
+                waiting.put(current, state);
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                } finally {
+                    waiting.remove(current);
+                }
+            }
+            if (state.getExecuted() || state.getExecuting() || state.getEvaluatingThread() != null) {
+                return false;
+            }
+            state.setEvaluatingThread(current);
+            return true;
+        }
+    }
+
+    private void release(ProjectStateInternal state) {
+        synchronized (lock) {
+            state.setEvaluatingThread(null);
+            lock.notifyAll();
+        }
+    }
+
     private void notifyAfterEvaluate(ProjectEvaluationListener listener, ProjectInternal project, ProjectStateInternal state) {
         try {
             listener.afterEvaluate(project, state);
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.initialization.ProjectAccessListener;
+
+/**
+ * Rejects cross-project access that would be unsafe while projects are configured by a {@link ParallelProjectConfigurer}.
+ */
+public class ParallelConfigurationProjectAccessListener implements ProjectAccessListener {
+    private final ParallelProjectConfigurer configurer;
+    private final ProjectAccessListener delegate;
+
+    public ParallelConfigurationProjectAccessListener(ParallelProjectConfigurer configurer, ProjectAccessListener delegate) {
+        this.configurer = configurer;
+        this.delegate = delegate;
+    }
+
+    public void beforeRequestingTaskByPath(ProjectInternal targetProject) {
+        configurer.beforeAccess(targetProject);
+        delegate.beforeRequestingTaskByPath(targetProject);
+    }
+
+    public void beforeResolvingProjectDependency(ProjectInternal dependencyProject) {
+        configurer.beforeAccess(dependencyProject);
+        delegate.beforeResolvingProjectDependency(dependencyProject);
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.StartParameter;
+import org.gradle.api.BuildCancelledException;
+import org.gradle.api.InvalidUserCodeException;
+import org.gradle.api.Project;
+import org.gradle.api.internal.project.ProjectInternal;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Configures the sub-projects of a project hierarchy concurrently, once the root project has been configured. A project is configured only
+ * after its parent project has been configured.
+ *
+ * <p>This is only safe for builds where projects do not access the configuration of their siblings. Such access is detected via
+ * {@link #beforeAccess(ProjectInternal)} and fails the build, rather than silently exposing a partially configured project.</p>
+ */
+public class ParallelProjectConfigurer implements ProjectConfigurer {
+    public static final String PARALLEL_CONFIGURATION_PROPERTY = "org.gradle.parallel.configuration";
+    private static final Logger LOGGER = Logging.getLogger(ParallelProjectConfigurer.class);
+
+    private final ProjectConfigurer delegate;
+    private final BuildCancellationToken cancellationToken;
+    private final ExecutorFactory executorFactory;
+    private final int maxThreads;
+    private final ThreadLocal<ProjectInternal> currentProject = new ThreadLocal<ProjectInternal>();
+
+    public ParallelProjectConfigurer(ProjectConfigurer delegate, BuildCancellationToken cancellationToken, ExecutorFactory executorFactory, int maxThreads) {
+        this.delegate = delegate;
+        this.cancellationToken = cancellationToken;
+        this.executorFactory = executorFactory;
+        this.maxThreads = maxThreads;
+    }
+
+    public static boolean isEnabled(StartParameter startParameter) {
+        String value = startParameter.getSystemPropertiesArgs().get(PARALLEL_CONFIGURATION_PROPERTY);
+        if (value == null) {
+            value = System.getProperty(PARALLEL_CONFIGURATION_PROPERTY);
+        }
+        return "true".equals(value);
+    }
+
+    public void configure(ProjectInternal project) {
+        delegate.configure(project);
+    }
+
+    public void configureHierarchy(ProjectInternal project) {
+        delegate.configure(project);
+
+        int threads = Math.min(maxThreads, project.getSubprojects().size());
+        if (threads <= 1) {
+            delegate.configureHierarchy(project);
+            return;
+        }
+
+        LOGGER.info("Configuring {} projects using {} threads", project.getSubprojects().size(), threads);
+        StoppableExecutor executor = executorFactory.create("Project configurer", threads);
+        HierarchyConfiguration configuration = new HierarchyConfiguration(executor);
+        try {
+            configuration.configureChildren(project);
+            configuration.waitForCompletion();
+        } finally {
+            executor.stop();
+        }
+
+        if (cancellationToken.isCancellationRequested()) {
+            throw new BuildCancelledException();
+        }
+        configuration.rethrowFailure();
+    }
+
+    /**
+     * Called before the configuration of the current thread's project accesses the given project. Fails when another project is being
+     * configured concurrently and the target project has not been configured yet.
+     */
+    public void beforeAccess(ProjectInternal target) {
+        ProjectInternal current = currentProject.get();
+        if (current == null || current == target || target.getState().getExecuted()) {
+            return;
+        }
+        throw new InvalidUserCodeException(String.format("%s accessed %s while projects are being configured in parallel. "
+            + "Projects that access the configuration of other projects cannot be configured in parallel, run the build without -D%s=true.",
+            current, target, PARALLEL_CONFIGURATION_PROPERTY));
+    }
+
+    /**
+     * Configures the projects below a project, configuring the children of a project only once the project itself has been configured. This way
+     * the {@code subprojects {}} and {@code allprojects {}} blocks of a project are applied before the build scripts of its children run.
+     */
+    private class HierarchyConfiguration {
+        private final Executor executor;
+        private final Map<String, Throwable> failures = new TreeMap<String, Throwable>();
+        private int pending;
+
+        HierarchyConfiguration(Executor executor) {
+            this.executor = executor;
+        }
+
+        void configureChildren(ProjectInternal parent) {
+            for (Project child : parent.getChildProjects().values()) {
+                synchronized (this) {
+                    if (!failures.isEmpty() || cancellationToken.isCancellationRequested()) {
+                        return;
+                    }
+                    pending++;
+                }
+                executor.execute(new ConfigureProject((ProjectInternal) child));
+            }
+        }
+
+        synchronized void waitForCompletion() {
+            try {
+                while (pending > 0) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        synchronized void rethrowFailure() {
+            if (!failures.isEmpty()) {
+                throw UncheckedException.throwAsUncheckedException(failures.values().iterator().next());
+            }
+        }
+
+        private synchronized void failed(ProjectInternal project, Throwable failure) {
+            failures.put(project.getPath(), failure);
+        }
+
+        private synchronized void completed() {
+            pending--;
+            notifyAll();
+        }
+
+        private class ConfigureProject implements Runnable {
+            private final ProjectInternal project;
+
+            ConfigureProject(ProjectInternal project) {
+                this.project = project;
+            }
+
+            public void run() {
+                try {
+                    if (configure()) {
+                        configureChildren(project);
+                    }
+                } catch (Throwable t) {
+                    failed(project, t);
+                } finally {
+                    completed();
+                }
+            }
+
+            private boolean configure() {
+                currentProject.set(project);
+                try {
+                    project.evaluate();
+                    return true;
+                } catch (Throwable t) {
+                    failed(project, t);
+                    return false;
+                } finally {
+                    currentProject.remove();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.StartParameter;
+import org.gradle.api.Nullable;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.initialization.Settings;
+import org.gradle.api.internal.GradleInternal;
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.cache.PersistentIndexedCacheParameters;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.groovy.scripts.Script;
+import org.gradle.groovy.scripts.ScriptExecutionListener;
+import org.gradle.groovy.scripts.ScriptSource;
+import org.gradle.internal.Factory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Serializable;
+import java.util.*;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Remembers across builds which projects contain the tasks selected by an unqualified task path, so that with configuration on demand only
+ * those projects need to be configured, rather than the whole project hierarchy.
+ *
+ * <p>A remembered selection is used only while the scripts, gradle.properties files and build script classpaths that were in use when it
+ * was recorded remain unchanged.</p>
+ */
+public class TaskSelectionCache implements ScriptExecutionListener, Closeable {
+    private final GradleInternal gradle;
+    private final CacheRepository cacheRepository;
+    private final Set<File> loadedScripts = Collections.synchronizedSet(new LinkedHashSet<File>());
+    private PersistentCache cacheAccess;
+    private PersistentIndexedCache<String, CachedTaskSelection> cache;
+
+    public TaskSelectionCache(GradleInternal gradle, CacheRepository cacheRepository) {
+        this.gradle = gradle;
+        this.cacheRepository = cacheRepository;
+    }
+
+    public boolean isEnabled() {
+        StartParameter startParameter = gradle.getStartParameter();
+        return startParameter.isConfigureOnDemand() && !startParameter.isRerunTasks() && !startParameter.isRefreshDependencies();
+    }
+
+    @Override
+    public void scriptClassLoaded(ScriptSource source, Class<? extends Script> scriptClass) {
+        File file = source.getResource().getFile();
+        if (file != null) {
+            loadedScripts.add(file);
+        }
+    }
+
+    /**
+     * Returns the paths of the projects containing the tasks previously selected by the given path, or null when there is no valid entry.
+     */
+    @Nullable
+    public List<String> getProjectPaths(Project project, String path) {
+        final String key = key(project, path);
+        CachedTaskSelection selection = getCache().useCache("Loading task selection", new Factory<CachedTaskSelection>() {
+            public CachedTaskSelection create() {
+                return cache.get(key);
+            }
+        });
+        if (selection == null || !selection.inputs.equals(snapshot(selection.inputs.keySet()))) {
+            return null;
+        }
+        return selection.projectPaths;
+    }
+
+    public void store(Project project, String path, Collection<? extends Task> tasks) {
+        final String key = key(project, path);
+        List<String> projectPaths = new ArrayList<String>();
+        for (Task task : tasks) {
+            projectPaths.add(task.getProject().getPath());
+        }
+        final CachedTaskSelection selection = new CachedTaskSelection(snapshot(collectInputs()), projectPaths);
+        getCache().useCache("Storing task selection", new Runnable() {
+            public void run() {
+                cache.put(key, selection);
+            }
+        });
+    }
+
+    public void close() {
+        if (cacheAccess != null) {
+            cacheAccess.close();
+        }
+    }
+
+    /**
+     * Returns the cache, which must only be accessed from within {@link PersistentCache#useCache}. This locks the cache exclusively for the duration
+     * of the operation, so that builds running concurrently in other processes do not corrupt it.
+     */
+    private PersistentCache getCache() {
+        if (cacheAccess == null) {
+            cacheAccess = cacheRepository
+                .cache(gradle, "taskSelection")
+                .withDisplayName("task selection cache")
+                .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+                .open();
+            cache = cacheAccess.createCache(new PersistentIndexedCacheParameters<String, CachedTaskSelection>("taskSelection", String.class, CachedTaskSelection.class));
+        }
+        return cacheAccess;
+    }
+
+    private String key(Project project, String path) {
+        StartParameter startParameter = gradle.getStartParameter();
+        return project.getPath() + " " + path
+            + " " + new TreeMap<String, String>(startParameter.getProjectProperties())
+            + " " + new TreeMap<String, String>(startParameter.getSystemPropertiesArgs())
+            + " " + startParameter.getAllInitScripts();
+    }
+
+    private Set<String> collectInputs() {
+        Set<String> inputs = new TreeSet<String>();
+        StartParameter startParameter = gradle.getStartParameter();
+        File rootDir = gradle.getRootProject().getRootDir();
+        synchronized (loadedScripts) {
+            for (File script : loadedScripts) {
+                inputs.add(script.getAbsolutePath());
+            }
+        }
+        for (File initScript : startParameter.getAllInitScripts()) {
+            inputs.add(initScript.getAbsolutePath());
+        }
+        inputs.add(new File(rootDir, Settings.DEFAULT_SETTINGS_FILE).getAbsolutePath());
+        inputs.add(new File(startParameter.getGradleUserHomeDir(), Project.GRADLE_PROPERTIES).getAbsolutePath());
+        inputs.add(new File(rootDir, "buildSrc/build/libs/buildSrc.jar").getAbsolutePath());
+        for (Project project : gradle.getRootProject().getAllprojects()) {
+            inputs.add(project.getBuildFile().getAbsolutePath());
+            inputs.add(new File(project.getProjectDir(), Project.GRADLE_PROPERTIES).getAbsolutePath());
+            for (Configuration configuration : project.getBuildscript().getConfigurations()) {
+                if (configuration.getState() == Configuration.State.RESOLVED) {
+                    for (File file : configuration.getFiles()) {
+                        inputs.add(file.getAbsolutePath());
+                    }
+                }
+            }
+        }
+        return inputs;
+    }
+
+    private static Map<String, String> snapshot(Collection<String> paths) {
+        Map<String, String> snapshot = new HashMap<String, String>();
+        for (String path : paths) {
+            File file = new File(path);
+            snapshot.put(path, file.exists() ? file.length() + ":" + file.lastModified() : "");
+        }
+        return snapshot;
+    }
+
+    private static class CachedTaskSelection implements Serializable {
+        private final Map<String, String> inputs;
+        private final List<String> projectPaths;
+
+        CachedTaskSelection(Map<String, String> inputs, List<String> projectPaths) {
+            this.inputs = inputs;
+            this.projectPaths = projectPaths;
+        }
+    }
+}
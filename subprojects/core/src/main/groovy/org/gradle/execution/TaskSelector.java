@@ -25,7 +25,9 @@ import org.gradle.execution.taskpath.ResolvedTaskPath;
 import org.gradle.execution.taskpath.TaskPathResolver;
 import org.gradle.util.NameMatcher;
 
+import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -33,16 +35,26 @@ public class TaskSelector {
     private final TaskNameResolver taskNameResolver;
     private final GradleInternal gradle;
     private final ProjectConfigurer configurer;
+    private final TaskSelectionCache selectionCache;
     private final TaskPathResolver taskPathResolver = new TaskPathResolver();
 
     public TaskSelector(GradleInternal gradle, ProjectConfigurer projectConfigurer) {
         this(gradle, new TaskNameResolver(), projectConfigurer);
     }
 
+    public TaskSelector(GradleInternal gradle, ProjectConfigurer projectConfigurer, TaskSelectionCache selectionCache) {
+        this(gradle, new TaskNameResolver(), projectConfigurer, selectionCache);
+    }
+
     public TaskSelector(GradleInternal gradle, TaskNameResolver taskNameResolver, ProjectConfigurer configurer) {
+        this(gradle, taskNameResolver, configurer, null);
+    }
+
+    public TaskSelector(GradleInternal gradle, TaskNameResolver taskNameResolver, ProjectConfigurer configurer, @Nullable TaskSelectionCache selectionCache) {
         this.taskNameResolver = taskNameResolver;
         this.gradle = gradle;
         this.configurer = configurer;
+        this.selectionCache = selectionCache;
     }
 
     public TaskSelection getSelection(String path) {
@@ -78,6 +90,14 @@ public class TaskSelector {
     private TaskSelection getSelection(String path, ProjectInternal project) {
         ResolvedTaskPath taskPath = taskPathResolver.resolvePath(path, project);
         ProjectInternal targetProject = taskPath.getProject();
+        boolean useSelectionCache = !taskPath.isQualified() && selectionCache != null && selectionCache.isEnabled();
+        if (useSelectionCache) {
+            TaskSelection cachedSelection = getCachedSelection(path, taskPath);
+            if (cachedSelection != null) {
+                return cachedSelection;
+            }
+        }
+
         if (taskPath.isQualified()) {
             configurer.configure(targetProject);
         } else {
@@ -87,7 +107,11 @@ public class TaskSelector {
         TaskSelectionResult tasks = taskNameResolver.selectWithName(taskPath.getTaskName(), taskPath.getProject(), !taskPath.isQualified());
         if (tasks != null) {
             // An exact match
-            return new TaskSelection(taskPath.getProject().getPath(), path, tasks);
+            TaskSelection selection = new TaskSelection(taskPath.getProject().getPath(), path, tasks);
+            if (useSelectionCache) {
+                selectionCache.store(targetProject, taskPath.getTaskName(), selection.getTasks());
+            }
+            return selection;
         }
 
         Map<String, TaskSelectionResult> tasksByName = taskNameResolver.selectAll(taskPath.getProject(), !taskPath.isQualified());
@@ -100,6 +124,35 @@ public class TaskSelector {
         throw new TaskSelectionException(matcher.formatErrorMessage("task", taskPath.getProject()));
     }
 
+    /**
+     * Configures only the projects that contained the tasks selected by the given unqualified path in a previous build, if still valid.
+     */
+    @Nullable
+    private TaskSelection getCachedSelection(String path, ResolvedTaskPath taskPath) {
+        List<String> projectPaths = selectionCache.getProjectPaths(taskPath.getProject(), taskPath.getTaskName());
+        if (projectPaths == null || projectPaths.isEmpty()) {
+            return null;
+        }
+        final Set<Task> tasks = new LinkedHashSet<Task>();
+        for (String projectPath : projectPaths) {
+            ProjectInternal project = gradle.getRootProject().findProject(projectPath);
+            if (project == null) {
+                return null;
+            }
+            configurer.configure(project);
+            TaskSelectionResult result = taskNameResolver.selectWithName(taskPath.getTaskName(), project, false);
+            if (result == null) {
+                return null;
+            }
+            result.collectTasks(tasks);
+        }
+        return new TaskSelection(taskPath.getProject().getPath(), path, new TaskSelectionResult() {
+            public void collectTasks(Collection<? super Task> result) {
+                result.addAll(tasks);
+            }
+        });
+    }
+
     public static class TaskSelection {
         private final String projectPath;
         private final String taskName;
@@ -33,7 +33,7 @@ import java.util.Map;
 public class BuildScopeInMemoryCachingScriptClassCompiler implements ScriptClassCompiler {
     private final CrossBuildInMemoryCachingScriptClassCache cache;
     private final ScriptClassCompiler scriptClassCompiler;
-    private final Map<Key, CompiledScript<?, ?>> cachedCompiledScripts = Maps.newHashMap();
+    private final Map<Key, CompiledScript<?, ?>> cachedCompiledScripts = Maps.newConcurrentMap();
 
     public BuildScopeInMemoryCachingScriptClassCompiler(CrossBuildInMemoryCachingScriptClassCache cache, ScriptClassCompiler scriptClassCompiler) {
         this.cache = cache;
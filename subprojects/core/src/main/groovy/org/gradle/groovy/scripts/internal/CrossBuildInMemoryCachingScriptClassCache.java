@@ -20,13 +20,15 @@ import com.google.common.cache.CacheBuilder;
 import groovy.lang.Script;
 import org.codehaus.groovy.ast.ClassNode;
 import org.gradle.api.Action;
+import org.gradle.api.internal.cache.SheddableCache;
+import org.gradle.api.internal.cache.SheddableCacheRegistry;
 import org.gradle.api.internal.changedetection.state.FileSnapshotter;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderId;
 import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.Cast;
 import org.gradle.internal.hash.HashValue;
 
-public class CrossBuildInMemoryCachingScriptClassCache {
+public class CrossBuildInMemoryCachingScriptClassCache implements SheddableCache {
     private final Cache<Key, CachedCompiledScript> cachedCompiledScripts = CacheBuilder.newBuilder().maximumSize(100).recordStats().build();
     private final FileSnapshotter snapshotter;
 
@@ -48,6 +50,18 @@ public class CrossBuildInMemoryCachingScriptClassCache {
         return compiledScript;
     }
 
+    public String getDisplayName() {
+        return "compiled script class cache";
+    }
+
+    public long getEntryCount() {
+        return cachedCompiledScripts.size();
+    }
+
+    public void shed(float fraction) {
+        SheddableCacheRegistry.shed(cachedCompiledScripts, fraction);
+    }
+
     private static class Key {
         private final String className;
         private final ClassLoader classLoader;
@@ -50,6 +50,8 @@ import org.gradle.cache.CacheRepository;
 import org.gradle.cache.CacheValidator;
 import org.gradle.configuration.*;
 import org.gradle.configuration.project.*;
+import org.gradle.execution.ParallelConfigurationProjectAccessListener;
+import org.gradle.execution.ParallelProjectConfigurer;
 import org.gradle.execution.ProjectConfigurer;
 import org.gradle.execution.TaskPathProjectEvaluator;
 import org.gradle.groovy.scripts.DefaultScriptCompilerFactory;
@@ -297,15 +299,22 @@ public class BuildScopeServices extends DefaultServiceRegistry {
         );
     }
 
-    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken) {
-        return new TaskPathProjectEvaluator(cancellationToken);
+    protected ProjectConfigurer createProjectConfigurer(BuildCancellationToken cancellationToken, StartParameter startParameter, ExecutorFactory executorFactory) {
+        TaskPathProjectEvaluator projectEvaluator = new TaskPathProjectEvaluator(cancellationToken);
+        if (ParallelProjectConfigurer.isEnabled(startParameter)) {
+            return new ParallelProjectConfigurer(projectEvaluator, cancellationToken, executorFactory, startParameter.getMaxWorkerCount());
+        }
+        return projectEvaluator;
     }
 
     protected BuildConfigurer createBuildConfigurer(ProjectConfigurer projectConfigurer) {
         return new DefaultBuildConfigurer(projectConfigurer);
     }
 
-    protected ProjectAccessListener createProjectAccessListener() {
+    protected ProjectAccessListener createProjectAccessListener(ProjectConfigurer projectConfigurer) {
+        if (projectConfigurer instanceof ParallelProjectConfigurer) {
+            return new ParallelConfigurationProjectAccessListener((ParallelProjectConfigurer) projectConfigurer, new DefaultProjectAccessListener());
+        }
         return new DefaultProjectAccessListener();
     }
 
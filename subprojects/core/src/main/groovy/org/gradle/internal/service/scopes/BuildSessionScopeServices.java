@@ -29,6 +29,7 @@ import org.gradle.deployment.internal.DefaultDeploymentRegistry;
 import org.gradle.deployment.internal.DeploymentRegistry;
 import org.gradle.internal.Factory;
 import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.id.LongIdGenerator;
 import org.gradle.internal.service.DefaultServiceRegistry;
 import org.gradle.internal.service.ServiceRegistration;
@@ -38,6 +39,8 @@ import org.gradle.plugin.use.internal.InjectedPluginClasspath;
 import org.gradle.process.internal.DefaultWorkerProcessFactory;
 import org.gradle.process.internal.ExecHandleFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
+import org.gradle.process.internal.WorkerProcessPool;
+import org.gradle.process.internal.child.ClassDataSharingArchives;
 import org.gradle.process.internal.child.WorkerProcessClassPathProvider;
 
 /**
@@ -65,7 +68,8 @@ public class BuildSessionScopeServices extends DefaultServiceRegistry {
     }
 
     Factory<WorkerProcessBuilder> createWorkerProcessFactory(StartParameter startParameter, MessagingServer messagingServer, ClassPathRegistry classPathRegistry,
-                                                             TemporaryFileProvider temporaryFileProvider, ExecHandleFactory execHandleFactory) {
+                                                             TemporaryFileProvider temporaryFileProvider, ExecHandleFactory execHandleFactory, WorkerProcessPool workerProcessPool,
+                                                             ClassDataSharingArchives classDataSharingArchives) {
         return new DefaultWorkerProcessFactory(
             startParameter.getLogLevel(),
             messagingServer,
@@ -73,7 +77,13 @@ public class BuildSessionScopeServices extends DefaultServiceRegistry {
             new LongIdGenerator(),
             startParameter.getGradleUserHomeDir(),
             temporaryFileProvider,
-            execHandleFactory);
+            execHandleFactory,
+            workerProcessPool,
+            classDataSharingArchives);
+    }
+
+    ClassDataSharingArchives createClassDataSharingArchives(CacheRepository cacheRepository, ExecutorFactory executorFactory) {
+        return new ClassDataSharingArchives(cacheRepository, executorFactory);
     }
 
     ClassPathRegistry createClassPathRegistry() {
@@ -19,6 +19,7 @@ package org.gradle.internal.service.scopes;
 import com.google.common.collect.Iterables;
 import org.gradle.StartParameter;
 import org.gradle.api.internal.*;
+import org.gradle.api.internal.cache.SheddableCacheRegistry;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
 import org.gradle.api.internal.changedetection.state.InMemoryTaskArtifactCache;
@@ -76,6 +77,7 @@ import org.gradle.model.internal.manage.instance.ManagedProxyFactory;
 import org.gradle.model.internal.manage.schema.ModelSchemaStore;
 import org.gradle.model.internal.manage.schema.extract.*;
 import org.gradle.process.internal.DefaultExecActionFactory;
+import org.gradle.process.internal.WorkerProcessPool;
 import org.gradle.util.GradleVersion;
 
 import java.net.URL;
@@ -205,8 +207,14 @@ public class GlobalScopeServices {
             fileLockContentionHandler);
     }
 
-    InMemoryTaskArtifactCache createInMemoryTaskArtifactCache() {
-        return new InMemoryTaskArtifactCache();
+    SheddableCacheRegistry createSheddableCacheRegistry() {
+        return new SheddableCacheRegistry();
+    }
+
+    InMemoryTaskArtifactCache createInMemoryTaskArtifactCache(SheddableCacheRegistry sheddableCacheRegistry) {
+        InMemoryTaskArtifactCache cache = new InMemoryTaskArtifactCache();
+        sheddableCacheRegistry.register(cache, SheddableCacheRegistry.PRIORITY_LOW);
+        return cache;
     }
 
     DefaultFileLockContentionHandler createFileLockContentionHandler(ExecutorFactory executorFactory, MessagingServices messagingServices) {
@@ -236,6 +244,10 @@ public class GlobalScopeServices {
         return new DefaultExecActionFactory(fileResolver);
     }
 
+    WorkerProcessPool createWorkerProcessPool() {
+        return new WorkerProcessPool();
+    }
+
     ModelRuleExtractor createModelRuleInspector(ServiceRegistry services, ModelSchemaStore modelSchemaStore, StructBindingsStore structBindingsStore, ManagedProxyFactory managedProxyFactory) {
         List<MethodModelRuleExtractor> extractors = services.getAll(MethodModelRuleExtractor.class);
         List<MethodModelRuleExtractor> coreExtractors = MethodModelRuleExtractors.coreExtractors(modelSchemaStore);
@@ -307,7 +319,9 @@ public class GlobalScopeServices {
         return PatternSets.getPatternSetFactory(patternSpecFactory);
     }
 
-    protected CrossBuildInMemoryCachingScriptClassCache createCachingScriptCompiler(CachingFileSnapshotter snapshotter) {
-        return new CrossBuildInMemoryCachingScriptClassCache(snapshotter);
+    protected CrossBuildInMemoryCachingScriptClassCache createCachingScriptCompiler(CachingFileSnapshotter snapshotter, SheddableCacheRegistry sheddableCacheRegistry) {
+        CrossBuildInMemoryCachingScriptClassCache cache = new CrossBuildInMemoryCachingScriptClassCache(snapshotter);
+        sheddableCacheRegistry.register(cache, SheddableCacheRegistry.PRIORITY_NORMAL);
+        return cache;
     }
 }
@@ -24,6 +24,7 @@ import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.options.OptionReader;
 import org.gradle.api.invocation.Gradle;
+import org.gradle.cache.CacheRepository;
 import org.gradle.execution.*;
 import org.gradle.execution.commandline.CommandLineTaskConfigurer;
 import org.gradle.execution.commandline.CommandLineTaskParser;
@@ -66,8 +67,14 @@ public class GradleScopeServices extends DefaultServiceRegistry {
         });
     }
 
-    TaskSelector createTaskSelector(GradleInternal gradle, ProjectConfigurer projectConfigurer) {
-        return new TaskSelector(gradle, projectConfigurer);
+    TaskSelectionCache createTaskSelectionCache(GradleInternal gradle, CacheRepository cacheRepository, ListenerManager listenerManager) {
+        TaskSelectionCache selectionCache = new TaskSelectionCache(gradle, cacheRepository);
+        listenerManager.addListener(selectionCache);
+        return selectionCache;
+    }
+
+    TaskSelector createTaskSelector(GradleInternal gradle, ProjectConfigurer projectConfigurer, TaskSelectionCache selectionCache) {
+        return new TaskSelector(gradle, projectConfigurer, selectionCache);
     }
 
     OptionReader createOptionReader() {
@@ -16,6 +16,7 @@
 package org.gradle.internal.service.scopes;
 
 import org.gradle.StartParameter;
+import org.gradle.api.Transformer;
 import org.gradle.api.execution.TaskActionListener;
 import org.gradle.api.execution.internal.TaskInputsListener;
 import org.gradle.api.internal.cache.StringInterner;
@@ -30,6 +31,7 @@ import org.gradle.api.internal.tasks.TaskExecuter;
 import org.gradle.api.internal.tasks.execution.*;
 import org.gradle.api.invocation.Gradle;
 import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.internal.CacheDecorator;
 import org.gradle.execution.taskgraph.TaskPlanExecutor;
 import org.gradle.execution.taskgraph.TaskPlanExecutorFactory;
@@ -43,6 +45,10 @@ import org.gradle.internal.operations.DefaultBuildOperationProcessor;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.serialize.DefaultSerializerRegistry;
 import org.gradle.internal.serialize.SerializerRegistry;
+import org.gradle.internal.service.ServiceRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public class TaskExecutionServices {
 
@@ -91,8 +97,9 @@ public class TaskExecutionServices {
         return new CachingTreeVisitor();
     }
 
-    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileSnapshotter fileSnapshotter,
-                                                                  StringInterner stringInterner, FileResolver fileResolver, FileSystem fileSystem, FileCollectionFactory fileCollectionFactory, CachingTreeVisitor treeVisitor) {
+    TaskArtifactStateRepository createTaskArtifactStateRepository(Instantiator instantiator, final TaskArtifactStateCacheAccess cacheAccess, StartParameter startParameter, FileSnapshotter fileSnapshotter,
+                                                                  final StringInterner stringInterner, final FileResolver fileResolver, FileSystem fileSystem, FileCollectionFactory fileCollectionFactory, final CachingTreeVisitor treeVisitor,
+                                                                  ServiceRegistry serviceRegistry) {
         FileCollectionSnapshotter fileCollectionSnapshotter = new DefaultFileCollectionSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, treeVisitor);
         FileCollectionSnapshotter discoveredFileCollectionSnapshotter = new MinimalFileSetSnapshotter(fileSnapshotter, cacheAccess, stringInterner, fileResolver, fileSystem);
 
@@ -118,7 +125,23 @@ public class TaskExecutionServices {
                 outputFilesSnapshotter,
                 fileCollectionSnapshotter,
                 discoveredFileCollectionSnapshotter,
-                fileCollectionFactory
+                fileCollectionFactory,
+                new Transformer<FileCollectionSnapshotter, InputFilesNormalizer>() {
+                    // One cache per kind of normalizer, whatever its variant
+                    private final Map<String, PersistentIndexedCache<String, CachingFileSnapshotter.FileInfo>> hashCaches = new HashMap<String, PersistentIndexedCache<String, CachingFileSnapshotter.FileInfo>>();
+
+                    public synchronized FileCollectionSnapshotter transform(InputFilesNormalizer normalizer) {
+                        PersistentIndexedCache<String, CachingFileSnapshotter.FileInfo> hashCache = hashCaches.get(normalizer.getName());
+                        if (hashCache == null) {
+                            hashCache = CachingFileSnapshotter.createCache(cacheAccess, "fileHashes-" + normalizer.getName());
+                            hashCaches.put(normalizer.getName(), hashCache);
+                        }
+                        String keyPrefix = normalizer.getVariant().isEmpty() ? "" : normalizer.getVariant() + ":";
+                        FileSnapshotter normalizingSnapshotter = new CachingFileSnapshotter(normalizer, hashCache, stringInterner, keyPrefix);
+                        return new DefaultFileCollectionSnapshotter(normalizingSnapshotter, cacheAccess, stringInterner, fileResolver, treeVisitor);
+                    }
+                },
+                serviceRegistry.getAll(InputFilesNormalizerProvider.class)
             )
         );
     }
@@ -347,7 +347,7 @@ public class DefaultExecHandle implements ExecHandle, ProcessSettings {
         return timeoutMillis;
     }
 
-    private static class ExecResultImpl implements ExecResult {
+    static class ExecResultImpl implements ExecResult {
         private final int exitValue;
         private final ExecException failure;
         private final String displayName;
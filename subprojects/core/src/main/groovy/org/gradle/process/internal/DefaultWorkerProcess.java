@@ -164,6 +164,44 @@ public class DefaultWorkerProcess implements WorkerProcess {
         }
     }
 
+    public boolean isRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void abort() {
+        ExecHandle execHandle;
+        lock.lock();
+        try {
+            if (!running) {
+                return;
+            }
+            execHandle = this.execHandle;
+        } finally {
+            lock.unlock();
+        }
+        if (execHandle == null || !isAbortable(execHandle.getState())) {
+            // Not started yet, or already finished
+            return;
+        }
+        try {
+            execHandle.abort();
+        } catch (IllegalStateException e) {
+            // The process finished concurrently
+            if (isAbortable(execHandle.getState())) {
+                throw e;
+            }
+        }
+    }
+
+    private static boolean isAbortable(ExecHandleState state) {
+        return state == ExecHandleState.STARTED || state == ExecHandleState.DETACHED;
+    }
+
     private void cleanup() {
         CompositeStoppable stoppable;
         lock.lock();
@@ -17,6 +17,8 @@
 package org.gradle.process.internal;
 
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.Transformer;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.file.TemporaryFileProvider;
 import org.gradle.api.logging.LogLevel;
@@ -28,12 +30,15 @@ import org.gradle.messaging.remote.ConnectionAcceptor;
 import org.gradle.messaging.remote.MessagingServer;
 import org.gradle.messaging.remote.ObjectConnection;
 import org.gradle.process.internal.child.ApplicationClassesInSystemClassLoaderWorkerFactory;
+import org.gradle.process.internal.child.ClassDataSharingArchives;
+import org.gradle.process.internal.child.PooledWorkerSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.net.URL;
 import java.util.List;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder> {
@@ -44,16 +49,28 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
     private final File gradleUserHomeDir;
     private final ExecHandleFactory execHandleFactory;
     private final ApplicationClassesInSystemClassLoaderWorkerFactory workerFactory;
+    private final WorkerProcessPool workerProcessPool;
     private int connectTimeoutSeconds = 120;
 
     public DefaultWorkerProcessFactory(LogLevel workerLogLevel, MessagingServer server, ClassPathRegistry classPathRegistry, IdGenerator<?> idGenerator,
                                        File gradleUserHomeDir, TemporaryFileProvider temporaryFileProvider, ExecHandleFactory execHandleFactory) {
+        this(workerLogLevel, server, classPathRegistry, idGenerator, gradleUserHomeDir, temporaryFileProvider, execHandleFactory, null, null);
+    }
+
+    /**
+     * @param workerProcessPool The pool to run reusable workers in, or null to start a new process for every worker.
+     * @param classDataSharingArchives The class data sharing archives for worker processes to use, or null to not use class data sharing.
+     */
+    public DefaultWorkerProcessFactory(LogLevel workerLogLevel, MessagingServer server, ClassPathRegistry classPathRegistry, IdGenerator<?> idGenerator,
+                                       File gradleUserHomeDir, TemporaryFileProvider temporaryFileProvider, ExecHandleFactory execHandleFactory,
+                                       @Nullable WorkerProcessPool workerProcessPool, @Nullable ClassDataSharingArchives classDataSharingArchives) {
+        this.workerProcessPool = workerProcessPool;
         this.workerLogLevel = workerLogLevel;
         this.server = server;
         this.idGenerator = idGenerator;
         this.gradleUserHomeDir = gradleUserHomeDir;
         this.execHandleFactory = execHandleFactory;
-        workerFactory = new ApplicationClassesInSystemClassLoaderWorkerFactory(classPathRegistry, temporaryFileProvider);
+        workerFactory = new ApplicationClassesInSystemClassLoaderWorkerFactory(classPathRegistry, temporaryFileProvider, classDataSharingArchives);
     }
 
     public void setConnectTimeoutSeconds(int connectTimeoutSeconds) {
@@ -77,6 +94,10 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
                 throw new IllegalStateException("No worker action specified for this worker process.");
             }
 
+            if (isReusable() && workerProcessPool != null) {
+                return buildPooled();
+            }
+
             final DefaultWorkerProcess workerProcess = new DefaultWorkerProcess(connectTimeoutSeconds, TimeUnit.SECONDS);
             ConnectionAcceptor acceptor = server.accept(new Action<ObjectConnection>() {
                 public void execute(ObjectConnection connection) {
@@ -107,5 +128,37 @@ public class DefaultWorkerProcessFactory implements Factory<WorkerProcessBuilder
 
             return workerProcess;
         }
+
+        private WorkerProcess buildPooled() {
+            final List<URL> implementationClassPath = ClasspathUtil.getClasspath(getWorker().getClass().getClassLoader());
+            final Object id = idGenerator.generateId();
+            final String displayName = getBaseName() + " " + id;
+
+            LOGGER.debug("Creating {} in a pooled worker process", displayName);
+            LOGGER.debug("Using application classpath {}", getApplicationClasspath());
+            LOGGER.debug("Using implementation classpath {}", implementationClassPath);
+
+            final JavaExecHandleBuilder javaCommand = getJavaCommand();
+            final LogLevel logLevel = getLogLevel();
+            String key = logLevel + "\n" + javaCommand.getExecutable() + "\n" + javaCommand.getAllJvmArgs() + "\n" + new TreeMap<String, Object>(javaCommand.getEnvironment()) + "\n" + javaCommand.getWorkingDir();
+            Factory<PooledWorker> agentFactory = new Factory<PooledWorker>() {
+                public PooledWorker create() {
+                    WorkerProcessBuilder agentBuilder = new DefaultWorkerProcessBuilder();
+                    agentBuilder.setLogLevel(logLevel);
+                    JavaExecHandleBuilder agentCommand = agentBuilder.getJavaCommand();
+                    agentCommand.setExecutable(javaCommand.getExecutable());
+                    agentCommand.jvmArgs(javaCommand.getAllJvmArgs());
+                    agentCommand.setEnvironment(javaCommand.getEnvironment());
+                    agentCommand.setWorkingDir(javaCommand.getWorkingDir());
+                    return PooledWorker.start(agentBuilder);
+                }
+            };
+            Transformer<PooledWorkerSession, Address> sessionFactory = new Transformer<PooledWorkerSession, Address>() {
+                public PooledWorkerSession transform(Address address) {
+                    return workerFactory.createPooledWorkerSession(id, displayName, DefaultWorkerProcessBuilder.this, implementationClassPath, address);
+                }
+            };
+            return new PooledWorkerProcess(displayName, key, workerProcessPool, agentFactory, sessionFactory, server, javaCommand.getListeners(), connectTimeoutSeconds, TimeUnit.SECONDS);
+        }
     }
 }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.child.PooledWorkerAgent;
+import org.gradle.process.internal.child.PooledWorkerControl;
+import org.gradle.process.internal.child.PooledWorkerListener;
+import org.gradle.process.internal.child.PooledWorkerSession;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A worker process running a {@link PooledWorkerAgent}, which can execute worker actions one after the other.
+ */
+class PooledWorker implements PooledWorkerListener, Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(PooledWorker.class);
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private String displayName;
+    private WorkerProcess process;
+    private PooledWorkerControl control;
+    private boolean running = true;
+    private SessionResult result;
+    private int uses;
+
+
+    /**
+     * Starts a pooled worker process using the given builder, which should not yet have been configured with a worker action.
+     */
+    static PooledWorker start(WorkerProcessBuilder builder) {
+        builder.setBaseName("Gradle Pooled Worker");
+        builder.worker(new PooledWorkerAgent());
+        final PooledWorker worker = new PooledWorker();
+        builder.getJavaCommand().listener(new ExecHandleListener() {
+            public void executionStarted(ExecHandle execHandle) {
+            }
+
+            public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+                worker.processStopped();
+            }
+        });
+        worker.process = builder.build();
+        worker.displayName = builder.getJavaCommand().getDisplayName();
+        worker.process.start();
+        ObjectConnection connection = worker.process.getConnection();
+        connection.addIncoming(PooledWorkerListener.class, worker);
+        worker.control = connection.addOutgoing(PooledWorkerControl.class);
+        connection.connect();
+        return worker;
+    }
+
+    public int getUses() {
+        lock.lock();
+        try {
+            return uses;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isRunning() {
+        lock.lock();
+        try {
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts executing the given worker action. Does not block.
+     */
+    public void runSession(PooledWorkerSession session) {
+        lock.lock();
+        try {
+            uses++;
+            result = null;
+        } finally {
+            lock.unlock();
+        }
+        control.runSession(session);
+    }
+
+    /**
+     * Returns true when the current worker action has completed, or the process has stopped.
+     */
+    public boolean isSessionCompleted() {
+        lock.lock();
+        try {
+            return result != null || !running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the current worker action has completed. Returns null when the process stopped before the worker action completed.
+     */
+    @Nullable
+    public SessionResult waitForSession() {
+        lock.lock();
+        try {
+            while (result == null && running) {
+                condition.await();
+            }
+            return result;
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void sessionCompleted(long usedHeap, long maxHeap, @Nullable String failure, boolean reusable) {
+        lock.lock();
+        try {
+            result = new SessionResult(usedHeap, maxHeap, failure, reusable);
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void processStopped() {
+        lock.lock();
+        try {
+            running = false;
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        try {
+            if (isRunning()) {
+                control.stop();
+            }
+            process.waitForStop();
+        } catch (Exception e) {
+            LOGGER.debug("Could not stop {}.", displayName, e);
+        }
+    }
+
+    /**
+     * Stops the process without waiting for the current worker action to complete.
+     */
+    public void abort() {
+        process.abort();
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+
+    static class SessionResult {
+        final long usedHeap;
+        final long maxHeap;
+        final String failure;
+        final boolean reusable;
+
+        SessionResult(long usedHeap, long maxHeap, String failure, boolean reusable) {
+            this.usedHeap = usedHeap;
+            this.maxHeap = maxHeap;
+            this.failure = failure;
+            this.reusable = reusable;
+        }
+    }
+}
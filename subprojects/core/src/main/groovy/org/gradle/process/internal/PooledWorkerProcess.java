@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import org.gradle.api.Action;
+import org.gradle.api.Transformer;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.messaging.remote.Address;
+import org.gradle.messaging.remote.ConnectionAcceptor;
+import org.gradle.messaging.remote.MessagingServer;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.child.PooledWorkerSession;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.lang.String.format;
+
+/**
+ * A {@link WorkerProcess} that executes its worker action in a process taken from a {@link WorkerProcessPool}, and returns the process to the pool once the worker
+ * action has completed.
+ */
+class PooledWorkerProcess implements WorkerProcess {
+    private final Lock lock = new ReentrantLock();
+    private final Condition condition = lock.newCondition();
+    private final String displayName;
+    private final String key;
+    private final WorkerProcessPool pool;
+    private final Factory<PooledWorker> workerFactory;
+    private final Transformer<PooledWorkerSession, Address> sessionFactory;
+    private final MessagingServer server;
+    private final List<ExecHandleListener> listeners;
+    private final long connectTimeout;
+    private PooledWorker worker;
+    private ConnectionAcceptor acceptor;
+    private ObjectConnection connection;
+
+    PooledWorkerProcess(String displayName, String key, WorkerProcessPool pool, Factory<PooledWorker> workerFactory, Transformer<PooledWorkerSession, Address> sessionFactory,
+                        MessagingServer server, List<ExecHandleListener> listeners, int connectTimeoutValue, TimeUnit connectTimeoutUnits) {
+        this.displayName = displayName;
+        this.key = key;
+        this.pool = pool;
+        this.workerFactory = workerFactory;
+        this.sessionFactory = sessionFactory;
+        this.server = server;
+        this.listeners = listeners;
+        this.connectTimeout = connectTimeoutUnits.toMillis(connectTimeoutValue);
+    }
+
+    @Override
+    public void start() {
+        worker = pool.acquire(key);
+        if (worker == null) {
+            worker = workerFactory.create();
+        }
+        acceptor = server.accept(new Action<ObjectConnection>() {
+            public void execute(ObjectConnection connection) {
+                onConnect(connection);
+            }
+        });
+        worker.runSession(sessionFactory.transform(acceptor.getAddress()));
+
+        long connectExpiry = System.currentTimeMillis() + connectTimeout;
+        lock.lock();
+        try {
+            while (connection == null && !worker.isSessionCompleted()) {
+                long remaining = connectExpiry - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                // Poll, so that a worker action that fails before it connects is noticed
+                condition.await(Math.min(remaining, 100), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            lock.unlock();
+        }
+        if (connection == null) {
+            if (worker.isSessionCompleted()) {
+                // Rethrows the failure of the worker action, if any
+                waitForStop();
+            }
+            // The worker action may still connect or run later, so the process cannot be reused
+            worker.abort();
+            CompositeStoppable.stoppable(acceptor).stop();
+            throw new ExecException(format("Never received a connection from %s running in %s.", displayName, worker));
+        }
+    }
+
+    private void onConnect(ObjectConnection connection) {
+        ConnectionAcceptor stoppable;
+        lock.lock();
+        try {
+            this.connection = connection;
+            condition.signalAll();
+            stoppable = acceptor;
+        } finally {
+            lock.unlock();
+        }
+        stoppable.requestStop();
+    }
+
+    @Override
+    public ObjectConnection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public ExecResult waitForStop() {
+        PooledWorker.SessionResult result = worker.waitForSession();
+        CompositeStoppable.stoppable(acceptor, connection).stop();
+
+        ExecResult execResult;
+        if (result == null) {
+            execResult = new DefaultExecHandle.ExecResultImpl(1, new ExecException(format("Process '%s' running %s finished unexpectedly.", worker, displayName)), displayName);
+        } else {
+            if (result.failure != null) {
+                execResult = new DefaultExecHandle.ExecResultImpl(1, new ExecException(format("Could not execute %s in %s: %s", displayName, worker, result.failure)), displayName);
+            } else {
+                execResult = new DefaultExecHandle.ExecResultImpl(0, null, displayName);
+            }
+            if (result.reusable) {
+                pool.release(key, worker, result.usedHeap, result.maxHeap);
+            } else {
+                worker.stop();
+            }
+        }
+        for (ExecHandleListener listener : listeners) {
+            listener.executionFinished(null, execResult);
+        }
+        return execResult.rethrowFailure().assertNormalExitValue();
+    }
+
+    @Override
+    public boolean isRunning() {
+        PooledWorker worker = this.worker;
+        return worker != null && worker.isRunning() && !worker.isSessionCompleted();
+    }
+
+    @Override
+    public void abort() {
+        // The process cannot be reused, so is not returned to the pool
+        if (worker != null) {
+            worker.abort();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
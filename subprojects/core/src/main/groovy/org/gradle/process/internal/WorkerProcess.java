@@ -32,4 +32,15 @@ public interface WorkerProcess {
     ObjectConnection getConnection();
 
     ExecResult waitForStop();
+
+    /**
+     * Returns true when the worker process has been started and has not yet stopped.
+     */
+    boolean isRunning();
+
+    /**
+     * Stops the worker process as quickly as possible, without waiting for the worker action to complete. Does nothing when the process has
+     * already stopped.
+     */
+    void abort();
 }
@@ -33,6 +33,9 @@ import java.util.Set;
  *
  * <p>A worker process can optionally specify an application classpath. The classes of this classpath are loaded into an isolated ClassLoader, which is made visible to the worker action ClassLoader.
  * Only the packages specified in the set of shared packages are visible to the worker action ClassLoader.</p>
+ *
+ * <p>A worker process can optionally be marked as reusable. A reusable worker action may be executed in a pooled process that outlives the action, in which case the
+ * application classes are loaded by a ClassLoader created for the action rather than by the system ClassLoader.</p>
  */
 public abstract class WorkerProcessBuilder {
     private final JavaExecHandleBuilder javaCommand;
@@ -42,6 +45,7 @@ public abstract class WorkerProcessBuilder {
     private LogLevel logLevel = LogLevel.LIFECYCLE;
     private String baseName = "Gradle Worker";
     private File gradleUserHomeDir;
+    private boolean reusable;
 
     public WorkerProcessBuilder(JavaExecHandleBuilder javaCommand) {
         this.javaCommand = javaCommand;
@@ -108,5 +112,13 @@ public abstract class WorkerProcessBuilder {
         this.gradleUserHomeDir = gradleUserHomeDir;
     }
 
+    public boolean isReusable() {
+        return reusable;
+    }
+
+    public void setReusable(boolean reusable) {
+        this.reusable = reusable;
+    }
+
     public abstract WorkerProcess build();
 }
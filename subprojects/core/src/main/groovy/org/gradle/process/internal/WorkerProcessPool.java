@@ -0,0 +1,88 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import org.gradle.api.Nullable;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A pool of idle worker processes that can execute reusable worker actions, keyed by the options used to start the process. Workers are discarded once they have
+ * executed a given number of worker actions, or when their heap usage after a worker action exceeds a given percentage of their maximum heap.
+ */
+public class WorkerProcessPool implements Stoppable {
+    static final int DEFAULT_MAX_USES = 50;
+    static final int DEFAULT_MAX_HEAP_USAGE_PERCENT = 75;
+    private final int maxUses;
+    private final int maxHeapUsagePercent;
+    private final ListMultimap<String, PooledWorker> idleWorkers = ArrayListMultimap.create();
+    private boolean stopped;
+
+    public WorkerProcessPool() {
+        this(DEFAULT_MAX_USES, DEFAULT_MAX_HEAP_USAGE_PERCENT);
+    }
+
+    WorkerProcessPool(int maxUses, int maxHeapUsagePercent) {
+        this.maxUses = maxUses;
+        this.maxHeapUsagePercent = maxHeapUsagePercent;
+    }
+
+    /**
+     * Takes an idle worker with the given key from the pool, or returns null when there is none.
+     */
+    @Nullable
+    synchronized PooledWorker acquire(String key) {
+        List<PooledWorker> workers = idleWorkers.get(key);
+        while (!workers.isEmpty()) {
+            PooledWorker worker = workers.remove(workers.size() - 1);
+            if (worker.isRunning()) {
+                return worker;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a worker to the pool once it has completed a worker action, or stops it when it should not be reused.
+     */
+    void release(String key, PooledWorker worker, long usedHeap, long maxHeap) {
+        boolean reuse = worker.isRunning() && worker.getUses() < maxUses && (maxHeap <= 0 || usedHeap * 100 < maxHeap * maxHeapUsagePercent);
+        synchronized (this) {
+            if (reuse && !stopped) {
+                idleWorkers.put(key, worker);
+                return;
+            }
+        }
+        worker.stop();
+    }
+
+    @Override
+    public void stop() {
+        List<PooledWorker> workers;
+        synchronized (this) {
+            stopped = true;
+            workers = new ArrayList<PooledWorker>(idleWorkers.values());
+            idleWorkers.clear();
+        }
+        CompositeStoppable.stoppable(workers).stop();
+    }
+}
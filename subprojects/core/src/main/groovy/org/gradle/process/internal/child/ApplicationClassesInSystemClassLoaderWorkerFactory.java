@@ -17,10 +17,10 @@
 package org.gradle.process.internal.child;
 
 import com.google.common.base.Joiner;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.ClassPathRegistry;
 import org.gradle.api.internal.file.TemporaryFileProvider;
-import org.gradle.api.logging.LogLevel;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.internal.jvm.Jvm;
 import org.gradle.internal.process.ArgWriter;
@@ -61,16 +61,21 @@ import java.util.*;
 public class ApplicationClassesInSystemClassLoaderWorkerFactory implements WorkerFactory {
     private final ClassPathRegistry classPathRegistry;
     private final TemporaryFileProvider temporaryFileProvider;
+    private final ClassDataSharingArchives classDataSharingArchives;
 
-    public ApplicationClassesInSystemClassLoaderWorkerFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider) {
+    /**
+     * @param classDataSharingArchives The class data sharing archives for worker processes to use, or null to not use class data sharing.
+     */
+    public ApplicationClassesInSystemClassLoaderWorkerFactory(ClassPathRegistry classPathRegistry, TemporaryFileProvider temporaryFileProvider,
+                                                              @Nullable ClassDataSharingArchives classDataSharingArchives) {
         this.classPathRegistry = classPathRegistry;
         this.temporaryFileProvider = temporaryFileProvider;
+        this.classDataSharingArchives = classDataSharingArchives;
     }
 
     @Override
     public void prepareJavaCommand(Object workerId, String displayName, WorkerProcessBuilder processBuilder, List<URL> implementationClassPath, Address serverAddress, JavaExecHandleBuilder execSpec) {
         Collection<File> applicationClasspath = processBuilder.getApplicationClasspath();
-        LogLevel logLevel = processBuilder.getLogLevel();
         Set<String> sharedPackages = processBuilder.getSharedPackages();
         Object requestedSecurityManager = execSpec.getSystemProperties().get("java.security.manager");
         ClassPath workerMainClassPath = classPathRegistry.getClassPath("WORKER_MAIN");
@@ -80,10 +85,12 @@ public class ApplicationClassesInSystemClassLoaderWorkerFactory implements Worke
         // This check is not quite right. Should instead probe the version of the requested executable and use options file if it is Java 9 or later, regardless of
         // the version of this JVM
         boolean useOptionsFile = Jvm.current().getJavaVersion().isJava9Compatible() && execSpec.getExecutable().equals(Jvm.current().getJavaExecutable().getPath());
+        List<File> systemClasspath = new ArrayList<File>(workerMainClassPath.getAsFiles());
         if (useOptionsFile) {
             // Use an options file to pass across application classpath
+            systemClasspath.addAll(applicationClasspath);
             File optionsFile = temporaryFileProvider.createTemporaryFile("gradle-worker-classpath", "txt");
-            List<String> jvmArgs = writeOptionsFile(workerMainClassPath.getAsFiles(), applicationClasspath, optionsFile);
+            List<String> jvmArgs = writeOptionsFile(systemClasspath, optionsFile);
             execSpec.jvmArgs(jvmArgs);
         } else {
             // Use a dummy security manager, which hacks the application classpath into the system ClassLoader
@@ -91,6 +98,10 @@ public class ApplicationClassesInSystemClassLoaderWorkerFactory implements Worke
             execSpec.systemProperty("java.security.manager", "jarjar." + BootstrapSecurityManager.class.getName());
         }
 
+        if (classDataSharingArchives != null) {
+            classDataSharingArchives.configure(execSpec, systemClasspath);
+        }
+
         // Serialize configuration for the worker process to it stdin
 
         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
@@ -118,17 +129,7 @@ public class ApplicationClassesInSystemClassLoaderWorkerFactory implements Worke
                 outstr.writeUTF(entry.toString());
             }
 
-            // Serialize the worker config, this is consumed by SystemApplicationClassLoaderWorker
-            OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(outstr);
-            encoder.writeSmallInt(logLevel.ordinal());
-            new MultiChoiceAddressSerializer().write(encoder, (MultiChoiceAddress) serverAddress);
-
-            // Serialize the worker, this is consumed by SystemApplicationClassLoaderWorker
-            ActionExecutionWorker worker = new ActionExecutionWorker(processBuilder.getWorker(), workerId, displayName, processBuilder.getGradleUserHomeDir());
-            byte[] serializedWorker = GUtil.serialize(worker);
-            encoder.writeBinary(serializedWorker);
-
-            encoder.flush();
+            writeWorkerConfig(workerId, displayName, processBuilder, serverAddress, outstr);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
@@ -136,10 +137,35 @@ public class ApplicationClassesInSystemClassLoaderWorkerFactory implements Worke
         execSpec.setStandardInput(new ByteArrayInputStream(encodedConfig));
     }
 
-    private List<String> writeOptionsFile(Collection<File> workerMainClassPath, Collection<File> applicationClasspath, File optionsFile) {
-        List<File> classpath = new ArrayList<File>(workerMainClassPath.size() + applicationClasspath.size());
-        classpath.addAll(workerMainClassPath);
-        classpath.addAll(applicationClasspath);
+    /**
+     * Creates the configuration for running the given worker in a pooled worker process. See {@link PooledWorkerAgent}.
+     */
+    public PooledWorkerSession createPooledWorkerSession(Object workerId, String displayName, WorkerProcessBuilder processBuilder, List<URL> implementationClassPath, Address serverAddress) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            writeWorkerConfig(workerId, displayName, processBuilder, serverAddress, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new PooledWorkerSession(displayName, new ArrayList<File>(processBuilder.getApplicationClasspath()), new ArrayList<String>(processBuilder.getSharedPackages()),
+            implementationClassPath, bytes.toByteArray());
+    }
+
+    private void writeWorkerConfig(Object workerId, String displayName, WorkerProcessBuilder processBuilder, Address serverAddress, OutputStream outstr) throws IOException {
+        // Serialize the worker config, this is consumed by SystemApplicationClassLoaderWorker
+        OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(outstr);
+        encoder.writeSmallInt(processBuilder.getLogLevel().ordinal());
+        new MultiChoiceAddressSerializer().write(encoder, (MultiChoiceAddress) serverAddress);
+
+        // Serialize the worker, this is consumed by SystemApplicationClassLoaderWorker
+        ActionExecutionWorker worker = new ActionExecutionWorker(processBuilder.getWorker(), workerId, displayName, processBuilder.getGradleUserHomeDir());
+        byte[] serializedWorker = GUtil.serialize(worker);
+        encoder.writeBinary(serializedWorker);
+
+        encoder.flush();
+    }
+
+    private List<String> writeOptionsFile(Collection<File> classpath, File optionsFile) {
         return ArgWriter.argsFileGenerator(optionsFile, ArgWriter.unixStyleFactory()).transform(Arrays.asList("-cp", Joiner.on(File.pathSeparator).join(classpath)));
     }
 }
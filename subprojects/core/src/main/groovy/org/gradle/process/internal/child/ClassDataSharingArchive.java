@@ -0,0 +1,268 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+import com.google.common.base.Joiner;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.cache.PersistentCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleBuilder;
+import org.gradle.process.internal.ExecHandleListener;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Manages a class data sharing archive for worker processes that use a given JVM and system classpath, so that workers can map the
+ * classes they load at startup from a shared, read-only file rather than loading and verifying them again in each process.
+ *
+ * <p>The archive is created in two steps. The first worker started for a given classpath records the classes it loads, and the list is made
+ * available once that worker has completed successfully. The archive is then dumped from that list in the background, and workers use it once
+ * it is available. Until then, workers load classes as usual. A JVM that cannot use the archive falls back to loading classes as usual. Which
+ * classes can be archived depends on the JVM: older JVMs only archive the classes of the Java platform, while later JVMs also archive the
+ * classes on the system classpath.</p>
+ *
+ * <p>The files are kept in the given cache, and are only inspected or changed while holding the cache's lock.</p>
+ *
+ * <p>This is opt-in, and is enabled by setting the {@value #ENABLED_PROPERTY} system property to {@code true} in the build process.</p>
+ */
+class ClassDataSharingArchive {
+    static final String ENABLED_PROPERTY = "org.gradle.workers.classdatasharing";
+    private static final Logger LOGGER = Logging.getLogger(ClassDataSharingArchive.class);
+
+    private final PersistentCache cache;
+    private final Executor executor;
+    private final File dir;
+    private final File javaExecutable;
+    private final List<File> classpath;
+    private final File archive;
+    private final File classList;
+    private final File recordingMarker;
+    private final File failedMarker;
+    private boolean dumpScheduled;
+    private boolean recording;
+    private boolean stopped;
+
+    ClassDataSharingArchive(PersistentCache cache, Executor executor, File javaExecutable, Collection<File> classpath) {
+        this.cache = cache;
+        this.executor = executor;
+        this.javaExecutable = javaExecutable;
+        this.classpath = Arrays.asList(classpath.toArray(new File[0]));
+        this.dir = new File(cache.getBaseDir(), key(javaExecutable, this.classpath));
+        this.archive = new File(dir, "classes.jsa");
+        this.classList = new File(dir, "classes.lst");
+        this.recordingMarker = new File(dir, "recording");
+        this.failedMarker = new File(dir, "dump-failed");
+    }
+
+    static String key(File javaExecutable, Collection<File> classpath) {
+        return HashUtil.createCompactMD5(javaExecutable.getAbsolutePath() + File.pathSeparator + Joiner.on(File.pathSeparator).join(classpath));
+    }
+
+    static boolean isEnabled() {
+        return "true".equals(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * Returns true when a JVM with the given {@code java.version} and {@code java.vm.name} can record the classes it loads and dump and use
+     * an archive of them. This is the case for HotSpot JVMs from Java 8 update 40.
+     */
+    static boolean isSupported(String javaVersion, String vmName) {
+        if (javaVersion == null || vmName == null || !(vmName.contains("HotSpot") || vmName.startsWith("OpenJDK"))) {
+            return false;
+        }
+        String[] parts = javaVersion.split("[._+-]");
+        try {
+            int major = Integer.parseInt(parts[0]);
+            if (major > 1) {
+                return major >= 9;
+            }
+            int minor = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+            if (minor != 8) {
+                return minor > 8;
+            }
+            return parts.length > 3 && Integer.parseInt(parts[3]) >= 40;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Adds the JVM arguments a worker process should use to record the classes it loads or to use the archive. Schedules the creation of the
+     * archive, when required.
+     */
+    void configure(JavaExecHandleBuilder execSpec) {
+        final File partialClassList = new File(dir, "classes-" + System.nanoTime() + ".lst.tmp");
+        List<String> jvmArgs = cache.useCache("configure worker class data sharing", new Factory<List<String>>() {
+            public List<String> create() {
+                return jvmArgs(partialClassList);
+            }
+        });
+        execSpec.jvmArgs(jvmArgs);
+        if (jvmArgs.contains(recordArg(partialClassList))) {
+            execSpec.listener(new ClassListPublisher(partialClassList));
+        }
+    }
+
+    private List<String> jvmArgs(File partialClassList) {
+        if (failedMarker.exists()) {
+            return Collections.emptyList();
+        }
+        if (archive.exists()) {
+            return Arrays.asList("-XX:+UnlockDiagnosticVMOptions", "-XX:SharedArchiveFile=" + archive.getAbsolutePath(), "-Xshare:auto");
+        }
+        if (classList.exists()) {
+            scheduleDump();
+            return Collections.emptyList();
+        }
+        if (recordingMarker.exists() || !(dir.isDirectory() || dir.mkdirs()) || !createNewFile(recordingMarker)) {
+            // Another worker is already recording the classes it loads
+            return Collections.emptyList();
+        }
+        synchronized (this) {
+            recording = true;
+        }
+        return Collections.singletonList(recordArg(partialClassList));
+    }
+
+    private static String recordArg(File classList) {
+        return "-XX:DumpLoadedClassList=" + classList.getAbsolutePath();
+    }
+
+    private void scheduleDump() {
+        synchronized (this) {
+            if (dumpScheduled) {
+                return;
+            }
+            dumpScheduled = true;
+        }
+        executor.execute(new Runnable() {
+            public void run() {
+                dump();
+            }
+        });
+    }
+
+    private void dump() {
+        final File tmpArchive = new File(dir, "classes-" + System.nanoTime() + ".jsa.tmp");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ExecHandleBuilder builder = new ExecHandleBuilder();
+        builder.setWorkingDir(dir.getAbsolutePath());
+        builder.setCommandLine(javaExecutable.getAbsolutePath(),
+            "-Xshare:dump",
+            "-XX:+UnlockDiagnosticVMOptions",
+            "-XX:SharedClassListFile=" + classList.getAbsolutePath(),
+            "-XX:SharedArchiveFile=" + tmpArchive.getAbsolutePath(),
+            "-cp", Joiner.on(File.pathSeparator).join(classpath));
+        builder.setStandardOutput(output);
+        builder.setErrorOutput(output);
+        builder.setIgnoreExitValue(true);
+        final ExecResult result = builder.build().start().waitForFinish();
+        boolean created = cache.useCache("publish worker class data sharing archive", new Factory<Boolean>() {
+            public Boolean create() {
+                if (result.getExitValue() == 0 && tmpArchive.isFile() && (archive.exists() || tmpArchive.renameTo(archive))) {
+                    return true;
+                }
+                tmpArchive.delete();
+                if (!archive.exists()) {
+                    createNewFile(failedMarker);
+                }
+                return archive.exists();
+            }
+        });
+        if (created) {
+            LOGGER.debug("Created class data sharing archive {} for worker processes.", archive);
+        } else {
+            LOGGER.info("Could not create class data sharing archive {} for worker processes, worker processes will load classes as usual.\n{}", archive, output);
+        }
+    }
+
+    /**
+     * Stops using the cache. A worker still recording the classes it loads is abandoned, so that a worker of a later build can record them.
+     */
+    void stop() {
+        synchronized (this) {
+            stopped = true;
+            if (!recording) {
+                return;
+            }
+            recording = false;
+        }
+        cache.useCache("abandon worker class list", new Runnable() {
+            public void run() {
+                if (!classList.exists()) {
+                    recordingMarker.delete();
+                }
+            }
+        });
+    }
+
+    private static boolean createNewFile(File file) {
+        try {
+            return file.createNewFile();
+        } catch (IOException e) {
+            LOGGER.debug("Could not create {}.", file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Publishes the list recorded by a worker process once it has completed successfully, so that the archive is never created from a partial list.
+     */
+    private class ClassListPublisher implements ExecHandleListener {
+        private final File partialClassList;
+
+        ClassListPublisher(File partialClassList) {
+            this.partialClassList = partialClassList;
+        }
+
+        public void executionStarted(ExecHandle execHandle) {
+        }
+
+        public void executionFinished(ExecHandle execHandle, final ExecResult execResult) {
+            synchronized (ClassDataSharingArchive.this) {
+                if (stopped) {
+                    return;
+                }
+                recording = false;
+            }
+            cache.useCache("publish worker class list", new Runnable() {
+                public void run() {
+                    if (execResult.getExitValue() == 0 && partialClassList.length() > 0 && !classList.exists() && partialClassList.renameTo(classList)) {
+                        return;
+                    }
+                    partialClassList.delete();
+                    if (!classList.exists()) {
+                        // Let another worker record the classes it loads
+                        recordingMarker.delete();
+                    }
+                }
+            });
+        }
+    }
+}
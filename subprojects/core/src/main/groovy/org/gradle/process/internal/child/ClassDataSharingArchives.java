@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+import org.gradle.cache.CacheRepository;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.FileLockManager;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.jvm.Jvm;
+import org.gradle.process.internal.JavaExecHandleBuilder;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Provides the class data sharing archives for the worker processes of a build session. See {@link ClassDataSharingArchive}.
+ */
+public class ClassDataSharingArchives implements Stoppable {
+    private final CacheRepository cacheRepository;
+    private final ExecutorFactory executorFactory;
+    private final Map<String, ClassDataSharingArchive> archives = new HashMap<String, ClassDataSharingArchive>();
+    private PersistentCache cache;
+    private StoppableExecutor executor;
+
+    public ClassDataSharingArchives(CacheRepository cacheRepository, ExecutorFactory executorFactory) {
+        this.cacheRepository = cacheRepository;
+        this.executorFactory = executorFactory;
+    }
+
+    /**
+     * Configures the given worker process to record or to use the archive for its system classpath, when class data sharing is enabled and
+     * supported by the worker's JVM.
+     */
+    public void configure(JavaExecHandleBuilder execSpec, List<File> systemClasspath) {
+        // Only use a class data sharing archive with the current JVM, whose version and vendor are known
+        if (!ClassDataSharingArchive.isEnabled()
+            || !execSpec.getExecutable().equals(Jvm.current().getJavaExecutable().getPath())
+            || !ClassDataSharingArchive.isSupported(System.getProperty("java.version"), System.getProperty("java.vm.name"))) {
+            return;
+        }
+        archiveFor(Jvm.current().getJavaExecutable(), systemClasspath).configure(execSpec);
+    }
+
+    private synchronized ClassDataSharingArchive archiveFor(File javaExecutable, List<File> systemClasspath) {
+        String key = ClassDataSharingArchive.key(javaExecutable, systemClasspath);
+        ClassDataSharingArchive archive = archives.get(key);
+        if (archive == null) {
+            if (cache == null) {
+                cache = cacheRepository
+                    .cache("workerClassData")
+                    .withDisplayName("worker class data sharing archives")
+                    .withLockOptions(mode(FileLockManager.LockMode.None)) // Lock on demand
+                    .open();
+                executor = executorFactory.create("Worker class data sharing archive");
+            }
+            archive = new ClassDataSharingArchive(cache, executor, javaExecutable, systemClasspath);
+            archives.put(key, archive);
+        }
+        return archive;
+    }
+
+    public synchronized void stop() {
+        try {
+            for (ClassDataSharingArchive archive : archives.values()) {
+                archive.stop();
+            }
+        } finally {
+            stopCache();
+        }
+    }
+
+    private void stopCache() {
+        try {
+            // Wait for any archive being dumped before releasing the cache
+            CompositeStoppable.stoppable(executor, cache).stop();
+        } finally {
+            executor = null;
+            cache = null;
+            archives.clear();
+        }
+    }
+}
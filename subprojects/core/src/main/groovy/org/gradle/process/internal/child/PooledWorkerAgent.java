@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+import org.gradle.api.Action;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.FilteringClassLoader;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.internal.WorkerProcessContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.Serializable;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * <p>The worker action of a pooled worker process. Executes the worker actions sent to it one at a time, each in its own set of ClassLoaders.</p>
+ *
+ * <p>Class loader hierarchy for each worker action:</p>
+ * <pre>
+ *                       jvm bootstrap
+ *                             |
+ *                        jvm system
+ *                     (GradleWorkerMain)
+ *                             |
+ *                         application
+ *                    (application classes)
+ *                             |
+ *                          filter
+ *                    (shared packages)
+ *                             |
+ *                       implementation
+ *          (SystemApplicationClassLoaderWorker, logging)
+ *     (ActionExecutionWorker + worker action implementation)
+ * </pre>
+ */
+public class PooledWorkerAgent implements Action<WorkerProcessContext>, PooledWorkerControl, Serializable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PooledWorkerAgent.class);
+    private transient CountDownLatch stopped;
+    private transient PooledWorkerListener listener;
+
+    @Override
+    public void execute(WorkerProcessContext workerProcessContext) {
+        stopped = new CountDownLatch(1);
+        ObjectConnection connection = workerProcessContext.getServerConnection();
+        listener = connection.addOutgoing(PooledWorkerListener.class);
+        connection.addIncoming(PooledWorkerControl.class, this);
+        connection.connect();
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public void runSession(PooledWorkerSession session) {
+        String failure = null;
+        try {
+            execute(session);
+        } catch (Throwable t) {
+            LOGGER.error(String.format("Could not execute %s.", session.getDisplayName()), t);
+            failure = t.toString();
+        } finally {
+            Thread.interrupted();
+        }
+        boolean reusable = resetSecurityManager();
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        listener.sessionCompleted(getHeapUsedAfterGc(), heap.getMax(), failure, reusable);
+    }
+
+    /**
+     * Returns the heap in use after the most recent garbage collection of each heap pool, which excludes the garbage the worker action left
+     * behind without requesting a collection. A pool that has not been collected yet reports no usage, as it has not filled up.
+     */
+    private static long getHeapUsedAfterGc() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) {
+                continue;
+            }
+            MemoryUsage usage = pool.getCollectionUsage();
+            used += usage != null ? usage.getUsed() : pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    /**
+     * Cleans out any security manager the worker action might have installed. Returns false when the security manager does not permit this.
+     */
+    private static boolean resetSecurityManager() {
+        if (System.getSecurityManager() == null) {
+            return true;
+        }
+        try {
+            System.setSecurityManager(null);
+            return true;
+        } catch (SecurityException e) {
+            LOGGER.debug("Could not remove the security manager installed by the worker action.", e);
+            return false;
+        }
+    }
+
+    private void execute(PooledWorkerSession session) throws Exception {
+        URLClassLoader applicationClassLoader = new URLClassLoader(new DefaultClassPath(session.getApplicationClasspath()).getAsURLArray(), ClassLoader.getSystemClassLoader());
+        FilteringClassLoader filteringClassLoader = new FilteringClassLoader(applicationClassLoader);
+        for (String sharedPackage : session.getSharedPackages()) {
+            filteringClassLoader.allowPackage(sharedPackage);
+        }
+        URLClassLoader implementationClassLoader = new URLClassLoader(session.getImplementationClasspath().toArray(new URL[0]), filteringClassLoader);
+
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            Class<? extends Callable> workerClass = implementationClassLoader.loadClass(SystemApplicationClassLoaderWorker.class.getName()).asSubclass(Callable.class);
+            DataInputStream config = new DataInputStream(new ByteArrayInputStream(session.getWorkerConfig()));
+            Callable<?> worker = workerClass.getConstructor(DataInputStream.class, ClassLoader.class).newInstance(config, applicationClassLoader);
+            worker.call();
+        } finally {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            CompositeStoppable.stoppable(implementationClassLoader, applicationClassLoader).stop();
+        }
+    }
+
+    @Override
+    public void stop() {
+        stopped.countDown();
+    }
+}
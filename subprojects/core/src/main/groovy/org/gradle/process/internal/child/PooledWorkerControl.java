@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+/**
+ * Sent to a pooled worker process to execute worker actions in it.
+ */
+public interface PooledWorkerControl {
+    /**
+     * Executes the given worker action in the worker process, in ClassLoaders created for the action. Does not block.
+     */
+    void runSession(PooledWorkerSession session);
+
+    /**
+     * Stops the worker process once the current worker action, if any, has completed. Does not block.
+     */
+    void stop();
+}
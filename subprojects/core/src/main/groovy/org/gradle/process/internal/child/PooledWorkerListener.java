@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child;
+
+import org.gradle.api.Nullable;
+
+/**
+ * Receives notifications from a pooled worker process.
+ */
+public interface PooledWorkerListener {
+    /**
+     * Called when a worker action has completed.
+     *
+     * @param usedHeap The heap in use after the most recent garbage collection, once the worker action has completed, in bytes.
+     * @param maxHeap The maximum heap of the worker process, in bytes.
+     * @param failure A description of the failure, when the worker action could not be started.
+     * @param reusable Whether the process can execute further worker actions. This is not the case when the worker action left behind state that could not be cleaned up.
+     */
+    void sessionCompleted(long usedHeap, long maxHeap, @Nullable String failure, boolean reusable);
+}
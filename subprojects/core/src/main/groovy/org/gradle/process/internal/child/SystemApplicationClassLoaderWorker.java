@@ -41,12 +41,21 @@ import java.util.concurrent.Callable;
  *
  * <p> Instantiated in the implementation ClassLoader and invoked from {@link org.gradle.process.internal.launcher.GradleWorkerMain}.
  * See {@link ApplicationClassesInSystemClassLoaderWorkerFactory} for details.</p>
+ *
+ * <p>Also instantiated by {@link PooledWorkerAgent} to execute a worker action in a pooled worker process, in which case the application classes are loaded
+ * by the given application ClassLoader and logging has already been set up for the process.</p>
  */
 public class SystemApplicationClassLoaderWorker implements Callable<Void> {
     private final DataInputStream configInputStream;
+    private final ClassLoader applicationClassLoader;
 
     public SystemApplicationClassLoaderWorker(DataInputStream configInputStream) {
+        this(configInputStream, null);
+    }
+
+    public SystemApplicationClassLoaderWorker(DataInputStream configInputStream, ClassLoader applicationClassLoader) {
         this.configInputStream = configInputStream;
+        this.applicationClassLoader = applicationClassLoader;
     }
 
     public Void call() throws Exception {
@@ -60,8 +69,10 @@ public class SystemApplicationClassLoaderWorker implements Callable<Void> {
 
         // Read logging config and setup logging
         int logLevel = decoder.readSmallInt();
-        LoggingManagerInternal loggingManager = createLoggingManager();
-        loggingManager.setLevel(LogLevel.values()[logLevel]).start();
+        if (applicationClassLoader == null) {
+            LoggingManagerInternal loggingManager = createLoggingManager();
+            loggingManager.setLevel(LogLevel.values()[logLevel]).start();
+        }
 
         // Read server address and start connecting
         MultiChoiceAddress serverAddress = new MultiChoiceAddressSerializer().read(decoder);
@@ -84,7 +95,7 @@ public class SystemApplicationClassLoaderWorker implements Callable<Void> {
                 }
                 action.execute(new WorkerContext() {
                     public ClassLoader getApplicationClassLoader() {
-                        return ClassLoader.getSystemClassLoader();
+                        return applicationClassLoader == null ? ClassLoader.getSystemClassLoader() : applicationClassLoader;
                     }
 
                     @Override
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.cache
+
+import com.google.common.cache.CacheBuilder
+import spock.lang.Specification
+
+class SheddableCacheRegistryTest extends Specification {
+    def registry = new SheddableCacheRegistry()
+
+    def "returns caches in priority order"() {
+        def normal = Stub(SheddableCache)
+        def high = Stub(SheddableCache)
+        def low = Stub(SheddableCache)
+        def otherLow = Stub(SheddableCache)
+
+        when:
+        registry.register(normal, SheddableCacheRegistry.PRIORITY_NORMAL)
+        registry.register(high, SheddableCacheRegistry.PRIORITY_HIGH)
+        registry.register(low, SheddableCacheRegistry.PRIORITY_LOW)
+        registry.register(otherLow, SheddableCacheRegistry.PRIORITY_LOW)
+
+        then:
+        registry.caches == [low, otherLow, normal, high]
+    }
+
+    def "sheds fraction of guava cache"() {
+        def cache = CacheBuilder.newBuilder().build()
+        (1..10).each { cache.put(it, it) }
+
+        when:
+        SheddableCacheRegistry.shed(cache, 0.5f)
+
+        then:
+        cache.size() == 5
+
+        when:
+        SheddableCacheRegistry.shed(cache, 1)
+
+        then:
+        cache.size() == 0
+    }
+}
@@ -41,6 +41,23 @@ class CachingFileSnapshotterTest extends Specification {
         hasher = new CachingFileSnapshotter(target, cacheAccess, new StringInterner());
     }
 
+    def prefixesCacheKeyWithKeyPrefix() {
+        given:
+        def prefixed = new CachingFileSnapshotter(target, cache, new StringInterner(), "variant:")
+
+        when:
+        def result = prefixed.snapshot(file)
+
+        then:
+        result.hash == hash
+
+        and:
+        1 * cache.get("variant:" + file.getAbsolutePath()) >> null
+        1 * target.hash(file) >> hash
+        1 * cache.put("variant:" + file.getAbsolutePath(), _)
+        0 * _._
+    }
+
     def hashesFileWhenHashNotCached() {
         when:
         def result = hasher.snapshot(file)
@@ -16,12 +16,18 @@
 
 package org.gradle.configuration.project
 
+import org.gradle.api.CircularReferenceException
 import org.gradle.api.ProjectConfigurationException
 import org.gradle.api.ProjectEvaluationListener
 import org.gradle.api.internal.project.ProjectInternal
 import org.gradle.api.internal.project.ProjectStateInternal
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.atomic.AtomicInteger
+
+import static org.gradle.test.fixtures.ConcurrentTestUtil.poll
+
 public class LifecycleProjectEvaluatorTest extends Specification {
     private project = Mock(ProjectInternal)
     private listener = Mock(ProjectEvaluationListener)
@@ -60,6 +66,8 @@ public class LifecycleProjectEvaluatorTest extends Specification {
 
         then:
         1 * listener.beforeEvaluate(project)
+
+        then:
         1 * state.setExecuting(true)
 
         then:
@@ -156,4 +164,60 @@ public class LifecycleProjectEvaluatorTest extends Specification {
         0 * state.executed(_)
     }
 
+    void "waits for a project that is being evaluated by another thread"() {
+        def projectState = new ProjectStateInternal()
+        def started = new CountDownLatch(1)
+        def finish = new CountDownLatch(1)
+        def evaluations = new AtomicInteger()
+        delegate.evaluate(project, projectState) >> {
+            started.countDown()
+            finish.await()
+            evaluations.incrementAndGet()
+        }
+
+        when:
+        def evaluating = Thread.start { evaluator.evaluate(project, projectState) }
+        started.await()
+        def waiting = Thread.start { evaluator.evaluate(project, projectState) }
+        // The waiting thread only waits for the evaluating thread, which cannot finish until released below
+        poll { assert waiting.state == Thread.State.WAITING }
+        finish.countDown()
+        evaluating.join()
+        waiting.join()
+
+        then:
+        evaluations.get() == 1
+        projectState.executed
+        !projectState.executing
+    }
+
+    void "fails when projects being evaluated by different threads wait for each other"() {
+        def project2 = Mock(ProjectInternal)
+        project2.getProjectEvaluationBroadcaster() >> listener
+        def state1 = new ProjectStateInternal()
+        def state2 = new ProjectStateInternal()
+        def started1 = new CountDownLatch(1)
+        def started2 = new CountDownLatch(1)
+        delegate.evaluate(project, state1) >> {
+            started1.countDown()
+            started2.await()
+            evaluator.evaluate(project2, state2)
+        }
+        delegate.evaluate(project2, state2) >> {
+            started2.countDown()
+            started1.await()
+            evaluator.evaluate(project, state1)
+        }
+
+        when:
+        def thread1 = Thread.start { evaluator.evaluate(project, state1) }
+        def thread2 = Thread.start { evaluator.evaluate(project2, state2) }
+        thread1.join()
+        thread2.join()
+
+        then:
+        state1.executed
+        state2.executed
+        [state1, state2].count { it.failure?.cause instanceof CircularReferenceException } == 1
+    }
 }
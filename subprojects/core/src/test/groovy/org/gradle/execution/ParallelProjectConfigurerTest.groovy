@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.StartParameter
+import org.gradle.api.InvalidUserCodeException
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.api.internal.project.ProjectStateInternal
+import org.gradle.initialization.BuildCancellationToken
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import spock.lang.Specification
+
+class ParallelProjectConfigurerTest extends Specification {
+    def cancellationToken = Mock(BuildCancellationToken)
+    def delegate = Mock(ProjectConfigurer)
+    def executorFactory = new DefaultExecutorFactory()
+    def configurer = new ParallelProjectConfigurer(delegate, cancellationToken, executorFactory, 4)
+    def root = Mock(ProjectInternal)
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    def "is enabled by system property"() {
+        def startParameter = new StartParameter()
+
+        expect:
+        !ParallelProjectConfigurer.isEnabled(startParameter)
+
+        when:
+        startParameter.systemPropertiesArgs.put(ParallelProjectConfigurer.PARALLEL_CONFIGURATION_PROPERTY, "true")
+
+        then:
+        ParallelProjectConfigurer.isEnabled(startParameter)
+    }
+
+    def "configures root project before evaluating subprojects"() {
+        def children = (1..10).collect { project(":p$it") {} }
+        hierarchy(root, children)
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        1 * delegate.configure(root)
+
+        then:
+        interaction {
+            children.each { 1 * it.evaluate() }
+        }
+    }
+
+    def "configures a project only once its parent has been configured"() {
+        def events = Collections.synchronizedList([])
+        def grandChild = project(":a:b:c") { events << ":a:b:c" }
+        def child = project(":a:b", [grandChild]) { events << ":a:b" }
+        def parent = project(":a", [child]) { Thread.sleep(100); events << ":a" }
+        def sibling = project(":d") { events << ":d" }
+        hierarchy(root, [parent, sibling])
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        events.size() == 4
+        events.indexOf(":a") < events.indexOf(":a:b")
+        events.indexOf(":a:b") < events.indexOf(":a:b:c")
+    }
+
+    def "does not configure children of a project that failed"() {
+        def failure = new RuntimeException("a")
+        def child = project(":a:b") {}
+        def parent = project(":a", [child]) { throw failure }
+        hierarchy(root, [parent, project(":c") {}])
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+
+        and:
+        0 * child.evaluate()
+    }
+
+    def "rethrows project configuration failure"() {
+        def failure1 = new RuntimeException("a")
+        def failure2 = new RuntimeException("b")
+        def child1 = project(":a") { throw failure1 }
+        def child2 = project(":b") { throw failure2 }
+        hierarchy(root, [child2, child1])
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        RuntimeException e = thrown()
+        e == failure1 || e == failure2
+    }
+
+    def "rejects access to unconfigured project from the project being configured"() {
+        def target = Mock(ProjectInternal) {
+            getState() >> new ProjectStateInternal()
+        }
+        def accessor = project(":a") { configurer.beforeAccess(target) }
+        hierarchy(root, [accessor, project(":b") {}])
+
+        when:
+        configurer.configureHierarchy(root)
+
+        then:
+        thrown(InvalidUserCodeException)
+    }
+
+    def "allows access to configured project and outside of parallel configuration"() {
+        def state = new ProjectStateInternal()
+        state.executed()
+        def configured = Mock(ProjectInternal) {
+            getState() >> state
+        }
+        def unconfigured = Mock(ProjectInternal) {
+            getState() >> new ProjectStateInternal()
+        }
+
+        when:
+        configurer.beforeAccess(configured)
+        configurer.beforeAccess(unconfigured)
+
+        then:
+        noExceptionThrown()
+    }
+
+    def project(String path, Closure evaluation) {
+        return project(path, [], evaluation)
+    }
+
+    def project(String path, List<ProjectInternal> children, Closure evaluation) {
+        def project = Mock(ProjectInternal)
+        project.path >> path
+        project.evaluate() >> evaluation
+        hierarchy(project, children)
+        return project
+    }
+
+    def hierarchy(ProjectInternal parent, List<ProjectInternal> children) {
+        parent.subprojects >> children
+        parent.childProjects >> children.collectEntries { [it.path, it] }
+    }
+}
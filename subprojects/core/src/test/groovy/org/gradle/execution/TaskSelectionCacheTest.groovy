@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution
+
+import org.gradle.StartParameter
+import org.gradle.api.Task
+import org.gradle.api.internal.GradleInternal
+import org.gradle.cache.internal.CacheScopeMapping
+import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.testfixtures.internal.InMemoryCacheFactory
+import org.gradle.util.TestUtil
+import org.junit.Rule
+import spock.lang.Specification
+
+class TaskSelectionCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def rootProject = TestUtil.createRootProject(tmpDir.createDir("root"))
+    def child = TestUtil.createChildProject(rootProject, "child", tmpDir.createDir("root/child"))
+    def startParameter = new StartParameter()
+    def gradle = Stub(GradleInternal) {
+        getRootProject() >> rootProject
+        getStartParameter() >> startParameter
+    }
+    def mapping = Stub(CacheScopeMapping) {
+        getBaseDirectory(_, _, _) >> tmpDir.createDir("cache")
+    }
+    def cacheRepository = new DefaultCacheRepository(mapping, new InMemoryCacheFactory())
+
+    def setup() {
+        startParameter.gradleUserHomeDir = tmpDir.createDir("user-home")
+        startParameter.configureOnDemand = true
+    }
+
+    def "remembers the projects containing the selected tasks"() {
+        def cache = new TaskSelectionCache(gradle, cacheRepository)
+
+        when:
+        cache.store(rootProject, "build", [task(child)])
+
+        then:
+        cache.getProjectPaths(rootProject, "build") == [":child"]
+        cache.getProjectPaths(rootProject, "other") == null
+        cache.getProjectPaths(child, "build") == null
+
+        cleanup:
+        cache.close()
+    }
+
+    def "discards selection when gradle.properties of a subproject changes"() {
+        def cache = new TaskSelectionCache(gradle, cacheRepository)
+        def properties = new File(child.projectDir, "gradle.properties")
+        properties.text = "a=b"
+        cache.store(rootProject, "build", [task(child)])
+
+        when:
+        properties.text = "a=changed"
+
+        then:
+        cache.getProjectPaths(rootProject, "build") == null
+
+        cleanup:
+        cache.close()
+    }
+
+    def "discards selection when project properties differ"() {
+        def cache = new TaskSelectionCache(gradle, cacheRepository)
+        cache.store(rootProject, "build", [task(child)])
+
+        when:
+        startParameter.projectProperties = [a: "b"]
+
+        then:
+        cache.getProjectPaths(rootProject, "build") == null
+
+        cleanup:
+        cache.close()
+    }
+
+    def "is enabled only with configuration on demand"() {
+        def cache = new TaskSelectionCache(gradle, cacheRepository)
+
+        expect:
+        cache.enabled
+
+        when:
+        startParameter.configureOnDemand = false
+
+        then:
+        !cache.enabled
+    }
+
+    def task(def project) {
+        return Stub(Task) {
+            getProject() >> project
+        }
+    }
+}
@@ -135,6 +135,46 @@ class TaskSelectorTest extends Specification {
         filter.isSatisfiedBy(notExcluded)
     }
 
+    def "unqualified selection configures only the projects remembered by the selection cache"() {
+        def selectionCache = Mock(TaskSelectionCache)
+        def selector = new TaskSelector(gradle, resolver, projectConfigurer, selectionCache)
+        def selected = Stub(Task)
+        def selectionResult = Stub(TaskSelectionResult)
+
+        when:
+        def selection = selector.getSelection("a")
+
+        then:
+        1 * selectionCache.isEnabled() >> true
+        1 * selectionCache.getProjectPaths(projectB, "a") >> [":b:child"]
+        1 * projectConfigurer.configure(projectBChild)
+        1 * resolver.selectWithName("a", projectBChild, false) >> selectionResult
+        _ * selectionResult.collectTasks(_) >> { it[0] << selected }
+        0 * projectConfigurer.configureHierarchy(_)
+        0 * selectionCache.store(_, _, _)
+
+        and:
+        selection.tasks == [selected] as Set
+    }
+
+    def "unqualified selection configures hierarchy and remembers the selected tasks when not cached"() {
+        def selectionCache = Mock(TaskSelectionCache)
+        def selector = new TaskSelector(gradle, resolver, projectConfigurer, selectionCache)
+        def selected = Stub(Task)
+        def selectionResult = Stub(TaskSelectionResult)
+
+        when:
+        selector.getSelection("a")
+
+        then:
+        1 * selectionCache.isEnabled() >> true
+        1 * selectionCache.getProjectPaths(projectB, "a") >> null
+        1 * projectConfigurer.configureHierarchy(projectB)
+        1 * resolver.selectWithName("a", projectB, true) >> selectionResult
+        _ * selectionResult.collectTasks(_) >> { it[0] << selected }
+        1 * selectionCache.store(projectB, "a", [selected] as Set)
+    }
+
     def task(ProjectInternal project, String name) {
         def task = Stub(TaskInternal) {
             getProject() >> project
@@ -34,6 +34,7 @@ import org.gradle.messaging.remote.MessagingServer
 import org.gradle.process.internal.DefaultWorkerProcessFactory
 import org.gradle.process.internal.ExecHandleFactory
 import org.gradle.process.internal.WorkerProcessBuilder
+import org.gradle.process.internal.WorkerProcessPool
 import org.gradle.process.internal.child.WorkerProcessClassPathProvider
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
@@ -70,6 +71,7 @@ class BuildSessionScopeServicesTest extends Specification {
         expectParentServiceLocated(MessagingServer)
         expectParentServiceLocated(TemporaryFileProvider)
         expectParentServiceLocated(ExecHandleFactory)
+        expectParentServiceLocated(WorkerProcessPool)
 
         expect:
         registry.getFactory(WorkerProcessBuilder) instanceof DefaultWorkerProcessFactory
@@ -186,6 +186,63 @@ class DefaultWorkerProcessTest extends MultithreadedTestCase {
         workerProcess.waitForStop()
     }
 
+    @Test
+    public void abortKillsRunningProcess() {
+        startProcess()
+
+        context.checking {
+            one(execHandle).getState()
+            will(returnValue(ExecHandleState.STARTED))
+            one(execHandle).abort()
+        }
+
+        workerProcess.abort()
+    }
+
+    @Test
+    public void abortDoesNothingWhenProcessHasAlreadyFinished() {
+        startProcess()
+
+        context.checking {
+            one(execHandle).getState()
+            will(returnValue(ExecHandleState.FAILED))
+        }
+
+        workerProcess.abort()
+    }
+
+    @Test
+    public void abortToleratesProcessFinishingConcurrently() {
+        startProcess()
+
+        context.checking {
+            one(execHandle).getState()
+            will(returnValue(ExecHandleState.STARTED))
+            one(execHandle).abort()
+            will(throwException(new IllegalStateException("finished")))
+            one(execHandle).getState()
+            will(returnValue(ExecHandleState.SUCCEEDED))
+        }
+
+        workerProcess.abort()
+    }
+
+    private void startProcess() {
+        expectAttachesListener()
+        ConnectionAcceptor acceptor = context.mock(ConnectionAcceptor.class)
+        workerProcess.startAccepting(acceptor)
+
+        context.checking {
+            one(execHandle).start()
+            will {
+                workerProcess.onConnect(connection)
+            }
+            one(acceptor).requestStop()
+        }
+
+        workerProcess.start()
+    }
+
     private ExecHandleListener expectAttachesListener() {
         ExecHandleListener listener
         context.checking {
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import org.gradle.api.Transformer
+import org.gradle.internal.Factory
+import org.gradle.messaging.remote.ConnectionAcceptor
+import org.gradle.messaging.remote.MessagingServer
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class PooledWorkerProcessTest extends Specification {
+    def pool = Mock(WorkerProcessPool)
+    def worker = Mock(PooledWorker)
+    def server = Mock(MessagingServer)
+    def acceptor = Mock(ConnectionAcceptor)
+    def process = new PooledWorkerProcess("worker 1", "key", pool, Mock(Factory), Mock(Transformer), server, [], 0, TimeUnit.SECONDS)
+
+    def "aborts worker process that does not connect in time"() {
+        when:
+        process.start()
+
+        then:
+        def e = thrown(ExecException)
+        e.message.startsWith("Never received a connection from worker 1 running in ")
+        1 * pool.acquire("key") >> worker
+        1 * server.accept(_) >> acceptor
+        _ * worker.isSessionCompleted() >> false
+        1 * worker.runSession(_)
+        1 * worker.abort()
+        1 * acceptor.stop()
+        0 * pool.release(_, _, _, _)
+    }
+}
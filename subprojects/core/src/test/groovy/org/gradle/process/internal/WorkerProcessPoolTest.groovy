@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal
+
+import spock.lang.Specification
+
+class WorkerProcessPoolTest extends Specification {
+    def pool = new WorkerProcessPool(2, 75)
+
+    def "reuses released worker with same key"() {
+        def worker = worker(1)
+
+        when:
+        pool.release("key", worker, 10, 100)
+
+        then:
+        pool.acquire("other") == null
+        pool.acquire("key") == worker
+        pool.acquire("key") == null
+        0 * worker.stop()
+    }
+
+    def "stops worker that has been used the maximum number of times"() {
+        def worker = worker(2)
+
+        when:
+        pool.release("key", worker, 10, 100)
+
+        then:
+        1 * worker.stop()
+        pool.acquire("key") == null
+    }
+
+    def "stops worker whose heap usage exceeds the threshold"() {
+        def worker = worker(1)
+
+        when:
+        pool.release("key", worker, 80, 100)
+
+        then:
+        1 * worker.stop()
+        pool.acquire("key") == null
+    }
+
+    def "does not hand out worker that has stopped since it was released"() {
+        def worker = Mock(PooledWorker)
+        _ * worker.uses >> 1
+        worker.running >>> [true, false]
+
+        when:
+        pool.release("key", worker, 10, 100)
+
+        then:
+        pool.acquire("key") == null
+    }
+
+    def "stops idle workers when stopped"() {
+        def worker1 = worker(1)
+        def worker2 = worker(1)
+        def worker3 = worker(1)
+        pool.release("key1", worker1, 10, 100)
+        pool.release("key2", worker2, 10, 100)
+
+        when:
+        pool.stop()
+
+        then:
+        1 * worker1.stop()
+        1 * worker2.stop()
+
+        when:
+        pool.release("key1", worker3, 10, 100)
+
+        then:
+        1 * worker3.stop()
+    }
+
+    def worker(int uses) {
+        def worker = Mock(PooledWorker)
+        _ * worker.uses >> uses
+        _ * worker.running >> true
+        return worker
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.process.internal.child
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.Factory
+import org.gradle.internal.jvm.Jvm
+import org.gradle.process.ExecResult
+import org.gradle.process.internal.ExecHandle
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.Executor
+
+class ClassDataSharingArchiveTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cacheDir = tmpDir.createDir("worker-class-data")
+    def classpath = [tmpDir.createFile("worker.jar"), tmpDir.createFile("app.jar")]
+    def scheduled = []
+    def executor = { scheduled << it } as Executor
+    def cache = Stub(PersistentCache) {
+        getBaseDir() >> cacheDir
+        useCache(_, _ as Factory) >> { String name, Factory action -> action.create() }
+        useCache(_, _ as Runnable) >> { String name, Runnable action -> action.run() }
+    }
+
+    def "first worker records loaded classes and other workers start as usual until the list is available"() {
+        def archive = archive()
+        def first = execSpec()
+        def second = execSpec()
+
+        when:
+        archive.configure(first)
+        archive.configure(second)
+
+        then:
+        first.jvmArgs.size() == 1
+        first.jvmArgs[0].startsWith("-XX:DumpLoadedClassList=")
+        first.listeners.size() == 1
+        second.jvmArgs.empty
+        second.listeners.empty
+    }
+
+    def "publishes class list once the recording worker has completed successfully"() {
+        def archive = archive()
+        def recording = execSpec()
+        archive.configure(recording)
+        def partialList = recordedList(recording)
+        partialList.text = "java/lang/Object"
+
+        when:
+        def next = execSpec()
+        archive.configure(next)
+
+        then:
+        next.jvmArgs.empty
+        scheduled.empty
+
+        when:
+        finish(recording, 0)
+        archive.configure(execSpec())
+
+        then:
+        !partialList.exists()
+        new File(dir(), "classes.lst").text == "java/lang/Object"
+        scheduled.size() == 1
+    }
+
+    def "another worker records loaded classes when the recording worker fails"() {
+        def archive = archive()
+        def recording = execSpec()
+        archive.configure(recording)
+        def partialList = recordedList(recording)
+        partialList.text = "java/lang/Object"
+
+        when:
+        finish(recording, 1)
+        def next = execSpec()
+        archive.configure(next)
+
+        then:
+        !partialList.exists()
+        !new File(dir(), "classes.lst").exists()
+        next.jvmArgs[0].startsWith("-XX:DumpLoadedClassList=")
+    }
+
+    def "another worker records loaded classes once the recording worker is abandoned"() {
+        def archive = archive()
+        archive.configure(execSpec())
+
+        when:
+        archive.stop()
+        def next = execSpec()
+        archive().configure(next)
+
+        then:
+        next.jvmArgs[0].startsWith("-XX:DumpLoadedClassList=")
+    }
+
+    def "schedules a single dump in the background"() {
+        def archive = archive()
+        dir().mkdirs()
+        new File(dir(), "classes.lst").text = "java/lang/Object"
+
+        when:
+        archive.configure(execSpec())
+        archive.configure(execSpec())
+
+        then:
+        scheduled.size() == 1
+    }
+
+    def "workers use existing archive"() {
+        def archive = archive()
+        dir().mkdirs()
+        def jsa = new File(dir(), "classes.jsa")
+        jsa.text = "archive"
+        def execSpec = execSpec()
+
+        when:
+        archive.configure(execSpec)
+
+        then:
+        execSpec.jvmArgs.contains("-XX:SharedArchiveFile=" + jsa.absolutePath)
+        execSpec.jvmArgs.contains("-Xshare:auto")
+        scheduled.empty
+    }
+
+    def "uses a separate archive for each classpath"() {
+        def execSpec = execSpec()
+        def other = execSpec()
+
+        when:
+        archive().configure(execSpec)
+        new ClassDataSharingArchive(cache, executor, Jvm.current().javaExecutable, classpath.reverse()).configure(other)
+
+        then:
+        recordedList(execSpec).parentFile != recordedList(other).parentFile
+    }
+
+    def "workers start as usual once archive could not be created"() {
+        def archive = archive()
+        dir().mkdirs()
+        new File(dir(), "dump-failed").createNewFile()
+        def execSpec = execSpec()
+
+        when:
+        archive.configure(execSpec)
+
+        then:
+        execSpec.jvmArgs.empty
+    }
+
+    @Unroll
+    def "class data sharing is supported by #vmName #javaVersion: #supported"() {
+        expect:
+        ClassDataSharingArchive.isSupported(javaVersion, vmName) == supported
+
+        where:
+        javaVersion    | vmName                              | supported
+        "1.8.0_40"     | "Java HotSpot(TM) 64-Bit Server VM" | true
+        "1.8.0_101"    | "OpenJDK 64-Bit Server VM"          | true
+        "9"            | "Java HotSpot(TM) 64-Bit Server VM" | true
+        "9-ea"         | "Java HotSpot(TM) 64-Bit Server VM" | true
+        "1.8.0_31"     | "Java HotSpot(TM) 64-Bit Server VM" | false
+        "1.8.0"        | "Java HotSpot(TM) 64-Bit Server VM" | false
+        "1.7.0_80"     | "Java HotSpot(TM) 64-Bit Server VM" | false
+        "1.8.0_101"    | "IBM J9 VM"                         | false
+        "1.8.0_101"    | null                                | false
+        "unknown"      | "Java HotSpot(TM) 64-Bit Server VM" | false
+    }
+
+    private ClassDataSharingArchive archive() {
+        return new ClassDataSharingArchive(cache, executor, Jvm.current().javaExecutable, classpath)
+    }
+
+    private File dir() {
+        return new File(cacheDir, ClassDataSharingArchive.key(Jvm.current().javaExecutable, classpath))
+    }
+
+    private static JavaExecHandleBuilder execSpec() {
+        return new JavaExecHandleBuilder(TestFiles.resolver())
+    }
+
+    private static File recordedList(JavaExecHandleBuilder execSpec) {
+        return new File(execSpec.jvmArgs[0].substring("-XX:DumpLoadedClassList=".length()))
+    }
+
+    private void finish(JavaExecHandleBuilder execSpec, int exitValue) {
+        def result = Stub(ExecResult) {
+            getExitValue() >> exitValue
+        }
+        execSpec.listeners.each { it.executionFinished(Stub(ExecHandle), result) }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.language.groovy
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.CompilationOutputsFixture
+
+class IncrementalGroovyCompilationIntegrationTest extends AbstractIntegrationSpec {
+
+    CompilationOutputsFixture outputs
+
+    def setup() {
+        outputs = new CompilationOutputsFixture(file("build/classes"))
+
+        buildFile << """
+            apply plugin: 'groovy'
+            dependencies { compile localGroovy() }
+            compileGroovy.options.incremental = true
+        """
+    }
+
+    private File source(String fileName, String text) {
+        def f = file("src/main/groovy/${fileName}")
+        f.text = text
+        f
+    }
+
+    def "recompiles a changed Groovy class and the Java class that depends on it"() {
+        source "Person.groovy", "class Person { String name }"
+        source "Other.groovy", "class Other {}"
+        source "PersonPrinter.java", "class PersonPrinter { String print(Person p) { return p.getName(); } }"
+        source "OtherJava.java", "class OtherJava {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        source "Person.groovy", "class Person { String name; int age }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'Person', 'PersonPrinter'
+    }
+
+    def "recompiles the Groovy class that depends on a changed Java class"() {
+        source "Address.java", "class Address { String street; }"
+        source "Person.groovy", "class Person { Address address }"
+        source "Other.groovy", "class Other {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        source "Address.java", "class Address { String street; String city; }"
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'Address', 'Person'
+    }
+
+    def "detects deletion of a Groovy source"() {
+        def removed = source "Removed.groovy", "class Removed {}"
+        source "Other.groovy", "class Other {}"
+        source "OtherJava.java", "class OtherJava {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        assert removed.delete()
+        run "compileGroovy"
+
+        then:
+        outputs.noneRecompiled()
+        outputs.deletedClasses 'Removed'
+    }
+
+    def "detects deletion of a Groovy source that leads to compilation failure of a dependent Java class"() {
+        def person = source "Person.groovy", "class Person {}"
+        source "PersonPrinter.java", "class PersonPrinter { Person person; }"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        assert person.delete()
+
+        then:
+        fails "compileGroovy"
+        outputs.noneRecompiled()
+        outputs.deletedClasses 'Person', 'PersonPrinter'
+    }
+
+    def "recompiles the dependents of every top-level class declared in a changed Groovy source"() {
+        source "Person.groovy", """
+            class Person { String name }
+            class Address { String street }
+        """
+        source "AddressPrinter.java", "class AddressPrinter { String print(Address a) { return a.getStreet(); } }"
+        source "Other.groovy", "class Other {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        source "Person.groovy", """
+            class Person { String name }
+            class Address { String street; String city }
+        """
+        run "compileGroovy"
+
+        then:
+        outputs.recompiledClasses 'Person', 'Address', 'AddressPrinter'
+    }
+
+    def "deletes the classes of every top-level class declared in a deleted Groovy source"() {
+        def person = source "Person.groovy", """
+            class Person { String name }
+            class Address { String street }
+        """
+        source "Other.groovy", "class Other {}"
+
+        outputs.snapshot { run "compileGroovy" }
+
+        when:
+        assert person.delete()
+        run "compileGroovy"
+
+        then:
+        outputs.noneRecompiled()
+        outputs.deletedClasses 'Person', 'Address'
+    }
+}
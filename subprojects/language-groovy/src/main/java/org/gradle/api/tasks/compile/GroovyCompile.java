@@ -18,21 +18,36 @@ package org.gradle.api.tasks.compile;
 
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.changedetection.changes.IncrementalTaskInputsInternal;
+import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.compile.*;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
 import org.gradle.api.internal.tasks.compile.daemon.InProcessCompilerDaemonFactory;
+import org.gradle.api.internal.tasks.compile.incremental.IncrementalCompilerFactory;
+import org.gradle.api.internal.tasks.compile.incremental.cache.CompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.cache.TaskScopedCompileCaches;
 import org.gradle.api.tasks.InputFiles;
 import org.gradle.api.tasks.Nested;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.WorkResult;
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.cache.CacheRepository;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.util.GFileUtils;
+import org.gradle.util.SingleMessageLogger;
 
+import javax.inject.Inject;
 import java.io.File;
 
 /**
  * Compiles Groovy source files, and optionally, Java source files.
+ *
+ * <p>When {@link CompileOptions#isIncremental()} is set on the {@link #getOptions() options}, only the Groovy and Java source files that changed
+ * since the previous compilation, and the source files of the classes that depend on them, are compiled again. The classes that are not compiled
+ * again are used from the output of the previous compilation, so Java stubs are only generated for the Groovy source files that are compiled.</p>
  */
 public class GroovyCompile extends AbstractCompile {
     private Compiler<GroovyJavaJointCompileSpec> compiler;
@@ -40,8 +55,29 @@ public class GroovyCompile extends AbstractCompile {
     private final CompileOptions compileOptions = new CompileOptions();
     private final GroovyCompileOptions groovyCompileOptions = new GroovyCompileOptions();
 
-    @Override
     @TaskAction
+    protected void compile(IncrementalTaskInputs inputs) {
+        if (!compileOptions.isIncremental()) {
+            compile();
+            return;
+        }
+
+        checkGroovyClasspathIsNonEmpty();
+        DefaultGroovyJavaJointCompileSpec spec = createSpec();
+        Compiler<GroovyJavaJointCompileSpec> compiler = getCompiler(spec);
+        // A compiler set on this task is used as is, as it may not support compiling selectively
+        if (compiler instanceof CleaningGroovyCompiler) {
+            SingleMessageLogger.incubatingFeatureUsed("Incremental groovy compilation");
+            CompileCaches compileCaches = new TaskScopedCompileCaches(getCacheRepository(), getGeneralCompileCaches(), this);
+            IncrementalCompilerFactory<GroovyJavaJointCompileSpec> factory = new IncrementalCompilerFactory<GroovyJavaJointCompileSpec>(
+                    getFileOperations(), getPath(), (CleaningGroovyCompiler) compiler, source, compileCaches, (IncrementalTaskInputsInternal) inputs, getExecutorFactory());
+            compiler = factory.createCompiler();
+        }
+        WorkResult result = compiler.execute(spec);
+        setDidWork(result.getDidWork());
+    }
+
+    @Override
     protected void compile() {
         checkGroovyClasspathIsNonEmpty();
         DefaultGroovyJavaJointCompileSpec spec = createSpec();
@@ -49,13 +85,45 @@ public class GroovyCompile extends AbstractCompile {
         setDidWork(result.getDidWork());
     }
 
+    @Inject
+    protected FileOperations getFileOperations() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected GeneralCompileCaches getGeneralCompileCaches() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected CacheRepository getCacheRepository() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected ExecutorFactory getExecutorFactory() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected CompilerDaemonManager getCompilerDaemonManager() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected InProcessCompilerDaemonFactory getInProcessCompilerDaemonFactory() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected JavaCompilerFactory getJavaCompilerFactory() {
+        throw new UnsupportedOperationException();
+    }
+
     private Compiler<GroovyJavaJointCompileSpec> getCompiler(GroovyJavaJointCompileSpec spec) {
         if (compiler == null) {
             ProjectInternal projectInternal = (ProjectInternal) getProject();
-            CompilerDaemonManager compilerDaemonManager = getServices().get(CompilerDaemonManager.class);
-            InProcessCompilerDaemonFactory inProcessCompilerDaemonFactory = getServices().get(InProcessCompilerDaemonFactory.class);
-            JavaCompilerFactory javaCompilerFactory = getServices().get(JavaCompilerFactory.class);
-            GroovyCompilerFactory groovyCompilerFactory = new GroovyCompilerFactory(projectInternal, javaCompilerFactory, compilerDaemonManager, inProcessCompilerDaemonFactory);
+            GroovyCompilerFactory groovyCompilerFactory = new GroovyCompilerFactory(projectInternal, getJavaCompilerFactory(), getCompilerDaemonManager(), getInProcessCompilerDaemonFactory());
             Compiler<GroovyJavaJointCompileSpec> delegatingCompiler = groovyCompilerFactory.newCompiler(spec);
             compiler = new CleaningGroovyCompiler(delegatingCompiler, getOutputs());
         }
@@ -23,6 +23,7 @@ import java.io.File;
 public class DefaultJavaCompileSpec extends DefaultJvmLanguageCompileSpec implements JavaCompileSpec {
     private CompileOptions compileOptions;
     private File dependencyCacheDir;
+    private File annotationProcessingResultFile;
 
     @Override
     public CompileOptions getCompileOptions() {
@@ -42,4 +43,14 @@ public class DefaultJavaCompileSpec extends DefaultJvmLanguageCompileSpec implem
     public void setDependencyCacheDir(File dependencyCacheDir) {
         this.dependencyCacheDir = dependencyCacheDir;
     }
+
+    @Override
+    public File getAnnotationProcessingResultFile() {
+        return annotationProcessingResultFile;
+    }
+
+    @Override
+    public void setAnnotationProcessingResultFile(File annotationProcessingResultFile) {
+        this.annotationProcessingResultFile = annotationProcessingResultFile;
+    }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.tasks.compile.CompileOptions;
 
 import java.io.File;
@@ -29,4 +30,12 @@ public interface JavaCompileSpec extends JvmLanguageCompileSpec {
 
     @Override
     File getDestinationDir();
+
+    /**
+     * Returns the file to write the outputs of incremental annotation processors to, or null when these are not tracked.
+     */
+    @Nullable
+    File getAnnotationProcessingResultFile();
+
+    void setAnnotationProcessingResultFile(@Nullable File annotationProcessingResultFile);
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.UncheckedException;
+
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * A process wide cache of javac file managers. A file manager keeps the classpath archives it has opened, along with their indexes, so reusing it
+ * saves each compilation from opening and indexing the same jars again. This matters most when many projects share the same classpath jars.
+ *
+ * <p>Each file manager is used by a single compilation at a time, and is reset before it is used again. A file manager is discarded when any of the
+ * archives it has opened has changed since.</p>
+ *
+ * <p>This is opt-in, and is enabled by setting the {@value #ENABLED_PROPERTY} system property to {@code true} in the build process. Archives are
+ * held open between builds, which prevents them from being deleted on some platforms.</p>
+ */
+class JavaFileManagerCache {
+    static final String ENABLED_PROPERTY = "org.gradle.java.compile.reusefilemanagers";
+    private static final int MAX_IDLE_FILE_MANAGERS = 4;
+    private static final StandardLocation[] LOCATIONS = {
+        StandardLocation.CLASS_OUTPUT, StandardLocation.SOURCE_OUTPUT, StandardLocation.CLASS_PATH, StandardLocation.SOURCE_PATH,
+        StandardLocation.ANNOTATION_PROCESSOR_PATH, StandardLocation.PLATFORM_CLASS_PATH
+    };
+    private static final JavaFileManagerCache INSTANCE = new JavaFileManagerCache();
+
+    // Most recently used first
+    private final LinkedList<CachedJavaFileManager> idle = new LinkedList<CachedJavaFileManager>();
+
+    static JavaFileManagerCache getInstance() {
+        return INSTANCE;
+    }
+
+    static boolean isEnabled() {
+        return "true".equals(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * Returns a file manager for the exclusive use of the caller, which should be passed to {@link #release(CachedJavaFileManager)} once the
+     * compilation has completed.
+     */
+    CachedJavaFileManager acquire(JavaCompiler compiler, @Nullable Charset charset) {
+        CachedJavaFileManager fileManager = takeIdle(compiler.getClass(), charset);
+        if (fileManager == null) {
+            fileManager = new CachedJavaFileManager(compiler.getStandardFileManager(null, null, charset), compiler.getClass(), charset);
+        }
+        fileManager.reset();
+        return fileManager;
+    }
+
+    void release(CachedJavaFileManager fileManager) {
+        fileManager.recordArchives();
+        CachedJavaFileManager evicted = null;
+        synchronized (this) {
+            idle.addFirst(fileManager);
+            if (idle.size() > MAX_IDLE_FILE_MANAGERS) {
+                evicted = idle.removeLast();
+            }
+        }
+        if (evicted != null) {
+            evicted.closeArchives();
+        }
+    }
+
+    /**
+     * Discards a file manager that may be in an unknown state, for example after a failure.
+     */
+    void discard(CachedJavaFileManager fileManager) {
+        fileManager.closeArchives();
+    }
+
+    @Nullable
+    private CachedJavaFileManager takeIdle(Class<?> compilerType, @Nullable Charset charset) {
+        LinkedList<CachedJavaFileManager> stale = new LinkedList<CachedJavaFileManager>();
+        CachedJavaFileManager match = null;
+        synchronized (this) {
+            Iterator<CachedJavaFileManager> iterator = idle.iterator();
+            while (match == null && iterator.hasNext()) {
+                CachedJavaFileManager candidate = iterator.next();
+                if (!candidate.isCompatibleWith(compilerType, charset)) {
+                    continue;
+                }
+                iterator.remove();
+                if (candidate.isUpToDate()) {
+                    match = candidate;
+                } else {
+                    stale.add(candidate);
+                }
+            }
+        }
+        for (CachedJavaFileManager fileManager : stale) {
+            fileManager.closeArchives();
+        }
+        return match;
+    }
+
+    synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * A file manager that ignores requests from javac to close it, so that its archives remain open between compilations.
+     */
+    static class CachedJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Class<?> compilerType;
+        private final Charset charset;
+        private final Map<File, ArchiveState> archives = new HashMap<File, ArchiveState>();
+
+        CachedJavaFileManager(StandardJavaFileManager fileManager, Class<?> compilerType, @Nullable Charset charset) {
+            super(fileManager);
+            this.compilerType = compilerType;
+            this.charset = charset;
+        }
+
+        StandardJavaFileManager getStandardFileManager() {
+            return fileManager;
+        }
+
+        @Override
+        public void close() {
+            // Called by javac at the end of a compilation, the archives are closed when this file manager is discarded
+        }
+
+        boolean isCompatibleWith(Class<?> compilerType, @Nullable Charset charset) {
+            return this.compilerType.equals(compilerType) && (this.charset == null ? charset == null : this.charset.equals(charset));
+        }
+
+        boolean isUpToDate() {
+            for (Map.Entry<File, ArchiveState> entry : archives.entrySet()) {
+                if (!entry.getValue().equals(ArchiveState.of(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Resets the locations set by the options of the previous compilation to their defaults.
+         */
+        void reset() {
+            try {
+                for (StandardLocation location : LOCATIONS) {
+                    fileManager.setLocation(location, null);
+                }
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        /**
+         * Records the state of the archives that the previous compilation may have opened.
+         */
+        void recordArchives() {
+            for (StandardLocation location : LOCATIONS) {
+                Iterable<? extends File> files = fileManager.getLocation(location);
+                if (files == null) {
+                    continue;
+                }
+                for (File file : files) {
+                    if (file.isFile() && !archives.containsKey(file)) {
+                        archives.put(file, ArchiveState.of(file));
+                    }
+                }
+            }
+        }
+
+        void closeArchives() {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    private static class ArchiveState {
+        private final long length;
+        private final long lastModified;
+
+        private ArchiveState(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        static ArchiveState of(File file) {
+            return new ArchiveState(file.length(), file.lastModified());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            ArchiveState other = (ArchiveState) obj;
+            return length == other.length && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (length ^ lastModified);
+        }
+    }
+}
@@ -15,17 +15,22 @@
  */
 package org.gradle.api.internal.tasks.compile;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingTracker;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.compile.CompileOptions;
 import org.gradle.internal.Factory;
+import org.gradle.internal.concurrent.CompositeStoppable;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.File;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.List;
@@ -33,30 +38,68 @@ import java.util.List;
 public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdkJavaCompiler.class);
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    private final boolean reuseFileManagers;
 
     public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        // Decided here, in the build process, as this compiler may be executed in a compiler daemon
+        this.reuseFileManagers = JavaFileManagerCache.isEnabled();
     }
 
     @Override
     public WorkResult execute(JavaCompileSpec spec) {
         LOGGER.info("Compiling with JDK Java compiler API.");
 
-        JavaCompiler.CompilationTask task = createCompileTask(spec);
-        boolean success = task.call();
+        JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
+        CompileOptions compileOptions = spec.getCompileOptions();
+        Charset charset = compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
+        File resultFile = spec.getAnnotationProcessingResultFile();
+        AnnotationProcessingTracker tracker = null;
+        if (resultFile != null) {
+            tracker = new AnnotationProcessingTracker(compileOptions.getCompilerArgs(), spec.getClasspath(), compiler.getClass().getClassLoader());
+        }
+        boolean success;
+        try {
+            if (reuseFileManagers) {
+                success = compileWithCachedFileManager(spec, compiler, charset, tracker);
+            } else {
+                success = createCompileTask(spec, compiler, compiler.getStandardFileManager(null, null, charset), null, tracker).call();
+            }
+        } finally {
+            CompositeStoppable.stoppable(tracker).stop();
+        }
         if (!success) {
             throw new CompilationFailedException();
         }
+        if (tracker != null) {
+            tracker.writeResult(resultFile);
+        }
 
         return new SimpleWorkResult(true);
     }
 
-    private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec) {
+    private boolean compileWithCachedFileManager(JavaCompileSpec spec, JavaCompiler compiler, Charset charset, @Nullable AnnotationProcessingTracker tracker) {
+        JavaFileManagerCache cache = JavaFileManagerCache.getInstance();
+        JavaFileManagerCache.CachedJavaFileManager fileManager = cache.acquire(compiler, charset);
+        boolean success;
+        try {
+            success = createCompileTask(spec, compiler, fileManager.getStandardFileManager(), fileManager, tracker).call();
+        } catch (RuntimeException e) {
+            cache.discard(fileManager);
+            throw e;
+        }
+        cache.release(fileManager);
+        return success;
+    }
+
+    private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, JavaCompiler compiler, StandardJavaFileManager standardFileManager,
+                                                          @Nullable JavaFileManager fileManager, @Nullable AnnotationProcessingTracker tracker) {
         List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
-        JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
-        CompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
-        Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(spec.getSource());
-        return compiler.getTask(null, null, null, options, null, compilationUnits);
+        Iterable<? extends JavaFileObject> compilationUnits = standardFileManager.getJavaFileObjectsFromFiles(spec.getSource());
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, compilationUnits);
+        if (tracker != null) {
+            tracker.configure(task);
+        }
+        return task;
     }
 }
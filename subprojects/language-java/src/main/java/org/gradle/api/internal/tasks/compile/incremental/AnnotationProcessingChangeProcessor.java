@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental;
+
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
+import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Adds the types and files that annotation processors generated from the classes to recompile to a recompilation spec, so that these are deleted and
+ * generated again. The classes that depend on the generated types are recompiled too.
+ */
+class AnnotationProcessingChangeProcessor {
+
+    private final PreviousCompilation previousCompilation;
+
+    public AnnotationProcessingChangeProcessor(PreviousCompilation previousCompilation) {
+        this.previousCompilation = previousCompilation;
+    }
+
+    public void processChanges(RecompilationSpec spec) {
+        if (spec.getClassNames().isEmpty()) {
+            return;
+        }
+        AnnotationProcessingData data = previousCompilation.getAnnotationProcessingData();
+        if (data.getFullRebuildCause() != null) {
+            spec.setFullRebuildCause(data.getFullRebuildCause(), null);
+            return;
+        }
+
+        LinkedList<String> queue = new LinkedList<String>(spec.getClassNames());
+        boolean aggregatingOutputsAdded = false;
+        while (!queue.isEmpty() && !spec.isFullRebuildNeeded()) {
+            String className = queue.removeFirst();
+            addGeneratedOutputs(data.getGeneratedTypes(className), data.getGeneratedFiles(className), spec, queue);
+            if (!aggregatingOutputsAdded) {
+                // The outputs of aggregating processors may depend on any of the aggregated types, so the processors need to see all of these again
+                aggregatingOutputsAdded = true;
+                for (String aggregatedType : data.getAggregatedTypes()) {
+                    if (spec.getClassNames().add(aggregatedType)) {
+                        queue.add(aggregatedType);
+                    }
+                }
+                addGeneratedOutputs(data.getAggregatingGeneratedTypes(), data.getAggregatingGeneratedFiles(), spec, queue);
+            }
+        }
+    }
+
+    private void addGeneratedOutputs(Set<String> generatedTypes, Set<String> generatedFiles, RecompilationSpec spec, LinkedList<String> queue) {
+        for (String generatedFile : generatedFiles) {
+            spec.getGeneratedFilesToDelete().add(new File(generatedFile));
+        }
+        for (String generatedType : generatedTypes) {
+            if (!spec.getClassNames().add(generatedType)) {
+                continue;
+            }
+            queue.add(generatedType);
+            DependentsSet dependents = previousCompilation.getDependents(generatedType);
+            if (dependents.isDependencyToAll()) {
+                String description = dependents.getDescription();
+                spec.setFullRebuildCause(description != null ? description : format("generated class '%s' needs to be generated again", generatedType), null);
+                return;
+            }
+            for (String dependent : dependents.getDependentClasses()) {
+                if (spec.getClassNames().add(dependent)) {
+                    queue.add(dependent);
+                }
+            }
+        }
+    }
+}
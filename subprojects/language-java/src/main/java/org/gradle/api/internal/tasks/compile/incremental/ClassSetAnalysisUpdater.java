@@ -16,38 +16,214 @@
 
 package org.gradle.api.internal.tasks.compile.incremental;
 
+import com.google.common.io.Files;
+import org.gradle.api.Nullable;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.file.EmptyFileVisitor;
 import org.gradle.api.file.FileTree;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.internal.cache.Loader;
 import org.gradle.api.internal.cache.Stash;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.serialize.InputStreamBackedDecoder;
 import org.gradle.util.Clock;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.gradle.internal.FileUtils.hasExtension;
 
 public class ClassSetAnalysisUpdater {
 
     private final static Logger LOG = Logging.getLogger(ClassSetAnalysisUpdater.class);
 
     private final Stash<ClassSetAnalysisData> stash;
+    private final Loader<ClassSetAnalysisData> loader;
     private final FileOperations fileOperations;
     private ClassDependenciesAnalyzer analyzer;
+    private final ExecutorFactory executorFactory;
 
     public ClassSetAnalysisUpdater(Stash<ClassSetAnalysisData> stash, FileOperations fileOperations, ClassDependenciesAnalyzer analyzer) {
+        this(stash, null, fileOperations, analyzer, null);
+    }
+
+    /**
+     * @param loader Loads the analysis of the previous compilation, so that the class files that have not changed since need not be analyzed again, or null to analyze all class files.
+     * @param executorFactory The executor factory to use to analyze the class files concurrently, or null to analyze them serially.
+     */
+    public ClassSetAnalysisUpdater(Stash<ClassSetAnalysisData> stash, @Nullable Loader<ClassSetAnalysisData> loader, FileOperations fileOperations,
+                                   ClassDependenciesAnalyzer analyzer, @Nullable ExecutorFactory executorFactory) {
         this.stash = stash;
+        this.loader = loader;
         this.fileOperations = fileOperations;
         this.analyzer = analyzer;
+        this.executorFactory = executorFactory;
     }
 
     public void updateAnalysis(JavaCompileSpec spec) {
         Clock clock = new Clock();
         FileTree tree = fileOperations.fileTree(spec.getDestinationDir());
-        ClassFilesAnalyzer analyzer = new ClassFilesAnalyzer(this.analyzer);
-        tree.visit(analyzer);
-        ClassSetAnalysisData data = analyzer.getAnalysis();
-        stash.put(data);
-        LOG.info("Class dependency analysis for incremental compilation took {}.", clock.getTime());
+        final List<String> classNames = new ArrayList<String>();
+        final List<File> classFiles = new ArrayList<File>();
+        tree.visit(new EmptyFileVisitor() {
+            @Override
+            public void visitFile(FileVisitDetails fileDetails) {
+                if (hasExtension(fileDetails.getFile(), ".class")) {
+                    classNames.add(ClassFilesAnalyzer.toClassName(fileDetails.getPath()));
+                    classFiles.add(fileDetails.getFile());
+                }
+            }
+        });
+
+        ClassSetAnalysisData previous = loader == null ? null : loader.get();
+        AnalyzedClass[] analyzed = analyze(classNames, classFiles, previous);
+
+        ClassDependentsAccumulator accumulator = new ClassDependentsAccumulator("");
+        Map<String, HashValue> classHashes = new HashMap<String, HashValue>();
+        Map<String, String> sourceClassNames = new HashMap<String, String>();
+        int reused = 0;
+        for (int i = 0; i < analyzed.length; i++) {
+            String className = classNames.get(i);
+            ClassAnalysis analysis = analyzed[i].analysis;
+            if (analysis == null) {
+                // The class file has not changed since the previous compilation
+                analysis = previous.getClassAnalysis(className);
+                reused++;
+            }
+            accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
+            classHashes.put(className, analyzed[i].hash);
+            if (analyzed[i].sourceClassName != null) {
+                sourceClassNames.put(className, analyzed[i].sourceClassName);
+            }
+        }
+        AnnotationProcessingData annotationProcessingData = readAnnotationProcessingData(spec.getAnnotationProcessingResultFile());
+        if (previous != null) {
+            annotationProcessingData = previous.getAnnotationProcessingData().update(annotationProcessingData, spec.getDestinationDir());
+        }
+        stash.put(new ClassSetAnalysisData(accumulator.getDependentsMap(), classHashes, annotationProcessingData, sourceClassNames));
+        LOG.info("Class dependency analysis for incremental compilation took {}, {} of {} classes unchanged.", clock.getTime(), reused, analyzed.length);
+    }
+
+    private AnnotationProcessingData readAnnotationProcessingData(@Nullable File resultFile) {
+        if (resultFile == null || !resultFile.isFile()) {
+            // The compiler does not track annotation processing
+            return new AnnotationProcessingData();
+        }
+        try {
+            InputStreamBackedDecoder decoder = new InputStreamBackedDecoder(new BufferedInputStream(new FileInputStream(resultFile)));
+            try {
+                return new AnnotationProcessingData.Serializer().read(decoder);
+            } finally {
+                decoder.close();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException("Could not read annotation processing result from '" + resultFile + "'.", e);
+        }
+    }
+
+    private AnalyzedClass[] analyze(final List<String> classNames, final List<File> classFiles, @Nullable final ClassSetAnalysisData previous) {
+        final AnalyzedClass[] analyzed = new AnalyzedClass[classFiles.size()];
+        if (executorFactory == null || classFiles.size() < 2) {
+            for (int i = 0; i < classFiles.size(); i++) {
+                analyzed[i] = analyze(classNames.get(i), classFiles.get(i), previous);
+            }
+            return analyzed;
+        }
+
+        StoppableExecutor executor = executorFactory.create("Class analysis", Math.min(classFiles.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            for (int i = 0; i < classFiles.size(); i++) {
+                final int index = i;
+                executor.execute(new Runnable() {
+                    public void run() {
+                        analyzed[index] = analyze(classNames.get(index), classFiles.get(index), previous);
+                    }
+                });
+            }
+        } finally {
+            executor.stop();
+        }
+        return analyzed;
+    }
+
+    private AnalyzedClass analyze(String className, File classFile, @Nullable ClassSetAnalysisData previous) {
+        byte[] classBytes;
+        try {
+            classBytes = Files.toByteArray(classFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        HashValue hash = HashUtil.createHash(new ByteArrayInputStream(classBytes), "MD5");
+        if (previous != null && hash.equals(previous.getClassHash(className))) {
+            return new AnalyzedClass(hash, null, previous.getSourceClassName(className));
+        }
+        return new AnalyzedClass(hash, analyzer.getClassAnalysis(className, hash, classBytes), getSourceClassName(className, classBytes));
+    }
+
+    /**
+     * Returns the name of the class that the source file of the given top-level class is named after, when that is not the class itself. A Groovy source file,
+     * for example, may declare several top-level classes.
+     */
+    @Nullable
+    private static String getSourceClassName(String className, byte[] classBytes) {
+        if (className.contains("$")) {
+            // Nested classes are handled along with their top-level class
+            return null;
+        }
+        final String[] sourceFile = new String[1];
+        try {
+            new ClassReader(classBytes).accept(new ClassVisitor(Opcodes.ASM5) {
+                @Override
+                public void visitSource(String source, String debug) {
+                    sourceFile[0] = source;
+                }
+            }, ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        } catch (RuntimeException e) {
+            // Not a class file that ASM can read
+            return null;
+        }
+        if (sourceFile[0] == null) {
+            return null;
+        }
+        int extension = sourceFile[0].lastIndexOf('.');
+        String sourceName = extension > 0 ? sourceFile[0].substring(0, extension) : sourceFile[0];
+        int packageEnd = className.lastIndexOf('.');
+        String sourceClassName = packageEnd < 0 ? sourceName : className.substring(0, packageEnd + 1) + sourceName;
+        return sourceClassName.equals(className) ? null : sourceClassName;
+    }
+
+    private static class AnalyzedClass {
+        final HashValue hash;
+        final ClassAnalysis analysis;
+        final String sourceClassName;
+
+        AnalyzedClass(HashValue hash, @Nullable ClassAnalysis analysis, @Nullable String sourceClassName) {
+            this.hash = hash;
+            this.analysis = analysis;
+            this.sourceClassName = sourceClassName;
+        }
     }
 }
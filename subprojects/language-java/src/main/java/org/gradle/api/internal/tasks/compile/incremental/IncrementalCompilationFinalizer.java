@@ -20,14 +20,17 @@ import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshotWriter;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.language.base.internal.compile.Compiler;
+import org.gradle.util.GFileUtils;
 
-class IncrementalCompilationFinalizer implements Compiler<JavaCompileSpec> {
+import java.io.File;
 
-    private final Compiler<JavaCompileSpec> delegate;
+class IncrementalCompilationFinalizer<T extends JavaCompileSpec> implements Compiler<T> {
+
+    private final Compiler<T> delegate;
     private final JarClasspathSnapshotWriter writer;
     private final ClassSetAnalysisUpdater updater;
 
-    public IncrementalCompilationFinalizer(Compiler<JavaCompileSpec> delegate, JarClasspathSnapshotWriter writer,
+    public IncrementalCompilationFinalizer(Compiler<T> delegate, JarClasspathSnapshotWriter writer,
                                            ClassSetAnalysisUpdater updater) {
         this.delegate = delegate;
         this.writer = writer;
@@ -35,7 +38,12 @@ class IncrementalCompilationFinalizer implements Compiler<JavaCompileSpec> {
     }
 
     @Override
-    public WorkResult execute(JavaCompileSpec spec) {
+    public WorkResult execute(T spec) {
+        // Ask the compiler to record the outputs of the annotation processors
+        File annotationProcessingResultFile = new File(spec.getTempDir(), "annotation-processing.bin");
+        GFileUtils.deleteQuietly(annotationProcessingResultFile);
+        spec.setAnnotationProcessingResultFile(annotationProcessingResultFile);
+
         WorkResult out = delegate.execute(spec);
 
         if (!(out instanceof RecompilationNotNecessary)) {
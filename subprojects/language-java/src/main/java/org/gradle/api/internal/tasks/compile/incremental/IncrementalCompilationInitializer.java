@@ -24,6 +24,7 @@ import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
 import org.gradle.api.tasks.util.PatternSet;
 import org.gradle.internal.Factory;
 
+import java.io.File;
 import java.util.Collection;
 
 import static java.util.Arrays.asList;
@@ -56,6 +57,15 @@ class IncrementalCompilationInitializer {
         fileOperations.delete(deleteMe);
     }
 
+    /**
+     * Deletes the files generated by annotation processors that are going to be generated again.
+     */
+    public void deleteGeneratedFiles(Collection<File> generatedFiles) {
+        if (!generatedFiles.isEmpty()) {
+            fileOperations.delete(generatedFiles);
+        }
+    }
+
     void preparePatterns(Collection<String> staleClasses, PatternSet classesToDelete, PatternSet sourceToCompile) {
         assert !staleClasses.isEmpty(); //if stale classes are empty (e.g. nothing to recompile), the patterns will not have any includes and will match all (e.g. recompile everything).
         for (String staleClass : staleClasses) {
@@ -66,6 +76,7 @@ class IncrementalCompilationInitializer {
             //the stale class might be a source class that was deleted
             //it's no harm to include it in sourceToCompile anyway
             sourceToCompile.include(path.concat(".java"));
+            sourceToCompile.include(path.concat(".groovy"));
         }
     }
 }
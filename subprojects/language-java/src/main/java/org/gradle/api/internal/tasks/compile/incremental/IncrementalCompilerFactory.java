@@ -17,45 +17,52 @@
 package org.gradle.api.internal.tasks.compile.incremental;
 
 import org.gradle.api.internal.changedetection.changes.IncrementalTaskInputsInternal;
+import org.gradle.api.internal.changedetection.state.FilesSnapshotSet;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.hash.DefaultHasher;
 import org.gradle.api.internal.hash.Hasher;
-import org.gradle.api.internal.tasks.compile.CleaningJavaCompiler;
+import org.gradle.api.internal.tasks.compile.CleaningJavaCompilerSupport;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.CachingClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAbiNormalizer;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.cache.CompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.deps.LocalClassSetAnalysisStore;
 import org.gradle.api.internal.tasks.compile.incremental.jar.*;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.language.base.internal.compile.Compiler;
 
 import java.util.List;
 
-public class IncrementalCompilerFactory {
+public class IncrementalCompilerFactory<T extends JavaCompileSpec> {
 
-    private final IncrementalCompilerDecorator incrementalSupport;
+    private final IncrementalCompilerDecorator<T> incrementalSupport;
     private final IncrementalTaskInputs inputs;
 
-    public IncrementalCompilerFactory(FileOperations fileOperations, String compileDisplayName, CleaningJavaCompiler cleaningJavaCompiler,
-                                      List<Object> source, CompileCaches compileCaches, IncrementalTaskInputsInternal inputs) {
+    public IncrementalCompilerFactory(FileOperations fileOperations, String compileDisplayName, CleaningJavaCompilerSupport<T> cleaningJavaCompiler,
+                                      List<Object> source, CompileCaches compileCaches, IncrementalTaskInputsInternal inputs, ExecutorFactory executorFactory) {
         this.inputs = inputs;
         //bunch of services that enable incremental java compilation.
         Hasher hasher = new DefaultHasher(); //TODO SF use caching hasher
         ClassDependenciesAnalyzer analyzer = new CachingClassDependenciesAnalyzer(new DefaultClassDependenciesAnalyzer(), hasher, compileCaches.getClassAnalysisCache());
-        JarSnapshotter jarSnapshotter = new CachingJarSnapshotter(hasher, analyzer, compileCaches.getJarSnapshotCache(), inputs.getInputFilesSnapshot());
+        // The input snapshot holds ABI hashes when the classpath is hashed by ABI, and these cannot be used as keys for the jar snapshot cache
+        FilesSnapshotSet inputFilesSnapshot = ClassAbiNormalizer.isEnabled() ? null : inputs.getInputFilesSnapshot();
+        JarSnapshotter jarSnapshotter = new CachingJarSnapshotter(hasher, analyzer, compileCaches.getJarSnapshotCache(), inputFilesSnapshot);
 
-        JarClasspathSnapshotMaker jarClasspathSnapshotMaker = new JarClasspathSnapshotMaker(compileCaches.getLocalJarClasspathSnapshotStore(), new JarClasspathSnapshotFactory(jarSnapshotter), new ClasspathJarFinder(fileOperations));
+        JarClasspathSnapshotMaker jarClasspathSnapshotMaker = new JarClasspathSnapshotMaker(compileCaches.getLocalJarClasspathSnapshotStore(), new JarClasspathSnapshotFactory(jarSnapshotter, executorFactory), new ClasspathJarFinder(fileOperations));
         CompilationSourceDirs sourceDirs = new CompilationSourceDirs(source);
         SourceToNameConverter sourceToNameConverter = new SourceToNameConverter(sourceDirs); //TODO SF replace with converter that parses input source class
         RecompilationSpecProvider recompilationSpecProvider = new RecompilationSpecProvider(sourceToNameConverter, fileOperations);
-        ClassSetAnalysisUpdater classSetAnalysisUpdater = new ClassSetAnalysisUpdater(compileCaches.getLocalClassSetAnalysisStore(), fileOperations, analyzer);
+        LocalClassSetAnalysisStore classSetAnalysisStore = compileCaches.getLocalClassSetAnalysisStore();
+        ClassSetAnalysisUpdater classSetAnalysisUpdater = new ClassSetAnalysisUpdater(classSetAnalysisStore, classSetAnalysisStore, fileOperations, analyzer, executorFactory);
         IncrementalCompilationInitializer compilationInitializer = new IncrementalCompilationInitializer(fileOperations);
-        incrementalSupport = new IncrementalCompilerDecorator(jarClasspathSnapshotMaker, compileCaches, compilationInitializer,
+        incrementalSupport = new IncrementalCompilerDecorator<T>(jarClasspathSnapshotMaker, compileCaches, compilationInitializer,
                 cleaningJavaCompiler, compileDisplayName, recompilationSpecProvider, classSetAnalysisUpdater, sourceDirs);
     }
 
-    public Compiler<JavaCompileSpec> createCompiler() {
+    public Compiler<T> createCompiler() {
         return incrementalSupport.prepareCompiler(inputs);
     }
 }
@@ -21,6 +21,9 @@ import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation
 import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec;
 import org.gradle.api.tasks.incremental.InputFileDetails;
 
+import java.util.HashSet;
+import java.util.Set;
+
 class JavaChangeProcessor {
 
     private final SourceToNameConverter sourceToNameConverter;
@@ -34,7 +37,17 @@ class JavaChangeProcessor {
     public void processChange(InputFileDetails input, RecompilationSpec spec) {
         String className = sourceToNameConverter.getClassName(input.getFile());
         spec.getClassNames().add(className);
-        DependentsSet actualDependents = previousCompilation.getDependents(className);
+        // A source file, such as a Groovy one, may declare other top-level classes than the one it is named after
+        Set<String> otherClasses = previousCompilation.getOtherClassesOfSource(className);
+        DependentsSet actualDependents;
+        if (otherClasses.isEmpty()) {
+            actualDependents = previousCompilation.getDependents(className);
+        } else {
+            spec.getClassNames().addAll(otherClasses);
+            Set<String> classes = new HashSet<String>(otherClasses);
+            classes.add(className);
+            actualDependents = previousCompilation.getDependents(classes);
+        }
         if (actualDependents.isDependencyToAll()) {
             spec.setFullRebuildCause(actualDependents.getDescription(), input.getFile());
             return;
@@ -51,6 +51,9 @@ public class RecompilationSpecProvider {
             return action.spec;
         }
         inputs.removed(action);
+        if (action.spec.getFullRebuildCause() == null) {
+            new AnnotationProcessingChangeProcessor(previousCompilation).processChanges(action.spec);
+        }
         return action.spec;
     }
 
@@ -70,7 +73,8 @@ public class RecompilationSpecProvider {
             if (spec.getFullRebuildCause() != null) {
                 return;
             }
-            if (hasExtension(input.getFile(), ".java")) {
+            if (hasExtension(input.getFile(), ".java") || hasExtension(input.getFile(), ".groovy")) {
+                // Groovy sources of a joint compilation map to classes in the same way as Java sources
                 javaChangeProcessor.processChange(input, spec);
             }
             if (hasExtension(input.getFile(), ".jar")) {
@@ -16,7 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental;
 
-import org.gradle.api.internal.tasks.compile.CleaningJavaCompiler;
+import org.gradle.api.internal.tasks.compile.CleaningJavaCompilerSupport;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshot;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshotProvider;
@@ -28,16 +28,16 @@ import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.util.Clock;
 
-class SelectiveCompiler implements org.gradle.language.base.internal.compile.Compiler<JavaCompileSpec> {
+class SelectiveCompiler<T extends JavaCompileSpec> implements org.gradle.language.base.internal.compile.Compiler<T> {
     private static final Logger LOG = Logging.getLogger(SelectiveCompiler.class);
     private final IncrementalTaskInputs inputs;
     private final PreviousCompilation previousCompilation;
-    private final CleaningJavaCompiler cleaningCompiler;
+    private final CleaningJavaCompilerSupport<T> cleaningCompiler;
     private final RecompilationSpecProvider recompilationSpecProvider;
     private final IncrementalCompilationInitializer incrementalCompilationInitilizer;
     private final JarClasspathSnapshotProvider jarClasspathSnapshotProvider;
 
-    public SelectiveCompiler(IncrementalTaskInputs inputs, PreviousCompilation previousCompilation, CleaningJavaCompiler cleaningCompiler,
+    public SelectiveCompiler(IncrementalTaskInputs inputs, PreviousCompilation previousCompilation, CleaningJavaCompilerSupport<T> cleaningCompiler,
                              RecompilationSpecProvider recompilationSpecProvider, IncrementalCompilationInitializer compilationInitializer, JarClasspathSnapshotProvider jarClasspathSnapshotProvider) {
         this.inputs = inputs;
         this.previousCompilation = previousCompilation;
@@ -48,7 +48,7 @@ class SelectiveCompiler implements org.gradle.language.base.internal.compile.Com
     }
 
     @Override
-    public WorkResult execute(JavaCompileSpec spec) {
+    public WorkResult execute(T spec) {
         Clock clock = new Clock();
         JarClasspathSnapshot jarClasspathSnapshot = jarClasspathSnapshotProvider.getJarClasspathSnapshot(spec.getClasspath());
         RecompilationSpec recompilationSpec = recompilationSpecProvider.provideRecompilationSpec(inputs, previousCompilation, jarClasspathSnapshot);
@@ -58,6 +58,7 @@ class SelectiveCompiler implements org.gradle.language.base.internal.compile.Com
             return cleaningCompiler.execute(spec);
         }
 
+        incrementalCompilationInitilizer.deleteGeneratedFiles(recompilationSpec.getGeneratedFilesToDelete());
         incrementalCompilationInitilizer.initializeCompilation(spec, recompilationSpec.getClassNames());
         if (spec.getSource().isEmpty()) {
             LOG.lifecycle("None of the classes needs to be compiled! Analysis took {}. ", clock.getTime());
@@ -37,7 +37,7 @@ public class SourceToNameConverter {
             if (javaSourceClass.getAbsolutePath().startsWith(sourceDir.getAbsolutePath())) { //perf tweak only
                 String relativePath = GFileUtils.relativePath(sourceDir, javaSourceClass);
                 if (!relativePath.startsWith("..")) {
-                    return relativePath.replaceAll("/", ".").replaceAll("\\.java$", "");
+                    return relativePath.replaceAll("/", ".").replaceAll("\\.(java|groovy)$", "");
                 }
             }
         }
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.analyzer;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import org.gradle.api.internal.changedetection.state.InputFilesNormalizer;
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.internal.hash.HashValue;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.TypePath;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.gradle.internal.FileUtils.hasExtension;
+
+/**
+ * Hashes the class files and jars on a compile classpath by the ABI of the classes they contain: the non-private classes, fields, methods and
+ * annotations, and the values of constants. Changes to method bodies, private members and resources do not change the hash.
+ *
+ * <p>The files on the annotation processor path, and class files or jars that cannot be read, are hashed by their contents, as are all other files.</p>
+ *
+ * <p>This is opt-in, and is enabled by setting the {@value #ENABLED_PROPERTY} system property to {@code true} in the build process.</p>
+ */
+public class ClassAbiNormalizer implements InputFilesNormalizer {
+    public static final String ENABLED_PROPERTY = "org.gradle.java.compile.abiclasspath";
+    private final Hasher contentHasher;
+    private final Set<File> processorPath;
+    private final String variant;
+
+    public ClassAbiNormalizer(Hasher contentHasher, Collection<File> processorPath) {
+        this.contentHasher = contentHasher;
+        this.processorPath = new TreeSet<File>(processorPath);
+        this.variant = this.processorPath.isEmpty() ? "" : hashPaths(this.processorPath);
+    }
+
+    public static boolean isEnabled() {
+        return "true".equals(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    @Override
+    public String getName() {
+        return "classAbi";
+    }
+
+    /**
+     * Identifies the processor path, as the files on it are hashed differently.
+     */
+    @Override
+    public String getVariant() {
+        return variant;
+    }
+
+    @Override
+    public HashValue hash(File file) {
+        if (processorPath.contains(file)) {
+            return contentHasher.hash(file);
+        }
+        try {
+            if (hasExtension(file, ".class")) {
+                MessageDigest digest = newDigest();
+                putAbi(Files.toByteArray(file), digest);
+                return new HashValue(digest.digest());
+            }
+            if (hasExtension(file, ".jar")) {
+                return hashJar(file);
+            }
+        } catch (IOException e) {
+            // Fall through
+        } catch (RuntimeException e) {
+            // Not a class file that ASM can read
+        }
+        return contentHasher.hash(file);
+    }
+
+    private static HashValue hashJar(File jar) throws IOException {
+        Map<String, byte[]> classHashes = new TreeMap<String, byte[]>();
+        ZipFile zipFile = new ZipFile(jar);
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                InputStream input = zipFile.getInputStream(entry);
+                try {
+                    MessageDigest digest = newDigest();
+                    putAbi(ByteStreams.toByteArray(input), digest);
+                    classHashes.put(entry.getName(), digest.digest());
+                } finally {
+                    input.close();
+                }
+            }
+        } finally {
+            zipFile.close();
+        }
+
+        // Combine the hashes in entry name order, so that the order of the entries in the jar does not matter
+        MessageDigest digest = newDigest();
+        for (Map.Entry<String, byte[]> entry : classHashes.entrySet()) {
+            put(digest, entry.getKey());
+            digest.update(entry.getValue());
+        }
+        return new HashValue(digest.digest());
+    }
+
+    private static String hashPaths(Set<File> files) {
+        MessageDigest digest = newDigest();
+        for (File file : files) {
+            put(digest, file.getAbsolutePath());
+        }
+        return new HashValue(digest.digest()).asCompactString();
+    }
+
+    private static void putAbi(byte[] classBytes, MessageDigest digest) {
+        new ClassReader(classBytes).accept(new AbiVisitor(digest), ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void put(MessageDigest digest, Object... values) {
+        for (Object value : values) {
+            if (value == null) {
+                digest.update((byte) 1);
+            } else if (value instanceof Object[]) {
+                put(digest, Arrays.toString((Object[]) value));
+            } else {
+                digest.update(value.getClass().getName().getBytes(Charsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(value.toString().getBytes(Charsets.UTF_8));
+                digest.update((byte) 0);
+            }
+        }
+    }
+
+    private static boolean isExcluded(int access) {
+        return (access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_SYNTHETIC)) != 0;
+    }
+
+    private static class AbiVisitor extends ClassVisitor {
+        private final MessageDigest digest;
+
+        AbiVisitor(MessageDigest digest) {
+            super(Opcodes.ASM5);
+            this.digest = digest;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            put(digest, "class", version, access, name, signature, superName, interfaces);
+        }
+
+        @Override
+        public void visitOuterClass(String owner, String name, String desc) {
+            put(digest, "outer", owner, name, desc);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+            put(digest, "annotation", desc, visible);
+            return new AbiAnnotationVisitor(digest);
+        }
+
+        @Override
+        public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+            put(digest, "typeAnnotation", typeRef, typePath, desc, visible);
+            return new AbiAnnotationVisitor(digest);
+        }
+
+        @Override
+        public void visitInnerClass(String name, String outerName, String innerName, int access) {
+            if (!isExcluded(access)) {
+                put(digest, "inner", name, outerName, innerName, access);
+            }
+        }
+
+        @Override
+        public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+            if (isExcluded(access)) {
+                return null;
+            }
+            put(digest, "field", access, name, desc, signature, value);
+            return new FieldVisitor(Opcodes.ASM5) {
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    put(digest, "annotation", desc, visible);
+                    return new AbiAnnotationVisitor(digest);
+                }
+
+                @Override
+                public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+                    put(digest, "typeAnnotation", typeRef, typePath, desc, visible);
+                    return new AbiAnnotationVisitor(digest);
+                }
+            };
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+            if (isExcluded(access)) {
+                return null;
+            }
+            put(digest, "method", access, name, desc, signature, exceptions);
+            return new MethodVisitor(Opcodes.ASM5) {
+                @Override
+                public AnnotationVisitor visitAnnotationDefault() {
+                    put(digest, "default");
+                    return new AbiAnnotationVisitor(digest);
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+                    put(digest, "annotation", desc, visible);
+                    return new AbiAnnotationVisitor(digest);
+                }
+
+                @Override
+                public AnnotationVisitor visitTypeAnnotation(int typeRef, TypePath typePath, String desc, boolean visible) {
+                    put(digest, "typeAnnotation", typeRef, typePath, desc, visible);
+                    return new AbiAnnotationVisitor(digest);
+                }
+
+                @Override
+                public AnnotationVisitor visitParameterAnnotation(int parameter, String desc, boolean visible) {
+                    put(digest, "parameterAnnotation", parameter, desc, visible);
+                    return new AbiAnnotationVisitor(digest);
+                }
+            };
+        }
+    }
+
+    private static class AbiAnnotationVisitor extends AnnotationVisitor {
+        private final MessageDigest digest;
+
+        AbiAnnotationVisitor(MessageDigest digest) {
+            super(Opcodes.ASM5);
+            this.digest = digest;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            put(digest, "value", name);
+            if (value != null && value.getClass().isArray()) {
+                // A primitive array
+                for (int i = 0; i < Array.getLength(value); i++) {
+                    put(digest, Array.get(value, i));
+                }
+            } else {
+                put(digest, value);
+            }
+        }
+
+        @Override
+        public void visitEnum(String name, String desc, String value) {
+            put(digest, "enum", name, desc, value);
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String desc) {
+            put(digest, "annotation", name, desc);
+            return this;
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            put(digest, "array", name);
+            return this;
+        }
+
+        @Override
+        public void visitEnd() {
+            put(digest, "end");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.analyzer;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.changedetection.state.InputFilesNormalizer;
+import org.gradle.api.internal.changedetection.state.InputFilesNormalizerProvider;
+import org.gradle.api.internal.hash.Hasher;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDiscovery;
+import org.gradle.api.tasks.compile.JavaCompile;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Provides a {@link ClassAbiNormalizer} for {@link JavaCompile} tasks, when this is enabled.
+ *
+ * <p>When annotation processing is enabled and no processor path is given, the processors are loaded from the compile classpath, so the whole
+ * classpath is hashed by content.</p>
+ */
+public class ClassAbiNormalizerProvider implements InputFilesNormalizerProvider {
+    private final Hasher contentHasher;
+
+    public ClassAbiNormalizerProvider(Hasher contentHasher) {
+        this.contentHasher = contentHasher;
+    }
+
+    @Override
+    public InputFilesNormalizer getInputFilesNormalizer(TaskInternal task) {
+        if (!ClassAbiNormalizer.isEnabled() || !(task instanceof JavaCompile)) {
+            return null;
+        }
+        List<String> compilerArgs = ((JavaCompile) task).getOptions().getCompilerArgs();
+        List<File> processorPath = AnnotationProcessorDiscovery.getProcessorPath(compilerArgs, null);
+        if (processorPath.isEmpty() && !AnnotationProcessorDiscovery.isProcessingDisabled(compilerArgs)) {
+            return null;
+        }
+        return new ClassAbiNormalizer(contentHasher, processorPath);
+    }
+}
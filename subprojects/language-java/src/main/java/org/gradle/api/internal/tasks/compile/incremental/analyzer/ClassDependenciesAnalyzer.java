@@ -16,8 +16,17 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.analyzer;
 
+import org.gradle.internal.hash.HashValue;
+
 import java.io.File;
 
 public interface ClassDependenciesAnalyzer {
     ClassAnalysis getClassAnalysis(String className, File classFile);
+
+    /**
+     * Analyzes a class from its contents, for example as read from a jar entry.
+     *
+     * @param classHash The MD5 hash of the class contents.
+     */
+    ClassAnalysis getClassAnalysis(String className, HashValue classHash, byte[] classBytes);
 }
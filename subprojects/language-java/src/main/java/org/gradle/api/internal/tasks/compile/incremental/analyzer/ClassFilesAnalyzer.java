@@ -20,6 +20,7 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.internal.hash.HashValue;
 
 import java.io.File;
 
@@ -50,7 +51,7 @@ public class ClassFilesAnalyzer implements FileVisitor {
         if (!hasExtension(file, ".class")) {
             return;
         }
-        String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
+        String className = toClassName(fileDetails.getPath());
         if (!className.startsWith(packagePrefix)) {
             return;
         }
@@ -59,6 +60,25 @@ public class ClassFilesAnalyzer implements FileVisitor {
         accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
     }
 
+    /**
+     * Analyzes a class from its contents rather than from a file.
+     */
+    public void visitClass(String className, HashValue classHash, byte[] classBytes) {
+        if (!className.startsWith(packagePrefix)) {
+            return;
+        }
+
+        ClassAnalysis analysis = analyzer.getClassAnalysis(className, classHash, classBytes);
+        accumulator.addClass(className, analysis.isDependencyToAll(), analysis.getClassDependencies());
+    }
+
+    /**
+     * Converts the relative path of a class file, such as {@code org/gradle/Foo.class}, to a class name.
+     */
+    public static String toClassName(String classFilePath) {
+        return classFilePath.substring(0, classFilePath.length() - ".class".length()).replace('/', '.');
+    }
+
     public ClassSetAnalysisData getAnalysis() {
         return new ClassSetAnalysisData(accumulator.getDependentsMap());
     }
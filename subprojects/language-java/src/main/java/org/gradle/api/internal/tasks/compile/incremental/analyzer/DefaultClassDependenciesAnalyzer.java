@@ -16,10 +16,12 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.analyzer;
 
+import org.gradle.internal.hash.HashValue;
 import org.gradle.util.GFileUtils;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -64,6 +66,15 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
         return out;
     }
 
+    @Override
+    public ClassAnalysis getClassAnalysis(String className, HashValue classHash, byte[] classBytes) {
+        try {
+            return getClassAnalysis(className, new ByteArrayInputStream(classBytes));
+        } catch (IOException e) {
+            throw new RuntimeException("Problems loading class analysis for '" + className + "'.", e);
+        }
+    }
+
     @Override
     public ClassAnalysis getClassAnalysis(String className, File classFile) {
         FileInputStream input = GFileUtils.openInputStream(classFile);
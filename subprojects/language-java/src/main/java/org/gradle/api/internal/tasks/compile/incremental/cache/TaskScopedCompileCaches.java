@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.cache;
+
+import org.gradle.api.Task;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysisCache;
+import org.gradle.api.internal.tasks.compile.incremental.deps.LocalClassSetAnalysisStore;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshotCache;
+import org.gradle.api.internal.tasks.compile.incremental.jar.LocalJarClasspathSnapshotStore;
+import org.gradle.cache.CacheRepository;
+
+/**
+ * The caches of an incremental compile task: the general caches shared by all compilations, and the stores kept for the given task.
+ */
+public class TaskScopedCompileCaches implements CompileCaches {
+    private final CacheRepository repository;
+    private final GeneralCompileCaches generalCaches;
+    private final Task task;
+
+    public TaskScopedCompileCaches(CacheRepository repository, GeneralCompileCaches generalCaches, Task task) {
+        this.repository = repository;
+        this.generalCaches = generalCaches;
+        this.task = task;
+    }
+
+    public ClassAnalysisCache getClassAnalysisCache() {
+        return generalCaches.getClassAnalysisCache();
+    }
+
+    public JarSnapshotCache getJarSnapshotCache() {
+        return generalCaches.getJarSnapshotCache();
+    }
+
+    public LocalJarClasspathSnapshotStore getLocalJarClasspathSnapshotStore() {
+        return new LocalJarClasspathSnapshotStore(repository, task);
+    }
+
+    public LocalClassSetAnalysisStore getLocalClassSetAnalysisStore() {
+        return new LocalClassSetAnalysisStore(repository, task);
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -42,34 +43,38 @@ public class ClassSetAnalysis {
     }
 
     public DependentsSet getRelevantDependents(String className) {
-        DependentsSet deps = data.getDependents(className);
-        if (deps == null) {
+        int id = data.getClassId(className);
+        if (id < 0 || !data.isAnalyzed(id)) {
             return new DefaultDependentsSet();
         }
-        if (deps.isDependencyToAll()) {
+        if (data.isDependencyToAll(id)) {
             return new DependencyToAll();
         }
+        // Walk the dependents by id, and only look up the names of the classes that end up in the result
+        BitSet visited = new BitSet();
         Set<String> result = new HashSet<String>();
-        recurseDependents(new HashSet<String>(), result, deps.getDependentClasses());
+        recurseDependents(visited, result, id);
         result.remove(className);
         return new DefaultDependentsSet(result);
     }
 
     public boolean isDependencyToAll(String className) {
-        DependentsSet deps = data.getDependents(className);
-        return deps != null && deps.isDependencyToAll();
+        int id = data.getClassId(className);
+        return id >= 0 && data.isDependencyToAll(id);
     }
 
-    private void recurseDependents(Set<String> visited, Set<String> result, Set<String> dependentClasses) {
-        for (String d : dependentClasses) {
-            if (!visited.add(d)) {
+    private void recurseDependents(BitSet visited, Set<String> result, int classId) {
+        for (int i = data.getDependentsStart(classId); i < data.getDependentsEnd(classId); i++) {
+            int d = data.getDependentId(i);
+            if (visited.get(d)) {
                 continue;
             }
-            if (!d.contains("$")) { //filter out the inner classes
-                result.add(d);
+            visited.set(d);
+            String name = data.getClassName(d);
+            if (!name.contains("$")) { //filter out the inner classes
+                result.add(name);
             }
-            DependentsSet currentDependents = data.getDependents(d);
-            recurseDependents(visited, result, currentDependents.getDependentClasses());
+            recurseDependents(visited, result, d);
         }
     }
 
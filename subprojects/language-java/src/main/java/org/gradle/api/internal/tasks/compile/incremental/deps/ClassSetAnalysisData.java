@@ -16,73 +16,370 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps;
 
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
-import org.gradle.internal.serialize.MapSerializer;
-import org.gradle.internal.serialize.SetSerializer;
+import org.gradle.internal.serialize.HashValueSerializer;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
-import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
-
+/**
+ * The dependents of each class in a set of classes. The class names are held in a sorted dictionary, and the id of a class is its index in the
+ * dictionary. The dependents of each class are held as the ids of the dependent classes in a single flat array, so that the data is compact to hold
+ * and quick to read. The {@link DependentsSet} of a class is created only when it is requested.
+ */
 public class ClassSetAnalysisData {
 
-    final Map<String, DependentsSet> dependents;
+    // The kinds of class, matching the control values used by earlier versions of the serialized form
+    private static final byte DEPENDENCY_TO_ALL = 0;
+    private static final byte DEPENDENTS_AND_DEPENDENCY_TO_ALL = 1;
+    private static final byte DEPENDENTS = 2;
+    // A class that is known only as a dependent of other classes
+    private static final byte NOT_ANALYZED = 3;
+
+    private final String[] classNames;
+    private final byte[] kinds;
+    // The dependents of class i are dependentIds[dependentOffsets[i]] to dependentIds[dependentOffsets[i + 1] - 1]
+    private final int[] dependentOffsets;
+    private final int[] dependentIds;
+    private final HashValue[] classHashes;
+    private final AnnotationProcessingData annotationProcessingData;
+    // The top-level classes declared in a source file that is named after another class, by class name, to the name of that other class
+    private final Map<String, String> sourceClassNames;
+    private int[][] dependencyIds;
 
     public ClassSetAnalysisData(Map<String, DependentsSet> dependents) {
-        this.dependents = dependents;
+        this(dependents, Collections.<String, HashValue>emptyMap());
+    }
+
+    /**
+     * @param classHashes The content hashes of the analyzed class files, used to find the classes that need to be analyzed again after a compilation.
+     */
+    public ClassSetAnalysisData(Map<String, DependentsSet> dependents, Map<String, HashValue> classHashes) {
+        this(dependents, classHashes, new AnnotationProcessingData());
+    }
+
+    /**
+     * @param annotationProcessingData The outputs of the annotation processors that ran when the classes were compiled.
+     */
+    public ClassSetAnalysisData(Map<String, DependentsSet> dependents, Map<String, HashValue> classHashes, AnnotationProcessingData annotationProcessingData) {
+        this(dependents, classHashes, annotationProcessingData, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * @param sourceClassNames The top-level classes that were compiled from a source file named after another class, such as the additional classes declared in
+     * a Groovy source file, mapped to the name of that other class.
+     */
+    public ClassSetAnalysisData(Map<String, DependentsSet> dependents, Map<String, HashValue> classHashes, AnnotationProcessingData annotationProcessingData,
+                                Map<String, String> sourceClassNames) {
+        this.annotationProcessingData = annotationProcessingData;
+        this.sourceClassNames = sourceClassNames;
+        Set<String> names = new TreeSet<String>(dependents.keySet());
+        for (DependentsSet dependentsSet : dependents.values()) {
+            if (!(dependentsSet instanceof DependencyToAll)) {
+                names.addAll(dependentsSet.getDependentClasses());
+            }
+        }
+        names.addAll(classHashes.keySet());
+        names.addAll(sourceClassNames.keySet());
+
+        int count = names.size();
+        this.classNames = names.toArray(new String[count]);
+        this.kinds = new byte[count];
+        this.dependentOffsets = new int[count + 1];
+        this.classHashes = new HashValue[count];
+        Arrays.fill(kinds, NOT_ANALYZED);
+
+        int[] dependentIds = new int[16];
+        int size = 0;
+        for (int id = 0; id < count; id++) {
+            dependentOffsets[id] = size;
+            DependentsSet dependentsSet = dependents.get(classNames[id]);
+            if (dependentsSet == null) {
+                continue;
+            }
+            if (dependentsSet instanceof DependencyToAll) {
+                kinds[id] = DEPENDENCY_TO_ALL;
+                continue;
+            }
+            kinds[id] = dependentsSet.isDependencyToAll() ? DEPENDENTS_AND_DEPENDENCY_TO_ALL : DEPENDENTS;
+            Set<String> dependentClasses = dependentsSet.getDependentClasses();
+            if (size + dependentClasses.size() > dependentIds.length) {
+                dependentIds = Arrays.copyOf(dependentIds, Math.max(dependentIds.length * 2, size + dependentClasses.size()));
+            }
+            for (String dependent : dependentClasses) {
+                dependentIds[size++] = getClassId(dependent);
+            }
+        }
+        dependentOffsets[count] = size;
+        this.dependentIds = Arrays.copyOf(dependentIds, size);
+
+        for (Map.Entry<String, HashValue> entry : classHashes.entrySet()) {
+            this.classHashes[getClassId(entry.getKey())] = entry.getValue();
+        }
+    }
+
+    private ClassSetAnalysisData(String[] classNames, byte[] kinds, int[] dependentOffsets, int[] dependentIds, HashValue[] classHashes,
+                                 AnnotationProcessingData annotationProcessingData, Map<String, String> sourceClassNames) {
+        this.annotationProcessingData = annotationProcessingData;
+        this.sourceClassNames = sourceClassNames;
+        this.classNames = classNames;
+        this.kinds = kinds;
+        this.dependentOffsets = dependentOffsets;
+        this.dependentIds = dependentIds;
+        this.classHashes = classHashes;
     }
 
+    /**
+     * Returns the dependents of the given class, or null when the class has not been analyzed.
+     */
+    @Nullable
     public DependentsSet getDependents(String className) {
-        return dependents.get(className);
+        int id = getClassId(className);
+        if (id < 0) {
+            return null;
+        }
+        switch (kinds[id]) {
+            case NOT_ANALYZED:
+                return null;
+            case DEPENDENCY_TO_ALL:
+                return new DependencyToAll();
+            default:
+                List<String> dependents = new ArrayList<String>(dependentOffsets[id + 1] - dependentOffsets[id]);
+                for (int i = dependentOffsets[id]; i < dependentOffsets[id + 1]; i++) {
+                    dependents.add(classNames[dependentIds[i]]);
+                }
+                return new DefaultDependentsSet(kinds[id] == DEPENDENTS_AND_DEPENDENCY_TO_ALL, dependents);
+        }
+    }
+
+    /**
+     * Returns the names of the analyzed classes.
+     */
+    public Collection<String> getClassNames() {
+        List<String> names = new ArrayList<String>(classNames.length);
+        for (int id = 0; id < classNames.length; id++) {
+            if (kinds[id] != NOT_ANALYZED) {
+                names.add(classNames[id]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Returns the content hash of the given class file when it was analyzed, or null when not known.
+     */
+    @Nullable
+    public HashValue getClassHash(String className) {
+        int id = getClassId(className);
+        return id < 0 ? null : classHashes[id];
+    }
+
+    public AnnotationProcessingData getAnnotationProcessingData() {
+        return annotationProcessingData;
+    }
+
+    /**
+     * Returns the name of the class that the source file of the given top-level class is named after, or null when the source file is named after the class itself
+     * or is not known.
+     */
+    @Nullable
+    public String getSourceClassName(String className) {
+        return sourceClassNames.get(className);
+    }
+
+    /**
+     * Returns the other top-level classes that were compiled from the source file named after the given class.
+     */
+    public Set<String> getOtherClassesOfSource(String sourceClassName) {
+        Set<String> classes = new HashSet<String>();
+        for (Map.Entry<String, String> entry : sourceClassNames.entrySet()) {
+            if (entry.getValue().equals(sourceClassName)) {
+                classes.add(entry.getKey());
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Returns the analysis of the given class, as recorded in this data. Only valid for a class whose hash is known.
+     */
+    public ClassAnalysis getClassAnalysis(String className) {
+        if (dependencyIds == null) {
+            dependencyIds = invertDependents();
+        }
+        int id = getClassId(className);
+        Set<String> dependencies = new HashSet<String>();
+        if (id >= 0) {
+            for (int dependency : dependencyIds[id]) {
+                dependencies.add(classNames[dependency]);
+            }
+        }
+        return new ClassAnalysis(dependencies, id >= 0 && isDependencyToAll(id));
+    }
+
+    private int[][] invertDependents() {
+        int[] counts = new int[classNames.length];
+        for (int dependent : dependentIds) {
+            counts[dependent]++;
+        }
+        int[][] dependencies = new int[classNames.length][];
+        for (int id = 0; id < classNames.length; id++) {
+            dependencies[id] = new int[counts[id]];
+            counts[id] = 0;
+        }
+        for (int id = 0; id < classNames.length; id++) {
+            for (int i = dependentOffsets[id]; i < dependentOffsets[id + 1]; i++) {
+                int dependent = dependentIds[i];
+                dependencies[dependent][counts[dependent]++] = id;
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Returns the id of the given class, or -1 when the class is not known.
+     */
+    int getClassId(String className) {
+        int id = Arrays.binarySearch(classNames, className);
+        return id < 0 ? -1 : id;
+    }
+
+    String getClassName(int id) {
+        return classNames[id];
+    }
+
+    boolean isAnalyzed(int id) {
+        return kinds[id] != NOT_ANALYZED;
+    }
+
+    boolean isDependencyToAll(int id) {
+        return kinds[id] == DEPENDENCY_TO_ALL || kinds[id] == DEPENDENTS_AND_DEPENDENCY_TO_ALL;
+    }
+
+    int getDependentsStart(int id) {
+        return dependentOffsets[id];
+    }
+
+    int getDependentsEnd(int id) {
+        return dependentOffsets[id + 1];
+    }
+
+    int getDependentId(int index) {
+        return dependentIds[index];
+    }
+
+    /**
+     * Combines the given analyses, for example those of the directories and jars of a classpath, into a single analysis.
+     */
+    public static ClassSetAnalysisData merge(Iterable<ClassSetAnalysisData> analyses) {
+        Map<String, DependentsSet> merged = new HashMap<String, DependentsSet>();
+        for (ClassSetAnalysisData analysis : analyses) {
+            for (String className : analysis.getClassNames()) {
+                DependentsSet existing = merged.get(className);
+                DependentsSet added = analysis.getDependents(className);
+                if (existing == null || added instanceof DependencyToAll) {
+                    merged.put(className, added);
+                } else if (!(existing instanceof DependencyToAll)) {
+                    DefaultDependentsSet combined = new DefaultDependentsSet(existing.isDependencyToAll() || added.isDependencyToAll(), existing.getDependentClasses());
+                    for (String dependent : added.getDependentClasses()) {
+                        combined.addDependent(dependent);
+                    }
+                    merged.put(className, combined);
+                }
+            }
+        }
+        return new ClassSetAnalysisData(merged);
     }
 
     public static class Serializer implements org.gradle.internal.serialize.Serializer<ClassSetAnalysisData> {
 
-        private final MapSerializer<String, DependentsSet> serializer = new MapSerializer<String, DependentsSet>(
-                STRING_SERIALIZER, new DependentsSetSerializer());
+        private final HashValueSerializer hashSerializer = new HashValueSerializer();
+        private final AnnotationProcessingData.Serializer annotationProcessingDataSerializer = new AnnotationProcessingData.Serializer();
 
         @Override
         public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            //we only support one kind of data
-            return new ClassSetAnalysisData(serializer.read(decoder));
+            int count = decoder.readSmallInt();
+            // The names were written in sorted order, so can be searched as they are, without building an index
+            String[] classNames = new String[count];
+            for (int id = 0; id < count; id++) {
+                classNames[id] = decoder.readString();
+            }
+            byte[] kinds = decoder.readBinary();
+            if (kinds.length != count) {
+                throw new IllegalArgumentException("Unable to read the data. Unexpected number of classes: " + kinds.length);
+            }
+            int[] dependentOffsets = new int[count + 1];
+            int[] dependentIds = new int[decoder.readSmallInt()];
+            int size = 0;
+            for (int id = 0; id < count; id++) {
+                dependentOffsets[id] = size;
+                int dependents = decoder.readSmallInt();
+                for (int i = 0; i < dependents; i++) {
+                    dependentIds[size++] = decoder.readSmallInt();
+                }
+            }
+            dependentOffsets[count] = size;
+            HashValue[] classHashes = new HashValue[count];
+            int hashes = decoder.readSmallInt();
+            for (int i = 0; i < hashes; i++) {
+                classHashes[decoder.readSmallInt()] = hashSerializer.read(decoder);
+            }
+            AnnotationProcessingData annotationProcessingData = annotationProcessingDataSerializer.read(decoder);
+            int sources = decoder.readSmallInt();
+            Map<String, String> sourceClassNames = new HashMap<String, String>(sources * 4 / 3 + 1);
+            for (int i = 0; i < sources; i++) {
+                sourceClassNames.put(classNames[decoder.readSmallInt()], decoder.readString());
+            }
+            return new ClassSetAnalysisData(classNames, kinds, dependentOffsets, dependentIds, classHashes, annotationProcessingData, sourceClassNames);
         }
 
         @Override
         public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            //we only support one kind of data
-            serializer.write(encoder, value.dependents);
-        }
-
-        private static class DependentsSetSerializer implements org.gradle.internal.serialize.Serializer<DependentsSet> {
-
-            private SetSerializer<String> setSerializer = new SetSerializer<String>(STRING_SERIALIZER, false);
-
-            @Override
-            public DependentsSet read(Decoder decoder) throws Exception {
-                int control = decoder.readSmallInt();
-                if (control == 0) {
-                    return new DependencyToAll();
+            int count = value.classNames.length;
+            encoder.writeSmallInt(count);
+            for (String className : value.classNames) {
+                encoder.writeString(className);
+            }
+            encoder.writeBinary(value.kinds);
+            encoder.writeSmallInt(value.dependentIds.length);
+            for (int id = 0; id < count; id++) {
+                encoder.writeSmallInt(value.dependentOffsets[id + 1] - value.dependentOffsets[id]);
+                for (int i = value.dependentOffsets[id]; i < value.dependentOffsets[id + 1]; i++) {
+                    encoder.writeSmallInt(value.dependentIds[i]);
                 }
-                if (control != 1 && control != 2) {
-                    throw new IllegalArgumentException("Unable to read the data. Unexpected control value: " + control);
+            }
+            int hashes = 0;
+            for (HashValue hash : value.classHashes) {
+                if (hash != null) {
+                    hashes++;
                 }
-                Set<String> classes = setSerializer.read(decoder);
-                return new DefaultDependentsSet(control == 1, classes);
-            }
-
-            @Override
-            public void write(Encoder encoder, DependentsSet value) throws Exception {
-                if (value instanceof DependencyToAll) {
-                    encoder.writeSmallInt(0);
-                } else if (value instanceof DefaultDependentsSet) {
-                    encoder.writeSmallInt(value.isDependencyToAll() ? 1 : 2);
-                    setSerializer.write(encoder, value.getDependentClasses());
-                } else {
-                    throw new IllegalArgumentException("Don't know how to serialize value of type: " + value.getClass() + ", value: " + value);
+            }
+            encoder.writeSmallInt(hashes);
+            for (int id = 0; id < count; id++) {
+                if (value.classHashes[id] != null) {
+                    encoder.writeSmallInt(id);
+                    hashSerializer.write(encoder, value.classHashes[id]);
                 }
             }
+            annotationProcessingDataSerializer.write(encoder, value.annotationProcessingData);
+            encoder.writeSmallInt(value.sourceClassNames.size());
+            for (Map.Entry<String, String> entry : value.sourceClassNames.entrySet()) {
+                encoder.writeSmallInt(value.getClassId(entry.getKey()));
+                encoder.writeString(entry.getValue());
+            }
         }
     }
 }
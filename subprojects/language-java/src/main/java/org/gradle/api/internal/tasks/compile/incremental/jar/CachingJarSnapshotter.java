@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.changedetection.state.FileSnapshot;
 import org.gradle.api.internal.changedetection.state.FilesSnapshotSet;
 import org.gradle.api.internal.hash.Hasher;
@@ -30,7 +31,7 @@ public class CachingJarSnapshotter implements JarSnapshotter {
     private final JarSnapshotCache cache;
     private final FilesSnapshotSet inputFilesSnapshot;
 
-    public CachingJarSnapshotter(Hasher hasher, ClassDependenciesAnalyzer analyzer, JarSnapshotCache cache, FilesSnapshotSet inputFilesSnapshot) {
+    public CachingJarSnapshotter(Hasher hasher, ClassDependenciesAnalyzer analyzer, JarSnapshotCache cache, @Nullable FilesSnapshotSet inputFilesSnapshot) {
         this.inputFilesSnapshot = inputFilesSnapshot;
         this.snapshotter = new DefaultJarSnapshotter(hasher, analyzer);
         this.hasher = hasher;
@@ -48,9 +49,11 @@ public class CachingJarSnapshotter implements JarSnapshotter {
     }
 
     private HashValue getHash(JarArchive jarArchive) {
-        FileSnapshot s = inputFilesSnapshot.findSnapshot(jarArchive.file);
-        if (s != null) {
-            return s.getHash();
+        if (inputFilesSnapshot != null) {
+            FileSnapshot s = inputFilesSnapshot.findSnapshot(jarArchive.file);
+            if (s != null) {
+                return s.getHash();
+            }
         }
         return hasher.hash(jarArchive.file);
     }
@@ -15,17 +15,30 @@
  */
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
+import com.google.common.io.ByteStreams;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.internal.hash.Hasher;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer;
+import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.hash.HashValue;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
+/**
+ * Creates the snapshot of a jar. The class files are read and hashed directly from the jar, without extracting them.
+ */
 class DefaultJarSnapshotter {
 
     private final Hasher hasher;
@@ -37,7 +50,47 @@ class DefaultJarSnapshotter {
     }
 
     public JarSnapshot createSnapshot(HashValue hash, JarArchive jarArchive) {
-        return createSnapshot(hash, jarArchive.contents, new ClassFilesAnalyzer(analyzer));
+        ClassFilesAnalyzer classFilesAnalyzer = new ClassFilesAnalyzer(analyzer);
+        if (!jarArchive.file.isFile()) {
+            return createSnapshot(hash, jarArchive.contents, classFilesAnalyzer);
+        }
+        return createSnapshot(hash, jarArchive.file, classFilesAnalyzer);
+    }
+
+    JarSnapshot createSnapshot(HashValue hash, File jar, ClassFilesAnalyzer analyzer) {
+        Map<String, HashValue> hashes = new HashMap<String, HashValue>();
+        try {
+            ZipFile zipFile = new ZipFile(jar);
+            try {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+                        continue;
+                    }
+                    byte[] classBytes = read(zipFile, entry);
+                    String className = ClassFilesAnalyzer.toClassName(entry.getName());
+                    HashValue classHash = HashUtil.createHash(new ByteArrayInputStream(classBytes), "MD5");
+                    analyzer.visitClass(className, classHash, classBytes);
+                    hashes.put(className, classHash);
+                }
+            } finally {
+                zipFile.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not create snapshot of jar %s.", jar), e);
+        }
+
+        return new JarSnapshot(new JarSnapshotData(hash, hashes, analyzer.getAnalysis()));
+    }
+
+    private static byte[] read(ZipFile zipFile, ZipEntry entry) throws IOException {
+        InputStream input = zipFile.getInputStream(entry);
+        try {
+            return ByteStreams.toByteArray(input);
+        } finally {
+            input.close();
+        }
     }
 
     JarSnapshot createSnapshot(HashValue hash, FileTree classes, final ClassFilesAnalyzer analyzer) {
@@ -48,7 +101,7 @@ class DefaultJarSnapshotter {
 
             public void visitFile(FileVisitDetails fileDetails) {
                 analyzer.visitFile(fileDetails);
-                String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
+                String className = ClassFilesAnalyzer.toClassName(fileDetails.getPath());
                 HashValue classHash = hasher.hash(fileDetails.getFile());
                 hashes.put(className, classHash);
             }
@@ -56,4 +109,4 @@ class DefaultJarSnapshotter {
 
         return new JarSnapshot(new JarSnapshotData(hash, hashes, analyzer.getAnalysis()));
     }
-}
\ No newline at end of file
+}
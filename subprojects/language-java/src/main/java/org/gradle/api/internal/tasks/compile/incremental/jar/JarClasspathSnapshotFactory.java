@@ -16,30 +16,51 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
+import org.gradle.api.Nullable;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.hash.HashValue;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class JarClasspathSnapshotFactory {
 
     private final JarSnapshotter jarSnapshotter;
+    private final ExecutorFactory executorFactory;
 
     public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter) {
+        this(jarSnapshotter, null);
+    }
+
+    /**
+     * @param executorFactory The executor factory to use to snapshot the jars concurrently, or null to snapshot them serially.
+     */
+    public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter, @Nullable ExecutorFactory executorFactory) {
         this.jarSnapshotter = jarSnapshotter;
+        this.executorFactory = executorFactory;
     }
 
     JarClasspathSnapshot createSnapshot(Iterable<JarArchive> jarArchives) {
+        List<JarArchive> jars = new ArrayList<JarArchive>();
+        for (JarArchive jar : jarArchives) {
+            jars.add(jar);
+        }
+        JarSnapshot[] snapshots = createJarSnapshots(jars);
+
         Map<File, JarSnapshot> jarSnapshots = new HashMap<File, JarSnapshot>();
         Map<File, HashValue> jarHashes = new HashMap<File, HashValue>();
         Set<String> allClasses = new HashSet<String>();
         Set<String> duplicateClasses = new HashSet<String>();
 
-        for (JarArchive jar : jarArchives) {
-            JarSnapshot snapshot = jarSnapshotter.createSnapshot(jar);
+        for (int i = 0; i < jars.size(); i++) {
+            JarArchive jar = jars.get(i);
+            JarSnapshot snapshot = snapshots[i];
             jarSnapshots.put(jar.file, snapshot);
             jarHashes.put(jar.file, snapshot.getHash());
             for (String c : snapshot.getClasses()) {
@@ -51,4 +72,30 @@ public class JarClasspathSnapshotFactory {
         JarClasspathSnapshotData jarClasspathSnapshotData = new JarClasspathSnapshotData(jarHashes, duplicateClasses);
         return new JarClasspathSnapshot(jarSnapshots, jarClasspathSnapshotData);
     }
+
+    private JarSnapshot[] createJarSnapshots(final List<JarArchive> jars) {
+        final JarSnapshot[] snapshots = new JarSnapshot[jars.size()];
+        if (executorFactory == null || jars.size() < 2) {
+            for (int i = 0; i < jars.size(); i++) {
+                snapshots[i] = jarSnapshotter.createSnapshot(jars.get(i));
+            }
+            return snapshots;
+        }
+
+        // Jars that are not in the jar snapshot cache are read and analyzed concurrently
+        StoppableExecutor executor = executorFactory.create("Jar snapshotter", Math.min(jars.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            for (int i = 0; i < jars.size(); i++) {
+                final int index = i;
+                executor.execute(new Runnable() {
+                    public void run() {
+                        snapshots[index] = jarSnapshotter.createSnapshot(jars.get(index));
+                    }
+                });
+            }
+        } finally {
+            executor.stop();
+        }
+        return snapshots;
+    }
 }
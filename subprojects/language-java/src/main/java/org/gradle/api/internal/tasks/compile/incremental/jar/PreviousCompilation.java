@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.compile.incremental.jar;
 
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData;
 
 import java.io.File;
 import java.util.Map;
@@ -51,4 +52,15 @@ public class PreviousCompilation {
     public DependentsSet getDependents(String className) {
         return analysis.getRelevantDependents(className);
     }
+
+    /**
+     * Returns the other top-level classes that were compiled from the source file named after the given class.
+     */
+    public Set<String> getOtherClassesOfSource(String sourceClassName) {
+        return analysis.getData().getOtherClassesOfSource(sourceClassName);
+    }
+
+    public AnnotationProcessingData getAnnotationProcessingData() {
+        return analysis.getData().getAnnotationProcessingData();
+    }
 }
@@ -23,12 +23,20 @@ import java.util.LinkedHashSet;
 public class RecompilationSpec {
 
     private final Collection<String> classesToCompile = new LinkedHashSet<String>();
+    private final Collection<File> generatedFilesToDelete = new LinkedHashSet<File>();
     private String fullRebuildCause;
 
     public Collection<String> getClassNames() {
         return classesToCompile;
     }
 
+    /**
+     * Returns the source and resource files generated by annotation processors from the classes to compile. These are deleted before compiling.
+     */
+    public Collection<File> getGeneratedFilesToDelete() {
+        return generatedFilesToDelete;
+    }
+
     public boolean isFullRebuildNeeded() {
         return fullRebuildCause != null;
     }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import java.lang.annotation.Annotation;
+import java.util.Set;
+
+/**
+ * The round environment of an aggregating processor, which records the types the processor looks up by annotation, as the outputs of the
+ * processor may depend on any of these.
+ */
+class AggregatingRoundEnvironment implements RoundEnvironment {
+    private final RoundEnvironment delegate;
+    private final AnnotationProcessingData data;
+
+    AggregatingRoundEnvironment(RoundEnvironment delegate, AnnotationProcessingData data) {
+        this.delegate = delegate;
+        this.data = data;
+    }
+
+    @Override
+    public boolean processingOver() {
+        return delegate.processingOver();
+    }
+
+    @Override
+    public boolean errorRaised() {
+        return delegate.errorRaised();
+    }
+
+    @Override
+    public Set<? extends Element> getRootElements() {
+        return delegate.getRootElements();
+    }
+
+    @Override
+    public Set<? extends Element> getElementsAnnotatedWith(TypeElement a) {
+        return record(delegate.getElementsAnnotatedWith(a));
+    }
+
+    @Override
+    public Set<? extends Element> getElementsAnnotatedWith(Class<? extends Annotation> a) {
+        return record(delegate.getElementsAnnotatedWith(a));
+    }
+
+    private Set<? extends Element> record(Set<? extends Element> elements) {
+        for (Element element : elements) {
+            String type = TrackingProcessor.getTopLevelTypeName(element);
+            if (type != null) {
+                data.addAggregatedType(type);
+            }
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.MapSerializer;
+import org.gradle.internal.serialize.SetSerializer;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
+
+/**
+ * The types and files generated by the annotation processors of a compilation, and the types they were generated from.
+ *
+ * <p>The outputs of an isolating processor are recorded against the top level types given as their originating elements. The outputs of an
+ * aggregating processor are recorded together with all of the types that the processor has looked up by annotation, as these outputs may
+ * depend on any of them.</p>
+ */
+public class AnnotationProcessingData {
+
+    private final Map<String, Set<String>> generatedTypes;
+    private final Map<String, Set<String>> generatedFiles;
+    private final Set<String> aggregatedTypes;
+    private final Set<String> aggregatingGeneratedTypes;
+    private final Set<String> aggregatingGeneratedFiles;
+    private String fullRebuildCause;
+
+    public AnnotationProcessingData() {
+        this(new HashMap<String, Set<String>>(), new HashMap<String, Set<String>>(), new HashSet<String>(), new HashSet<String>(), new HashSet<String>(), null);
+    }
+
+    private AnnotationProcessingData(Map<String, Set<String>> generatedTypes, Map<String, Set<String>> generatedFiles, Set<String> aggregatedTypes,
+                                     Set<String> aggregatingGeneratedTypes, Set<String> aggregatingGeneratedFiles, @Nullable String fullRebuildCause) {
+        this.generatedTypes = generatedTypes;
+        this.generatedFiles = generatedFiles;
+        this.aggregatedTypes = aggregatedTypes;
+        this.aggregatingGeneratedTypes = aggregatingGeneratedTypes;
+        this.aggregatingGeneratedFiles = aggregatingGeneratedFiles;
+        this.fullRebuildCause = fullRebuildCause;
+    }
+
+    /**
+     * Returns the types generated from the given type by isolating processors.
+     */
+    public Set<String> getGeneratedTypes(String originatingType) {
+        Set<String> types = generatedTypes.get(originatingType);
+        return types == null ? Collections.<String>emptySet() : types;
+    }
+
+    /**
+     * Returns the absolute paths of the source and resource files generated from the given type by isolating processors.
+     */
+    public Set<String> getGeneratedFiles(String originatingType) {
+        Set<String> files = generatedFiles.get(originatingType);
+        return files == null ? Collections.<String>emptySet() : files;
+    }
+
+    public Set<String> getAggregatedTypes() {
+        return aggregatedTypes;
+    }
+
+    public Set<String> getAggregatingGeneratedTypes() {
+        return aggregatingGeneratedTypes;
+    }
+
+    public Set<String> getAggregatingGeneratedFiles() {
+        return aggregatingGeneratedFiles;
+    }
+
+    /**
+     * Returns the reason why the outputs of the annotation processors cannot be tracked, which means that all sources need to be recompiled
+     * whenever any of them changes, or null when they are tracked.
+     */
+    @Nullable
+    public String getFullRebuildCause() {
+        return fullRebuildCause;
+    }
+
+    public void setFullRebuildCause(String fullRebuildCause) {
+        if (this.fullRebuildCause == null) {
+            this.fullRebuildCause = fullRebuildCause;
+        }
+    }
+
+    public void addGeneratedType(String originatingType, String generatedType) {
+        add(generatedTypes, originatingType, generatedType);
+    }
+
+    public void addGeneratedFile(String originatingType, File generatedFile) {
+        add(generatedFiles, originatingType, generatedFile.getAbsolutePath());
+    }
+
+    public void addAggregatedType(String type) {
+        aggregatedTypes.add(type);
+    }
+
+    public void addAggregatingGeneratedType(String generatedType) {
+        aggregatingGeneratedTypes.add(generatedType);
+    }
+
+    public void addAggregatingGeneratedFile(File generatedFile) {
+        aggregatingGeneratedFiles.add(generatedFile.getAbsolutePath());
+    }
+
+    /**
+     * Combines this data with the outputs recorded by a later compilation. The outputs of this data that no longer exist are discarded, as these
+     * were deleted as stale before the later compilation.
+     */
+    public AnnotationProcessingData update(AnnotationProcessingData later, File classesDir) {
+        AnnotationProcessingData result = new AnnotationProcessingData();
+        for (Map.Entry<String, Set<String>> entry : generatedTypes.entrySet()) {
+            for (String generatedType : entry.getValue()) {
+                if (classExists(classesDir, generatedType)) {
+                    result.addGeneratedType(entry.getKey(), generatedType);
+                }
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : generatedFiles.entrySet()) {
+            for (String generatedFile : entry.getValue()) {
+                if (new File(generatedFile).exists()) {
+                    add(result.generatedFiles, entry.getKey(), generatedFile);
+                }
+            }
+        }
+        // When the aggregating processors have run again, they have seen all of the aggregated types, and their later outputs replace these
+        if (later.aggregatedTypes.isEmpty() && later.aggregatingGeneratedTypes.isEmpty() && later.aggregatingGeneratedFiles.isEmpty()) {
+            for (String type : aggregatedTypes) {
+                if (classExists(classesDir, type)) {
+                    result.aggregatedTypes.add(type);
+                }
+            }
+            for (String generatedType : aggregatingGeneratedTypes) {
+                if (classExists(classesDir, generatedType)) {
+                    result.aggregatingGeneratedTypes.add(generatedType);
+                }
+            }
+            for (String generatedFile : aggregatingGeneratedFiles) {
+                if (new File(generatedFile).exists()) {
+                    result.aggregatingGeneratedFiles.add(generatedFile);
+                }
+            }
+        }
+
+        for (Map.Entry<String, Set<String>> entry : later.generatedTypes.entrySet()) {
+            for (String generatedType : entry.getValue()) {
+                result.addGeneratedType(entry.getKey(), generatedType);
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : later.generatedFiles.entrySet()) {
+            for (String generatedFile : entry.getValue()) {
+                add(result.generatedFiles, entry.getKey(), generatedFile);
+            }
+        }
+        result.aggregatedTypes.addAll(later.aggregatedTypes);
+        result.aggregatingGeneratedTypes.addAll(later.aggregatingGeneratedTypes);
+        result.aggregatingGeneratedFiles.addAll(later.aggregatingGeneratedFiles);
+        result.fullRebuildCause = later.fullRebuildCause;
+        return result;
+    }
+
+    private static boolean classExists(File classesDir, String className) {
+        return new File(classesDir, className.replace('.', '/') + ".class").isFile();
+    }
+
+    private static void add(Map<String, Set<String>> map, String key, String value) {
+        Set<String> values = map.get(key);
+        if (values == null) {
+            values = new HashSet<String>();
+            map.put(key, values);
+        }
+        values.add(value);
+    }
+
+    public static class Serializer implements org.gradle.internal.serialize.Serializer<AnnotationProcessingData> {
+
+        private final SetSerializer<String> setSerializer = new SetSerializer<String>(STRING_SERIALIZER, false);
+        private final MapSerializer<String, Set<String>> mapSerializer = new MapSerializer<String, Set<String>>(STRING_SERIALIZER, setSerializer);
+
+        @Override
+        public AnnotationProcessingData read(Decoder decoder) throws Exception {
+            Map<String, Set<String>> generatedTypes = mapSerializer.read(decoder);
+            Map<String, Set<String>> generatedFiles = mapSerializer.read(decoder);
+            Set<String> aggregatedTypes = setSerializer.read(decoder);
+            Set<String> aggregatingGeneratedTypes = setSerializer.read(decoder);
+            Set<String> aggregatingGeneratedFiles = setSerializer.read(decoder);
+            String fullRebuildCause = decoder.readNullableString();
+            return new AnnotationProcessingData(generatedTypes, generatedFiles, aggregatedTypes, aggregatingGeneratedTypes, aggregatingGeneratedFiles, fullRebuildCause);
+        }
+
+        @Override
+        public void write(Encoder encoder, AnnotationProcessingData value) throws Exception {
+            mapSerializer.write(encoder, value.generatedTypes);
+            mapSerializer.write(encoder, value.generatedFiles);
+            setSerializer.write(encoder, value.aggregatedTypes);
+            setSerializer.write(encoder, value.aggregatingGeneratedTypes);
+            setSerializer.write(encoder, value.aggregatingGeneratedFiles);
+            encoder.writeNullableString(value.fullRebuildCause);
+        }
+    }
+}
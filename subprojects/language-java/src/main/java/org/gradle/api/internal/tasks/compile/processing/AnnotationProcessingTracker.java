@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * Loads the annotation processors of a compilation and records the outputs they generate, so that these can be recompiled and deleted
+ * selectively by the next incremental compilation. See {@link IncrementalAnnotationProcessorType}.
+ */
+public class AnnotationProcessingTracker implements Stoppable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnnotationProcessingTracker.class);
+
+    private final List<String> compilerArgs;
+    private final Iterable<File> classpath;
+    private final ClassLoader parent;
+    private final AnnotationProcessingData data = new AnnotationProcessingData();
+    private URLClassLoader processorLoader;
+
+    /**
+     * @param classpath The compile classpath, which is used to load the processors from when no processor path is given.
+     * @param parent The parent for the class loader of the processors, which should be the class loader of javac.
+     */
+    public AnnotationProcessingTracker(List<String> compilerArgs, @Nullable Iterable<File> classpath, @Nullable ClassLoader parent) {
+        this.compilerArgs = compilerArgs;
+        this.classpath = classpath;
+        this.parent = parent;
+    }
+
+    /**
+     * Loads the annotation processors of the compilation, and gives them to the given task in place of those that javac would find.
+     */
+    public void configure(JavaCompiler.CompilationTask task) {
+        if (AnnotationProcessorDiscovery.isProcessingDisabled(compilerArgs)) {
+            return;
+        }
+        List<Processor> processors = new ArrayList<Processor>();
+        try {
+            processorLoader = new URLClassLoader(toUrls(AnnotationProcessorDiscovery.getProcessorPath(compilerArgs, classpath)), parent);
+            List<String> processorNames = AnnotationProcessorDiscovery.getProcessorNames(compilerArgs, processorLoader);
+            if (processorNames.isEmpty()) {
+                return;
+            }
+            Map<String, IncrementalAnnotationProcessorType> types = AnnotationProcessorDiscovery.getProcessorTypes(processorLoader);
+            for (String processorName : processorNames) {
+                Processor processor = (Processor) processorLoader.loadClass(processorName).newInstance();
+                IncrementalAnnotationProcessorType type = types.get(processorName);
+                if (type == null) {
+                    data.setFullRebuildCause(format("'%s' is not an incremental annotation processor", processorName));
+                    processors.add(processor);
+                } else {
+                    processors.add(new TrackingProcessor(processor, type, data));
+                }
+            }
+        } catch (Exception e) {
+            // Let javac find the processors, and report any problems with them
+            LOGGER.debug("Could not load annotation processors for tracking.", e);
+            data.setFullRebuildCause("the annotation processors could not be loaded");
+            return;
+        }
+        task.setProcessors(processors);
+    }
+
+    /**
+     * Writes the recorded outputs, once the compilation has completed.
+     */
+    public void writeResult(File file) {
+        try {
+            OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(new BufferedOutputStream(new FileOutputStream(file)));
+            try {
+                new AnnotationProcessingData.Serializer().write(encoder, data);
+            } finally {
+                encoder.close();
+            }
+        } catch (Exception e) {
+            throw new UncheckedIOException(format("Could not write annotation processing result to '%s'.", file), e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        CompositeStoppable.stoppable(processorLoader).stop();
+    }
+
+    private static URL[] toUrls(List<File> files) throws MalformedURLException {
+        URL[] urls = new URL[files.size()];
+        for (int i = 0; i < urls.length; i++) {
+            urls[i] = files.get(i).toURI().toURL();
+        }
+        return urls;
+    }
+}
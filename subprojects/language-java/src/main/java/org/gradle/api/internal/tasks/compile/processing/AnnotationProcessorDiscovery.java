@@ -0,0 +1,134 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.io.Resources;
+import org.gradle.api.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the annotation processors of a compilation in the same way as javac does, along with how each of them has declared its outputs to relate
+ * to its inputs.
+ *
+ * <p>A processor declares this with a line of the form {@code <processor class name>,<isolating|aggregating>} in the
+ * {@value #INCREMENTAL_PROCESSORS_RESOURCE} resource of its jar.</p>
+ */
+public class AnnotationProcessorDiscovery {
+    static final String PROCESSORS_RESOURCE = "META-INF/services/javax.annotation.processing.Processor";
+    static final String INCREMENTAL_PROCESSORS_RESOURCE = "META-INF/gradle/incremental.annotation.processors";
+
+    /**
+     * Returns whether annotation processing is disabled by the given compiler arguments.
+     */
+    public static boolean isProcessingDisabled(List<String> compilerArgs) {
+        return compilerArgs.contains("-proc:none");
+    }
+
+    /**
+     * Returns the path to load the annotation processors from, which is the processor path when given and the compile classpath otherwise.
+     */
+    public static List<File> getProcessorPath(List<String> compilerArgs, @Nullable Iterable<File> classpath) {
+        List<File> processorPath = new ArrayList<File>();
+        String path = getArgument(compilerArgs, "-processorpath");
+        if (path != null) {
+            for (String entry : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(path)) {
+                processorPath.add(new File(entry));
+            }
+        } else if (classpath != null) {
+            for (File file : classpath) {
+                processorPath.add(file);
+            }
+        }
+        return processorPath;
+    }
+
+    /**
+     * Returns the names of the annotation processors to run, as given by the compiler arguments or, when not given, as listed in the
+     * {@value #PROCESSORS_RESOURCE} resources visible to the given loader.
+     */
+    static List<String> getProcessorNames(List<String> compilerArgs, ClassLoader loader) throws IOException {
+        Set<String> names = new LinkedHashSet<String>();
+        String processors = getArgument(compilerArgs, "-processor");
+        if (processors != null) {
+            for (String name : Splitter.on(',').trimResults().omitEmptyStrings().split(processors)) {
+                names.add(name);
+            }
+        } else {
+            for (String line : readLines(loader, PROCESSORS_RESOURCE)) {
+                names.add(line);
+            }
+        }
+        return new ArrayList<String>(names);
+    }
+
+    /**
+     * Returns the types declared by the incremental annotation processors visible to the given loader. Processors that have not declared
+     * their type are not included.
+     */
+    static Map<String, IncrementalAnnotationProcessorType> getProcessorTypes(ClassLoader loader) throws IOException {
+        Map<String, IncrementalAnnotationProcessorType> types = new HashMap<String, IncrementalAnnotationProcessorType>();
+        for (String line : readLines(loader, INCREMENTAL_PROCESSORS_RESOURCE)) {
+            List<String> parts = Splitter.on(',').trimResults().splitToList(line);
+            if (parts.size() != 2) {
+                continue;
+            }
+            IncrementalAnnotationProcessorType type;
+            if (parts.get(1).equalsIgnoreCase("isolating")) {
+                type = IncrementalAnnotationProcessorType.ISOLATING;
+            } else if (parts.get(1).equalsIgnoreCase("aggregating")) {
+                type = IncrementalAnnotationProcessorType.AGGREGATING;
+            } else {
+                continue;
+            }
+            types.put(parts.get(0), type);
+        }
+        return types;
+    }
+
+    @Nullable
+    private static String getArgument(List<String> compilerArgs, String option) {
+        int index = compilerArgs.indexOf(option);
+        return index >= 0 && index < compilerArgs.size() - 1 ? compilerArgs.get(index + 1) : null;
+    }
+
+    private static List<String> readLines(ClassLoader loader, String resourceName) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        Enumeration<URL> resources = loader.getResources(resourceName);
+        while (resources.hasMoreElements()) {
+            for (String line : Resources.readLines(resources.nextElement(), Charsets.UTF_8)) {
+                int comment = line.indexOf('#');
+                String value = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                if (value.length() > 0) {
+                    lines.add(value);
+                }
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+/**
+ * How the outputs of an annotation processor relate to its inputs, as declared by the processor in the
+ * {@value AnnotationProcessorDiscovery#INCREMENTAL_PROCESSORS_RESOURCE} resource of its jar.
+ */
+public enum IncrementalAnnotationProcessorType {
+    /**
+     * Each generated file depends only on the types given as its originating elements.
+     */
+    ISOLATING,
+    /**
+     * The generated files depend on all of the types annotated with the annotations supported by the processor.
+     */
+    AGGREGATING,
+    /**
+     * The processor has not declared how its outputs relate to its inputs.
+     */
+    UNKNOWN
+}
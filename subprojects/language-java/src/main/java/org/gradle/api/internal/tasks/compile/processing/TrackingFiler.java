@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import org.gradle.api.Nullable;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static java.lang.String.format;
+
+/**
+ * Records the types and files created by an incremental annotation processor, together with the types they were generated from.
+ */
+class TrackingFiler implements Filer {
+    private final Filer delegate;
+    private final String processorName;
+    private final IncrementalAnnotationProcessorType type;
+    private final AnnotationProcessingData data;
+
+    TrackingFiler(Filer delegate, String processorName, IncrementalAnnotationProcessorType type, AnnotationProcessingData data) {
+        this.delegate = delegate;
+        this.processorName = processorName;
+        this.type = type;
+        this.data = data;
+    }
+
+    @Override
+    public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) throws IOException {
+        JavaFileObject file = delegate.createSourceFile(name, originatingElements);
+        record(typeName(name), toFile(file), originatingElements);
+        return file;
+    }
+
+    @Override
+    public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) throws IOException {
+        JavaFileObject file = delegate.createClassFile(name, originatingElements);
+        // The class file is deleted along with the other class files of the generated type
+        record(typeName(name), null, originatingElements);
+        return file;
+    }
+
+    @Override
+    public FileObject createResource(JavaFileManager.Location location, CharSequence pkg, CharSequence relativeName, Element... originatingElements) throws IOException {
+        FileObject file = delegate.createResource(location, pkg, relativeName, originatingElements);
+        record(null, toFile(file), originatingElements);
+        return file;
+    }
+
+    @Override
+    public FileObject getResource(JavaFileManager.Location location, CharSequence pkg, CharSequence relativeName) throws IOException {
+        return delegate.getResource(location, pkg, relativeName);
+    }
+
+    private void record(@Nullable String generatedType, @Nullable File generatedFile, Element[] originatingElements) {
+        Set<String> originatingTypes = new LinkedHashSet<String>();
+        for (Element element : originatingElements) {
+            String originatingType = TrackingProcessor.getTopLevelTypeName(element);
+            if (originatingType != null) {
+                originatingTypes.add(originatingType);
+            }
+        }
+        if (type == IncrementalAnnotationProcessorType.AGGREGATING) {
+            for (String originatingType : originatingTypes) {
+                data.addAggregatedType(originatingType);
+            }
+            if (generatedType != null) {
+                data.addAggregatingGeneratedType(generatedType);
+            }
+            if (generatedFile != null) {
+                data.addAggregatingGeneratedFile(generatedFile);
+            }
+            return;
+        }
+        if (originatingTypes.isEmpty()) {
+            data.setFullRebuildCause(format("'%s' is an isolating annotation processor, but did not provide an originating element for '%s'", processorName,
+                generatedType != null ? generatedType : generatedFile));
+            return;
+        }
+        for (String originatingType : originatingTypes) {
+            if (generatedType != null) {
+                data.addGeneratedType(originatingType, generatedType);
+            }
+            if (generatedFile != null) {
+                data.addGeneratedFile(originatingType, generatedFile);
+            }
+        }
+    }
+
+    private static String typeName(CharSequence name) {
+        // Strip the module prefix, if any
+        String typeName = name.toString();
+        return typeName.substring(typeName.indexOf('/') + 1);
+    }
+
+    @Nullable
+    private static File toFile(FileObject fileObject) {
+        URI uri = fileObject.toUri();
+        return "file".equals(uri.getScheme()) ? new File(uri) : null;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import org.gradle.api.Nullable;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import java.util.Set;
+
+/**
+ * Runs an incremental annotation processor, recording the outputs it generates and the types they were generated from.
+ */
+class TrackingProcessor implements Processor {
+    private final Processor delegate;
+    private final IncrementalAnnotationProcessorType type;
+    private final AnnotationProcessingData data;
+
+    TrackingProcessor(Processor delegate, IncrementalAnnotationProcessorType type, AnnotationProcessingData data) {
+        this.delegate = delegate;
+        this.type = type;
+        this.data = data;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return delegate.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+        TrackingFiler filer = new TrackingFiler(processingEnv.getFiler(), delegate.getClass().getName(), type, data);
+        delegate.init(new TrackingProcessingEnvironment(processingEnv, filer));
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (type == IncrementalAnnotationProcessorType.AGGREGATING) {
+            return delegate.process(annotations, new AggregatingRoundEnvironment(roundEnv, data));
+        }
+        return delegate.process(annotations, roundEnv);
+    }
+
+    @Override
+    public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+        return delegate.getCompletions(element, annotation, member, userText);
+    }
+
+    /**
+     * Returns the name of the top level type that contains the given element, which is the name of the class compiled from the source file
+     * that declares the element, or null for an element that is not declared in a source file.
+     */
+    @Nullable
+    static String getTopLevelTypeName(Element element) {
+        TypeElement topLevelType = null;
+        Element current = element;
+        while (current != null && !(current instanceof PackageElement)) {
+            if (current instanceof TypeElement) {
+                topLevelType = (TypeElement) current;
+            }
+            current = current.getEnclosingElement();
+        }
+        if (topLevelType != null) {
+            return topLevelType.getQualifiedName().toString();
+        }
+        if (current != null) {
+            // An annotated package, declared in a package-info source file
+            return ((PackageElement) current).getQualifiedName() + ".package-info";
+        }
+        return null;
+    }
+}
@@ -18,13 +18,18 @@ package org.gradle.language.java.internal;
 
 import org.gradle.StartParameter;
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.api.internal.cache.SheddableCacheRegistry;
+import org.gradle.api.internal.changedetection.state.InputFilesNormalizerProvider;
+import org.gradle.api.internal.hash.DefaultHasher;
 import org.gradle.api.internal.tasks.DefaultJavaToolChain;
 import org.gradle.api.internal.tasks.compile.DefaultJavaCompilerFactory;
 import org.gradle.api.internal.tasks.compile.JavaCompilerFactory;
 import org.gradle.api.internal.tasks.compile.JavaHomeBasedJavaCompilerFactory;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerClientsManager;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonManager;
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonPool;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonStarter;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAbiNormalizerProvider;
 import org.gradle.internal.Factory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
@@ -37,6 +42,7 @@ import javax.tools.JavaCompiler;
 public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
+        registration.addProvider(new GlobalScopeCompileServices());
     }
 
     @Override
@@ -57,9 +63,23 @@ public class JavaToolChainServiceRegistry implements PluginServiceRegistry {
         registration.addProvider(new ProjectScopeCompileServices());
     }
 
+    private static class GlobalScopeCompileServices {
+        CompilerDaemonPool createCompilerDaemonPool(SheddableCacheRegistry sheddableCacheRegistry) {
+            CompilerDaemonPool pool = new CompilerDaemonPool();
+            // Idle compiler daemons hold little memory in this process, so are shed last
+            sheddableCacheRegistry.register(pool, SheddableCacheRegistry.PRIORITY_HIGH);
+            return pool;
+        }
+
+        InputFilesNormalizerProvider createClassAbiNormalizerProvider() {
+            return new ClassAbiNormalizerProvider(new DefaultHasher());
+        }
+    }
+
     private static class BuildSessionScopeCompileServices {
-        CompilerDaemonManager createCompilerDaemonManager(Factory<WorkerProcessBuilder> workerFactory, StartParameter startParameter) {
-            return new CompilerDaemonManager(new CompilerClientsManager(new CompilerDaemonStarter(workerFactory, startParameter)));
+        CompilerDaemonManager createCompilerDaemonManager(Factory<WorkerProcessBuilder> workerFactory, StartParameter startParameter, CompilerDaemonPool compilerDaemonPool) {
+            CompilerDaemonPool daemonPool = CompilerDaemonPool.isEnabled() ? compilerDaemonPool : null;
+            return new CompilerDaemonManager(new CompilerClientsManager(new CompilerDaemonStarter(workerFactory, startParameter), daemonPool, CompilerClientsManager.getMaxConcurrentCompiles()));
         }
 
         Factory<JavaCompiler> createJavaHomeBasedJavaCompilerFactory() {
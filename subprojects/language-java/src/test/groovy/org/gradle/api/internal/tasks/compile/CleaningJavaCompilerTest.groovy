@@ -26,7 +26,7 @@ class CleaningJavaCompilerTest extends Specification {
     private final StaleClassCleaner cleaner = Mock()
     private final CleaningJavaCompilerSupport<JavaCompileSpec> compiler = new CleaningJavaCompilerSupport<JavaCompileSpec>() {
         @Override
-        protected org.gradle.language.base.internal.compile.Compiler<JavaCompileSpec> getCompiler() {
+        public org.gradle.language.base.internal.compile.Compiler<JavaCompileSpec> getCompiler() {
             return target
         }
 
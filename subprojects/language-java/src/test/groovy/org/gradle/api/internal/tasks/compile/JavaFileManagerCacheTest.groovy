@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import javax.tools.StandardLocation
+import java.nio.charset.Charset
+
+class JavaFileManagerCacheTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def compiler = Mock(JavaCompiler)
+    def cache = new JavaFileManagerCache()
+
+    def "reuses a released file manager after resetting its locations"() {
+        def standardFileManager = Mock(StandardJavaFileManager)
+
+        when:
+        def fileManager = cache.acquire(compiler, null)
+        cache.release(fileManager)
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> standardFileManager
+        cache.idleCount == 1
+
+        when:
+        def reused = cache.acquire(compiler, null)
+
+        then:
+        reused.is(fileManager)
+        0 * compiler.getStandardFileManager(_, _, _)
+        1 * standardFileManager.setLocation(StandardLocation.CLASS_PATH, null)
+        1 * standardFileManager.setLocation(StandardLocation.CLASS_OUTPUT, null)
+        cache.idleCount == 0
+    }
+
+    def "does not reuse a file manager while it is in use"() {
+        compiler.getStandardFileManager(_, _, _) >> { Mock(StandardJavaFileManager) }
+
+        expect:
+        !cache.acquire(compiler, null).is(cache.acquire(compiler, null))
+    }
+
+    def "does not reuse a file manager created for another encoding"() {
+        compiler.getStandardFileManager(_, _, _) >> { Mock(StandardJavaFileManager) }
+        def fileManager = cache.acquire(compiler, Charset.forName("UTF-8"))
+        cache.release(fileManager)
+
+        expect:
+        !cache.acquire(compiler, Charset.forName("ISO-8859-1")).is(fileManager)
+        cache.acquire(compiler, Charset.forName("UTF-8")).is(fileManager)
+    }
+
+    def "discards a file manager when an archive it has opened has changed"() {
+        def jar = tmpDir.file("lib.jar").createFile()
+        def standardFileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(_, _, _) >> standardFileManager
+        standardFileManager.getLocation(StandardLocation.CLASS_PATH) >> [jar]
+        def fileManager = cache.acquire(compiler, null)
+        cache.release(fileManager)
+
+        when:
+        jar << "changed"
+        def next = cache.acquire(compiler, null)
+
+        then:
+        !next.is(fileManager)
+        1 * standardFileManager.close()
+    }
+
+    def "ignores requests from javac to close the file manager"() {
+        def standardFileManager = Mock(StandardJavaFileManager)
+        compiler.getStandardFileManager(_, _, _) >> standardFileManager
+        def fileManager = cache.acquire(compiler, null)
+
+        when:
+        fileManager.close()
+
+        then:
+        0 * standardFileManager.close()
+
+        when:
+        cache.discard(fileManager)
+
+        then:
+        1 * standardFileManager.close()
+    }
+}
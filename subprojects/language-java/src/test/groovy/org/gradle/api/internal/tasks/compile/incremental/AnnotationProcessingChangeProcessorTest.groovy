@@ -0,0 +1,114 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependencyToAll
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation
+import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData
+import spock.lang.Specification
+import spock.lang.Subject
+
+import static org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet.dependents
+
+class AnnotationProcessingChangeProcessorTest extends Specification {
+
+    def data = new AnnotationProcessingData()
+    def previousCompilation = Stub(PreviousCompilation) {
+        getAnnotationProcessingData() >> data
+    }
+    def spec = new RecompilationSpec()
+    @Subject processor = new AnnotationProcessingChangeProcessor(previousCompilation)
+
+    def "adds the outputs generated from the classes to recompile, and the classes that depend on these"() {
+        def generatedSource = new File("A_Factory.java")
+        data.addGeneratedType("A", "A_Factory")
+        data.addGeneratedFile("A", generatedSource)
+        data.addGeneratedType("B", "B_Factory")
+        previousCompilation.getDependents("A_Factory") >> dependents("C")
+        spec.classNames << "A"
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames == ["A", "A_Factory", "C"] as Set
+        spec.generatedFilesToDelete == [generatedSource.absoluteFile] as Set
+        !spec.fullRebuildNeeded
+    }
+
+    def "adds the outputs generated from the classes that depend on generated types"() {
+        data.addGeneratedType("A", "A_Factory")
+        data.addGeneratedType("C", "C_Factory")
+        previousCompilation.getDependents("A_Factory") >> dependents("C")
+        spec.classNames << "A"
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames == ["A", "A_Factory", "C", "C_Factory"] as Set
+    }
+
+    def "recompiles all aggregated types when any class is recompiled"() {
+        data.addAggregatedType("A")
+        data.addAggregatedType("B")
+        data.addAggregatingGeneratedType("Registry")
+        spec.classNames << "C"
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames == ["C", "A", "B", "Registry"] as Set
+    }
+
+    def "does nothing when no class is recompiled"() {
+        data.addAggregatedType("A")
+        data.setFullRebuildCause("'Foo' is not an incremental annotation processor")
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.classNames.empty
+        !spec.fullRebuildNeeded
+    }
+
+    def "requires full rebuild when a processor is not incremental"() {
+        data.setFullRebuildCause("'Foo' is not an incremental annotation processor")
+        spec.classNames << "A"
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.fullRebuildCause == "'Foo' is not an incremental annotation processor"
+    }
+
+    def "requires full rebuild when a generated type is a dependency to all"() {
+        data.addGeneratedType("A", "A_Constants")
+        previousCompilation.getDependents("A_Constants") >> new DependencyToAll()
+        spec.classNames << "A"
+
+        when:
+        processor.processChanges(spec)
+
+        then:
+        spec.fullRebuildCause == "generated class 'A_Constants' needs to be generated again"
+    }
+}
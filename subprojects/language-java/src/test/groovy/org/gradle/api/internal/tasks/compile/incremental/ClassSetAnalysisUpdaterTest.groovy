@@ -17,10 +17,19 @@
 package org.gradle.api.internal.tasks.compile.incremental
 
 import org.gradle.api.file.ConfigurableFileTree
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.cache.Loader
 import org.gradle.api.internal.cache.Stash
 import org.gradle.api.internal.file.FileOperations
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysis
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData
+import org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet
+import org.gradle.internal.hash.HashUtil
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -39,4 +48,50 @@ class ClassSetAnalysisUpdaterTest extends Specification {
         1 * operations.fileTree(_) >> Mock(ConfigurableFileTree)
         1 * stash.put(_)
     }
+
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def "analyzes only the classes that changed since the previous analysis"() {
+        def loader = Mock(Loader)
+        def updater = new ClassSetAnalysisUpdater(stash, loader, operations, analyzer, null)
+        def unchanged = temp.file("A.class").createFile()
+        unchanged.text = "a"
+        def changed = temp.file("B.class").createFile()
+        changed.text = "b"
+        def previous = new ClassSetAnalysisData(
+            ["B": new DefaultDependentsSet(false, ["A"]), "C": new DefaultDependentsSet(true, ["A"])],
+            ["A": HashUtil.createHash(unchanged, "MD5"), "B": HashUtil.createHash("old", "MD5")])
+        ClassSetAnalysisData updated = null
+
+        when:
+        updater.updateAnalysis(Stub(JavaCompileSpec))
+
+        then:
+        1 * operations.fileTree(_) >> tree(["A.class": unchanged, "B.class": changed])
+        1 * loader.get() >> previous
+        1 * analyzer.getClassAnalysis("B", HashUtil.createHash(changed, "MD5"), "b".bytes) >> new ClassAnalysis(["D"] as Set, false)
+        0 * analyzer._
+        1 * stash.put(_) >> { updated = it[0] }
+
+        and:
+        updated.getDependents("B").dependentClasses == ["A"] as Set
+        updated.getDependents("C").dependentClasses == ["A"] as Set
+        updated.getDependents("D").dependentClasses == ["B"] as Set
+        updated.getClassHash("A") == HashUtil.createHash(unchanged, "MD5")
+        updated.getClassHash("B") == HashUtil.createHash(changed, "MD5")
+    }
+
+    private ConfigurableFileTree tree(Map<String, File> files) {
+        def tree = Stub(ConfigurableFileTree)
+        tree.visit(_ as FileVisitor) >> { FileVisitor visitor ->
+            files.each { path, file ->
+                visitor.visitFile(Stub(FileVisitDetails) {
+                    getPath() >> path
+                    getFile() >> file
+                })
+            }
+            tree
+        }
+        return tree
+    }
 }
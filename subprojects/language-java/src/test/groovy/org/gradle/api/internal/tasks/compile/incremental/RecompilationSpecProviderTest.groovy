@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.Action
+import org.gradle.api.internal.file.FileOperations
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependencyToAll
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshot
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs
+import org.gradle.api.tasks.incremental.InputFileDetails
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import static org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet.dependents
+
+class RecompilationSpecProviderTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def srcDir = tmpDir.createDir("src/main/groovy")
+    def previousCompilation = Stub(PreviousCompilation) {
+        getAnnotationProcessingData() >> new AnnotationProcessingData()
+    }
+    def provider = new RecompilationSpecProvider(new SourceToNameConverter(new CompilationSourceDirs([srcDir])), Stub(FileOperations))
+
+    def "recompiles a changed Groovy class and the Java classes that depend on it"() {
+        previousCompilation.getDependents("org.Person") >> dependents("org.PersonJavaUser", "org.PersonGroovyUser")
+
+        when:
+        def spec = provider.provideRecompilationSpec(inputs([srcDir.file("org/Person.groovy")], []), previousCompilation, Stub(JarClasspathSnapshot))
+
+        then:
+        !spec.fullRebuildNeeded
+        spec.classNames as Set == ["org.Person", "org.PersonJavaUser", "org.PersonGroovyUser"] as Set
+    }
+
+    def "recompiles the classes that depend on a deleted Groovy source"() {
+        previousCompilation.getDependents("Removed") >> dependents("RemovedJavaUser")
+        previousCompilation.getDependents("Other") >> dependents()
+
+        when:
+        def spec = provider.provideRecompilationSpec(inputs([srcDir.file("Other.java")], [srcDir.file("Removed.groovy")]), previousCompilation, Stub(JarClasspathSnapshot))
+
+        then:
+        !spec.fullRebuildNeeded
+        spec.classNames as Set == ["Other", "Removed", "RemovedJavaUser"] as Set
+    }
+
+    def "recompiles the other classes declared in a changed Groovy source and the classes that depend on them"() {
+        previousCompilation.getOtherClassesOfSource("org.Person") >> (["org.Address"] as Set)
+        previousCompilation.getDependents(["org.Person", "org.Address"] as Set) >> dependents("org.AddressJavaUser")
+
+        when:
+        def spec = provider.provideRecompilationSpec(inputs([srcDir.file("org/Person.groovy")], []), previousCompilation, Stub(JarClasspathSnapshot))
+
+        then:
+        !spec.fullRebuildNeeded
+        spec.classNames as Set == ["org.Person", "org.Address", "org.AddressJavaUser"] as Set
+    }
+
+    def "recompiles everything when a changed Groovy class is a dependency of all classes"() {
+        previousCompilation.getDependents("Constants") >> new DependencyToAll()
+
+        when:
+        def spec = provider.provideRecompilationSpec(inputs([srcDir.file("Constants.groovy")], []), previousCompilation, Stub(JarClasspathSnapshot))
+
+        then:
+        spec.fullRebuildNeeded
+    }
+
+    private IncrementalTaskInputs inputs(List<File> changedFiles, List<File> removedFiles) {
+        return Stub(IncrementalTaskInputs) {
+            outOfDate(_) >> { Action<InputFileDetails> action -> changedFiles.each { action.execute(details(it)) } }
+            removed(_) >> { Action<InputFileDetails> action -> removedFiles.each { action.execute(details(it)) } }
+        }
+    }
+
+    private InputFileDetails details(File file) {
+        return Stub(InputFileDetails) {
+            getFile() >> file
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental.analyzer
+
+import org.gradle.api.DefaultTask
+import org.gradle.api.internal.hash.DefaultHasher
+import org.gradle.api.tasks.compile.JavaCompile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.SetSystemProperties
+import org.gradle.util.TestUtil
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Subject
+
+class ClassAbiNormalizerProviderTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    @Rule SetSystemProperties systemProperties = new SetSystemProperties((ClassAbiNormalizer.ENABLED_PROPERTY): "true")
+
+    def task = TestUtil.createTask(JavaCompile)
+    @Subject provider = new ClassAbiNormalizerProvider(new DefaultHasher())
+
+    def "provides no normalizer when not enabled"() {
+        given:
+        System.clearProperty(ClassAbiNormalizer.ENABLED_PROPERTY)
+        task.options.compilerArgs = ["-proc:none"]
+
+        expect:
+        provider.getInputFilesNormalizer(task) == null
+    }
+
+    def "provides no normalizer for other tasks"() {
+        expect:
+        provider.getInputFilesNormalizer(TestUtil.createTask(DefaultTask)) == null
+    }
+
+    def "provides no normalizer when annotation processors are loaded from the compile classpath"() {
+        expect:
+        provider.getInputFilesNormalizer(task) == null
+    }
+
+    def "hashes the processor path by content"() {
+        given:
+        def processorJar = tmpDir.file("processor.jar")
+        processorJar.text = "one"
+        task.options.compilerArgs = ["-processorpath", processorJar.path]
+        def normalizer = provider.getInputFilesNormalizer(task)
+        def hash = normalizer.hash(processorJar)
+
+        when:
+        processorJar.text = "two"
+
+        then:
+        normalizer.variant != ""
+        normalizer.hash(processorJar) != hash
+    }
+
+    def "provides a normalizer when annotation processing is disabled"() {
+        given:
+        task.options.compilerArgs = ["-proc:none"]
+
+        expect:
+        provider.getInputFilesNormalizer(task).variant == ""
+    }
+}
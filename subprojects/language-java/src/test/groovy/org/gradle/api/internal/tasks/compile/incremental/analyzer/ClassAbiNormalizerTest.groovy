@@ -0,0 +1,161 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.incremental.analyzer
+
+import org.gradle.api.internal.hash.DefaultHasher
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.MethodVisitor
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import static org.objectweb.asm.Opcodes.*
+
+class ClassAbiNormalizerTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    @Subject normalizer = new ClassAbiNormalizer(new DefaultHasher(), [])
+
+    def "ignores changes to method bodies and private members of a class file"() {
+        def file = tmpDir.file("Foo.class")
+        file.bytes = classBytes(ACC_PUBLIC, 1, false)
+        def hash = normalizer.hash(file)
+
+        when:
+        file.bytes = classBytes(ACC_PUBLIC, 2, true)
+
+        then:
+        normalizer.hash(file) == hash
+    }
+
+    def "detects changes to the signature of a non-private method of a class file"() {
+        def file = tmpDir.file("Foo.class")
+        file.bytes = classBytes(ACC_PUBLIC, 1, false)
+        def hash = normalizer.hash(file)
+
+        when:
+        file.bytes = classBytes(ACC_PROTECTED, 1, false)
+
+        then:
+        normalizer.hash(file) != hash
+    }
+
+    def "ignores changes to method bodies and resources of a jar"() {
+        def jar = tmpDir.file("lib.jar")
+        writeJar(jar, ["Foo.class": classBytes(ACC_PUBLIC, 1, false), "foo.properties": "a=1".bytes])
+        def hash = normalizer.hash(jar)
+
+        when:
+        writeJar(jar, ["foo.properties": "a=2".bytes, "Foo.class": classBytes(ACC_PUBLIC, 2, true)])
+
+        then:
+        normalizer.hash(jar) == hash
+    }
+
+    def "hashes contents of the files on the processor path"() {
+        def jar = tmpDir.file("processor.jar")
+        def classFile = tmpDir.file("processor/Foo.class")
+        def normalizer = new ClassAbiNormalizer(new DefaultHasher(), [jar, classFile])
+        writeJar(jar, ["Foo.class": classBytes(ACC_PUBLIC, 1, false)])
+        classFile.bytes = classBytes(ACC_PUBLIC, 1, false)
+        def jarHash = normalizer.hash(jar)
+        def classHash = normalizer.hash(classFile)
+
+        when:
+        writeJar(jar, ["Foo.class": classBytes(ACC_PUBLIC, 2, false)])
+        classFile.bytes = classBytes(ACC_PUBLIC, 2, false)
+
+        then:
+        normalizer.hash(jar) != jarHash
+        normalizer.hash(classFile) != classHash
+    }
+
+    def "variant depends on the processor path"() {
+        expect:
+        normalizer.name == "classAbi"
+        normalizer.variant == ""
+        new ClassAbiNormalizer(new DefaultHasher(), [tmpDir.file("a.jar")]).name == "classAbi"
+        new ClassAbiNormalizer(new DefaultHasher(), [tmpDir.file("a.jar"), tmpDir.file("b.jar")]).variant == new ClassAbiNormalizer(new DefaultHasher(), [tmpDir.file("b.jar"), tmpDir.file("a.jar")]).variant
+        new ClassAbiNormalizer(new DefaultHasher(), [tmpDir.file("a.jar")]).variant != new ClassAbiNormalizer(new DefaultHasher(), [tmpDir.file("b.jar")]).variant
+        new ClassAbiNormalizer(new DefaultHasher(), [tmpDir.file("a.jar")]).variant != normalizer.variant
+    }
+
+    def "hashes jars that provide annotation processors by their ABI when not on the processor path"() {
+        def jar = tmpDir.file("processor.jar")
+        writeJar(jar, ["Foo.class": classBytes(ACC_PUBLIC, 1, false), "META-INF/services/javax.annotation.processing.Processor": "Foo".bytes])
+        def hash = normalizer.hash(jar)
+
+        when:
+        writeJar(jar, ["Foo.class": classBytes(ACC_PUBLIC, 2, false), "META-INF/services/javax.annotation.processing.Processor": "Foo".bytes])
+
+        then:
+        normalizer.hash(jar) == hash
+    }
+
+    def "hashes contents of other files and of malformed class files"() {
+        def file = tmpDir.file(fileName)
+        file.text = "one"
+        def hash = normalizer.hash(file)
+
+        when:
+        file.text = "two"
+
+        then:
+        normalizer.hash(file) != hash
+
+        where:
+        fileName << ["foo.txt", "Broken.class", "broken.jar"]
+    }
+
+    private static byte[] classBytes(int methodAccess, int returnValue, boolean withPrivateMethod) {
+        def writer = new ClassWriter(ClassWriter.COMPUTE_MAXS)
+        writer.visit(V1_6, ACC_PUBLIC, "Foo", null, "java/lang/Object", null)
+        writeMethod(writer, methodAccess, "value", returnValue)
+        if (withPrivateMethod) {
+            writeMethod(writer, ACC_PRIVATE, "other", returnValue)
+        }
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+
+    private static void writeMethod(ClassWriter writer, int access, String name, int returnValue) {
+        MethodVisitor method = writer.visitMethod(access | ACC_STATIC, name, "()I", null, null)
+        method.visitCode()
+        method.visitLdcInsn(returnValue)
+        method.visitInsn(IRETURN)
+        method.visitMaxs(0, 0)
+        method.visitEnd()
+    }
+
+    private static void writeJar(TestFile jar, Map<String, byte[]> entries) {
+        def output = new ZipOutputStream(new FileOutputStream(jar))
+        try {
+            entries.each { name, bytes ->
+                output.putNextEntry(new ZipEntry(name))
+                output.write(bytes)
+                output.closeEntry()
+            }
+        } finally {
+            output.close()
+        }
+    }
+}
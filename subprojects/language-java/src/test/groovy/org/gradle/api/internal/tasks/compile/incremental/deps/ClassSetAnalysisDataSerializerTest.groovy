@@ -16,6 +16,8 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps
 
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingData
+import org.gradle.internal.hash.HashValue
 import org.gradle.internal.serialize.InputStreamBackedDecoder
 import org.gradle.internal.serialize.OutputStreamBackedEncoder
 import spock.lang.Specification
@@ -38,13 +40,66 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
+        read.classNames as Set == data.classNames as Set
 
         ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
+            assert read.getDependents(it).dependentClasses == data.getDependents(it).dependentClasses
+            assert read.getDependents(it).dependencyToAll == data.getDependents(it).dependencyToAll
         }
 
-        read.dependents["D"] instanceof DependencyToAll
+        read.getDependents("D") instanceof DependencyToAll
+    }
+
+    def "serializes class hashes"() {
+        def hash = new HashValue("1234")
+        def data = new ClassSetAnalysisData(["A": dependents("B"), "B": dependents()], ["B": hash])
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+
+        when:
+        serializer.write(e, data)
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.getClassHash("B") == hash
+        read.getClassHash("A") == null
+        read.getClassAnalysis("B").classDependencies == ["A"] as Set
+    }
+
+    def "looks up classes by name after reading"() {
+        def data = new ClassSetAnalysisData(["C": dependents("A"), "B": dependents("D"), "E": new DependencyToAll()], ["A": new HashValue("12")])
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+
+        when:
+        serializer.write(e, data)
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.getDependents("C").dependentClasses == ["A"] as Set
+        read.getDependents("B").dependentClasses == ["D"] as Set
+        read.getDependents("E") instanceof DependencyToAll
+        read.getDependents("A") == null
+        read.getDependents("Unknown") == null
+        read.getClassHash("A") == new HashValue("12")
+        read.getClassHash("Unknown") == null
+        read.getClassAnalysis("D").classDependencies == ["B"] as Set
+    }
+
+    def "serializes the classes of source files named after other classes"() {
+        def data = new ClassSetAnalysisData(["org.Person": dependents("org.Printer")], [:], new AnnotationProcessingData(),
+            ["org.Address": "org.Person", "org.Phone": "org.Person"])
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+
+        when:
+        serializer.write(e, data)
+        ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.getSourceClassName("org.Address") == "org.Person"
+        read.getSourceClassName("org.Person") == null
+        read.getOtherClassesOfSource("org.Person") == ["org.Address", "org.Phone"] as Set
+        read.getOtherClassesOfSource("org.Address").empty
     }
 }
@@ -176,4 +176,15 @@ class ClassSetAnalysisTest extends Specification {
         a.isDependencyToAll("C")
         !a.isDependencyToAll("Unknown")
     }
+
+    def "merges analyses"() {
+        def first = new ClassSetAnalysisData(["A": dependents("B"), "B": dependents(), "C": new DefaultDependentsSet(true, [])])
+        def second = new ClassSetAnalysisData(["A": dependents("D"), "D": dependents("E"), "E": dependents(), "C": dependents("D")])
+        def a = new ClassSetAnalysis(ClassSetAnalysisData.merge([first, second]))
+
+        expect:
+        a.getRelevantDependents("A").dependentClasses == ["B", "D", "E"] as Set
+        a.isDependencyToAll("C")
+        a.getRelevantDependents("C").dependencyToAll
+    }
 }
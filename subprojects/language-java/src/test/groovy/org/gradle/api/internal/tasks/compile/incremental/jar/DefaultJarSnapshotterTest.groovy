@@ -31,6 +31,9 @@ import org.junit.Rule
 import spock.lang.Specification
 import spock.lang.Subject
 
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
 @UsesNativeServices
 class DefaultJarSnapshotterTest extends Specification {
 
@@ -65,4 +68,32 @@ class DefaultJarSnapshotterTest extends Specification {
         snapshot.hashes.keySet() == ["Foo", "com.Foo2"] as Set
         snapshot.analysis
     }
+
+    def "creates snapshot from the entries of a jar"() {
+        def jar = temp.file("lib.jar")
+        def classBytes = [1, 2, 3] as byte[]
+        new ZipOutputStream(new FileOutputStream(jar)).withStream { zip ->
+            ["foo/": null, "foo/Foo.class": classBytes, "foo/com/Foo2.class": classBytes, "foo/res.properties": [4] as byte[]].each { name, content ->
+                zip.putNextEntry(new ZipEntry(name))
+                if (content) {
+                    zip.write(content)
+                }
+                zip.closeEntry()
+            }
+        }
+        def analyzer = Mock(ClassFilesAnalyzer)
+        def classHash = HashUtil.createHash(new ByteArrayInputStream(classBytes), "MD5")
+
+        when:
+        def snapshot = snapshotter.createSnapshot(HashUtil.createHash("foo", "md5"), jar, analyzer)
+
+        then:
+        1 * analyzer.visitClass("foo.Foo", classHash, classBytes)
+        1 * analyzer.visitClass("foo.com.Foo2", classHash, classBytes)
+        1 * analyzer.getAnalysis() >> Stub(ClassSetAnalysisData)
+        0 * _._
+
+        and:
+        snapshot.hashes == ["foo.Foo": classHash, "foo.com.Foo2": classHash]
+    }
 }
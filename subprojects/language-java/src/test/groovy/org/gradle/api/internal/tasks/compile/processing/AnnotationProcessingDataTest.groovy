@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing
+
+import org.gradle.internal.serialize.InputStreamBackedDecoder
+import org.gradle.internal.serialize.OutputStreamBackedEncoder
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AnnotationProcessingDataTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def "serializes"() {
+        def data = new AnnotationProcessingData()
+        data.addGeneratedType("A", "A_Factory")
+        data.addGeneratedFile("A", new File("A_Factory.java"))
+        data.addAggregatedType("B")
+        data.addAggregatingGeneratedType("Registry")
+        data.addAggregatingGeneratedFile(new File("registry.txt"))
+        data.setFullRebuildCause("'Foo' is not an incremental annotation processor")
+        def os = new ByteArrayOutputStream()
+
+        when:
+        new AnnotationProcessingData.Serializer().write(new OutputStreamBackedEncoder(os), data)
+        def read = new AnnotationProcessingData.Serializer().read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        read.getGeneratedTypes("A") == ["A_Factory"] as Set
+        read.getGeneratedFiles("A") == [new File("A_Factory.java").absolutePath] as Set
+        read.aggregatedTypes == ["B"] as Set
+        read.aggregatingGeneratedTypes == ["Registry"] as Set
+        read.aggregatingGeneratedFiles == [new File("registry.txt").absolutePath] as Set
+        read.fullRebuildCause == "'Foo' is not an incremental annotation processor"
+    }
+
+    def "keeps the previous outputs that still exist when updated"() {
+        def classesDir = temp.createDir("classes")
+        classesDir.file("A_Factory.class").createFile()
+        def previous = new AnnotationProcessingData()
+        previous.addGeneratedType("A", "A_Factory")
+        previous.addGeneratedType("B", "B_Factory")
+        def later = new AnnotationProcessingData()
+        later.addGeneratedType("C", "C_Factory")
+
+        when:
+        def updated = previous.update(later, classesDir)
+
+        then:
+        updated.getGeneratedTypes("A") == ["A_Factory"] as Set
+        updated.getGeneratedTypes("B").empty
+        updated.getGeneratedTypes("C") == ["C_Factory"] as Set
+    }
+
+    def "replaces the aggregating outputs when the aggregating processors have run again"() {
+        def classesDir = temp.createDir("classes")
+        classesDir.file("A.class").createFile()
+        classesDir.file("B.class").createFile()
+        def previous = new AnnotationProcessingData()
+        previous.addAggregatedType("A")
+        previous.addAggregatedType("B")
+        def later = new AnnotationProcessingData()
+        later.addAggregatedType("A")
+
+        expect:
+        previous.update(new AnnotationProcessingData(), classesDir).aggregatedTypes == ["A", "B"] as Set
+        previous.update(later, classesDir).aggregatedTypes == ["A"] as Set
+    }
+
+    def "uses the full rebuild cause of the later compilation"() {
+        def previous = new AnnotationProcessingData()
+        previous.setFullRebuildCause("'Foo' is not an incremental annotation processor")
+
+        expect:
+        previous.update(new AnnotationProcessingData(), temp.testDirectory).fullRebuildCause == null
+    }
+}
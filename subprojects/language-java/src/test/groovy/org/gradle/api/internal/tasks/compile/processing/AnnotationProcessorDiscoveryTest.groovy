@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing
+
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AnnotationProcessorDiscoveryTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temp = new TestNameTestDirectoryProvider()
+
+    def "uses the processor path when given, and the classpath otherwise"() {
+        def classpath = [new File("lib.jar")]
+
+        expect:
+        AnnotationProcessorDiscovery.getProcessorPath(["-processorpath", "a.jar${File.pathSeparator}b.jar"], classpath) == [new File("a.jar"), new File("b.jar")]
+        AnnotationProcessorDiscovery.getProcessorPath(["-g"], classpath) == classpath
+        AnnotationProcessorDiscovery.getProcessorPath([], null) == []
+    }
+
+    def "finds the processors and their types"() {
+        def dir = temp.createDir("processors")
+        dir.file(AnnotationProcessorDiscovery.PROCESSORS_RESOURCE) << """
+# comment
+com.acme.Isolating
+com.acme.Aggregating
+com.acme.Other
+"""
+        dir.file(AnnotationProcessorDiscovery.INCREMENTAL_PROCESSORS_RESOURCE) << """
+com.acme.Isolating,isolating
+com.acme.Aggregating,AGGREGATING
+com.acme.Other,unknown
+"""
+        def loader = new URLClassLoader([dir.toURI().toURL()] as URL[], (ClassLoader) null)
+
+        expect:
+        AnnotationProcessorDiscovery.getProcessorNames([], loader) == ["com.acme.Isolating", "com.acme.Aggregating", "com.acme.Other"]
+        AnnotationProcessorDiscovery.getProcessorNames(["-processor", "com.acme.Other"], loader) == ["com.acme.Other"]
+        AnnotationProcessorDiscovery.getProcessorTypes(loader) == [
+            "com.acme.Isolating": IncrementalAnnotationProcessorType.ISOLATING,
+            "com.acme.Aggregating": IncrementalAnnotationProcessorType.AGGREGATING
+        ]
+    }
+
+    def "knows when processing is disabled"() {
+        expect:
+        AnnotationProcessorDiscovery.isProcessingDisabled(["-proc:none"])
+        !AnnotationProcessorDiscovery.isProcessingDisabled(["-proc:only"])
+    }
+}
@@ -15,31 +15,117 @@
  */
 package org.gradle.api.internal.tasks.compile.daemon;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.concurrent.CompositeStoppable;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public class CompilerClientsManager {
+    /**
+     * The system property that sets the maximum number of compilations that each compiler daemon executes concurrently. Defaults to 1.
+     */
+    public static final String MAX_CONCURRENT_COMPILES_PROPERTY = "org.gradle.compiler.daemon.maxConcurrentCompiles";
 
     private static final Logger LOGGER = Logging.getLogger(CompilerDaemonManager.class);
 
     private final Object lock = new Object();
     private final List<CompilerDaemonClient> allClients = new ArrayList<CompilerDaemonClient>();
     private final List<CompilerDaemonClient> idleClients = new ArrayList<CompilerDaemonClient>();
+    private final Map<CompilerDaemonClient, Integer> activeCompiles = new HashMap<CompilerDaemonClient, Integer>();
 
     private CompilerDaemonStarter compilerDaemonStarter;
+    private final CompilerDaemonPool daemonPool;
+    private final int maxConcurrentCompiles;
 
     public CompilerClientsManager(CompilerDaemonStarter compilerDaemonStarter) {
+        this(compilerDaemonStarter, null);
+    }
+
+    public CompilerClientsManager(CompilerDaemonStarter compilerDaemonStarter, @Nullable CompilerDaemonPool daemonPool) {
+        this(compilerDaemonStarter, daemonPool, 1);
+    }
+
+    /**
+     * @param daemonPool The pool to take idle clients from, and to return idle clients to when this manager is stopped, or null to stop all clients.
+     * @param maxConcurrentCompiles The maximum number of compilations to execute concurrently in each client.
+     */
+    public CompilerClientsManager(CompilerDaemonStarter compilerDaemonStarter, @Nullable CompilerDaemonPool daemonPool, int maxConcurrentCompiles) {
         this.compilerDaemonStarter = compilerDaemonStarter;
+        this.daemonPool = daemonPool;
+        this.maxConcurrentCompiles = maxConcurrentCompiles;
+    }
+
+    public static int getMaxConcurrentCompiles() {
+        String value = System.getProperty(MAX_CONCURRENT_COMPILES_PROPERTY);
+        if (value == null) {
+            return 1;
+        }
+        try {
+            return Math.max(1, Integer.parseInt(value));
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Ignoring invalid value '{}' for system property {}.", value, MAX_CONCURRENT_COMPILES_PROPERTY);
+            return 1;
+        }
     }
 
+    /**
+     * Reserves an idle client or, when concurrent compilations are enabled, a busy client that can accept another compilation.
+     */
     public CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions) {
-        return reserveIdleClient(forkOptions, idleClients);
+        synchronized (lock) {
+            CompilerDaemonClient client = reserveIdleClient(forkOptions, idleClients);
+            if (client == null && maxConcurrentCompiles > 1) {
+                client = findBusyClient(forkOptions);
+            }
+            if (client != null) {
+                reserved(client);
+            }
+            return client;
+        }
+    }
+
+    /**
+     * Reserves an idle client of this manager or, when there is none, an idle client from the daemon pool.
+     */
+    public CompilerDaemonClient reserveIdleClient(File workingDir, DaemonForkOptions forkOptions) {
+        CompilerDaemonClient client = reserveIdleClient(forkOptions);
+        if (client != null || daemonPool == null) {
+            return client;
+        }
+        client = daemonPool.reserveIdleClient(workingDir, compilerDaemonStarter.getLogLevel(), forkOptions);
+        if (client != null) {
+            LOGGER.info("Reusing Gradle compiler daemon with fork options {}.", forkOptions);
+            synchronized (lock) {
+                allClients.add(client);
+                reserved(client);
+            }
+        }
+        return client;
+    }
+
+    private CompilerDaemonClient findBusyClient(DaemonForkOptions forkOptions) {
+        CompilerDaemonClient leastBusy = null;
+        int leastActive = maxConcurrentCompiles;
+        for (CompilerDaemonClient candidate : allClients) {
+            Integer active = activeCompiles.get(candidate);
+            if (active != null && active < leastActive && candidate.isCompatibleWith(forkOptions)) {
+                leastBusy = candidate;
+                leastActive = active;
+            }
+        }
+        return leastBusy;
+    }
+
+    private void reserved(CompilerDaemonClient client) {
+        Integer active = activeCompiles.get(client);
+        activeCompiles.put(client, active == null ? 1 : active + 1);
     }
 
     CompilerDaemonClient reserveIdleClient(DaemonForkOptions forkOptions, List<CompilerDaemonClient> clients) {
@@ -61,22 +147,37 @@ public class CompilerClientsManager {
         CompilerDaemonClient client = compilerDaemonStarter.startDaemon(workingDir, forkOptions);
         synchronized (lock) {
             allClients.add(client);
+            reserved(client);
         }
         return client;
     }
 
     public void release(CompilerDaemonClient client) {
         synchronized (lock) {
+            Integer active = activeCompiles.remove(client);
+            if (active != null && active > 1) {
+                activeCompiles.put(client, active - 1);
+                return;
+            }
             idleClients.add(client);
         }
     }
 
     public void stop() {
         synchronized (lock) {
+            if (daemonPool != null) {
+                // Keep the idle clients for later builds
+                for (CompilerDaemonClient client : idleClients) {
+                    allClients.remove(client);
+                    daemonPool.release(client);
+                }
+                idleClients.clear();
+            }
             LOGGER.debug("Stopping {} compiler daemon(s).", allClients.size());
             CompositeStoppable.stoppable(allClients).stop();
             LOGGER.info("Stopped {} compiler daemon(s).", allClients.size());
             allClients.clear();
+            activeCompiles.clear();
         }
     }
 }
\ No newline at end of file
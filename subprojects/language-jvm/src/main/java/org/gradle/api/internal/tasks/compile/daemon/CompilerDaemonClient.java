@@ -15,36 +15,56 @@
  */
 package org.gradle.api.internal.tasks.compile.daemon;
 
+import org.gradle.api.Nullable;
+import org.gradle.api.logging.LogLevel;
 import org.gradle.language.base.internal.compile.CompileSpec;
 import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.UncheckedException;
 import org.gradle.process.internal.WorkerProcess;
 
+import java.io.File;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClientProtocol, Stoppable {
     private final DaemonForkOptions forkOptions;
     private final WorkerProcess workerProcess;
     private final CompilerDaemonServerProtocol server;
-    private final BlockingQueue<CompileResult> compileResults = new SynchronousQueue<CompileResult>();
+    private final File workingDir;
+    private final LogLevel logLevel;
+    private final AtomicLong nextCompileId = new AtomicLong();
+    private final ConcurrentMap<Long, BlockingQueue<CompileResult>> compileResults = new ConcurrentHashMap<Long, BlockingQueue<CompileResult>>();
 
     public CompilerDaemonClient(DaemonForkOptions forkOptions, WorkerProcess workerProcess, CompilerDaemonServerProtocol server) {
+        this(forkOptions, workerProcess, server, null, null);
+    }
+
+    public CompilerDaemonClient(DaemonForkOptions forkOptions, WorkerProcess workerProcess, CompilerDaemonServerProtocol server, @Nullable File workingDir, @Nullable LogLevel logLevel) {
         this.forkOptions = forkOptions;
         this.workerProcess = workerProcess;
         this.server = server;
+        this.workingDir = workingDir;
+        this.logLevel = logLevel;
     }
 
     @Override
     public <T extends CompileSpec> CompileResult execute(Compiler<T> compiler, T spec) {
-        // currently we just allow a single compilation thread at a time (per compiler daemon)
-        // one problem to solve when allowing multiple threads is how to deal with memory requirements specified by compile tasks
+        // Several compilations may execute concurrently in the daemon, each on its own thread, when CompilerClientsManager allows this
+        // Note that the daemon heap is shared by these compilations, and is not adjusted for the number of compilations
+        long compileId = nextCompileId.incrementAndGet();
+        BlockingQueue<CompileResult> result = new ArrayBlockingQueue<CompileResult>(1);
+        compileResults.put(compileId, result);
         try {
-            server.execute(compiler, spec);
-            return compileResults.take();
+            server.execute(compileId, compiler, spec);
+            return result.take();
         } catch (InterruptedException e) {
             throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            compileResults.remove(compileId);
         }
     }
 
@@ -52,6 +72,17 @@ class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClientProtoc
         return forkOptions.isCompatibleWith(required);
     }
 
+    /**
+     * Returns true when this daemon was started in the given working directory and with the given log level, and is compatible with the given fork options.
+     */
+    public boolean isCompatibleWith(File workingDir, LogLevel logLevel, DaemonForkOptions required) {
+        return workingDir.equals(this.workingDir) && logLevel == this.logLevel && isCompatibleWith(required);
+    }
+
+    public boolean isRunning() {
+        return workerProcess.isRunning();
+    }
+
     @Override
     public void stop() {
         server.stop();
@@ -59,11 +90,10 @@ class CompilerDaemonClient implements CompilerDaemon, CompilerDaemonClientProtoc
     }
 
     @Override
-    public void executed(CompileResult result) {
-        try {
-            compileResults.put(result);
-        } catch (InterruptedException e) {
-            throw UncheckedException.throwAsUncheckedException(e);
+    public void executed(long compileId, CompileResult result) {
+        BlockingQueue<CompileResult> queue = compileResults.get(compileId);
+        if (queue != null) {
+            queue.offer(result);
         }
     }
 }
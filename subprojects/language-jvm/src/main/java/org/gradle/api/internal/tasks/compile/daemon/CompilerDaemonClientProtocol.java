@@ -19,5 +19,5 @@ package org.gradle.api.internal.tasks.compile.daemon;
  * Client part of the compiler daemon protocol. Used to report back compilation results.
  */
 public interface CompilerDaemonClientProtocol {
-    void executed(CompileResult result);
+    void executed(long compileId, CompileResult result);
 }
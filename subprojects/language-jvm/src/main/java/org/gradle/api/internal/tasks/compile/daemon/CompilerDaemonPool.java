@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.daemon;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.cache.SheddableCache;
+import org.gradle.api.logging.LogLevel;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.TimeProvider;
+import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.ThreadFactoryImpl;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps idle compiler daemons for the lifetime of the Gradle process, so that the daemons started by one build, and the compilers they have
+ * loaded and warmed up, can be reused by later builds. Daemons that have stopped are discarded, and idle daemons are stopped when memory is low.
+ *
+ * <p>At most {@value #DEFAULT_MAX_IDLE_CLIENTS} daemons are kept, the least recently used being stopped first, and a daemon that has been idle
+ * for longer than the idle timeout is stopped, whether or not another build runs.</p>
+ *
+ * <p>This is opt-in, and is enabled by setting the {@value #ENABLED_PROPERTY} system property to {@code true} in the build process.</p>
+ */
+public class CompilerDaemonPool implements SheddableCache, Stoppable {
+    public static final String ENABLED_PROPERTY = "org.gradle.compiler.daemon.reuse";
+    static final int DEFAULT_MAX_IDLE_CLIENTS = 4;
+    static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final Logger LOGGER = Logging.getLogger(CompilerDaemonPool.class);
+
+    private final int maxIdleClients;
+    private final long idleTimeoutMillis;
+    private final TimeProvider timeProvider;
+    // Least recently used first
+    private final List<IdleClient> idleClients = new ArrayList<IdleClient>();
+    private ScheduledExecutorService expiryExecutor;
+    private boolean stopped;
+
+    public CompilerDaemonPool() {
+        this(DEFAULT_MAX_IDLE_CLIENTS, DEFAULT_IDLE_TIMEOUT_MILLIS, new TrueTimeProvider());
+    }
+
+    CompilerDaemonPool(int maxIdleClients, long idleTimeoutMillis, TimeProvider timeProvider) {
+        this.maxIdleClients = maxIdleClients;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.timeProvider = timeProvider;
+    }
+
+    public static boolean isEnabled() {
+        return "true".equals(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * Takes the most recently used idle daemon that is compatible with the given options from the pool, or returns null when there is none.
+     */
+    @Nullable
+    public CompilerDaemonClient reserveIdleClient(File workingDir, LogLevel logLevel, DaemonForkOptions forkOptions) {
+        List<CompilerDaemonClient> discarded = new ArrayList<CompilerDaemonClient>();
+        try {
+            synchronized (this) {
+                ListIterator<IdleClient> it = idleClients.listIterator(idleClients.size());
+                while (it.hasPrevious()) {
+                    CompilerDaemonClient candidate = it.previous().client;
+                    if (!candidate.isRunning()) {
+                        it.remove();
+                        discarded.add(candidate);
+                    } else if (candidate.isCompatibleWith(workingDir, logLevel, forkOptions)) {
+                        it.remove();
+                        return candidate;
+                    }
+                }
+                return null;
+            }
+        } finally {
+            stop(discarded);
+        }
+    }
+
+    /**
+     * Returns an idle daemon to the pool, or stops it when it is no longer running or the pool has been stopped. When the pool is full, the least
+     * recently used daemon is stopped instead.
+     */
+    public void release(CompilerDaemonClient client) {
+        List<CompilerDaemonClient> discarded = new ArrayList<CompilerDaemonClient>();
+        synchronized (this) {
+            if (!stopped && client.isRunning()) {
+                idleClients.add(new IdleClient(client, timeProvider.getCurrentTime()));
+                while (idleClients.size() > maxIdleClients) {
+                    discarded.add(idleClients.remove(0).client);
+                }
+                scheduleExpiry();
+            } else {
+                discarded.add(client);
+            }
+        }
+        stop(discarded);
+    }
+
+    /**
+     * Stops the daemons that have been idle for longer than the idle timeout.
+     */
+    void expireIdleClients() {
+        List<CompilerDaemonClient> discarded = new ArrayList<CompilerDaemonClient>();
+        synchronized (this) {
+            long expiredBefore = timeProvider.getCurrentTime() - idleTimeoutMillis;
+            Iterator<IdleClient> it = idleClients.iterator();
+            while (it.hasNext()) {
+                IdleClient idleClient = it.next();
+                if (idleClient.releasedAt > expiredBefore) {
+                    // Clients are held in the order they were released
+                    break;
+                }
+                it.remove();
+                discarded.add(idleClient.client);
+            }
+        }
+        stop(discarded);
+    }
+
+    private void scheduleExpiry() {
+        if (expiryExecutor != null) {
+            return;
+        }
+        final ThreadFactory threadFactory = new ThreadFactoryImpl("Compiler daemon expiry");
+        // A daemon thread, so that the pool does not keep a build process that does not stop its services alive
+        expiryExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = threadFactory.newThread(r);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long period = Math.max(1, idleTimeoutMillis / 2);
+        expiryExecutor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                expireIdleClients();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getDisplayName() {
+        return "compiler daemon pool";
+    }
+
+    @Override
+    public synchronized long getEntryCount() {
+        return idleClients.size();
+    }
+
+    @Override
+    public void shed(float fraction) {
+        List<CompilerDaemonClient> discarded = new ArrayList<CompilerDaemonClient>();
+        synchronized (this) {
+            int toRemove = fraction >= 1 ? idleClients.size() : (int) (idleClients.size() * fraction);
+            for (IdleClient idleClient : idleClients.subList(0, toRemove)) {
+                discarded.add(idleClient.client);
+            }
+            idleClients.subList(0, toRemove).clear();
+        }
+        stop(discarded);
+    }
+
+    @Override
+    public void stop() {
+        List<CompilerDaemonClient> discarded = new ArrayList<CompilerDaemonClient>();
+        synchronized (this) {
+            stopped = true;
+            for (IdleClient idleClient : idleClients) {
+                discarded.add(idleClient.client);
+            }
+            idleClients.clear();
+            if (expiryExecutor != null) {
+                expiryExecutor.shutdownNow();
+                expiryExecutor = null;
+            }
+        }
+        stop(discarded);
+    }
+
+    private static void stop(List<CompilerDaemonClient> clients) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Stopping {} idle compiler daemon(s).", clients.size());
+        try {
+            CompositeStoppable.stoppable(clients).stop();
+        } catch (Exception e) {
+            // A daemon that has crashed may fail to stop cleanly
+            LOGGER.debug("Could not stop idle compiler daemon(s).", e);
+        }
+    }
+
+    private static class IdleClient {
+        final CompilerDaemonClient client;
+        final long releasedAt;
+
+        IdleClient(CompilerDaemonClient client, long releasedAt) {
+            this.client = client;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
@@ -22,6 +22,8 @@ import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.process.internal.WorkerProcessContext;
 
 import java.io.Serializable;
@@ -33,10 +35,13 @@ public class CompilerDaemonServer implements Action<WorkerProcessContext>, Compi
 
     private volatile CompilerDaemonClientProtocol client;
     private volatile CountDownLatch stop;
+    private transient volatile StoppableExecutor executor;
 
     @Override
     public void execute(WorkerProcessContext context) {
         stop = new CountDownLatch(1);
+        DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+        executor = executorFactory.create("Compiler daemon");
         client = context.getServerConnection().addOutgoing(CompilerDaemonClientProtocol.class);
         context.getServerConnection().addIncoming(CompilerDaemonServerProtocol.class, this);
         context.getServerConnection().connect();
@@ -44,20 +49,38 @@ public class CompilerDaemonServer implements Action<WorkerProcessContext>, Compi
             stop.await();
         } catch (InterruptedException e) {
             throw UncheckedException.throwAsUncheckedException(e);
+        } finally {
+            // Waits for any compilations that are still executing
+            executorFactory.stop();
         }
-
     }
 
     @Override
-    public <T extends CompileSpec> void execute(Compiler<T> compiler, T spec) {
+    public <T extends CompileSpec> void execute(final long compileId, final Compiler<T> compiler, final T spec) {
+        // Execute each compilation on its own thread, so that compilations submitted concurrently do not wait for each other
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        executor.execute(new Runnable() {
+            public void run() {
+                ClassLoader previous = Thread.currentThread().getContextClassLoader();
+                Thread.currentThread().setContextClassLoader(contextClassLoader);
+                try {
+                    executeCompile(compileId, compiler, spec);
+                } finally {
+                    Thread.currentThread().setContextClassLoader(previous);
+                }
+            }
+        });
+    }
+
+    private <T extends CompileSpec> void executeCompile(long compileId, Compiler<T> compiler, T spec) {
         try {
             LOGGER.info("Executing {} in compiler daemon.", compiler);
             WorkResult result = compiler.execute(spec);
             LOGGER.info("Successfully executed {} in compiler daemon.", compiler);
-            client.executed(new CompileResult(result.getDidWork(), null));
+            client.executed(compileId, new CompileResult(result.getDidWork(), null));
         } catch (Throwable t) {
             LOGGER.info("Exception executing {} in compiler daemon: {}.", compiler, t);
-            client.executed(new CompileResult(true, t));
+            client.executed(compileId, new CompileResult(true, t));
         }
     }
 
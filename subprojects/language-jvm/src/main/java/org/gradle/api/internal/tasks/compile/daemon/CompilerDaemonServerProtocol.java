@@ -20,8 +20,9 @@ import org.gradle.language.base.internal.compile.Compiler;
 import org.gradle.internal.concurrent.Stoppable;
 
 /**
- * Server part of the compiler daemon protocol. Used to submit compilation jobs.
+ * Server part of the compiler daemon protocol. Used to submit compilation jobs. The server may execute several jobs concurrently, and reports the
+ * result of each job using the id it was submitted with.
  */
 public interface CompilerDaemonServerProtocol extends Stoppable {
-    <T extends CompileSpec> void execute(Compiler<T> compiler, T spec);
+    <T extends CompileSpec> void execute(long compileId, Compiler<T> compiler, T spec);
 }
@@ -16,6 +16,7 @@
 package org.gradle.api.internal.tasks.compile.daemon;
 
 import org.gradle.StartParameter;
+import org.gradle.api.logging.LogLevel;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.Factory;
@@ -36,6 +37,10 @@ public class CompilerDaemonStarter {
         this.startParameter = startParameter;
     }
 
+    public LogLevel getLogLevel() {
+        return startParameter.getLogLevel();
+    }
+
     public CompilerDaemonClient startDaemon(File workingDir, DaemonForkOptions forkOptions) {
         LOG.debug("Starting Gradle compiler daemon with fork options {}.", forkOptions);
         Clock clock = new Clock();
@@ -52,7 +57,7 @@ public class CompilerDaemonStarter {
         process.start();
 
         CompilerDaemonServerProtocol server = process.getConnection().addOutgoing(CompilerDaemonServerProtocol.class);
-        CompilerDaemonClient client = new CompilerDaemonClient(forkOptions, process, server);
+        CompilerDaemonClient client = new CompilerDaemonClient(forkOptions, process, server, workingDir, startParameter.getLogLevel());
         process.getConnection().addIncoming(CompilerDaemonClientProtocol.class, client);
         process.getConnection().connect();
 
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.daemon
 
+import org.gradle.api.logging.LogLevel
 import org.gradle.util.ConcurrentSpecification
 import spock.lang.Subject
 
@@ -94,4 +95,73 @@ class CompilerClientsManagerTest extends ConcurrentSpecification {
         then:
         manager.reserveIdleClient(options) == client
     }
+
+    def "takes idle client from daemon pool when no idle client of its own"() {
+        def pool = Mock(CompilerDaemonPool)
+        def pooled = Mock(CompilerDaemonClient)
+        def manager = new CompilerClientsManager(starter, pool)
+        starter.logLevel >> LogLevel.LIFECYCLE
+
+        when:
+        def client = manager.reserveIdleClient(workingDir, options)
+
+        then:
+        1 * pool.reserveIdleClient(workingDir, LogLevel.LIFECYCLE, options) >> pooled
+        client == pooled
+
+        when:
+        manager.stop()
+
+        then:
+        1 * pooled.stop()
+        0 * pool._
+    }
+
+    def "returns idle clients to daemon pool when stopped"() {
+        def pool = Mock(CompilerDaemonPool)
+        def idle = Mock(CompilerDaemonClient)
+        def busy = Mock(CompilerDaemonClient)
+        def manager = new CompilerClientsManager(starter, pool)
+        starter.startDaemon(workingDir, options) >>> [idle, busy]
+
+        when:
+        manager.release(manager.reserveNewClient(workingDir, options))
+        manager.reserveNewClient(workingDir, options)
+        manager.stop()
+
+        then:
+        1 * pool.release(idle)
+        0 * idle.stop()
+        1 * busy.stop()
+    }
+
+    def "shares busy client between concurrent compilations when enabled"() {
+        def client1 = Mock(CompilerDaemonClient) { isCompatibleWith(_) >> true }
+        def client2 = Mock(CompilerDaemonClient) { isCompatibleWith(_) >> true }
+        def manager = new CompilerClientsManager(starter, null, 2)
+        starter.startDaemon(workingDir, options) >>> [client1, client2]
+
+        when:
+        manager.reserveNewClient(workingDir, options)
+
+        then:
+        manager.reserveIdleClient(options) == client1
+        manager.reserveIdleClient(options) == null
+
+        when:
+        manager.reserveNewClient(workingDir, options)
+        manager.release(client1)
+
+        then:
+        manager.reserveIdleClient(options) == client1
+        manager.reserveIdleClient(options) == client2
+        manager.reserveIdleClient(options) == null
+
+        when:
+        manager.release(client1)
+        manager.release(client1)
+
+        then:
+        manager.reserveIdleClient(options) == client1
+    }
 }
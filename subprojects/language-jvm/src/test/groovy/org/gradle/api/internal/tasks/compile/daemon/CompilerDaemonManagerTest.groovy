@@ -46,7 +46,7 @@ class CompilerDaemonManagerTest extends Specification {
         manager.getDaemon(workingDir, options).execute(compiler, compileSpec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> null
+        1 * clientsManager.reserveIdleClient(workingDir, options) >> null
 
         then:
         1 * clientsManager.reserveNewClient(workingDir, options) >> client
@@ -64,7 +64,7 @@ class CompilerDaemonManagerTest extends Specification {
         manager.getDaemon(workingDir, options).execute(compiler, compileSpec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> client
+        1 * clientsManager.reserveIdleClient(workingDir, options) >> client
 
         then:
         1 * client.execute(compiler, compileSpec)
@@ -79,7 +79,7 @@ class CompilerDaemonManagerTest extends Specification {
         manager.getDaemon(workingDir, options).execute(compiler, compileSpec)
 
         then:
-        1 * clientsManager.reserveIdleClient(options) >> client
+        1 * clientsManager.reserveIdleClient(workingDir, options) >> client
 
         then:
         1 * client.execute(compiler, compileSpec) >> { throw new RuntimeException("Boo!") }
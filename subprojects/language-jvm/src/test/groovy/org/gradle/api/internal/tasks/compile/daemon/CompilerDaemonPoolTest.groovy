@@ -0,0 +1,151 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.daemon
+
+import org.gradle.api.logging.LogLevel
+import org.gradle.internal.TimeProvider
+import spock.lang.Specification
+import spock.lang.Subject
+
+class CompilerDaemonPoolTest extends Specification {
+    def workingDir = new File("some-dir")
+    def options = Stub(DaemonForkOptions)
+
+    def time = 0L
+    def timeProvider = Stub(TimeProvider) {
+        getCurrentTime() >> { time }
+    }
+
+    @Subject pool = new CompilerDaemonPool(2, 1000, timeProvider)
+
+    def cleanup() {
+        pool.stop()
+    }
+
+    def "reserves released client that is compatible and running"() {
+        def client = client()
+
+        when:
+        pool.release(client)
+
+        then:
+        pool.entryCount == 1
+        pool.reserveIdleClient(workingDir, LogLevel.LIFECYCLE, options) == client
+        pool.reserveIdleClient(workingDir, LogLevel.LIFECYCLE, options) == null
+    }
+
+    def "does not reserve incompatible client"() {
+        def client = client(false)
+
+        when:
+        pool.release(client)
+
+        then:
+        pool.reserveIdleClient(workingDir, LogLevel.LIFECYCLE, options) == null
+        pool.entryCount == 1
+    }
+
+    def "discards client that is no longer running"() {
+        def running = true
+        def client = Mock(CompilerDaemonClient) {
+            isRunning() >> { running }
+            isCompatibleWith(workingDir, LogLevel.LIFECYCLE, options) >> true
+        }
+        pool.release(client)
+
+        when:
+        running = false
+        def reserved = pool.reserveIdleClient(workingDir, LogLevel.LIFECYCLE, options)
+
+        then:
+        reserved == null
+        pool.entryCount == 0
+        1 * client.stop()
+    }
+
+    def "stops least recently used clients when shedding"() {
+        def client1 = client()
+        def client2 = client()
+        pool.release(client1)
+        pool.release(client2)
+
+        when:
+        pool.shed(0.5f)
+
+        then:
+        1 * client1.stop()
+        0 * client2.stop()
+        pool.entryCount == 1
+    }
+
+    def "stops idle clients and clients released after the pool is stopped"() {
+        def client1 = client()
+        def client2 = client()
+        pool.release(client1)
+
+        when:
+        pool.stop()
+        pool.release(client2)
+
+        then:
+        1 * client1.stop()
+        1 * client2.stop()
+        pool.entryCount == 0
+    }
+
+    def "stops least recently used client when too many clients are idle"() {
+        def client1 = client()
+        def client2 = client()
+        def client3 = client()
+        pool.release(client1)
+        pool.release(client2)
+
+        when:
+        pool.release(client3)
+
+        then:
+        1 * client1.stop()
+        0 * client2.stop()
+        0 * client3.stop()
+        pool.entryCount == 2
+    }
+
+    def "stops clients that have been idle for longer than the idle timeout"() {
+        def client1 = client()
+        def client2 = client()
+        pool.release(client1)
+        time = 600
+        pool.release(client2)
+
+        when:
+        time = 1000
+        pool.expireIdleClients()
+
+        then:
+        1 * client1.stop()
+        0 * client2.stop()
+        pool.entryCount == 1
+        pool.reserveIdleClient(workingDir, LogLevel.LIFECYCLE, options) == client2
+    }
+
+    private CompilerDaemonClient client(boolean compatible = true) {
+        return Mock(CompilerDaemonClient) {
+            isRunning() >> true
+            isCompatibleWith(workingDir, LogLevel.LIFECYCLE, options) >> compatible
+        }
+    }
+}
@@ -32,6 +32,7 @@ package org.gradle.api.internal.tasks.scala;
  * limitations under the License.
  */
 
+import com.google.common.collect.Iterables;
 import org.gradle.api.internal.tasks.compile.daemon.AbstractDaemonCompiler;
 import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonFactory;
 import org.gradle.api.internal.tasks.compile.daemon.DaemonForkOptions;
@@ -64,7 +65,7 @@ public class DaemonScalaCompiler<T extends ScalaJavaJointCompileSpec> extends Ab
     private DaemonForkOptions createScalaForkOptions(T spec) {
         ScalaForkOptions options = spec.getScalaCompileOptions().getForkOptions();
         return new DaemonForkOptions(options.getMemoryInitialSize(), options.getMemoryMaximumSize(),
-                options.getJvmArgs(), zincClasspath, SHARED_PACKAGES);
+                Iterables.concat(options.getJvmArgs(), ZincScalaCompiler.getDaemonJvmArgs()), zincClasspath, SHARED_PACKAGES);
     }
 }
 
@@ -41,12 +41,27 @@ import xsbti.F0;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.List;
 
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
+/**
+ * Compiles Scala and Java sources with Zinc, in a compiler daemon.
+ *
+ * <p>Zinc keeps the compilers it has created, the analysis files it has read, and can keep warm Scala compiler instances, in caches of limited
+ * size. These caches are larger, and warm compiler instances are kept, when the {@value #ZINC_CACHING_PROPERTY} system property is set to
+ * {@code true} in the build process. Compiler daemons are then started with the caching options. A daemon that was started without them is not
+ * used for compilations that ask for them, but a daemon that was started with them may be used for any compilation. Combine this with keeping
+ * idle compiler daemons between builds to keep the caches across builds.</p>
+ *
+ * <p>A daemon may run several compilations at once. Zinc compilers are shared through its cache, so the compilations that use the same compiler
+ * run one at a time.</p>
+ */
 public class ZincScalaCompiler implements Compiler<ScalaJavaJointCompileSpec>, Serializable {
     private static final Logger LOGGER = Logging.getLogger(ZincScalaCompiler.class);
+    public static final String ZINC_CACHING_PROPERTY = "org.gradle.scala.zinc.caching";
+    private static final List<String> ZINC_CACHING_JVM_ARGS = ImmutableList.of("-Dzinc.analysis.cache.limit=50", "-Dzinc.resident.cache.limit=4");
     private final Iterable<File> scalaClasspath;
     private Iterable<File> zincClasspath;
     private final File gradleUserHome;
@@ -65,15 +80,28 @@ public class ZincScalaCompiler implements Compiler<ScalaJavaJointCompileSpec>, S
         return Compiler.execute(scalaClasspath, zincClasspath, gradleUserHome, spec);
     }
 
+    /**
+     * Returns the JVM arguments to start a compiler daemon with, to configure the caches of Zinc.
+     */
+    static List<String> getDaemonJvmArgs() {
+        return "true".equals(System.getProperty(ZINC_CACHING_PROPERTY)) ? ZINC_CACHING_JVM_ARGS : Collections.<String>emptyList();
+    }
+
     // need to defer loading of Zinc/sbt/Scala classes until we are
     // running in the compiler daemon and have them on the class path
     private static class Compiler {
+        // Held while creating a compiler, as this sets the zinc.dir system property and uses the cache of Zinc
+        private static final Object CREATE_LOCK = new Object();
+
         static WorkResult execute(final Iterable<File> scalaClasspath, final Iterable<File> zincClasspath, File gradleUserHome, final ScalaJavaJointCompileSpec spec) {
             LOGGER.info("Compiling with Zinc Scala compiler.");
 
             final xsbti.Logger logger = new SbtLoggerAdapter();
 
-            com.typesafe.zinc.Compiler compiler = createParallelSafeCompiler(scalaClasspath, zincClasspath, logger, gradleUserHome);
+            com.typesafe.zinc.Compiler compiler;
+            synchronized (CREATE_LOCK) {
+                compiler = createParallelSafeCompiler(scalaClasspath, zincClasspath, logger, gradleUserHome);
+            }
 
             List<String> scalacOptions = new ZincScalaCompilerArgumentsGenerator().generate(spec);
             List<String> javacOptions = new JavaCompilerArgumentsBuilder(spec).includeClasspath(false).build();
@@ -88,7 +116,10 @@ public class ZincScalaCompiler implements Compiler<ScalaJavaJointCompileSpec>, S
             }
 
             try {
-                compiler.compile(inputs, logger);
+                // Zinc compilers are not known to be safe for concurrent use
+                synchronized (compiler) {
+                    compiler.compile(inputs, logger);
+                }
             } catch (xsbti.CompileFailed e) {
                 throw new CompilationFailedException(e);
             }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.scala
+
+import org.gradle.api.internal.tasks.compile.daemon.CompilerDaemonFactory
+import org.gradle.api.tasks.compile.CompileOptions
+import org.gradle.language.base.internal.compile.Compiler
+import org.gradle.language.scala.tasks.BaseScalaCompileOptions
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class DaemonScalaCompilerTest extends Specification {
+    @Rule SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def zincClasspath = [new File("zinc.jar")]
+    def compiler = new DaemonScalaCompiler<ScalaJavaJointCompileSpec>(new File("daemon"), Stub(Compiler), Stub(CompilerDaemonFactory), zincClasspath)
+
+    def "starts daemons without the Zinc caching options by default"() {
+        def spec = spec("-Xss2m")
+
+        expect:
+        compiler.toDaemonOptions(spec).jvmArgs as Set == ["-Xss2m"] as Set
+    }
+
+    def "starts daemons with the Zinc caching options when enabled"() {
+        System.setProperty(ZincScalaCompiler.ZINC_CACHING_PROPERTY, "true")
+        def spec = spec("-Xss2m")
+
+        expect:
+        compiler.toDaemonOptions(spec).jvmArgs as Set == ["-Xss2m", "-Dzinc.analysis.cache.limit=50", "-Dzinc.resident.cache.limit=4"] as Set
+    }
+
+    def "uses a daemon with the Zinc caching options only for compilations that ask for them or that can use any daemon"() {
+        def spec = spec()
+        def withoutCaching = compiler.toDaemonOptions(spec)
+        System.setProperty(ZincScalaCompiler.ZINC_CACHING_PROPERTY, "true")
+        def withCaching = compiler.toDaemonOptions(spec)
+
+        expect:
+        withCaching.isCompatibleWith(withoutCaching)
+        !withoutCaching.isCompatibleWith(withCaching)
+    }
+
+    private static ScalaJavaJointCompileSpec spec(String... jvmArgs) {
+        def spec = new DefaultScalaJavaJointCompileSpec()
+        spec.compileOptions = new CompileOptions()
+        spec.scalaCompileOptions = new BaseScalaCompileOptions()
+        spec.scalaCompileOptions.forkOptions.jvmArgs = jvmArgs as List
+        return spec
+    }
+}
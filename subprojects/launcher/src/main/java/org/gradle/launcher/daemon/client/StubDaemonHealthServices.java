@@ -31,4 +31,8 @@ public class StubDaemonHealthServices implements DaemonHealthServices {
     public DaemonCommandAction getHealthTrackerAction() {
         return noOp;
     }
+
+    public DaemonCommandAction getCacheSheddingAction() {
+        return noOp;
+    }
 }
@@ -69,6 +69,7 @@ public class DefaultDaemonCommandExecuter implements DaemonCommandExecuter {
             new HandleCancel(),
             new ReturnResult(),
             new StartBuildOrRespondWithBusy(daemonDiagnostics), // from this point down, the daemon is 'busy'
+            healthServices.getCacheSheddingAction(), // runs after the throttled gc hint below, so sees the heap usage after any collection it requests
             healthServices.getGCHintAction(), //TODO SF needs to happen after the result is returned to the client
             new EstablishBuildEnvironment(processEnvironment),
             new LogToClient(loggingOutput, daemonDiagnostics), // from this point down, logging is sent back to the client
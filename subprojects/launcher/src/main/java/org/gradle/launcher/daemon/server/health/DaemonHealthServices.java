@@ -29,4 +29,9 @@ public interface DaemonHealthServices {
      * gets the action that tracks daemon's health
      */
     DaemonCommandAction getHealthTrackerAction();
+
+    /**
+     * gets the action that sheds in-memory caches when the daemon is short of heap after the build
+     */
+    DaemonCommandAction getCacheSheddingAction();
 }
\ No newline at end of file
@@ -16,6 +16,7 @@
 
 package org.gradle.launcher.daemon.server.health;
 
+import org.gradle.api.internal.cache.SheddableCacheRegistry;
 import org.gradle.launcher.daemon.server.api.DaemonCommandAction;
 
 public class DefaultDaemonHealthServices implements DaemonHealthServices {
@@ -25,6 +26,11 @@ public class DefaultDaemonHealthServices implements DaemonHealthServices {
     private final DaemonStatus status = new DaemonStatus();
     private final HealthLogger logger = new HealthLogger();
     private final DaemonHealthTracker tracker = new DaemonHealthTracker(stats, status, logger);
+    private final ShedCachesOnMemoryPressure cacheShedder;
+
+    public DefaultDaemonHealthServices(SheddableCacheRegistry cacheRegistry) {
+        this.cacheShedder = new ShedCachesOnMemoryPressure(cacheRegistry);
+    }
 
     /**
      * {@inheritDoc}
@@ -39,4 +45,11 @@ public class DefaultDaemonHealthServices implements DaemonHealthServices {
     public DaemonCommandAction getHealthTrackerAction() {
         return tracker;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public DaemonCommandAction getCacheSheddingAction() {
+        return cacheShedder;
+    }
 }
\ No newline at end of file
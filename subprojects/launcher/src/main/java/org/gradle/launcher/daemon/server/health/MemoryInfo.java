@@ -18,6 +18,10 @@ package org.gradle.launcher.daemon.server.health;
 
 import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
 
 class MemoryInfo {
 
@@ -41,6 +45,29 @@ class MemoryInfo {
         return garbageCollectionTime;
     }
 
+    /**
+     * Number of collections of the tenured heap space that have occurred, which are the collections that update the usage reported by
+     * {@link #getTenuredUsedAfterGc()}. Young generation collections are not included. Returns -1 when the JVM does not report it.
+     */
+    long getTenuredCollectionCount() {
+        MemoryPoolMXBean tenured = getTenuredPool();
+        if (tenured == null) {
+            return -1;
+        }
+        long collectionCount = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // G1 reports its young collector as managing the old generation too, although it does not update its collection usage
+            if (gc.getName().contains("Young") || !Arrays.asList(gc.getMemoryPoolNames()).contains(tenured.getName())) {
+                continue;
+            }
+            long count = gc.getCollectionCount();
+            if (count >= 0) {
+                collectionCount += count;
+            }
+        }
+        return collectionCount;
+    }
+
     /**
      * Max memory that this process can commit in bytes.
      * Always returns the same value because maximum memory is determined at jvm start.
@@ -58,4 +85,33 @@ class MemoryInfo {
         //querying runtime for each invocation
         return Runtime.getRuntime().totalMemory();
     }
+
+    /**
+     * 0-100, the percentage of the tenured heap space that was still in use right after the most recent garbage collection,
+     * or -1 when the JVM does not report it. Unlike committed memory, this reflects how much memory is actually retained.
+     */
+    int getTenuredUsedAfterGc() {
+        MemoryPoolMXBean tenured = getTenuredPool();
+        if (tenured == null) {
+            return -1;
+        }
+        MemoryUsage usage = tenured.getCollectionUsage();
+        if (usage == null || usage.getMax() <= 0) {
+            return -1;
+        }
+        return (int) (usage.getUsed() * 100 / usage.getMax());
+    }
+
+    private static MemoryPoolMXBean getTenuredPool() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && isTenured(pool.getName())) {
+                return pool;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTenured(String poolName) {
+        return poolName.contains("Old Gen") || poolName.contains("Tenured");
+    }
 }
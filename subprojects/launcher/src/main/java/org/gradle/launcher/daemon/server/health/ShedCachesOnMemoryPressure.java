@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.internal.cache.SheddableCache;
+import org.gradle.api.internal.cache.SheddableCacheRegistry;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.launcher.daemon.server.api.DaemonCommandAction;
+import org.gradle.launcher.daemon.server.api.DaemonCommandExecution;
+
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * Sheds entries from the daemon's in-memory caches after a build when the tenured heap is still mostly in use after garbage collection.
+ *
+ * <p>This does not request garbage collection itself, and relies on the heap usage reported for the most recent collection. At most one cache is
+ * shed per build, in priority order across builds, and only when the tenured space has been collected since caches were last shed, so that the
+ * reported usage reflects the previous shedding.</p>
+ */
+class ShedCachesOnMemoryPressure implements DaemonCommandAction {
+
+    public static final String SHED_AT_PROPERTY = "org.gradle.daemon.performance.shed-caches-at";
+    static final int DEFAULT_SHED_AT = 70;
+    private static final float SHED_FRACTION = 0.5f;
+
+    private final static Logger LOG = Logging.getLogger(ShedCachesOnMemoryPressure.class);
+
+    private final SheddableCacheRegistry cacheRegistry;
+    private final MemoryInfo memory;
+    private long collectionCountAtLastShed = -1;
+    private int nextCache;
+
+    ShedCachesOnMemoryPressure(SheddableCacheRegistry cacheRegistry) {
+        this(cacheRegistry, new MemoryInfo());
+    }
+
+    ShedCachesOnMemoryPressure(SheddableCacheRegistry cacheRegistry, MemoryInfo memory) {
+        this.cacheRegistry = cacheRegistry;
+        this.memory = memory;
+    }
+
+    public void execute(DaemonCommandExecution execution) {
+        execution.proceed();
+        if (execution.isSingleUseDaemon()) {
+            return;
+        }
+
+        int threshold = threshold();
+        int used = memory.getTenuredUsedAfterGc();
+        if (threshold == 0 || used < threshold) {
+            if (LOG.isDebugEnabled()) {
+                for (SheddableCache cache : cacheRegistry.getCaches()) {
+                    LOG.debug("{}: {} entries", cache.getDisplayName(), cache.getEntryCount());
+                }
+            }
+            return;
+        }
+
+        long collectionCount = memory.getTenuredCollectionCount();
+        if (collectionCount == collectionCountAtLastShed) {
+            // The reported tenured usage does not reflect the caches shed after the previous build until the tenured space is collected again
+            return;
+        }
+        List<SheddableCache> caches = cacheRegistry.getCaches();
+        if (caches.isEmpty()) {
+            return;
+        }
+        SheddableCache cache = caches.get(nextCache % caches.size());
+        nextCache = (nextCache + 1) % caches.size();
+        collectionCountAtLastShed = collectionCount;
+
+        long before = cache.getEntryCount();
+        cache.shed(SHED_FRACTION);
+        LOG.info("{}% of tenured heap in use after garbage collection, shed {} of {} entries from {}.", used, before - cache.getEntryCount(), before, cache.getDisplayName());
+    }
+
+    private static int threshold() {
+        String shedAt = System.getProperty(SHED_AT_PROPERTY);
+        if (shedAt == null) {
+            return DEFAULT_SHED_AT;
+        }
+        try {
+            return Integer.parseInt(shedAt);
+        } catch (Exception e) {
+            throw new GradleException(format(
+                    "System property '%s' has incorrect value: '%s'. The value needs to be integer.",
+                    SHED_AT_PROPERTY, shedAt));
+        }
+    }
+}
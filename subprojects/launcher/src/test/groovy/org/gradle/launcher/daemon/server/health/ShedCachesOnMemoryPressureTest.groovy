@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.launcher.daemon.server.health
+
+import org.gradle.api.internal.cache.SheddableCache
+import org.gradle.api.internal.cache.SheddableCacheRegistry
+import org.gradle.launcher.daemon.server.api.DaemonCommandExecution
+import spock.lang.Specification
+
+class ShedCachesOnMemoryPressureTest extends Specification {
+    def registry = new SheddableCacheRegistry()
+    def memory = Mock(MemoryInfo)
+    def execution = Mock(DaemonCommandExecution)
+    def lowPriority = Mock(SheddableCache)
+    def highPriority = Mock(SheddableCache)
+    def action = new ShedCachesOnMemoryPressure(registry, memory)
+
+    def setup() {
+        registry.register(highPriority, SheddableCacheRegistry.PRIORITY_HIGH)
+        registry.register(lowPriority, SheddableCacheRegistry.PRIORITY_LOW)
+    }
+
+    def "does not shed caches when heap usage is below threshold"() {
+        when:
+        action.execute(execution)
+
+        then:
+        1 * execution.proceed()
+        1 * memory.getTenuredUsedAfterGc() >> 50
+        0 * memory.getTenuredCollectionCount()
+        0 * lowPriority.shed(_)
+        0 * highPriority.shed(_)
+    }
+
+    def "sheds a single cache per build in priority order"() {
+        when:
+        action.execute(execution)
+
+        then:
+        1 * memory.getTenuredUsedAfterGc() >> 90
+        1 * memory.getTenuredCollectionCount() >> 3
+        1 * lowPriority.shed(0.5f)
+        0 * highPriority.shed(_)
+
+        when:
+        action.execute(execution)
+
+        then:
+        1 * memory.getTenuredUsedAfterGc() >> 90
+        1 * memory.getTenuredCollectionCount() >> 4
+        0 * lowPriority.shed(_)
+        1 * highPriority.shed(0.5f)
+
+        when:
+        action.execute(execution)
+
+        then:
+        1 * memory.getTenuredUsedAfterGc() >> 90
+        1 * memory.getTenuredCollectionCount() >> 5
+        1 * lowPriority.shed(0.5f)
+        0 * highPriority.shed(_)
+    }
+
+    def "does not shed caches again until the tenured space has been collected"() {
+        when:
+        action.execute(execution)
+
+        then:
+        1 * memory.getTenuredUsedAfterGc() >> 90
+        1 * memory.getTenuredCollectionCount() >> 3
+        1 * lowPriority.shed(0.5f)
+
+        when:
+        action.execute(execution)
+
+        then:
+        1 * memory.getTenuredUsedAfterGc() >> 90
+        1 * memory.getTenuredCollectionCount() >> 3
+        0 * lowPriority.shed(_)
+        0 * highPriority.shed(_)
+    }
+
+    def "does not shed caches of single use daemon"() {
+        when:
+        action.execute(execution)
+
+        then:
+        1 * execution.proceed()
+        1 * execution.isSingleUseDaemon() >> true
+        0 * memory._
+        0 * lowPriority.shed(_)
+    }
+}
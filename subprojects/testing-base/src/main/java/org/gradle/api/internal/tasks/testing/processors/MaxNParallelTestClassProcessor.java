@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.testing.processors;
 
 import org.gradle.internal.Factory;
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
@@ -26,27 +27,51 @@ import org.gradle.messaging.actor.Actor;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.messaging.dispatch.DispatchException;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 /**
- * Manages a set of parallel TestClassProcessors. Uses a simple round-robin algorithm to assign test classes to
- * processors.
+ * Manages a set of parallel TestClassProcessors.
+ *
+ * <p>When created without the durations of previous runs, uses a simple round-robin algorithm to assign test classes to processors.</p>
+ *
+ * <p>When created with the durations of previous runs, test classes are queued and handed to a processor only once it has finished its
+ * previous test class, as reported to {@link #testClassProcessed(TestClassRunInfo)}. The queued test class that took longest in the previous
+ * run is handed out first. Test classes without a previous duration are assumed to take the average duration.</p>
+ *
+ * <p>Test execution can be cut short using {@link #stopNow()}.</p>
  */
-public class MaxNParallelTestClassProcessor implements TestClassProcessor {
+public class MaxNParallelTestClassProcessor implements TestClassProcessor, TestClassProcessingListener {
     private final int maxProcessors;
     private final Factory<TestClassProcessor> factory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> classDurations;
+    private final long defaultDuration;
     private TestResultProcessor resultProcessor;
     private int pos;
     private List<TestClassProcessor> processors = new ArrayList<TestClassProcessor>();
     private List<Actor> actors = new ArrayList<Actor>();
     private Actor resultProcessorActor;
+    private final Object lock = new Object();
+    private final PriorityQueue<QueuedTestClass> queue = new PriorityQueue<QueuedTestClass>();
+    private final LinkedList<TestClassProcessor> idleProcessors = new LinkedList<TestClassProcessor>();
+    private final Map<String, TestClassProcessor> runningProcessors = new HashMap<String, TestClassProcessor>();
+    private long queuedCount;
+    private volatile boolean stoppedNow;
 
     public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory) {
+        this(maxProcessors, factory, actorFactory, null);
+    }
+
+    /**
+     * @param classDurations The durations of the test classes in a previous run, by class name. When not null, the processors created by the factory must report
+     * each processed test class to {@link #testClassProcessed(TestClassRunInfo)}.
+     */
+    public MaxNParallelTestClassProcessor(int maxProcessors, Factory<TestClassProcessor> factory, ActorFactory actorFactory, Map<String, Long> classDurations) {
         this.maxProcessors = maxProcessors;
         this.factory = factory;
         this.actorFactory = actorFactory;
+        this.classDurations = classDurations;
+        this.defaultDuration = averageOf(classDurations);
     }
 
     @Override
@@ -57,14 +82,24 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
+        if (stoppedNow) {
+            return;
+        }
+        if (classDurations != null) {
+            synchronized (lock) {
+                if (stoppedNow) {
+                    return;
+                }
+                Long duration = classDurations.get(testClass.getTestClassName());
+                queue.add(new QueuedTestClass(testClass, duration == null ? defaultDuration : duration, queuedCount++));
+                dispatch();
+            }
+            return;
+        }
+
         TestClassProcessor processor;
         if (processors.size() < maxProcessors) {
-            processor = factory.create();
-            Actor actor = actorFactory.createActor(processor);
-            processor = actor.getProxy(TestClassProcessor.class);
-            actors.add(actor);
-            processors.add(processor);
-            processor.startProcessing(resultProcessor);
+            processor = startProcessor();
         } else {
             processor = processors.get(pos);
             pos = (pos + 1) % processors.size();
@@ -72,12 +107,101 @@ public class MaxNParallelTestClassProcessor implements TestClassProcessor {
         processor.processTestClass(testClass);
     }
 
+    @Override
+    public void testClassProcessed(TestClassRunInfo testClass) {
+        synchronized (lock) {
+            TestClassProcessor processor = runningProcessors.remove(testClass.getTestClassName());
+            if (processor != null) {
+                idleProcessors.add(processor);
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * Discards the queued test classes and any test classes received from now on. Test classes already handed to a processor are not affected.
+     */
+    public void stopNow() {
+        synchronized (lock) {
+            stoppedNow = true;
+            queue.clear();
+            lock.notifyAll();
+        }
+    }
+
+    private void dispatch() {
+        while (!queue.isEmpty()) {
+            TestClassProcessor processor;
+            if (!idleProcessors.isEmpty()) {
+                processor = idleProcessors.removeFirst();
+            } else if (processors.size() < maxProcessors) {
+                processor = startProcessor();
+            } else {
+                break;
+            }
+            TestClassRunInfo testClass = queue.poll().testClass;
+            runningProcessors.put(testClass.getTestClassName(), processor);
+            processor.processTestClass(testClass);
+        }
+        lock.notifyAll();
+    }
+
+    private TestClassProcessor startProcessor() {
+        TestClassProcessor processor = factory.create();
+        Actor actor = actorFactory.createActor(processor);
+        processor = actor.getProxy(TestClassProcessor.class);
+        actors.add(actor);
+        processors.add(processor);
+        processor.startProcessing(resultProcessor);
+        return processor;
+    }
+
     @Override
     public void stop() {
+        synchronized (lock) {
+            while (!queue.isEmpty()) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+            }
+        }
         try {
             CompositeStoppable.stoppable(processors).add(actors).add(resultProcessorActor).stop();
         } catch (DispatchException e) {
             throw UncheckedException.throwAsUncheckedException(e.getCause());
         }
     }
+
+    private static long averageOf(Map<String, Long> classDurations) {
+        if (classDurations == null || classDurations.isEmpty()) {
+            return 0;
+        }
+        long total = 0;
+        for (Long duration : classDurations.values()) {
+            total += duration;
+        }
+        return total / classDurations.size();
+    }
+
+    private static class QueuedTestClass implements Comparable<QueuedTestClass> {
+        final TestClassRunInfo testClass;
+        final long duration;
+        final long order;
+
+        QueuedTestClass(TestClassRunInfo testClass, long duration, long order) {
+            this.testClass = testClass;
+            this.duration = duration;
+            this.order = order;
+        }
+
+        @Override
+        public int compareTo(QueuedTestClass other) {
+            if (duration != other.duration) {
+                return duration > other.duration ? -1 : 1;
+            }
+            return order < other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+    }
 }
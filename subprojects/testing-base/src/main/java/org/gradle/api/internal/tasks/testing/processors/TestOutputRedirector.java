@@ -53,26 +53,41 @@ class TestOutputRedirector {
         if (System.err != null) {
             System.err.flush();
         }
-        outForwarder.outputOwner = testId;
-        errForwarder.outputOwner = testId;
+        outForwarder.setOutputOwner(testId);
+        errForwarder.setOutputOwner(testId);
     }
 
+    /**
+     * Forwards the output of each thread to the test most recently started or resumed by that thread, so that the output of tests executing
+     * concurrently is attributed correctly. Output of other threads, such as those started by the tests, goes to the test most recently
+     * started or resumed by any thread.
+     */
     static class Forwarder implements StandardOutputListener {
         final TestResultProcessor processor;
         final TestOutputEvent.Destination dest;
-        Object outputOwner;
+        volatile Object outputOwner;
+        private final ThreadLocal<Object> threadOutputOwner = new ThreadLocal<Object>();
 
         public Forwarder(TestResultProcessor processor, TestOutputEvent.Destination dest) {
             this.processor = processor;
             this.dest = dest;
         }
 
+        void setOutputOwner(Object testId) {
+            outputOwner = testId;
+            threadOutputOwner.set(testId);
+        }
+
         @Override
         public void onOutput(CharSequence output) {
-            if (outputOwner == null) {
+            Object owner = threadOutputOwner.get();
+            if (owner == null) {
+                owner = outputOwner;
+            }
+            if (owner == null) {
                 throw new RuntimeException("Unable send output event from test executor. Please report this problem. Destination: " + dest + ", event: " + output.toString());
             }
-            processor.output(outputOwner, new DefaultTestOutputEvent(dest, output.toString()));
+            processor.output(owner, new DefaultTestOutputEvent(dest, output.toString()));
         }
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.results;
+
+import org.gradle.api.internal.tasks.testing.*;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Forwards test events to a delegate, and runs the given action once the given number of tests or test suites have failed.
+ */
+public class FailFastTestResultProcessor implements TestResultProcessor {
+    private final TestResultProcessor processor;
+    private final int maxFailures;
+    private final Runnable onMaxFailures;
+    private final Set<Object> failedTests = new HashSet<Object>();
+    private boolean triggered;
+
+    public FailFastTestResultProcessor(TestResultProcessor processor, int maxFailures, Runnable onMaxFailures) {
+        this.processor = processor;
+        this.maxFailures = maxFailures;
+        this.onMaxFailures = onMaxFailures;
+    }
+
+    @Override
+    public void started(TestDescriptorInternal test, TestStartEvent event) {
+        processor.started(test, event);
+    }
+
+    @Override
+    public void failure(Object testId, Throwable result) {
+        processor.failure(testId, result);
+        boolean trigger;
+        synchronized (failedTests) {
+            failedTests.add(testId);
+            trigger = !triggered && failedTests.size() >= maxFailures;
+            triggered |= trigger;
+        }
+        if (trigger) {
+            onMaxFailures.run();
+        }
+    }
+
+    @Override
+    public void output(Object testId, TestOutputEvent event) {
+        processor.output(testId, event);
+    }
+
+    @Override
+    public void completed(Object testId, TestCompleteEvent event) {
+        processor.completed(testId, event);
+    }
+}
@@ -17,17 +17,26 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
+import org.gradle.api.Nullable;
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.internal.Factory;
 import org.gradle.messaging.remote.ObjectConnection;
+import org.gradle.process.ExecResult;
 import org.gradle.process.JavaForkOptions;
+import org.gradle.process.internal.ExecException;
+import org.gradle.process.internal.ExecHandle;
+import org.gradle.process.internal.ExecHandleListener;
 import org.gradle.process.internal.WorkerProcess;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 
 public class ForkingTestClassProcessor implements TestClassProcessor {
     private final Factory<WorkerProcessBuilder> workerFactory;
@@ -35,16 +44,30 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
     private final JavaForkOptions options;
     private final Iterable<File> classPath;
     private final Action<WorkerProcessBuilder> buildConfigAction;
+    private final TestClassProcessingListener processingListener;
+    private final List<TestClassRunInfo> outstanding = new LinkedList<TestClassRunInfo>();
+    private boolean workerStopped;
+    private boolean stoppedNow;
     private RemoteTestClassProcessor remoteProcessor;
-    private WorkerProcess workerProcess;
+    private volatile WorkerProcess workerProcess;
     private TestResultProcessor resultProcessor;
 
     public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction) {
+        this(workerFactory, processorFactory, options, classPath, buildConfigAction, null);
+    }
+
+    /**
+     * @param processingListener Notified as the worker finishes each test class handed to it. Any classes still outstanding when the worker stops are reported as processed.
+     * Classes received after the worker has exited are reported as processed and fail.
+     */
+    public ForkingTestClassProcessor(Factory<WorkerProcessBuilder> workerFactory, WorkerTestClassProcessorFactory processorFactory, JavaForkOptions options, Iterable<File> classPath, Action<WorkerProcessBuilder> buildConfigAction,
+                                     @Nullable TestClassProcessingListener processingListener) {
         this.workerFactory = workerFactory;
         this.processorFactory = processorFactory;
         this.options = options;
         this.classPath = classPath;
         this.buildConfigAction = buildConfigAction;
+        this.processingListener = processingListener;
     }
 
     @Override
@@ -54,13 +77,45 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
-        if (remoteProcessor == null) {
-            remoteProcessor = forkProcess();
+        boolean workerExited;
+        boolean discard;
+        synchronized (outstanding) {
+            discard = stoppedNow;
+            workerExited = workerStopped && !discard;
+            if (!discard && !workerExited) {
+                outstanding.add(testClass);
+            }
+        }
+        if ((discard || workerExited) && processingListener != null) {
+            processingListener.testClassProcessed(testClass);
+        }
+        if (discard) {
+            return;
+        }
+        if (workerExited) {
+            throw new ExecException(String.format("Could not run test class '%s' as the test worker process has already exited.", testClass.getTestClassName()));
+        }
+        try {
+            if (remoteProcessor == null) {
+                remoteProcessor = forkProcess();
+                if (remoteProcessor == null) {
+                    // Stopped while the worker process was starting
+                    testClassProcessed(testClass.getTestClassName());
+                    return;
+                }
+            }
+            remoteProcessor.processTestClass(testClass);
+        } catch (RuntimeException e) {
+            testClassProcessed(testClass.getTestClassName());
+            throw e;
         }
-
-        remoteProcessor.processTestClass(testClass);
     }
 
+    /**
+     * Starts the worker process and connects to it. Returns null when stopped while the worker process was starting, in which case the worker
+     * process has been aborted.
+     */
+    @Nullable
     RemoteTestClassProcessor forkProcess() {
         WorkerProcessBuilder builder = workerFactory.create();
         builder.setBaseName("Gradle Test Executor");
@@ -68,22 +123,102 @@ public class ForkingTestClassProcessor implements TestClassProcessor {
         builder.worker(new TestWorker(processorFactory));
         options.copyTo(builder.getJavaCommand());
         buildConfigAction.execute(builder);
+        builder.getJavaCommand().listener(new ExecHandleListener() {
+            public void executionStarted(ExecHandle execHandle) {
+            }
+
+            public void executionFinished(ExecHandle execHandle, ExecResult execResult) {
+                workerStopped();
+            }
+        });
 
         workerProcess = builder.build();
         workerProcess.start();
+        if (isStoppedNow()) {
+            workerProcess.abort();
+            try {
+                workerProcess.waitForStop();
+            } catch (ExecException e) {
+                // Expected, as the process was killed
+            }
+            return null;
+        }
 
         ObjectConnection connection = workerProcess.getConnection();
         connection.useParameterSerializer(TestEventSerializer.create());
         connection.addIncoming(TestResultProcessor.class, resultProcessor);
+        connection.addIncoming(TestClassProcessingListener.class, new TestClassProcessingListener() {
+            public void testClassProcessed(TestClassRunInfo testClass) {
+                ForkingTestClassProcessor.this.testClassProcessed(testClass.getTestClassName());
+            }
+        });
         RemoteTestClassProcessor remoteProcessor = connection.addOutgoing(RemoteTestClassProcessor.class);
         connection.connect();
         remoteProcessor.startProcessing();
         return remoteProcessor;
     }
 
+    private void testClassProcessed(String className) {
+        TestClassRunInfo processed = null;
+        synchronized (outstanding) {
+            for (TestClassRunInfo testClass : outstanding) {
+                if (testClass.getTestClassName().equals(className)) {
+                    processed = testClass;
+                    outstanding.remove(testClass);
+                    break;
+                }
+            }
+        }
+        if (processed != null && processingListener != null) {
+            processingListener.testClassProcessed(processed);
+        }
+    }
+
+    void workerStopped() {
+        List<TestClassRunInfo> notProcessed;
+        synchronized (outstanding) {
+            workerStopped = true;
+            notProcessed = new ArrayList<TestClassRunInfo>(outstanding);
+            outstanding.clear();
+        }
+        if (processingListener != null) {
+            for (TestClassRunInfo testClass : notProcessed) {
+                processingListener.testClassProcessed(testClass);
+            }
+        }
+    }
+
+    /**
+     * Stops the worker process without waiting for its test classes to complete, and discards any test classes received from now on. Can be
+     * called from any thread.
+     */
+    public void stopNow() {
+        synchronized (outstanding) {
+            stoppedNow = true;
+        }
+        WorkerProcess workerProcess = this.workerProcess;
+        if (workerProcess != null) {
+            workerProcess.abort();
+        }
+    }
+
+    private boolean isStoppedNow() {
+        synchronized (outstanding) {
+            return stoppedNow;
+        }
+    }
+
     @Override
     public void stop() {
         if (remoteProcessor != null) {
+            if (isStoppedNow()) {
+                try {
+                    workerProcess.waitForStop();
+                } catch (ExecException e) {
+                    // Expected, as the process was killed
+                }
+                return;
+            }
             remoteProcessor.stop();
             workerProcess.waitForStop();
         }
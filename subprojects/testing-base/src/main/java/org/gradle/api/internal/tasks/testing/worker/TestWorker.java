@@ -17,6 +17,7 @@
 package org.gradle.api.internal.tasks.testing.worker;
 
 import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
@@ -49,6 +50,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
     private CountDownLatch completed;
     private TestClassProcessor processor;
     private TestResultProcessor resultProcessor;
+    private TestClassProcessingListener processingListener;
 
     public TestWorker(WorkerTestClassProcessorFactory factory) {
         this.factory = factory;
@@ -92,6 +94,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         ObjectConnection serverConnection = workerProcessContext.getServerConnection();
         serverConnection.useParameterSerializer(TestEventSerializer.create());
         this.resultProcessor = serverConnection.addOutgoing(TestResultProcessor.class);
+        this.processingListener = serverConnection.addOutgoing(TestClassProcessingListener.class);
         serverConnection.addIncoming(RemoteTestClassProcessor.class, this);
         serverConnection.connect();
     }
@@ -110,6 +113,7 @@ public class TestWorker implements Action<WorkerProcessContext>, RemoteTestClass
         } finally {
             // Clean the interrupted status
             Thread.interrupted();
+            processingListener.testClassProcessed(testClass);
         }
     }
 
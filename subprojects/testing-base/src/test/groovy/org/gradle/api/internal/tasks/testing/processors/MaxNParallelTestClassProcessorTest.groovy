@@ -167,4 +167,136 @@ class MaxNParallelTestClassProcessorTest extends Specification {
         then:
         1 * asyncProcessor2.processTestClass(test)
     }
+
+    def handsQueuedTestClassesToIdleProcessorLongestFirst() {
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [Fast: 10L, Slow: 100L])
+        TestClassRunInfo fast = testClass("Fast")
+        TestClassRunInfo slow = testClass("Slow")
+        TestClassRunInfo unknown = testClass("Unknown")
+        TestClassRunInfo slowest = testClass("Slowest")
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.processTestClass(fast)
+        processor.processTestClass(unknown)
+        processor.processTestClass(slow)
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.startProcessing(asyncResultProcessor)
+        1 * asyncProcessor1.processTestClass(fast)
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        processor.testClassProcessed(fast)
+
+        then:
+        1 * asyncProcessor1.processTestClass(slow)
+        0 * asyncProcessor1.processTestClass(_)
+
+        when:
+        processor.testClassProcessed(slow)
+
+        then:
+        1 * asyncProcessor1.processTestClass(unknown)
+
+        when:
+        processor.testClassProcessed(unknown)
+        processor.stop()
+
+        then:
+        1 * asyncProcessor1.stop()
+        1 * actor1.stop()
+        1 * resultProcessorActor.stop()
+        0 * factory.create()
+    }
+
+    def handsQueuedTestClassToWhicheverProcessorBecomesIdle() {
+        def processor = new MaxNParallelTestClassProcessor(2, factory, actorFactory, [:])
+        TestClassRunInfo test1 = testClass("Test1")
+        TestClassRunInfo test2 = testClass("Test2")
+        TestClassRunInfo test3 = testClass("Test3")
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor processor2 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        TestClassProcessor asyncProcessor2 = Mock()
+        Actor actor1 = Mock()
+        Actor actor2 = Mock()
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+        processor.processTestClass(test3)
+
+        then:
+        2 * factory.create() >>> [processor1, processor2]
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actorFactory.createActor(processor2) >> actor2
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * actor2.getProxy(TestClassProcessor) >> asyncProcessor2
+        1 * asyncProcessor1.processTestClass(test1)
+        1 * asyncProcessor2.processTestClass(test2)
+        0 * asyncProcessor1.processTestClass(_)
+        0 * asyncProcessor2.processTestClass(_)
+
+        when:
+        processor.testClassProcessed(test2)
+
+        then:
+        1 * asyncProcessor2.processTestClass(test3)
+        0 * asyncProcessor1.processTestClass(_)
+    }
+
+    def discardsQueuedAndLaterTestClassesWhenStoppedNow() {
+        def processor = new MaxNParallelTestClassProcessor(1, factory, actorFactory, [:])
+        TestClassRunInfo test1 = testClass("Test1")
+        TestClassRunInfo test2 = testClass("Test2")
+        TestClassRunInfo test3 = testClass("Test3")
+        TestClassProcessor processor1 = Mock()
+        TestClassProcessor asyncProcessor1 = Mock()
+        Actor actor1 = Mock()
+
+        1 * actorFactory.createActor(resultProcessor) >> resultProcessorActor
+        1 * resultProcessorActor.getProxy(TestResultProcessor) >> asyncResultProcessor
+        processor.startProcessing(resultProcessor)
+
+        when:
+        processor.processTestClass(test1)
+        processor.processTestClass(test2)
+
+        then:
+        1 * factory.create() >> processor1
+        1 * actorFactory.createActor(processor1) >> actor1
+        1 * actor1.getProxy(TestClassProcessor) >> asyncProcessor1
+        1 * asyncProcessor1.processTestClass(test1)
+
+        when:
+        processor.stopNow()
+        processor.testClassProcessed(test1)
+        processor.processTestClass(test3)
+        processor.stop()
+
+        then:
+        0 * asyncProcessor1.processTestClass(_)
+        1 * asyncProcessor1.stop()
+        0 * factory.create()
+    }
+
+    private TestClassRunInfo testClass(String name) {
+        TestClassRunInfo testClass = Mock()
+        _ * testClass.testClassName >> name
+        return testClass
+    }
 }
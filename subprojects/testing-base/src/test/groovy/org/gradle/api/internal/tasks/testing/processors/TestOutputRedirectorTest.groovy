@@ -78,4 +78,27 @@ class TestOutputRedirectorTest extends Specification {
         })
         0 * _
     }
+
+    def "passes output events to the owner set by the writing thread"() {
+        def f = new TestOutputRedirector.Forwarder(processor, TestOutputEvent.Destination.StdOut)
+        f.setOutputOwner("1")
+        def thread = new Thread({
+            f.setOutputOwner("2")
+            f.onOutput("from 2")
+        })
+
+        when:
+        thread.start()
+        thread.join()
+        f.onOutput("from 1")
+        def other = new Thread({ f.onOutput("from other") })
+        other.start()
+        other.join()
+
+        then:
+        1 * processor.output("2", { it.message == "from 2" })
+        1 * processor.output("1", { it.message == "from 1" })
+        1 * processor.output("2", { it.message == "from other" })
+        0 * _
+    }
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.results
+
+import org.gradle.api.internal.tasks.testing.TestCompleteEvent
+import org.gradle.api.internal.tasks.testing.TestResultProcessor
+import spock.lang.Specification
+
+class FailFastTestResultProcessorTest extends Specification {
+    private final TestResultProcessor target = Mock()
+    private final Runnable action = Mock()
+    private final FailFastTestResultProcessor processor = new FailFastTestResultProcessor(target, 2, action)
+
+    def forwardsEventsAndRunsActionOnceMaxFailuresReached() {
+        def failure = new RuntimeException()
+
+        when:
+        processor.failure('test1', failure)
+        processor.failure('test1', failure)
+        processor.completed('test1', new TestCompleteEvent(100L))
+
+        then:
+        2 * target.failure('test1', failure)
+        1 * target.completed('test1', _)
+        0 * action.run()
+
+        when:
+        processor.failure('test2', failure)
+
+        then:
+        1 * target.failure('test2', failure)
+        1 * action.run()
+
+        when:
+        processor.failure('test3', failure)
+
+        then:
+        1 * target.failure('test3', failure)
+        0 * action.run()
+    }
+}
@@ -17,10 +17,16 @@
 package org.gradle.api.internal.tasks.testing.worker
 
 import org.gradle.api.Action
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory
 import org.gradle.internal.Factory
+import org.gradle.messaging.remote.ObjectConnection
 import org.gradle.process.JavaForkOptions
+import org.gradle.process.internal.ExecException
+import org.gradle.process.internal.JavaExecHandleBuilder
+import org.gradle.process.internal.WorkerProcess
+import org.gradle.process.internal.WorkerProcessBuilder
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -43,4 +49,91 @@ class ForkingTestClassProcessorTest extends Specification {
         1 * remoteProcessor.processTestClass(test2)
         0 * remoteProcessor._
     }
+
+    def "fails test classes received after worker process has exited"() {
+        def listener = Mock(TestClassProcessingListener)
+        def processor = Spy(ForkingTestClassProcessor, constructorArgs: [Mock(Factory), Mock(WorkerTestClassProcessorFactory), Mock(JavaForkOptions), [new File("classpath.jar")], Mock(Action), listener])
+        def test1 = Mock(TestClassRunInfo) { getTestClassName() >> "Test1" }
+        def test2 = Mock(TestClassRunInfo) { getTestClassName() >> "Test2" }
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+
+        when:
+        processor.processTestClass(test1)
+        processor.workerStopped()
+
+        then:
+        1 * processor.forkProcess() >> remoteProcessor
+        1 * remoteProcessor.processTestClass(test1)
+        1 * listener.testClassProcessed(test1)
+
+        when:
+        processor.processTestClass(test2)
+
+        then:
+        def e = thrown(ExecException)
+        e.message == "Could not run test class 'Test2' as the test worker process has already exited."
+        1 * listener.testClassProcessed(test2)
+        0 * remoteProcessor._
+    }
+
+    def "stopNow aborts the worker process and discards test classes received afterwards"() {
+        def listener = Mock(TestClassProcessingListener)
+        def workerProcess = Mock(WorkerProcess)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        def processor = forkingProcessor(workerProcess, remoteProcessor, listener)
+        def test1 = Mock(TestClassRunInfo) { getTestClassName() >> "Test1" }
+        def test2 = Mock(TestClassRunInfo) { getTestClassName() >> "Test2" }
+
+        when:
+        processor.processTestClass(test1)
+
+        then:
+        1 * workerProcess.start()
+        1 * remoteProcessor.processTestClass(test1)
+
+        when:
+        processor.stopNow()
+        processor.processTestClass(test2)
+        processor.stop()
+
+        then:
+        1 * workerProcess.abort()
+        1 * listener.testClassProcessed(test2)
+        1 * workerProcess.waitForStop()
+        0 * remoteProcessor._
+    }
+
+    def "does not connect to a worker process when stopped while the process was starting"() {
+        def listener = Mock(TestClassProcessingListener)
+        def workerProcess = Mock(WorkerProcess)
+        def remoteProcessor = Mock(RemoteTestClassProcessor)
+        def processor = forkingProcessor(workerProcess, remoteProcessor, listener)
+        def test1 = Mock(TestClassRunInfo) { getTestClassName() >> "Test1" }
+
+        when:
+        processor.processTestClass(test1)
+        processor.stop()
+
+        then:
+        1 * workerProcess.start() >> { processor.stopNow() }
+        (1.._) * workerProcess.abort()
+        1 * workerProcess.waitForStop()
+        0 * workerProcess.getConnection()
+        1 * listener.testClassProcessed(test1)
+        0 * remoteProcessor._
+    }
+
+    private ForkingTestClassProcessor forkingProcessor(WorkerProcess workerProcess, RemoteTestClassProcessor remoteProcessor, TestClassProcessingListener listener) {
+        def connection = Stub(ObjectConnection) {
+            addOutgoing(RemoteTestClassProcessor) >> remoteProcessor
+        }
+        workerProcess.getConnection() >> connection
+        def workerFactory = Stub(Factory) {
+            create() >> Stub(WorkerProcessBuilder) {
+                getJavaCommand() >> Stub(JavaExecHandleBuilder)
+                build() >> workerProcess
+            }
+        }
+        return new ForkingTestClassProcessor(workerFactory, Mock(WorkerTestClassProcessorFactory), Mock(JavaForkOptions), [new File("classpath.jar")], Mock(Action), listener)
+    }
 }
@@ -17,6 +17,7 @@
 
 package org.gradle.api.internal.tasks.testing.worker
 
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener
 import org.gradle.api.internal.tasks.testing.TestClassProcessor
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
@@ -35,6 +36,7 @@ public class TestWorkerTest extends ConcurrentSpec {
     def processor = Mock(TestClassProcessor)
     def test = Mock(TestClassRunInfo)
     def resultProcessor = Mock(TestResultProcessor)
+    def processingListener = Mock(TestClassProcessingListener)
     def worker = new TestWorker(factory)
 
     def setup() {
@@ -56,6 +58,7 @@ public class TestWorkerTest extends ConcurrentSpec {
         and:
         1 * factory.create(_) >> processor
         1 * connection.addOutgoing(TestResultProcessor) >> resultProcessor
+        1 * connection.addOutgoing(TestClassProcessingListener) >> processingListener
         1 * connection.addIncoming(RemoteTestClassProcessor, worker)
         1 * connection.useParameterSerializer(_)
         1 * connection.connect() >> {
@@ -69,6 +72,7 @@ public class TestWorkerTest extends ConcurrentSpec {
         }
         1 * processor.startProcessing(_)
         1 * processor.processTestClass(test)
+        1 * processingListener.testClassProcessed(test)
         1 * processor.stop()
     }
 }
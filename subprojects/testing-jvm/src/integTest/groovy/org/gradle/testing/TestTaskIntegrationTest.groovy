@@ -17,6 +17,7 @@
 package org.gradle.testing;
 
 import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+import org.gradle.integtests.fixtures.DefaultTestExecutionResult
 import spock.lang.Issue;
 
 public class TestTaskIntegrationTest extends AbstractIntegrationSpec {
@@ -50,4 +51,68 @@ public class TestTaskIntegrationTest extends AbstractIntegrationSpec {
         then:
         result.assertTaskSkipped(":test")
     }
+
+    def "test tasks that share a results directory keep each other's results"() {
+        buildFile << """
+            apply plugin: 'java'
+            repositories { mavenCentral() }
+            dependencies { testCompile 'junit:junit:4.12' }
+
+            test.exclude '**/IntegTest*'
+
+            task integTest(type: Test) {
+                testClassesDir = sourceSets.test.output.classesDir
+                classpath = sourceSets.test.runtimeClasspath
+                include '**/IntegTest*'
+                binResultsDir = file("\$buildDir/integ-test-results/binary")
+                reports.html.destination = file("\$buildDir/reports/integ-tests")
+                reports.junitXml.destination = test.reports.junitXml.destination
+            }
+        """
+        file("src/test/java/UnitTest.java") << "public class UnitTest { @org.junit.Test public void test() {} }"
+        file("src/test/java/IntegTest.java") << "public class IntegTest { @org.junit.Test public void test() {} }"
+
+        when:
+        run("test", "integTest")
+        file("src/test/java/IntegTest.java").text = "public class IntegTest { @org.junit.Test public void changed() {} }"
+        run("integTest")
+
+        then:
+        file("build/test-results/TEST-UnitTest.xml").file
+        file("build/test-results/TEST-IntegTest.xml").text.contains('name="changed"')
+    }
+
+    def "splits only the detected test classes into shards"() {
+        buildFile << """
+            apply plugin: 'java'
+            repositories { mavenCentral() }
+            dependencies { testCompile 'junit:junit:4.12' }
+
+            test {
+                shardCount = 2
+                shardIndex = project.property('shard') as int
+            }
+        """
+        file("src/test/java/ATest.java") << """
+            public class ATest {
+                static class One {}
+                static class Two {}
+                static class Three {}
+                @org.junit.Test public void test() {}
+            }
+        """
+        file("src/test/java/BTest.java") << "public class BTest { @org.junit.Test public void test() {} }"
+
+        when:
+        run("clean", "test", "-Pshard=0")
+
+        then:
+        new DefaultTestExecutionResult(testDirectory).assertTestClassesExecuted("ATest")
+
+        when:
+        run("clean", "test", "-Pshard=1")
+
+        then:
+        new DefaultTestExecutionResult(testDirectory).assertTestClassesExecuted("BTest")
+    }
 }
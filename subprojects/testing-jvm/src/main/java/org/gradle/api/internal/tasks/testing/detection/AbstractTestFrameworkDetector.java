@@ -16,12 +16,16 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import com.google.common.io.Files;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.GradleException;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.internal.Factory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashValue;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Type;
 
@@ -29,7 +33,9 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.gradle.internal.FileUtils.hasExtension;
 
@@ -42,6 +48,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     private final Map<File, Boolean> superClasses;
     private TestClassProcessor testClassProcessor;
     private final List<String> knownTestCaseClassNames;
+    private TestClassScanCache scanCache;
 
     private File testClassesDirectory;
     private FileCollection testClasspath;
@@ -49,7 +56,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
     protected AbstractTestFrameworkDetector(ClassFileExtractionManager classFileExtractionManager) {
         assert classFileExtractionManager != null;
         this.classFileExtractionManager = classFileExtractionManager;
-        this.superClasses = new HashMap<File, Boolean>();
+        this.superClasses = new ConcurrentHashMap<File, Boolean>();
         this.knownTestCaseClassNames = new ArrayList<String>();
         addKnownTestCaseClassNames(TEST_CASE, GROOVY_TEST_CASE);
     }
@@ -80,7 +87,7 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         }
     }
 
-    private void prepareClasspath() {
+    private synchronized void prepareClasspath() {
         if (testClassDirectories != null) {
             return;
         }
@@ -111,20 +118,63 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
         this.testClasspath = testClasspath;
     }
 
-    protected TestClassVisitor classVisitor(final File testClassFile) {
-        final TestClassVisitor classVisitor = createClassVisitor();
+    @Override
+    public void setScanCache(TestClassScanCache scanCache) {
+        this.scanCache = scanCache;
+    }
+
+    /**
+     * Scans the given class file, reusing the result of a previous scan of a class file with the same content when possible.
+     */
+    protected TestClassScan scanClass(final File testClassFile) {
+        if (scanCache == null) {
+            return new TestClassScan(classVisitor(testClassFile));
+        }
+        final byte[] content;
+        try {
+            content = Files.toByteArray(testClassFile);
+        } catch (Throwable e) {
+            throw new GradleException("failed to read class file " + testClassFile.getAbsolutePath(), e);
+        }
+        return scanCache.get(contentHash(content), new Factory<TestClassScan>() {
+            public TestClassScan create() {
+                return new TestClassScan(classVisitor(testClassFile, new ClassReader(content)));
+            }
+        });
+    }
+
+    private HashValue contentHash(byte[] content) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            messageDigest.update(getClass().getName().getBytes("UTF-8"));
+            messageDigest.update(content);
+            return new HashValue(messageDigest.digest());
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
 
+    protected TestClassVisitor classVisitor(final File testClassFile) {
         InputStream classStream = null;
         try {
             classStream = new BufferedInputStream(new FileInputStream(testClassFile));
-            final ClassReader classReader = new ClassReader(classStream);
-            classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+            return classVisitor(testClassFile, new ClassReader(classStream));
+        } catch (GradleException e) {
+            throw e;
         } catch (Throwable e) {
             throw new GradleException("failed to read class file " + testClassFile.getAbsolutePath(), e);
         } finally {
             IOUtils.closeQuietly(classStream);
         }
+    }
 
+    private TestClassVisitor classVisitor(File testClassFile, ClassReader classReader) {
+        final TestClassVisitor classVisitor = createClassVisitor();
+        try {
+            classReader.accept(classVisitor, ClassReader.SKIP_DEBUG | ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+        } catch (Throwable e) {
+            throw new GradleException("failed to read class file " + testClassFile.getAbsolutePath(), e);
+        }
         return classVisitor;
     }
 
@@ -156,9 +206,16 @@ public abstract class AbstractTestFrameworkDetector<T extends TestClassVisitor>
      * times (for each extending class).
      */
     protected void publishTestClass(boolean isTest, TestClassVisitor classVisitor, boolean superClass) {
-        if (isTest && !classVisitor.isAbstract() && !superClass) {
-            String className = Type.getObjectType(classVisitor.getClassName()).getClassName();
-            testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+        publishTestClass(isTest, new TestClassScan(classVisitor), superClass);
+    }
+
+    protected void publishTestClass(boolean isTest, TestClassScan classScan, boolean superClass) {
+        if (isTest && !classScan.isAbstract() && !superClass) {
+            String className = Type.getObjectType(classScan.getClassName()).getClassName();
+            // Class files may be scanned concurrently
+            synchronized (this) {
+                testClassProcessor.processTestClass(new DefaultTestClassRunInfo(className));
+            }
         }
     }
 
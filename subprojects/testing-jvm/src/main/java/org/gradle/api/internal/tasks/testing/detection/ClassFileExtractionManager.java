@@ -15,6 +15,8 @@
  */
 package org.gradle.api.internal.tasks.testing.detection;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang.text.StrBuilder;
 import org.gradle.api.GradleException;
 import org.gradle.api.internal.file.DefaultTemporaryFileProvider;
@@ -29,10 +31,14 @@ import java.io.IOException;
 import java.util.*;
 
 /**
- * This class manages class file extraction from library jar files.
+ * This class manages class file extraction from library jar files. <p/> Recently extracted class files are shared by all instances in the process,
+ * so that a class extracted from a jar for one test task is reused by later test tasks while the jar is unchanged. At most
+ * {@value #MAX_SHARED_EXTRACTED_CLASSES} extracted class files are shared.
  */
 public class ClassFileExtractionManager {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClassFileExtractionManager.class);
+    static final int MAX_SHARED_EXTRACTED_CLASSES = 10000;
+    private static final Cache<String, File> SHARED_EXTRACTED_CLASSES = CacheBuilder.newBuilder().maximumSize(MAX_SHARED_EXTRACTED_CLASSES).build();
     private final Map<String, Set<File>> packageJarFilesMappings;
     private final Map<String, File> extractedJarClasses;
     private final Set<String> unextractableClasses;
@@ -51,7 +57,7 @@ public class ClassFileExtractionManager {
      *
      * @param libraryJar Jar file to add to the index.
      */
-    public void addLibraryJar(final File libraryJar) {
+    public synchronized void addLibraryJar(final File libraryJar) {
         new JarFilePackageLister().listJarPackages(libraryJar, new JarFilePackageListener() {
             public void receivePackage(String packageName) {
                 Set<File> jarFiles = packageJarFilesMappings.get(packageName);
@@ -73,7 +79,7 @@ public class ClassFileExtractionManager {
      * @param className Name of the class to extract.
      * @return File that contains the extracted class file.
      */
-    public File getLibraryClassFile(final String className) {
+    public synchronized File getLibraryClassFile(final String className) {
         if (unextractableClasses.contains(className)) {
             return null;
         } else {
@@ -90,7 +96,7 @@ public class ClassFileExtractionManager {
     private boolean extractClassFile(final String className) {
         boolean classFileExtracted = false;
 
-        final File extractedClassFile = tempFile();
+        File extractedClassFile = null;
         final String classFileName = new StrBuilder().append(className).append(".class").toString();
         final String classNamePackage = classNamePackage(className);
         final Set<File> packageJarFiles = packageJarFilesMappings.get(classNamePackage);
@@ -102,12 +108,23 @@ public class ClassFileExtractionManager {
 
             while (!classFileExtracted && packageJarFilesIt.hasNext()) {
                 final File jarFile = packageJarFilesIt.next();
+                final String sharedKey = jarFile.getAbsolutePath() + ":" + jarFile.length() + ":" + jarFile.lastModified() + "!" + classFileName;
+
+                File sharedClassFile = SHARED_EXTRACTED_CLASSES.getIfPresent(sharedKey);
+                if (sharedClassFile != null && sharedClassFile.isFile()) {
+                    extractedJarClasses.put(className, sharedClassFile);
+                    return true;
+                }
 
                 try {
+                    if (extractedClassFile == null) {
+                        extractedClassFile = tempFile();
+                    }
                     classFileExtracted = JarUtil.extractZipEntry(jarFile, classFileName, extractedClassFile);
 
                     if (classFileExtracted) {
                         classFileSourceJar = jarFile;
+                        SHARED_EXTRACTED_CLASSES.put(sharedKey, extractedClassFile);
                     }
                 } catch (IOException e) {
                     throw new GradleException("failed to extract class file from jar (" + jarFile + ")", e);
@@ -22,23 +22,39 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.internal.tasks.testing.TestResultProcessor;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The default test class scanner. Depending on the availability of a test framework detector,
- * a detection or filename scan is performed to find test classes.
+ * a detection or filename scan is performed to find test classes. When an executor factory is
+ * available, the detection scan processes the class files concurrently, and publishes the detected
+ * test classes in the order the class files were visited.
  */
 public class DefaultTestClassScanner implements Runnable {
     private final FileTree candidateClassFiles;
     private final TestFrameworkDetector testFrameworkDetector;
     private final TestClassProcessor testClassProcessor;
+    private final ExecutorFactory executorFactory;
 
     public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
                                    TestClassProcessor testClassProcessor) {
+        this(candidateClassFiles, testFrameworkDetector, testClassProcessor, null);
+    }
+
+    public DefaultTestClassScanner(FileTree candidateClassFiles, TestFrameworkDetector testFrameworkDetector,
+                                   TestClassProcessor testClassProcessor, ExecutorFactory executorFactory) {
         this.candidateClassFiles = candidateClassFiles;
         this.testFrameworkDetector = testFrameworkDetector;
         this.testClassProcessor = testClassProcessor;
+        this.executorFactory = executorFactory;
     }
 
     @Override
@@ -51,12 +67,37 @@ public class DefaultTestClassScanner implements Runnable {
     }
 
     private void detectionScan() {
-        testFrameworkDetector.startDetection(testClassProcessor);
-        candidateClassFiles.visit(new ClassFileVisitor() {
-            public void visitClassFile(FileVisitDetails fileDetails) {
-                testFrameworkDetector.processTestClass(fileDetails.getFile());
-            }
-        });
+        if (executorFactory == null) {
+            testFrameworkDetector.startDetection(testClassProcessor);
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    testFrameworkDetector.processTestClass(fileDetails.getFile());
+                }
+            });
+            return;
+        }
+
+        final OrderedPublisher publisher = new OrderedPublisher();
+        testFrameworkDetector.startDetection(publisher);
+        final StoppableExecutor executor = executorFactory.create("Test class scanner", Runtime.getRuntime().availableProcessors());
+        try {
+            candidateClassFiles.visit(new ClassFileVisitor() {
+                private int index;
+
+                public void visitClassFile(FileVisitDetails fileDetails) {
+                    final File file = fileDetails.getFile();
+                    final int fileIndex = index++;
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            publisher.scan(fileIndex, file);
+                        }
+                    });
+                }
+            });
+        } finally {
+            // Waits for the scans to complete, and rethrows the first failure
+            executor.stop();
+        }
     }
 
     private void filenameScan() {
@@ -69,6 +110,50 @@ public class DefaultTestClassScanner implements Runnable {
         });
     }
 
+    /**
+     * Collects the test classes detected in each class file by the concurrent scans, and forwards them once the class files visited before
+     * have been scanned, so that the order does not depend on scheduling.
+     */
+    private class OrderedPublisher implements TestClassProcessor {
+        private final ThreadLocal<List<TestClassRunInfo>> detected = new ThreadLocal<List<TestClassRunInfo>>();
+        private final Map<Integer, List<TestClassRunInfo>> scanned = new HashMap<Integer, List<TestClassRunInfo>>();
+        private int nextToPublish;
+
+        void scan(int fileIndex, File file) {
+            List<TestClassRunInfo> testClasses = new ArrayList<TestClassRunInfo>();
+            detected.set(testClasses);
+            try {
+                testFrameworkDetector.processTestClass(file);
+            } finally {
+                detected.remove();
+                scanned(fileIndex, testClasses);
+            }
+        }
+
+        private synchronized void scanned(int fileIndex, List<TestClassRunInfo> testClasses) {
+            scanned.put(fileIndex, testClasses);
+            while (scanned.containsKey(nextToPublish)) {
+                for (TestClassRunInfo testClass : scanned.remove(nextToPublish)) {
+                    testClassProcessor.processTestClass(testClass);
+                }
+                nextToPublish++;
+            }
+        }
+
+        @Override
+        public void startProcessing(TestResultProcessor resultProcessor) {
+        }
+
+        @Override
+        public void processTestClass(TestClassRunInfo testClass) {
+            detected.get().add(testClass);
+        }
+
+        @Override
+        public void stop() {
+        }
+    }
+
     private abstract class ClassFileVisitor extends EmptyFileVisitor {
         @Override
         public void visitFile(FileVisitDetails fileDetails) {
@@ -16,42 +16,100 @@
 
 package org.gradle.api.internal.tasks.testing.detection;
 
+import org.gradle.api.Action;
+import org.gradle.api.Nullable;
 import org.gradle.api.file.FileTree;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.internal.tasks.testing.TestClassProcessingListener;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestFramework;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.WorkerTestClassProcessorFactory;
 import org.gradle.api.internal.tasks.testing.processors.MaxNParallelTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.RestartEveryNTestClassProcessor;
 import org.gradle.api.internal.tasks.testing.processors.TestMainAction;
+import org.gradle.api.internal.tasks.testing.results.FailFastTestResultProcessor;
 import org.gradle.api.internal.tasks.testing.worker.ForkingTestClassProcessor;
+import org.gradle.api.specs.Spec;
 import org.gradle.api.tasks.testing.Test;
 import org.gradle.internal.Factory;
 import org.gradle.internal.TrueTimeProvider;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.progress.OperationIdGenerator;
 import org.gradle.messaging.actor.ActorFactory;
 import org.gradle.process.internal.WorkerProcessBuilder;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * The default test class scanner factory.
  */
 public class DefaultTestExecuter implements TestExecuter {
+    /**
+     * When set to {@code true}, test workers are executed in pooled worker processes that are reused by later test tasks, rather than in new processes. Test classes are
+     * then loaded by a ClassLoader created for each test task rather than the system ClassLoader. Ignored when a test task restarts its workers using {@code forkEvery}.
+     */
+    public static final String REUSE_WORKERS_PROPERTY = "org.gradle.test.worker.reuse";
+    private static final Logger LOGGER = Logging.getLogger(DefaultTestExecuter.class);
     private final Factory<WorkerProcessBuilder> workerFactory;
     private final ActorFactory actorFactory;
+    private final Map<String, Long> previousClassDurations;
+    private final TestClassScanCache scanCache;
+    private final ExecutorFactory executorFactory;
+    private final Spec<? super TestClassRunInfo> classSelection;
 
     public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactory) {
+        this(workerFactory, actorFactory, null);
+    }
+
+    /**
+     * @param previousClassDurations The durations of the test classes in the previous run, by class name, or null when not known. Used to hand the slowest test classes
+     * to the workers first, when there is more than one worker.
+     */
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactory, @Nullable Map<String, Long> previousClassDurations) {
+        this(workerFactory, actorFactory, previousClassDurations, null, null, null);
+    }
+
+    /**
+     * @param scanCache The cache of class file scan results to use when detecting test classes, or null to scan every class file.
+     * @param executorFactory The executor factory to use to scan the class files concurrently when detecting test classes, or null to scan them serially.
+     * @param classSelection Selects which of the detected test classes to execute, or null to execute all of them.
+     */
+    public DefaultTestExecuter(Factory<WorkerProcessBuilder> workerFactory, ActorFactory actorFactory, @Nullable Map<String, Long> previousClassDurations,
+                               @Nullable TestClassScanCache scanCache, @Nullable ExecutorFactory executorFactory, @Nullable Spec<? super TestClassRunInfo> classSelection) {
         this.workerFactory = workerFactory;
         this.actorFactory = actorFactory;
+        this.previousClassDurations = previousClassDurations;
+        this.scanCache = scanCache;
+        this.executorFactory = executorFactory;
+        this.classSelection = classSelection;
     }
 
     @Override
     public void execute(final Test testTask, TestResultProcessor testResultProcessor) {
         final TestFramework testFramework = testTask.getTestFramework();
         final WorkerTestClassProcessorFactory testInstanceFactory = testFramework.getProcessorFactory();
+        final ListenerBroadcast<TestClassProcessingListener> processingListener = new ListenerBroadcast<TestClassProcessingListener>(TestClassProcessingListener.class);
+        final Action<WorkerProcessBuilder> workerConfigurationAction = workerConfigurationAction(testTask, testFramework);
+        final List<ForkingTestClassProcessor> forkingProcessors = new ArrayList<ForkingTestClassProcessor>();
+        final AtomicBoolean stoppedNow = new AtomicBoolean();
         final Factory<TestClassProcessor> forkingProcessorFactory = new Factory<TestClassProcessor>() {
             public TestClassProcessor create() {
-                return new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
-                    testTask.getClasspath(), testFramework.getWorkerConfigurationAction());
+                ForkingTestClassProcessor forkingProcessor = new ForkingTestClassProcessor(workerFactory, testInstanceFactory, testTask,
+                    testTask.getClasspath(), workerConfigurationAction, processingListener.getSource());
+                synchronized (forkingProcessors) {
+                    forkingProcessors.add(forkingProcessor);
+                }
+                if (stoppedNow.get()) {
+                    forkingProcessor.stopNow();
+                }
+                return forkingProcessor;
             }
         };
         Factory<TestClassProcessor> reforkingProcessorFactory = new Factory<TestClassProcessor>() {
@@ -60,23 +118,74 @@ public class DefaultTestExecuter implements TestExecuter {
             }
         };
 
-        TestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
-            reforkingProcessorFactory, actorFactory);
+        final MaxNParallelTestClassProcessor processor = new MaxNParallelTestClassProcessor(testTask.getMaxParallelForks(),
+            reforkingProcessorFactory, actorFactory, getSchedulingDurations(testTask.getMaxParallelForks(), previousClassDurations));
+        processingListener.add(processor);
+
+        if (testTask.getMaxFailures() > 0) {
+            testResultProcessor = new FailFastTestResultProcessor(testResultProcessor, testTask.getMaxFailures(), new Runnable() {
+                public void run() {
+                    LOGGER.lifecycle("Stopping {} after {} test failures.", testTask.getPath(), testTask.getMaxFailures());
+                    stoppedNow.set(true);
+                    processor.stopNow();
+                    synchronized (forkingProcessors) {
+                        for (ForkingTestClassProcessor forkingProcessor : forkingProcessors) {
+                            forkingProcessor.stopNow();
+                        }
+                    }
+                }
+            });
+        }
+
+        TestClassProcessor detectedClassProcessor = classSelection == null ? processor : new SelectingTestClassProcessor(processor, classSelection);
+        Runnable detector = createTestClassScanner(testTask, detectedClassProcessor, scanCache, executorFactory);
+
+        final Object testTaskOperationId = OperationIdGenerator.generateId(testTask);
 
-        final FileTree testClassFiles = testTask.getCandidateClassFiles();
+        new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider(), testTaskOperationId, testTask.getPath(), String.format("Gradle Test Run %s", testTask.getPath())).run();
+    }
 
-        Runnable detector;
+    /**
+     * Creates a scanner that detects the test classes of the given test task, and passes them to the given processor.
+     *
+     * @param scanCache The cache of class file scan results to use, or null to scan every class file.
+     * @param executorFactory The executor factory to use to scan the class files concurrently, or null to scan them serially.
+     */
+    public static Runnable createTestClassScanner(Test testTask, TestClassProcessor testClassProcessor, @Nullable TestClassScanCache scanCache,
+                                                  @Nullable ExecutorFactory executorFactory) {
+        FileTree testClassFiles = testTask.getCandidateClassFiles();
         if (testTask.isScanForTestClasses()) {
             TestFrameworkDetector testFrameworkDetector = testTask.getTestFramework().getDetector();
             testFrameworkDetector.setTestClassesDirectory(testTask.getTestClassesDir());
             testFrameworkDetector.setTestClasspath(testTask.getClasspath());
-            detector = new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, processor);
-        } else {
-            detector = new DefaultTestClassScanner(testClassFiles, null, processor);
+            testFrameworkDetector.setScanCache(scanCache);
+            return new DefaultTestClassScanner(testClassFiles, testFrameworkDetector, testClassProcessor, executorFactory);
         }
+        return new DefaultTestClassScanner(testClassFiles, null, testClassProcessor);
+    }
 
-        final Object testTaskOperationId = OperationIdGenerator.generateId(testTask);
+    private static Action<WorkerProcessBuilder> workerConfigurationAction(Test testTask, TestFramework testFramework) {
+        final Action<WorkerProcessBuilder> frameworkAction = testFramework.getWorkerConfigurationAction();
+        if (testTask.getForkEvery() != 0 || !"true".equals(System.getProperty(REUSE_WORKERS_PROPERTY))) {
+            return frameworkAction;
+        }
+        return new Action<WorkerProcessBuilder>() {
+            public void execute(WorkerProcessBuilder builder) {
+                frameworkAction.execute(builder);
+                builder.setReusable(true);
+            }
+        };
+    }
 
-        new TestMainAction(detector, processor, testResultProcessor, new TrueTimeProvider(), testTaskOperationId, testTask.getPath(), String.format("Gradle Test Run %s", testTask.getPath())).run();
+    /**
+     * Returns the durations to schedule the test classes by, or null to hand the test classes to the workers round-robin as they are detected.
+     * Scheduling by duration only helps when there are several workers and the durations are known, and otherwise only delays each test class.
+     */
+    @Nullable
+    static Map<String, Long> getSchedulingDurations(int maxParallelForks, @Nullable Map<String, Long> previousClassDurations) {
+        if (maxParallelForks <= 1 || previousClassDurations == null || previousClassDurations.isEmpty()) {
+            return null;
+        }
+        return previousClassDurations;
     }
 }
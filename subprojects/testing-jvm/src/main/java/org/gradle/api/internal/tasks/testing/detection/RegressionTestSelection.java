@@ -0,0 +1,284 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.internal.cache.SingleOperationPersistentStore;
+import org.gradle.api.UncheckedIOException;
+import org.gradle.api.internal.changedetection.state.FileSnapshotter;
+import org.gradle.api.internal.changedetection.state.FilesSnapshotSet;
+import org.gradle.api.internal.file.FileOperations;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.CachingClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.DefaultClassDependenciesAnalyzer;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
+import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
+import org.gradle.api.internal.tasks.compile.incremental.jar.CachingJarSnapshotter;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarArchive;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshot;
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshotter;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.specs.Spec;
+import org.gradle.cache.CacheRepository;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashValueSerializer;
+import org.gradle.internal.serialize.MapSerializer;
+import org.gradle.internal.serialize.Serializer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.gradle.internal.FileUtils.hasExtension;
+import static org.gradle.internal.serialize.BaseSerializerFactory.STRING_SERIALIZER;
+
+/**
+ * Selects the test classes to execute, based on the classes that have changed on the test runtime classpath since the previous execution of
+ * a test task. A test class is selected when it passed in the previous execution and neither it nor any class it transitively depends on has
+ * changed since. The dependencies between classes are determined by the class analysis used by incremental Java compilation.
+ *
+ * <p>All test classes are selected when there is no previous execution, when the given inputs of the test task have changed, when a
+ * changed class is a dependency to all other classes (for example because it declares a constant), or when a resource on the classpath has
+ * changed.</p>
+ *
+ * <p>The hashes of the class files and resources in classpath directories are taken from the given file snapshotter, which reuses the hash
+ * of a file whose length and modification time have not changed.</p>
+ *
+ * <p>This is opt-in, and is enabled by setting the {@value #ENABLED_PROPERTY} system property to {@code true} in the build process.</p>
+ */
+public class RegressionTestSelection implements Spec<TestClassRunInfo> {
+    public static final String ENABLED_PROPERTY = "org.gradle.test.regressionselection";
+    private static final Logger LOGGER = Logging.getLogger(RegressionTestSelection.class);
+
+    private final SingleOperationPersistentStore<ClasspathState> store;
+    private final FileOperations fileOperations;
+    private final FileSnapshotter fileSnapshotter;
+    private final ClassDependenciesAnalyzer analyzer;
+    private final JarSnapshotter jarSnapshotter;
+    private final Set<String> passedClasses;
+    private final Set<String> skippedClasses = new LinkedHashSet<String>();
+    private ClasspathState state;
+    private Set<String> affectedClasses;
+
+    /**
+     * @param scope The test task.
+     * @param passedClasses The test classes that passed in the previous execution.
+     */
+    public RegressionTestSelection(CacheRepository cacheRepository, Object scope, GeneralCompileCaches compileCaches, FileOperations fileOperations,
+                                   FileSnapshotter fileSnapshotter, Collection<String> passedClasses) {
+        this.store = new SingleOperationPersistentStore<ClasspathState>(cacheRepository, scope, "regression test selection", new ClasspathStateSerializer());
+        this.fileOperations = fileOperations;
+        this.fileSnapshotter = fileSnapshotter;
+        this.analyzer = new CachingClassDependenciesAnalyzer(new DefaultClassDependenciesAnalyzer(), fileSnapshotter, compileCaches.getClassAnalysisCache());
+        this.jarSnapshotter = new CachingJarSnapshotter(fileSnapshotter, analyzer, compileCaches.getJarSnapshotCache(), FilesSnapshotSet.EMPTY);
+        this.passedClasses = new HashSet<String>(passedClasses);
+    }
+
+    public static boolean isEnabled() {
+        return "true".equals(System.getProperty(ENABLED_PROPERTY));
+    }
+
+    /**
+     * Snapshots the given classpath, and determines the classes affected by the changes since the snapshot of the previous execution.
+     *
+     * @param inputsKey A key for the other inputs of the test task, such as its JVM arguments and filters. All test classes are selected when these change.
+     */
+    public void snapshot(Iterable<File> classpath, String inputsKey) {
+        final Map<String, HashValue> classHashes = new HashMap<String, HashValue>();
+        final Map<String, HashValue> resourceHashes = new HashMap<String, HashValue>();
+        final ClassFilesAnalyzer directoryAnalyzer = new ClassFilesAnalyzer(analyzer);
+        List<ClassSetAnalysisData> analyses = new ArrayList<ClassSetAnalysisData>();
+
+        for (final File file : classpath) {
+            if (file.isDirectory()) {
+                fileOperations.fileTree(file).visit(new FileVisitor() {
+                    public void visitDir(FileVisitDetails dirDetails) {
+                    }
+
+                    public void visitFile(FileVisitDetails fileDetails) {
+                        HashValue hash = fileSnapshotter.snapshot(fileDetails).getHash();
+                        if (hasExtension(fileDetails.getFile(), ".class")) {
+                            String className = fileDetails.getPath().replaceAll("/", ".").replaceAll("\\.class$", "");
+                            if (!classHashes.containsKey(className)) {
+                                classHashes.put(className, hash);
+                                directoryAnalyzer.visitFile(fileDetails);
+                            }
+                        } else {
+                            resourceHashes.put(file.getAbsolutePath() + "!" + fileDetails.getPath(), hash);
+                        }
+                    }
+                });
+            } else if (file.isFile() && hasExtension(file, ".jar")) {
+                JarSnapshot snapshot = jarSnapshotter.createSnapshot(new JarArchive(file, fileOperations.zipTree(file)));
+                for (Map.Entry<String, HashValue> entry : snapshot.getHashes().entrySet()) {
+                    if (!classHashes.containsKey(entry.getKey())) {
+                        classHashes.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                resourceHashes.put(file.getAbsolutePath(), jarResourcesHash(file));
+                analyses.add(snapshot.getAnalysis().getData());
+            }
+        }
+        analyses.add(0, directoryAnalyzer.getAnalysis());
+
+        state = new ClasspathState(inputsKey, classHashes, resourceHashes);
+        ClasspathState previous = store.getAndClose();
+        affectedClasses = affectedClasses(previous, new ClassSetAnalysis(ClassSetAnalysisData.merge(analyses)));
+    }
+
+    /**
+     * Hashes the names and checksums of the resources in the given jar, as recorded in its central directory.
+     */
+    private static HashValue jarResourcesHash(File jar) {
+        SortedMap<String, Long> resources = new TreeMap<String, Long>();
+        try {
+            ZipFile zipFile = new ZipFile(jar);
+            try {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (!entry.isDirectory() && !entry.getName().endsWith(".class")) {
+                        resources.put(entry.getName(), entry.getCrc());
+                    }
+                }
+            } finally {
+                zipFile.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not read the resources of %s.", jar), e);
+        }
+        return HashUtil.createHash(resources.toString(), "MD5");
+    }
+
+    private Set<String> affectedClasses(ClasspathState previous, ClassSetAnalysis analysis) {
+        if (previous == null) {
+            LOGGER.info("Executing all test classes, as there is no previous execution.");
+            return null;
+        }
+        if (!previous.inputsKey.equals(state.inputsKey)) {
+            LOGGER.info("Executing all test classes, as the inputs of the test task have changed.");
+            return null;
+        }
+
+        Set<String> changedClasses = changed(previous.classHashes, state.classHashes);
+        Set<String> changedResources = changed(previous.resourceHashes, state.resourceHashes);
+        if (!changedResources.isEmpty()) {
+            LOGGER.info("Executing all test classes, as resource {} has changed.", changedResources.iterator().next());
+            return null;
+        }
+
+        DependentsSet dependents = analysis.getRelevantDependents(changedClasses);
+        if (dependents.isDependencyToAll()) {
+            LOGGER.info("Executing all test classes, as a changed class is a dependency to all other classes.");
+            return null;
+        }
+
+        Set<String> affected = new HashSet<String>(changedClasses);
+        affected.addAll(dependents.getDependentClasses());
+        for (String className : changedClasses) {
+            int nestedIndex = className.indexOf('$');
+            if (nestedIndex > 0) {
+                affected.add(className.substring(0, nestedIndex));
+            }
+        }
+        LOGGER.info("{} classes have changed since the previous execution, affecting {} classes.", changedClasses.size(), affected.size());
+        return affected;
+    }
+
+    private static Set<String> changed(Map<String, HashValue> previous, Map<String, HashValue> current) {
+        Set<String> changed = new HashSet<String>();
+        for (Map.Entry<String, HashValue> entry : current.entrySet()) {
+            if (!entry.getValue().equals(previous.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String key : previous.keySet()) {
+            if (!current.containsKey(key)) {
+                changed.add(key);
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public synchronized boolean isSatisfiedBy(TestClassRunInfo testClass) {
+        String className = testClass.getTestClassName();
+        if (affectedClasses == null || !passedClasses.contains(className) || affectedClasses.contains(className)) {
+            return true;
+        }
+        skippedClasses.add(className);
+        return false;
+    }
+
+    /**
+     * Returns the test classes that were not selected, and whose results of the previous execution still apply.
+     */
+    public synchronized Set<String> getSkippedClasses() {
+        return new LinkedHashSet<String>(skippedClasses);
+    }
+
+    /**
+     * Stores the snapshot of the classpath, to compare against in the next execution. Should be called only once the selected test classes
+     * have been executed.
+     */
+    public void storeSnapshot() {
+        store.putAndClose(state);
+    }
+
+    private static class ClasspathState {
+        private final String inputsKey;
+        private final Map<String, HashValue> classHashes;
+        private final Map<String, HashValue> resourceHashes;
+
+        ClasspathState(String inputsKey, Map<String, HashValue> classHashes, Map<String, HashValue> resourceHashes) {
+            this.inputsKey = inputsKey;
+            this.classHashes = classHashes;
+            this.resourceHashes = resourceHashes;
+        }
+    }
+
+    private static class ClasspathStateSerializer implements Serializer<ClasspathState> {
+        private final MapSerializer<String, HashValue> hashesSerializer = new MapSerializer<String, HashValue>(STRING_SERIALIZER, new HashValueSerializer());
+
+        @Override
+        public ClasspathState read(Decoder decoder) throws Exception {
+            String inputsKey = decoder.readString();
+            Map<String, HashValue> classHashes = hashesSerializer.read(decoder);
+            Map<String, HashValue> resourceHashes = hashesSerializer.read(decoder);
+            return new ClasspathState(inputsKey, classHashes, resourceHashes);
+        }
+
+        @Override
+        public void write(Encoder encoder, ClasspathState value) throws Exception {
+            encoder.writeString(value.inputsKey);
+            hashesSerializer.write(encoder, value.classHashes);
+            hashesSerializer.write(encoder, value.resourceHashes);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+/**
+ * The result of scanning a single class file for a test framework.
+ */
+public class TestClassScan {
+    private final String className;
+    private final String superClassName;
+    private final boolean test;
+    private final boolean isAbstract;
+
+    public TestClassScan(String className, String superClassName, boolean test, boolean isAbstract) {
+        this.className = className;
+        this.superClassName = superClassName;
+        this.test = test;
+        this.isAbstract = isAbstract;
+    }
+
+    public TestClassScan(TestClassVisitor classVisitor) {
+        this(classVisitor.getClassName(), classVisitor.getSuperClassName(), classVisitor.isTest(), classVisitor.isAbstract());
+    }
+
+    /**
+     * The internal name of the class.
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * The internal name of the super class, or null for {@code java.lang.Object}.
+     */
+    public String getSuperClassName() {
+        return superClassName;
+    }
+
+    public boolean isTest() {
+        return test;
+    }
+
+    public boolean isAbstract() {
+        return isAbstract;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection;
+
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
+import org.gradle.api.specs.Spec;
+
+import java.util.*;
+
+/**
+ * Selects the test classes that belong to one shard of a test task that is split across several executions, for example on different
+ * machines. Each candidate class is assigned to the shard with the smallest total duration so far, taking the classes with the longest
+ * historical duration first. Classes with no known duration are assumed to take the average duration of the known classes.
+ *
+ * <p>The assignment depends only on the candidate classes and the given durations, so all shards calculate the same partition as long as they
+ * are given the same durations.</p>
+ */
+public class TestClassShard implements Spec<TestClassRunInfo> {
+    private final Set<String> classNames;
+
+    public TestClassShard(Collection<String> candidateClassNames, Map<String, Long> durations, int shardIndex, int shardCount) {
+        if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException(String.format("Shard index %s is not in the range 0 to %s.", shardIndex, shardCount - 1));
+        }
+        this.classNames = partition(candidateClassNames, durations, shardCount).get(shardIndex);
+    }
+
+    public boolean isSatisfiedBy(TestClassRunInfo testClass) {
+        return classNames.contains(testClass.getTestClassName());
+    }
+
+    Set<String> getClassNames() {
+        return classNames;
+    }
+
+    private static List<Set<String>> partition(Collection<String> candidateClassNames, Map<String, Long> durations, int shardCount) {
+        long knownTotal = 0;
+        int known = 0;
+        for (String className : candidateClassNames) {
+            Long duration = durations.get(className);
+            if (duration != null) {
+                knownTotal += duration;
+                known++;
+            }
+        }
+        long defaultDuration = known == 0 ? 1 : Math.max(1, knownTotal / known);
+
+        List<WeightedClass> classes = new ArrayList<WeightedClass>(candidateClassNames.size());
+        for (String className : new TreeSet<String>(candidateClassNames)) {
+            Long duration = durations.get(className);
+            classes.add(new WeightedClass(className, duration == null ? defaultDuration : duration));
+        }
+        Collections.sort(classes);
+
+        List<Set<String>> shards = new ArrayList<Set<String>>(shardCount);
+        long[] totals = new long[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new HashSet<String>());
+        }
+        for (WeightedClass weightedClass : classes) {
+            int smallest = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (totals[i] < totals[smallest]) {
+                    smallest = i;
+                }
+            }
+            shards.get(smallest).add(weightedClass.className);
+            totals[smallest] += weightedClass.duration;
+        }
+        return shards;
+    }
+
+    private static class WeightedClass implements Comparable<WeightedClass> {
+        final String className;
+        final long duration;
+
+        WeightedClass(String className, long duration) {
+            this.className = className;
+            this.duration = duration;
+        }
+
+        public int compareTo(WeightedClass other) {
+            if (duration != other.duration) {
+                return duration > other.duration ? -1 : 1;
+            }
+            return className.compareTo(other.className);
+        }
+    }
+}
@@ -28,4 +28,9 @@ public interface TestFrameworkDetector {
     void setTestClassesDirectory(File testClassesDir);
 
     void setTestClasspath(FileCollection classpath);
+
+    /**
+     * Sets the cache to use for the results of scanning class files, or null to scan every class file.
+     */
+    void setScanCache(TestClassScanCache scanCache);
 }
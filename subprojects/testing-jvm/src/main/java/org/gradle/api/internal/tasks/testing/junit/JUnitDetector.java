@@ -17,7 +17,7 @@ package org.gradle.api.internal.tasks.testing.junit;
 
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
-import org.gradle.api.internal.tasks.testing.detection.TestClassVisitor;
+import org.gradle.api.internal.tasks.testing.detection.TestClassScan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,12 +37,12 @@ public class JUnitDetector extends AbstractTestFrameworkDetector<JUnitTestClassD
 
     @Override
     protected boolean processTestClass(final File testClassFile, boolean superClass) {
-        final TestClassVisitor classVisitor = classVisitor(testClassFile);
+        final TestClassScan classScan = scanClass(testClassFile);
 
-        boolean isTest = classVisitor.isTest();
+        boolean isTest = classScan.isTest();
 
         if (!isTest) { // scan parent class
-            final String superClassName = classVisitor.getSuperClassName();
+            final String superClassName = classScan.getSuperClassName();
 
             if (isKnownTestCaseClassName(superClassName)) {
                 isTest = true;
@@ -58,7 +58,7 @@ public class JUnitDetector extends AbstractTestFrameworkDetector<JUnitTestClassD
             }
         }
 
-        publishTestClass(isTest, classVisitor, superClass);
+        publishTestClass(isTest, classScan, superClass);
 
         return isTest;
     }
@@ -16,38 +16,58 @@
 
 package org.gradle.api.internal.tasks.testing.junit;
 
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.tasks.testing.TestClassProcessor;
 import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.results.AttachParentTestResultProcessor;
 import org.gradle.internal.TimeProvider;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.id.IdGenerator;
 import org.gradle.messaging.actor.Actor;
 import org.gradle.messaging.actor.ActorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Semaphore;
+
 public class JUnitTestClassProcessor implements TestClassProcessor {
     private static final Logger LOGGER = LoggerFactory.getLogger(JUnitTestClassProcessor.class);
     private final IdGenerator<?> idGenerator;
     private final ActorFactory actorFactory;
     private final TimeProvider timeProvider;
     private final JUnitSpec spec;
+    private final ExecutorFactory executorFactory;
     private JUnitTestClassExecuter executer;
     private Actor resultProcessorActor;
+    private StoppableExecutor classExecutor;
+    private Semaphore classSlots;
 
     public JUnitTestClassProcessor(JUnitSpec spec, IdGenerator<?> idGenerator, ActorFactory actorFactory, TimeProvider timeProvider) {
+        this(spec, idGenerator, actorFactory, timeProvider, null);
+    }
+
+    /**
+     * @param executorFactory The executor factory to use to execute test classes concurrently, when the spec allows more than one test class to
+     * execute at a time. When null, test classes are executed one at a time.
+     */
+    public JUnitTestClassProcessor(JUnitSpec spec, IdGenerator<?> idGenerator, ActorFactory actorFactory, TimeProvider timeProvider, @Nullable ExecutorFactory executorFactory) {
         this.idGenerator = idGenerator;
         this.spec = spec;
         this.actorFactory = actorFactory;
         this.timeProvider = timeProvider;
+        this.executorFactory = executorFactory;
     }
 
     @Override
     public void startProcessing(TestResultProcessor resultProcessor) {
         // Build a result processor chain
-        ClassLoader applicationClassLoader = Thread.currentThread().getContextClassLoader();
-        TestResultProcessor resultProcessorChain = new AttachParentTestResultProcessor(resultProcessor);
+        final ClassLoader applicationClassLoader = Thread.currentThread().getContextClassLoader();
+        boolean concurrent = executorFactory != null && spec.getMaxParallelClasses() > 1;
+        // When test classes execute concurrently, there is no single current test class to attach to. The event generator attaches the tests
+        // to their class, and the classes are attached to the parent suite of this processor
+        TestResultProcessor resultProcessorChain = concurrent ? resultProcessor : new AttachParentTestResultProcessor(resultProcessor);
         TestClassExecutionEventGenerator eventGenerator = new TestClassExecutionEventGenerator(resultProcessorChain, idGenerator, timeProvider);
 
         // Wrap the result processor chain up in a blocking actor, to make the whole thing thread-safe
@@ -58,16 +78,49 @@ public class JUnitTestClassProcessor implements TestClassProcessor {
         // Build the JUnit adaptor stuff
         JUnitTestEventAdapter junitEventAdapter = new JUnitTestEventAdapter(threadSafeResultProcessor, timeProvider, idGenerator);
         executer = new JUnitTestClassExecuter(applicationClassLoader, spec, junitEventAdapter, threadSafeTestClassListener);
+
+        if (concurrent) {
+            classExecutor = executorFactory.create("Test class executer", spec.getMaxParallelClasses());
+            classSlots = new Semaphore(spec.getMaxParallelClasses());
+        }
     }
 
     @Override
     public void processTestClass(TestClassRunInfo testClass) {
-        LOGGER.debug("Executing test class {}", testClass.getTestClassName());
-        executer.execute(testClass.getTestClassName());
+        final String testClassName = testClass.getTestClassName();
+        if (classExecutor == null) {
+            LOGGER.debug("Executing test class {}", testClassName);
+            executer.execute(testClassName);
+            return;
+        }
+
+        // Wait for a thread to become free, so that the caller does not hand out further test classes while all threads are busy
+        classSlots.acquireUninterruptibly();
+        final ClassLoader applicationClassLoader = Thread.currentThread().getContextClassLoader();
+        classExecutor.execute(new Runnable() {
+            public void run() {
+                Thread thread = Thread.currentThread();
+                ClassLoader previous = thread.getContextClassLoader();
+                thread.setContextClassLoader(applicationClassLoader);
+                try {
+                    LOGGER.debug("Executing test class {}", testClassName);
+                    executer.execute(testClassName);
+                } finally {
+                    thread.setContextClassLoader(previous);
+                    classSlots.release();
+                }
+            }
+        });
     }
 
     @Override
     public void stop() {
-        resultProcessorActor.stop();
+        try {
+            if (classExecutor != null) {
+                classExecutor.stop();
+            }
+        } finally {
+            resultProcessorActor.stop();
+        }
     }
 }
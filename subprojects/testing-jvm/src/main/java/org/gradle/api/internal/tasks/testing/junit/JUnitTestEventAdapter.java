@@ -37,7 +37,7 @@ public class JUnitTestEventAdapter extends RunListener {
     private final TimeProvider timeProvider;
     private final IdGenerator<?> idGenerator;
     private final Object lock = new Object();
-    private final Map<Description, TestDescriptorInternal> executing = new HashMap<Description, TestDescriptorInternal>();
+    private final Map<Description, ExecutingTest> executing = new HashMap<Description, ExecutingTest>();
     private final Set<Description> assumptionFailed = new HashSet<Description>();
 
     public JUnitTestEventAdapter(TestResultProcessor resultProcessor, TimeProvider timeProvider,
@@ -52,7 +52,7 @@ public class JUnitTestEventAdapter extends RunListener {
     public void testStarted(Description description) throws Exception {
         TestDescriptorInternal descriptor = nullSafeDescriptor(idGenerator.generateId(), description);
         synchronized (lock) {
-            TestDescriptorInternal oldTest = executing.put(description, descriptor);
+            ExecutingTest oldTest = executing.put(description, new ExecutingTest(descriptor, Thread.currentThread()));
             assert oldTest == null : String.format("Unexpected start event for %s", description);
         }
         resultProcessor.started(descriptor, startEvent());
@@ -62,7 +62,8 @@ public class JUnitTestEventAdapter extends RunListener {
     public void testFailure(Failure failure) throws Exception {
         TestDescriptorInternal testInternal;
         synchronized (lock) {
-            testInternal = executing.get(failure.getDescription());
+            ExecutingTest test = executing.get(failure.getDescription());
+            testInternal = test == null ? null : test.descriptor;
         }
         boolean needEndEvent = false;
         if (testInternal == null) {
@@ -112,18 +113,35 @@ public class JUnitTestEventAdapter extends RunListener {
         TestDescriptorInternal testInternal;
         TestResult.ResultType resultType;
         synchronized (lock) {
-            testInternal = executing.remove(description);
-            if (testInternal == null && executing.size() == 1) {
+            ExecutingTest test = executing.remove(description);
+            if (test == null) {
                 // Assume that test has renamed itself (this can actually happen)
-                testInternal = executing.values().iterator().next();
-                executing.clear();
+                test = removeOnlyTestExecutingOnThisThread(className(description));
             }
-            assert testInternal != null : String.format("Unexpected end event for %s", description);
+            assert test != null : String.format("Unexpected end event for %s", description);
+            testInternal = test.descriptor;
             resultType = assumptionFailed.remove(description) ? TestResult.ResultType.SKIPPED : null;
         }
         resultProcessor.completed(testInternal.getId(), new TestCompleteEvent(endTime, resultType));
     }
 
+    /**
+     * Removes the test of the given class that was started on the current thread, if there is exactly one. Test classes may execute
+     * concurrently on other threads, so their tests are not considered.
+     */
+    private ExecutingTest removeOnlyTestExecutingOnThisThread(String className) {
+        Description found = null;
+        for (Map.Entry<Description, ExecutingTest> entry : executing.entrySet()) {
+            if (entry.getValue().thread == Thread.currentThread() && className(entry.getKey()).equals(className)) {
+                if (found != null) {
+                    return null;
+                }
+                found = entry.getKey();
+            }
+        }
+        return found == null ? null : executing.remove(found);
+    }
+
     private TestStartEvent startEvent() {
         return new TestStartEvent(timeProvider.getCurrentTime());
     }
@@ -160,5 +178,13 @@ public class JUnitTestEventAdapter extends RunListener {
         return DESCRIPTOR_PATTERN.matcher(description.toString());
     }
 
-}
+    private static class ExecutingTest {
+        final TestDescriptorInternal descriptor;
+        final Thread thread;
 
+        ExecutingTest(TestDescriptorInternal descriptor, Thread thread) {
+            this.descriptor = descriptor;
+            this.thread = thread;
+        }
+    }
+}
@@ -21,16 +21,22 @@ import org.gradle.api.tasks.testing.TestOutputEvent;
 import org.gradle.internal.TimeProvider;
 import org.gradle.internal.id.IdGenerator;
 
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Generates the events for the test classes executed by a {@link JUnitTestClassExecuter}, and attaches the tests of each class to that class.
+ *
+ * <p>Several test classes may be executed concurrently, each on its own thread. A test is attached to the test class executing on the thread that
+ * started it or, when that thread is not executing a test class, to the only test class that is executing.</p>
+ */
 public class TestClassExecutionEventGenerator implements TestResultProcessor, TestClassExecutionListener {
     private final TestResultProcessor resultProcessor;
     private final IdGenerator<?> idGenerator;
     private final TimeProvider timeProvider;
-    private final Set<Object> currentTests = new LinkedHashSet<Object>();
-    private boolean testsStarted;
-    private TestDescriptorInternal currentTestClass;
+    private final Map<Thread, TestClassState> testClasses = new HashMap<Thread, TestClassState>();
 
     public TestClassExecutionEventGenerator(TestResultProcessor resultProcessor, IdGenerator<?> idGenerator, TimeProvider timeProvider) {
         this.resultProcessor = resultProcessor;
@@ -40,46 +46,58 @@ public class TestClassExecutionEventGenerator implements TestResultProcessor, Te
 
     @Override
     public void testClassStarted(String testClassName) {
-        currentTestClass = new DefaultTestClassDescriptor(idGenerator.generateId(), testClassName);
-        resultProcessor.started(currentTestClass, new TestStartEvent(timeProvider.getCurrentTime()));
+        TestClassState testClass = new TestClassState(new DefaultTestClassDescriptor(idGenerator.generateId(), testClassName));
+        testClasses.put(Thread.currentThread(), testClass);
+        resultProcessor.started(testClass.descriptor, new TestStartEvent(timeProvider.getCurrentTime()));
     }
 
     @Override
     public void testClassFinished(Throwable failure) {
+        TestClassState testClass = testClasses.remove(Thread.currentThread());
         long now = timeProvider.getCurrentTime();
-        try {
-            if (failure != null) {
-                if (currentTests.isEmpty()) {
-                    String testName = testsStarted ? "executionError": "initializationError";
-                    DefaultTestDescriptor initializationError = new DefaultTestDescriptor(idGenerator.generateId(), currentTestClass.getClassName(), testName);
-                    resultProcessor.started(initializationError, new TestStartEvent(now));
-                    resultProcessor.failure(initializationError.getId(), failure);
-                    resultProcessor.completed(initializationError.getId(), new TestCompleteEvent(now));
-                } else {
-                    for (Object test : currentTests) {
-                        resultProcessor.failure(test, failure);
-                        resultProcessor.completed(test, new TestCompleteEvent(now));
-                    }
+        if (failure != null) {
+            if (testClass.currentTests.isEmpty()) {
+                String testName = testClass.testsStarted ? "executionError": "initializationError";
+                DefaultTestDescriptor initializationError = new DefaultTestDescriptor(idGenerator.generateId(), testClass.descriptor.getClassName(), testName);
+                resultProcessor.started(initializationError, new TestStartEvent(now, testClass.descriptor.getId()));
+                resultProcessor.failure(initializationError.getId(), failure);
+                resultProcessor.completed(initializationError.getId(), new TestCompleteEvent(now));
+            } else {
+                for (Object test : testClass.currentTests) {
+                    resultProcessor.failure(test, failure);
+                    resultProcessor.completed(test, new TestCompleteEvent(now));
                 }
             }
-            resultProcessor.completed(currentTestClass.getId(), new TestCompleteEvent(now));
-        } finally {
-            testsStarted = false;
-            currentTests.clear();
-            currentTestClass = null;
         }
+        resultProcessor.completed(testClass.descriptor.getId(), new TestCompleteEvent(now));
     }
 
     @Override
     public void started(TestDescriptorInternal test, TestStartEvent event) {
+        TestClassState testClass = testClasses.get(Thread.currentThread());
+        if (testClass == null && testClasses.size() == 1) {
+            testClass = testClasses.values().iterator().next();
+        }
+        if (testClass != null) {
+            if (event != null && event.getParentId() == null) {
+                event = event.withParentId(testClass.descriptor.getId());
+            }
+            testClass.testsStarted = true;
+            testClass.currentTests.add(test.getId());
+        }
         resultProcessor.started(test, event);
-        testsStarted = true;
-        currentTests.add(test.getId());
     }
 
     @Override
     public void completed(Object testId, TestCompleteEvent event) {
-        currentTests.remove(testId);
+        TestClassState testClass = testClasses.get(Thread.currentThread());
+        if (testClass == null || !testClass.currentTests.remove(testId)) {
+            for (TestClassState other : testClasses.values()) {
+                if (other.currentTests.remove(testId)) {
+                    break;
+                }
+            }
+        }
         resultProcessor.completed(testId, event);
     }
 
@@ -92,4 +110,14 @@ public class TestClassExecutionEventGenerator implements TestResultProcessor, Te
     public void failure(Object testId, Throwable result) {
         resultProcessor.failure(testId, result);
     }
+
+    private static class TestClassState {
+        final TestDescriptorInternal descriptor;
+        final Set<Object> currentTests = new LinkedHashSet<Object>();
+        boolean testsStarted;
+
+        TestClassState(TestDescriptorInternal descriptor) {
+            this.descriptor = descriptor;
+        }
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.report;
+
+import org.gradle.api.internal.tasks.testing.junit.result.ReportFileDigests;
+import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
+import org.gradle.api.internal.tasks.testing.junit.result.TestFailure;
+import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
+import org.gradle.internal.hash.HashValue;
+
+import java.io.File;
+
+/**
+ * Records a digest of the results of each class page of a test report, so that a page whose results are unchanged since the previous report
+ * was generated is neither rendered nor written again.
+ */
+class ClassPageDigests {
+    private final ReportFileDigests digests;
+
+    ClassPageDigests(File reportDir) {
+        this.digests = new ReportFileDigests(reportDir, "classes/.digests");
+    }
+
+    /**
+     * Calculates the digest of the given class page, and returns true when the page exists and has the same digest as when it was last rendered.
+     */
+    boolean isUpToDate(ClassTestResults classResults, TestClassResult result) {
+        return digests.isUpToDate(classResults.getBaseUrl(), digest(result));
+    }
+
+    /**
+     * Writes the digests of the current pages.
+     */
+    void store() {
+        digests.store();
+    }
+
+    /**
+     * Calculates a digest of the results the page of the given class shows. As for the JUnit XML files, the output of the class is not read,
+     * as the output cannot change without the class being executed again, which changes its start time.
+     */
+    private static HashValue digest(TestClassResult result) {
+        ReportFileDigests.Hasher hasher = ReportFileDigests.newHasher();
+        hasher.putString(result.getClassName()).putLong(result.getStartTime()).putLong(result.getDuration());
+        for (TestMethodResult methodResult : result.getResults()) {
+            hasher.putString(methodResult.getName()).putLong(methodResult.getDuration()).putLong(methodResult.getEndTime());
+            hasher.putString(String.valueOf(methodResult.getResultType()));
+            for (TestFailure failure : methodResult.getFailures()) {
+                hasher.putString(String.valueOf(failure.getMessage()));
+                hasher.putString(String.valueOf(failure.getStackTrace()));
+            }
+        }
+        return hasher.hash();
+    }
+}
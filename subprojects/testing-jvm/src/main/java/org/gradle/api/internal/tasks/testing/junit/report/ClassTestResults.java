@@ -79,4 +79,12 @@ public class ClassTestResults extends CompositeTestResults {
         results.add(test);
         return addTest(test);
     }
+
+    /**
+     * Discards the results of the individual tests of this class, once its page has been rendered. The counts, failures and ignored tests of
+     * this class are retained.
+     */
+    public void discardTestResults() {
+        results.clear();
+    }
 }
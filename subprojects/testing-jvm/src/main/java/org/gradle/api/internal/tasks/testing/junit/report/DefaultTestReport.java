@@ -17,12 +17,16 @@ package org.gradle.api.internal.tasks.testing.junit.report;
 
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.tasks.testing.junit.result.TestClassResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestFailure;
 import org.gradle.api.internal.tasks.testing.junit.result.TestMethodResult;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.reporting.HtmlReportBuilder;
 import org.gradle.reporting.HtmlReportRenderer;
 import org.gradle.reporting.ReportRenderer;
@@ -31,59 +35,53 @@ import org.gradle.util.Clock;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.Semaphore;
 
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED;
 
+/**
+ * Generates the HTML test report. Class pages are rendered as their results are visited, optionally in parallel, and the per-test results of
+ * a class are discarded once its page has been rendered. Class pages whose content has not changed since the report was last generated are
+ * not rendered again.
+ */
 public class DefaultTestReport implements TestReporter {
     private final static Logger LOG = Logging.getLogger(DefaultTestReport.class);
+    private final ExecutorFactory executorFactory;
+
+    public DefaultTestReport() {
+        this(null);
+    }
+
+    /**
+     * Creates a report that renders class pages in parallel using the given executor factory, or serially when it is null.
+     */
+    public DefaultTestReport(@Nullable ExecutorFactory executorFactory) {
+        this.executorFactory = executorFactory;
+    }
 
     @Override
     public void generateReport(TestResultsProvider resultsProvider, File reportDir) {
         LOG.info("Generating HTML test report...");
 
         Clock clock = new Clock();
-        AllTestResults model = loadModelFromProvider(resultsProvider);
-        generateFiles(model, resultsProvider, reportDir);
+        generateFiles(resultsProvider, reportDir);
         LOG.info("Finished generating test html results ({}) into: {}", clock.getTime(), reportDir);
     }
 
-    private AllTestResults loadModelFromProvider(TestResultsProvider resultsProvider) {
-        final AllTestResults model = new AllTestResults();
-        resultsProvider.visitClasses(new Action<TestClassResult>() {
-            public void execute(TestClassResult classResult) {
-                model.addTestClass(classResult.getId(), classResult.getClassName());
-                List<TestMethodResult> collectedResults = classResult.getResults();
-                for (TestMethodResult collectedResult : collectedResults) {
-                    final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), collectedResult.getName(), collectedResult.getDuration());
-                    if (collectedResult.getResultType() == SKIPPED) {
-                        testResult.setIgnored();
-                    } else {
-                        List<TestFailure> failures = collectedResult.getFailures();
-                        for (TestFailure failure : failures) {
-                            testResult.addFailure(failure);
-                        }
-                    }
-                }
-            }
-        });
-        return model;
-    }
-
-    private void generateFiles(AllTestResults model, final TestResultsProvider resultsProvider, File reportDir) {
+    private void generateFiles(TestResultsProvider resultsProvider, final File reportDir) {
         try {
             HtmlReportRenderer htmlRenderer = new HtmlReportRenderer();
-            htmlRenderer.render(model, new ReportRenderer<AllTestResults, HtmlReportBuilder>() {
+            htmlRenderer.render(resultsProvider, new ReportRenderer<TestResultsProvider, HtmlReportBuilder>() {
                 @Override
-                public void render(AllTestResults model, HtmlReportBuilder output) throws IOException {
-                    PackagePageRenderer packagePageRenderer = new PackagePageRenderer();
-                    ClassPageRenderer classPageRenderer = new ClassPageRenderer(resultsProvider);
+                public void render(TestResultsProvider resultsProvider, HtmlReportBuilder output) throws IOException {
+                    ClassPageDigests digests = new ClassPageDigests(reportDir);
+                    AllTestResults model = renderClassPages(resultsProvider, output, digests);
+                    digests.store();
 
+                    PackagePageRenderer packagePageRenderer = new PackagePageRenderer();
                     output.renderHtmlPage("index.html", model, new OverviewPageRenderer());
                     for (PackageTestResults packageResults : model.getPackages()) {
                         output.renderHtmlPage(packageResults.getBaseUrl(), packageResults, packagePageRenderer);
-                        for (ClassTestResults classResults : packageResults.getClasses()) {
-                            output.renderHtmlPage(classResults.getBaseUrl(), classResults, classPageRenderer);
-                        }
                     }
                 }
             }, reportDir);
@@ -91,4 +89,70 @@ public class DefaultTestReport implements TestReporter {
             throw new GradleException(String.format("Could not generate test report to '%s'.", reportDir), e);
         }
     }
+
+    private AllTestResults renderClassPages(final TestResultsProvider resultsProvider, final HtmlReportBuilder output, final ClassPageDigests digests) {
+        final AllTestResults model = new AllTestResults();
+        if (executorFactory == null) {
+            resultsProvider.visitClasses(new Action<TestClassResult>() {
+                public void execute(TestClassResult classResult) {
+                    renderClassPage(addClass(model, classResult), classResult, resultsProvider, output, digests);
+                }
+            });
+            return model;
+        }
+
+        int renderers = Runtime.getRuntime().availableProcessors();
+        final StoppableExecutor executor = executorFactory.create("Test report renderer", renderers);
+        // Bounds the number of classes whose results are held waiting to be rendered
+        final Semaphore pending = new Semaphore(renderers * 2);
+        try {
+            resultsProvider.visitClasses(new Action<TestClassResult>() {
+                public void execute(final TestClassResult classResult) {
+                    final ClassTestResults classResults = addClass(model, classResult);
+                    try {
+                        pending.acquire();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            try {
+                                renderClassPage(classResults, classResult, resultsProvider, output, digests);
+                            } finally {
+                                pending.release();
+                            }
+                        }
+                    });
+                }
+            });
+        } finally {
+            executor.stop();
+        }
+        return model;
+    }
+
+    private static ClassTestResults addClass(AllTestResults model, TestClassResult classResult) {
+        ClassTestResults classResults = model.addTestClass(classResult.getId(), classResult.getClassName());
+        List<TestMethodResult> collectedResults = classResult.getResults();
+        for (TestMethodResult collectedResult : collectedResults) {
+            final TestResult testResult = model.addTest(classResult.getId(), classResult.getClassName(), collectedResult.getName(), collectedResult.getDuration());
+            if (collectedResult.getResultType() == SKIPPED) {
+                testResult.setIgnored();
+            } else {
+                List<TestFailure> failures = collectedResult.getFailures();
+                for (TestFailure failure : failures) {
+                    testResult.addFailure(failure);
+                }
+            }
+        }
+        return classResults;
+    }
+
+    private static void renderClassPage(ClassTestResults classResults, TestClassResult classResult, TestResultsProvider resultsProvider, HtmlReportBuilder output,
+                                        ClassPageDigests digests) {
+        if (!digests.isUpToDate(classResults, classResult)) {
+            output.renderHtmlPage(classResults.getBaseUrl(), classResults, new ClassPageRenderer(resultsProvider));
+        }
+        classResults.discardTestResults();
+    }
 }
@@ -19,9 +19,14 @@ package org.gradle.api.internal.tasks.testing.junit.result;
 import org.apache.commons.io.IOUtils;
 import org.gradle.api.Action;
 import org.gradle.api.GradleException;
+import org.gradle.api.Nullable;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.FileUtils;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.internal.hash.HashValue;
 import org.gradle.util.Clock;
 
 import java.io.File;
@@ -29,40 +34,127 @@ import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.concurrent.Semaphore;
 
+/**
+ * Generates a JUnit XML file for each test class. Files are written in parallel when an executor factory is given, and a file whose content
+ * would be unchanged since it was last generated is not written again. Files of classes that are no longer part of the results are left in
+ * place.
+ */
 public class Binary2JUnitXmlReportGenerator {
 
     private final File testResultsDir;
     private final TestResultsProvider testResultsProvider;
+    private final TestOutputAssociation outputAssociation;
+    private final String hostName;
+    private final ExecutorFactory executorFactory;
+    private final String digestsPath;
     private JUnitXmlResultWriter xmlWriter;
     private final static Logger LOG = Logging.getLogger(Binary2JUnitXmlReportGenerator.class);
 
     public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation) {
+        this(testResultsDir, testResultsProvider, outputAssociation, null, "results");
+    }
+
+    /**
+     * @param reportName The name of the set of results to generate, such as the path of the task that produced them. The digests of the files of
+     * each set are kept apart, as several tasks may generate their results into the same directory.
+     */
+    public Binary2JUnitXmlReportGenerator(File testResultsDir, TestResultsProvider testResultsProvider, TestOutputAssociation outputAssociation, @Nullable ExecutorFactory executorFactory,
+                                          String reportName) {
         this.testResultsDir = testResultsDir;
+        this.digestsPath = ".digests-" + FileUtils.toSafeFileName(reportName);
         this.testResultsProvider = testResultsProvider;
-        this.xmlWriter = new JUnitXmlResultWriter(getHostname(), testResultsProvider, outputAssociation);
+        this.outputAssociation = outputAssociation;
+        this.executorFactory = executorFactory;
+        this.hostName = getHostname();
+        this.xmlWriter = new JUnitXmlResultWriter(hostName, testResultsProvider, outputAssociation);
     }
 
     public void generate() {
         Clock clock = new Clock();
-        testResultsProvider.visitClasses(new Action<TestClassResult>() {
-            public void execute(TestClassResult result) {
-                File file = new File(testResultsDir, getReportFileName(result));
-                OutputStream output = null;
-                try {
-                    output = new FileOutputStream(file);
-                    xmlWriter.write(result, output);
-                    output.close();
-                } catch (Exception e) {
-                    throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), file), e);
-                } finally {
-                    IOUtils.closeQuietly(output);
+        final ReportFileDigests digests = new ReportFileDigests(testResultsDir, digestsPath);
+        if (executorFactory == null) {
+            testResultsProvider.visitClasses(new Action<TestClassResult>() {
+                public void execute(TestClassResult result) {
+                    generate(result, digests);
                 }
-            }
-        });
+            });
+        } else {
+            generateInParallel(digests);
+        }
+        digests.store();
         LOG.info("Finished generating test XML results ({}) into: {}", clock.getTime(), testResultsDir);
     }
 
+    private void generateInParallel(final ReportFileDigests digests) {
+        int writers = Runtime.getRuntime().availableProcessors();
+        final StoppableExecutor executor = executorFactory.create("JUnit XML report writer", writers);
+        // Bounds the number of classes whose results are held waiting to be written
+        final Semaphore pending = new Semaphore(writers * 2);
+        try {
+            testResultsProvider.visitClasses(new Action<TestClassResult>() {
+                public void execute(final TestClassResult result) {
+                    try {
+                        pending.acquire();
+                    } catch (InterruptedException e) {
+                        throw UncheckedException.throwAsUncheckedException(e);
+                    }
+                    executor.execute(new Runnable() {
+                        public void run() {
+                            try {
+                                generate(result, digests);
+                            } finally {
+                                pending.release();
+                            }
+                        }
+                    });
+                }
+            });
+        } finally {
+            executor.stop();
+        }
+    }
+
+    private void generate(TestClassResult result, ReportFileDigests digests) {
+        String fileName = getReportFileName(result);
+        File file = new File(testResultsDir, fileName);
+        OutputStream output = null;
+        try {
+            if (digests.isUpToDate(fileName, digest(result))) {
+                return;
+            }
+            output = new FileOutputStream(file);
+            xmlWriter.write(result, output);
+            output.close();
+        } catch (Exception e) {
+            throw new GradleException(String.format("Could not write XML test results for %s to file %s.", result.getClassName(), file), e);
+        } finally {
+            IOUtils.closeQuietly(output);
+        }
+    }
+
+    /**
+     * Calculates a digest of the results {@link JUnitXmlResultWriter} writes for the given class. The output of the class is not read, as
+     * the output cannot change without the class being executed again, which changes its start time. This way, a class that has been executed
+     * again, whose file always needs to be written as it records the timing of the execution, costs no more than it would without the digest.
+     */
+    private HashValue digest(TestClassResult result) {
+        ReportFileDigests.Hasher hasher = ReportFileDigests.newHasher();
+        hasher.putString(hostName).putString(outputAssociation.name());
+        hasher.putString(result.getClassName()).putLong(result.getStartTime()).putLong(result.getDuration());
+        for (TestMethodResult methodResult : result.getResults()) {
+            hasher.putString(methodResult.getName()).putLong(methodResult.getDuration()).putLong(methodResult.getEndTime());
+            hasher.putString(String.valueOf(methodResult.getResultType()));
+            for (TestFailure failure : methodResult.getFailures()) {
+                hasher.putString(String.valueOf(failure.getMessage()));
+                hasher.putString(String.valueOf(failure.getExceptionType()));
+                hasher.putString(String.valueOf(failure.getStackTrace()));
+            }
+        }
+        return hasher.hash();
+    }
+
     private String getReportFileName(TestClassResult result) {
         return "TEST-" + FileUtils.toSafeFileName(result.getClassName()) + ".xml";
     }
@@ -74,4 +166,4 @@ public class Binary2JUnitXmlReportGenerator {
             return "localhost";
         }
     }
-}
\ No newline at end of file
+}
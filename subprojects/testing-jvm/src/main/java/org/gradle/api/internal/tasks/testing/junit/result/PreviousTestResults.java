@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.api.Action;
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent;
+import org.gradle.api.tasks.testing.TestOutputEvent;
+import org.gradle.internal.concurrent.CompositeStoppable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * The passing results of the previous execution of a test task. The results and output of test classes that are not executed again can
+ * be copied from here into the results of the current execution.
+ */
+public class PreviousTestResults implements Closeable {
+    private final Map<String, TestClassResult> passedClasses = new HashMap<String, TestClassResult>();
+    private final TestOutputStore.Reader outputReader;
+
+    public PreviousTestResults(File resultsDir) {
+        TestResultSerializer serializer = new TestResultSerializer(resultsDir);
+        if (serializer.isHasResults()) {
+            serializer.read(new Action<TestClassResult>() {
+                public void execute(TestClassResult classResult) {
+                    if (classResult.getFailuresCount() == 0) {
+                        passedClasses.put(classResult.getClassName(), classResult);
+                    }
+                }
+            });
+        }
+        outputReader = new TestOutputStore(resultsDir).reader();
+    }
+
+    public Set<String> getPassedClassNames() {
+        return passedClasses.keySet();
+    }
+
+    /**
+     * Copies the results and output of the given test classes, using ids that do not clash with those of the given results.
+     */
+    public void copyTo(Collection<String> classNames, Map<String, TestClassResult> results, TestOutputStore.Writer outputWriter) {
+        long nextId = 1;
+        for (TestClassResult result : results.values()) {
+            nextId = Math.max(nextId, result.getId() + 1);
+            for (TestMethodResult methodResult : result.getResults()) {
+                nextId = Math.max(nextId, methodResult.getId() + 1);
+            }
+        }
+        for (String className : classNames) {
+            TestClassResult previous = passedClasses.get(className);
+            if (previous == null || results.containsKey(className)) {
+                continue;
+            }
+            long classId = nextId++;
+            TestClassResult copy = new TestClassResult(classId, className, previous.getStartTime());
+            copyOutput(previous.getId(), 0, classId, 0, outputWriter);
+            for (TestMethodResult methodResult : previous.getResults()) {
+                long methodId = nextId++;
+                TestMethodResult methodCopy = new TestMethodResult(methodId, methodResult.getName(), methodResult.getResultType(), methodResult.getDuration(), methodResult.getEndTime());
+                for (TestFailure failure : methodResult.getFailures()) {
+                    methodCopy.addFailure(failure.getMessage(), failure.getStackTrace(), failure.getExceptionType());
+                }
+                copy.add(methodCopy);
+                copyOutput(previous.getId(), methodResult.getId(), classId, methodId, outputWriter);
+            }
+            results.put(className, copy);
+        }
+    }
+
+    private void copyOutput(long previousClassId, long previousTestId, long classId, long testId, TestOutputStore.Writer outputWriter) {
+        for (TestOutputEvent.Destination destination : TestOutputEvent.Destination.values()) {
+            StringWriter output = new StringWriter();
+            if (previousTestId == 0) {
+                outputReader.writeNonTestOutput(previousClassId, destination, output);
+            } else {
+                outputReader.writeTestOutput(previousClassId, previousTestId, destination, output);
+            }
+            if (output.getBuffer().length() == 0) {
+                continue;
+            }
+            outputWriter.onOutput(classId, testId, new DefaultTestOutputEvent(destination, output.toString()));
+        }
+    }
+
+    public void close() {
+        CompositeStoppable.stoppable(outputReader).stop();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.junit.result;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.hash.HashValue;
+import org.gradle.util.GradleVersion;
+
+import java.io.*;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records a digest of the content of each file generated into a report directory, so that a file whose content would be unchanged since the
+ * report was last generated does not need to be generated again. Files of the previous report that are not part of the current report are
+ * left in place, as the report directory may be shared with other reports.
+ *
+ * <p>Instances are thread-safe.</p>
+ */
+public class ReportFileDigests {
+    private final File reportDir;
+    private final File digestsFile;
+    private final Map<String, String> previous = new ConcurrentHashMap<String, String>();
+    private final Map<String, String> current = new ConcurrentHashMap<String, String>();
+
+    /**
+     * @param digestsPath The path of the file to store the digests in, relative to the report directory.
+     */
+    public ReportFileDigests(File reportDir, String digestsPath) {
+        this.reportDir = reportDir;
+        this.digestsFile = new File(reportDir, digestsPath);
+        load();
+    }
+
+    /**
+     * Records the digest of the given file, and returns true when the file exists and had the same digest when it was last generated.
+     *
+     * @param path The path of the file, relative to the report directory.
+     */
+    public boolean isUpToDate(String path, HashValue digest) {
+        String value = digest.asHexString();
+        current.put(path, value);
+        return value.equals(previous.get(path)) && new File(reportDir, path).isFile();
+    }
+
+    /**
+     * Writes the digests of the files of the current report.
+     */
+    public void store() {
+        Properties properties = new Properties();
+        properties.putAll(current);
+        try {
+            digestsFile.getParentFile().mkdirs();
+            OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(digestsFile));
+            try {
+                properties.store(outputStream, null);
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private void load() {
+        if (!digestsFile.isFile()) {
+            return;
+        }
+        Properties properties = new Properties();
+        try {
+            InputStream inputStream = new BufferedInputStream(new FileInputStream(digestsFile));
+            try {
+                properties.load(inputStream);
+            } finally {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            // Generate all files
+            return;
+        }
+        for (String path : properties.stringPropertyNames()) {
+            previous.put(path, properties.getProperty(path));
+        }
+    }
+
+    /**
+     * Creates a hasher for the content of a file. The hash includes the Gradle version, so that all files are generated again after an upgrade.
+     */
+    public static Hasher newHasher() {
+        try {
+            Hasher hasher = new Hasher(MessageDigest.getInstance("MD5"));
+            hasher.putString(GradleVersion.current().getVersion());
+            return hasher;
+        } catch (NoSuchAlgorithmException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    /**
+     * A writer that hashes the characters written to it, so that test output can be streamed into the hash.
+     */
+    public static class Hasher extends Writer {
+        private static final Charset UTF_8 = Charset.forName("utf-8");
+        private final MessageDigest messageDigest;
+
+        private Hasher(MessageDigest messageDigest) {
+            this.messageDigest = messageDigest;
+        }
+
+        public Hasher putString(String value) {
+            write(value.toCharArray(), 0, value.length());
+            messageDigest.update((byte) 0);
+            return this;
+        }
+
+        public Hasher putLong(long value) {
+            return putString(String.valueOf(value));
+        }
+
+        public HashValue hash() {
+            return new HashValue(messageDigest.digest());
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            messageDigest.update(UTF_8.encode(CharBuffer.wrap(cbuf, off, len)));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -16,22 +16,40 @@
 
 package org.gradle.api.internal.tasks.testing.junit.result;
 
-import com.esotericsoftware.kryo.io.Input;
-import com.esotericsoftware.kryo.io.Output;
-import com.google.common.collect.ImmutableMap;
+import org.gradle.api.Nullable;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.tasks.testing.TestOutputEvent;
-import org.gradle.internal.io.RandomAccessFileInputStream;
 import org.gradle.internal.UncheckedException;
-import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
-import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.os.OperatingSystem;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.util.LinkedHashMap;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * Stores the output of tests. Output events are appended to a data file as they are received. When the writer is closed, an index file is
+ * written alongside the data file. The index holds a fixed size entry for each class and test that produced output, sorted by class and test
+ * id, which records the region of the data file that contains the output of that class or test.
+ *
+ * <p>The reader looks up entries by binary search on the index, without loading it into the heap, and reads output through memory mapped
+ * windows onto the data file.</p>
+ */
 public class TestOutputStore {
+    private static final int INDEX_VERSION = 2;
+    private static final int INDEX_HEADER_SIZE = 8;
+    private static final int INDEX_ENTRY_SIZE = 48;
+    private static final int EVENT_HEADER_SIZE = 21;
+    // The test id of the index entry that covers all output of a class
+    private static final long ALL_CLASS_OUTPUT = -1;
+    // Mapped files cannot be deleted on Windows until they are garbage collected, so read into the heap there instead
+    private static final boolean MAP_FILES = !OperatingSystem.current().isWindows();
 
     private final File resultsDir;
     private final Charset messageStorageCharset;
@@ -50,33 +68,36 @@ public class TestOutputStore {
     }
 
     private static class Region {
-        long start;
-        long stop;
-
-        private Region() {
-            start = -1;
-            stop = -1;
-        }
+        long start = -1;
+        long stop = -1;
 
-        private Region(long start, long stop) {
-            this.start = start;
-            this.stop = stop;
+        void include(long start, long stop) {
+            if (start < 0) {
+                return;
+            }
+            if (this.start < 0 || start < this.start) {
+                this.start = start;
+            }
+            if (stop > this.stop) {
+                this.stop = stop;
+            }
         }
     }
 
     private static class TestCaseRegion {
-        Region stdOutRegion = new Region();
-        Region stdErrRegion = new Region();
+        final Region stdOutRegion = new Region();
+        final Region stdErrRegion = new Region();
     }
 
     public class Writer implements Closeable {
-        private final KryoBackedEncoder output;
+        private final DataOutputStream output;
+        private long position;
 
-        private final Map<Long, Map<Long, TestCaseRegion>> index = new LinkedHashMap<Long, Map<Long, TestCaseRegion>>();
+        private final Map<Long, Map<Long, TestCaseRegion>> index = new TreeMap<Long, Map<Long, TestCaseRegion>>();
 
         public Writer() {
             try {
-                output = new KryoBackedEncoder(new FileOutputStream(getOutputsFile()));
+                output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getOutputsFile())));
             } catch (FileNotFoundException e) {
                 throw new UncheckedIOException(e);
             }
@@ -84,7 +105,11 @@ public class TestOutputStore {
 
         @Override
         public void close() {
-            output.close();
+            try {
+                output.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
             writeIndex();
         }
 
@@ -94,11 +119,6 @@ public class TestOutputStore {
 
         public void onOutput(long classId, long testId, TestOutputEvent outputEvent) {
             boolean stdout = outputEvent.getDestination() == TestOutputEvent.Destination.StdOut;
-            mark(classId, testId, stdout);
-
-            output.writeBoolean(stdout);
-            output.writeSmallLong(classId);
-            output.writeSmallLong(testId);
 
             byte[] bytes;
             try {
@@ -106,120 +126,91 @@ public class TestOutputStore {
             } catch (UnsupportedEncodingException e) {
                 throw UncheckedException.throwAsUncheckedException(e);
             }
-            output.writeSmallInt(bytes.length);
-            output.writeBytes(bytes, 0, bytes.length);
-        }
 
-        private void mark(long classId, long testId, boolean isStdout) {
-            if (!index.containsKey(classId)) {
-                index.put(classId, new LinkedHashMap<Long, TestCaseRegion>());
+            long start = position;
+            try {
+                output.writeBoolean(stdout);
+                output.writeLong(classId);
+                output.writeLong(testId);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            position += EVENT_HEADER_SIZE + bytes.length;
+            mark(classId, testId, stdout, start, position);
+        }
 
+        private void mark(long classId, long testId, boolean isStdout, long start, long stop) {
             Map<Long, TestCaseRegion> testCaseRegions = index.get(classId);
-            if (!testCaseRegions.containsKey(testId)) {
-                TestCaseRegion region = new TestCaseRegion();
-                testCaseRegions.put(testId, region);
+            if (testCaseRegions == null) {
+                testCaseRegions = new TreeMap<Long, TestCaseRegion>();
+                index.put(classId, testCaseRegions);
             }
 
             TestCaseRegion region = testCaseRegions.get(testId);
+            if (region == null) {
+                region = new TestCaseRegion();
+                testCaseRegions.put(testId, region);
+            }
 
             Region streamRegion = isStdout ? region.stdOutRegion : region.stdErrRegion;
-
-            int total = output.getWritePosition();
-            if (streamRegion.start < 0) {
-                streamRegion.start = total;
-            }
-            streamRegion.stop = total;
+            streamRegion.include(start, stop);
         }
 
         private void writeIndex() {
-            Output indexOutput;
-            try {
-                indexOutput = new Output(new FileOutputStream(getIndexFile()));
-            } catch (FileNotFoundException e) {
-                throw new UncheckedIOException(e);
+            int entries = 0;
+            for (Map<Long, TestCaseRegion> regions : index.values()) {
+                entries += regions.size() + 1;
             }
-
-
             try {
-                indexOutput.writeInt(index.size(), true);
-
-                for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
-                    Long classId = classEntry.getKey();
-                    Map<Long, TestCaseRegion> regions = classEntry.getValue();
-
-                    indexOutput.writeLong(classId, true);
-                    indexOutput.writeInt(regions.size(), true);
-
-                    for (Map.Entry<Long, TestCaseRegion> testCaseEntry : regions.entrySet()) {
-                        long id = testCaseEntry.getKey();
-                        TestCaseRegion region = testCaseEntry.getValue();
-                        indexOutput.writeLong(id, true);
-                        indexOutput.writeLong(region.stdOutRegion.start);
-                        indexOutput.writeLong(region.stdOutRegion.stop);
-                        indexOutput.writeLong(region.stdErrRegion.start);
-                        indexOutput.writeLong(region.stdErrRegion.stop);
+                DataOutputStream indexOutput = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(getIndexFile())));
+                try {
+                    indexOutput.writeInt(INDEX_VERSION);
+                    indexOutput.writeInt(entries);
+                    for (Map.Entry<Long, Map<Long, TestCaseRegion>> classEntry : index.entrySet()) {
+                        long classId = classEntry.getKey();
+                        TestCaseRegion classRegion = new TestCaseRegion();
+                        for (TestCaseRegion region : classEntry.getValue().values()) {
+                            classRegion.stdOutRegion.include(region.stdOutRegion.start, region.stdOutRegion.stop);
+                            classRegion.stdErrRegion.include(region.stdErrRegion.start, region.stdErrRegion.stop);
+                        }
+                        writeIndexEntry(indexOutput, classId, ALL_CLASS_OUTPUT, classRegion);
+                        for (Map.Entry<Long, TestCaseRegion> testCaseEntry : classEntry.getValue().entrySet()) {
+                            writeIndexEntry(indexOutput, classId, testCaseEntry.getKey(), testCaseEntry.getValue());
+                        }
                     }
+                } finally {
+                    indexOutput.close();
                 }
-            } finally {
-                indexOutput.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
-    }
-
-    public Writer writer() {
-        return new Writer();
-    }
-
-    private static class Index {
-        final ImmutableMap<Long, Index> children;
-        final Region stdOut;
-        final Region stdErr;
-
-        private Index(Region stdOut, Region stdErr) {
-            this.children = ImmutableMap.of();
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
-        }
 
-        private Index(ImmutableMap<Long, Index> children, Region stdOut, Region stdErr) {
-            this.children = children;
-            this.stdOut = stdOut;
-            this.stdErr = stdErr;
+        private void writeIndexEntry(DataOutputStream indexOutput, long classId, long testId, TestCaseRegion region) throws IOException {
+            indexOutput.writeLong(classId);
+            indexOutput.writeLong(testId);
+            indexOutput.writeLong(region.stdOutRegion.start);
+            indexOutput.writeLong(region.stdOutRegion.stop);
+            indexOutput.writeLong(region.stdErrRegion.start);
+            indexOutput.writeLong(region.stdErrRegion.stop);
         }
     }
 
-    private static class IndexBuilder {
-        final Region stdOut = new Region();
-        final Region stdErr = new Region();
-
-        private final ImmutableMap.Builder<Long, Index> children = ImmutableMap.builder();
-
-        void add(long key, Index index) {
-            if (stdOut.start < 0) {
-                stdOut.start = index.stdOut.start;
-            }
-            if (stdErr.start < 0) {
-                stdErr.start = index.stdErr.start;
-            }
-            if (index.stdOut.stop > stdOut.stop) {
-                stdOut.stop = index.stdOut.stop;
-            }
-            if (index.stdErr.stop > stdErr.stop) {
-                stdErr.stop = index.stdErr.stop;
-            }
-
-            children.put(key, index);
-        }
-
-        Index build() {
-            return new Index(children.build(), stdOut, stdErr);
-        }
+    public Writer writer() {
+        return new Writer();
     }
 
     public class Reader implements Closeable {
-        private final Index index;
+        private static final int MAPPED_WINDOW_SIZE = 64 * 1024 * 1024;
+        private static final int READ_WINDOW_SIZE = 64 * 1024;
+
         private final RandomAccessFile dataFile;
+        private final ByteBuffer index;
+        private final int indexEntries;
+        // The most recently mapped window onto the data file. Reads use duplicates of it, so that they do not share a position
+        private volatile Window mappedWindow;
 
         public Reader() {
             File indexFile = getIndexFile();
@@ -230,41 +221,19 @@ public class TestOutputStore {
                     throw new IllegalStateException(String.format("Test outputs data file '%s' exists but the index file '%s' does not", outputsFile, indexFile));
                 }
 
-                Input input;
                 try {
-                    input = new Input(new FileInputStream(indexFile));
-                } catch (FileNotFoundException e) {
-                    throw new UncheckedIOException(e);
-                }
-
-                IndexBuilder rootBuilder = null;
-                try {
-                    int numClasses = input.readInt(true);
-                    rootBuilder = new IndexBuilder();
-
-                    for (int classCounter = 0; classCounter < numClasses; ++classCounter) {
-                        long classId = input.readLong(true);
-                        IndexBuilder classBuilder = new IndexBuilder();
-
-                        int numEntries = input.readInt(true);
-                        for (int entryCounter = 0; entryCounter < numEntries; ++entryCounter) {
-                            long testId = input.readLong(true);
-                            Region stdOut = new Region(input.readLong(), input.readLong());
-                            Region stdErr = new Region(input.readLong(), input.readLong());
-                            classBuilder.add(testId, new Index(stdOut, stdErr));
-                        }
-
-                        rootBuilder.add(classId, classBuilder.build());
+                    RandomAccessFile indexRandomAccessFile = new RandomAccessFile(indexFile, "r");
+                    try {
+                        index = read(indexRandomAccessFile.getChannel(), 0, (int) indexRandomAccessFile.length(), null);
+                    } finally {
+                        indexRandomAccessFile.close();
                     }
-                } finally {
-                    input.close();
-                }
-
-                index = rootBuilder.build();
-
-                try {
-                    dataFile = new RandomAccessFile(getOutputsFile(), "r");
-                } catch (FileNotFoundException e) {
+                    if (index.limit() < INDEX_HEADER_SIZE || index.getInt(0) != INDEX_VERSION) {
+                        throw new IllegalStateException(String.format("Test outputs index file '%s' has an unexpected format.", indexFile));
+                    }
+                    indexEntries = index.getInt(4);
+                    dataFile = new RandomAccessFile(outputsFile, "r");
+                } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
             } else { // no outputs file
@@ -273,6 +242,7 @@ public class TestOutputStore {
                 }
 
                 index = null;
+                indexEntries = 0;
                 dataFile = null;
             }
         }
@@ -280,106 +250,177 @@ public class TestOutputStore {
         @Override
         public void close() throws IOException {
             if (dataFile != null) {
+                mappedWindow = null;
                 dataFile.close();
             }
         }
 
         public boolean hasOutput(long classId, TestOutputEvent.Destination destination) {
-            if (dataFile == null) {
-                return false;
-            }
-
-            Index classIndex = index.children.get(classId);
-            if (classIndex == null) {
-                return false;
-            } else {
-                Region region = destination == TestOutputEvent.Destination.StdOut ? classIndex.stdOut : classIndex.stdErr;
-                return region.start >= 0;
-            }
+            int entry = findEntry(classId, ALL_CLASS_OUTPUT);
+            return entry >= 0 && regionStart(entry, destination) >= 0;
         }
 
         public void writeAllOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, 0, true, destination, writer);
+            doRead(classId, ALL_CLASS_OUTPUT, destination, writer);
         }
 
         public void writeNonTestOutput(long classId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, 0, false, destination, writer);
+            doRead(classId, 0, destination, writer);
         }
 
         public void writeTestOutput(long classId, long testId, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            doRead(classId, testId, false, destination, writer);
+            doRead(classId, testId, destination, writer);
         }
 
-        private void doRead(long classId, long testId, boolean allClassOutput, TestOutputEvent.Destination destination, java.io.Writer writer) {
-            if (dataFile == null) {
-                return;
+        /**
+         * Returns the position of the index entry for the given class and test, or -1 when there is no such entry.
+         */
+        private int findEntry(long classId, long testId) {
+            int low = 0;
+            int high = indexEntries - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int offset = INDEX_HEADER_SIZE + mid * INDEX_ENTRY_SIZE;
+                long midClassId = index.getLong(offset);
+                long midTestId = index.getLong(offset + 8);
+                if (midClassId < classId || (midClassId == classId && midTestId < testId)) {
+                    low = mid + 1;
+                } else if (midClassId == classId && midTestId == testId) {
+                    return offset;
+                } else {
+                    high = mid - 1;
+                }
             }
+            return -1;
+        }
 
-            Index targetIndex = index.children.get(classId);
-            if (targetIndex != null && testId != 0) {
-                targetIndex = targetIndex.children.get(testId);
-            }
+        private long regionStart(int entry, TestOutputEvent.Destination destination) {
+            return index.getLong(entry + (destination == TestOutputEvent.Destination.StdOut ? 16 : 32));
+        }
 
-            if (targetIndex == null) {
+        private long regionStop(int entry, TestOutputEvent.Destination destination) {
+            return index.getLong(entry + (destination == TestOutputEvent.Destination.StdOut ? 24 : 40));
+        }
+
+        private void doRead(long classId, long testId, TestOutputEvent.Destination destination, java.io.Writer writer) {
+            int entry = findEntry(classId, testId);
+            if (entry < 0) {
                 return;
             }
-
-            boolean stdout = destination == TestOutputEvent.Destination.StdOut;
-            Region region = stdout ? targetIndex.stdOut : targetIndex.stdErr;
-
-            if (region.start < 0) {
+            long position = regionStart(entry, destination);
+            if (position < 0) {
                 return;
             }
-
-            boolean ignoreClassLevel = !allClassOutput && testId != 0;
-            boolean ignoreTestLevel = !allClassOutput && testId == 0;
+            long stop = regionStop(entry, destination);
+            boolean stdout = destination == TestOutputEvent.Destination.StdOut;
 
             try {
-                dataFile.seek(region.start);
-                long maxPos = region.stop - region.start;
-                KryoBackedDecoder decoder = new KryoBackedDecoder(new RandomAccessFileInputStream(dataFile));
-                while (decoder.getReadPosition() <= maxPos) {
-                    boolean readStdout = decoder.readBoolean();
-                    long readClassId = decoder.readSmallLong();
-                    long readTestId = decoder.readSmallLong();
-                    int readLength = decoder.readSmallInt();
-
-                    boolean isClassLevel = readTestId == 0;
-
-                    if (stdout != readStdout || classId != readClassId) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (ignoreClassLevel && isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
-                    }
-
-                    if (ignoreTestLevel && !isClassLevel) {
-                        decoder.skipBytes(readLength);
-                        continue;
+                OutputRead read = new OutputRead();
+                while (position < stop) {
+                    ByteBuffer buffer = read.window(position, EVENT_HEADER_SIZE);
+                    boolean readStdout = buffer.get() != 0;
+                    long readClassId = buffer.getLong();
+                    long readTestId = buffer.getLong();
+                    int readLength = buffer.getInt();
+                    position += EVENT_HEADER_SIZE;
+
+                    // Regions of different classes and tests are interleaved, so skip the events of other classes and tests
+                    if (stdout == readStdout && classId == readClassId && (testId == ALL_CLASS_OUTPUT || testId == readTestId)) {
+                        buffer = read.window(position, readLength);
+                        buffer.limit(buffer.position() + readLength);
+                        read.writeMessage(buffer, writer);
                     }
+                    position += readLength;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
-                    if (testId == 0 || testId == readTestId) {
-                        byte[] stringBytes = new byte[readLength];
-                        decoder.readBytes(stringBytes);
-                        String message;
-                        try {
-                            message = new String(stringBytes, messageStorageCharset.name());
-                        } catch (UnsupportedEncodingException e) {
-                            // shouldn't happen
-                            throw UncheckedException.throwAsUncheckedException(e);
-                        }
+        private ByteBuffer read(FileChannel channel, long position, int size, @Nullable ByteBuffer reuse) throws IOException {
+            if (MAP_FILES) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            }
+            ByteBuffer buffer = reuse != null && reuse.capacity() == size ? reuse : ByteBuffer.allocate(size);
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException();
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
 
-                        writer.write(message);
+        /**
+         * The state of a single read of output, which decodes the output straight into the target writer. Each read has its own window and
+         * decoder, so that reads from several threads, such as those of the report renderers, run concurrently.
+         */
+        private class OutputRead {
+            private final CharsetDecoder charsetDecoder = messageStorageCharset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            private final CharBuffer chars = CharBuffer.allocate(8192);
+            private ByteBuffer window;
+            private long windowStart;
+
+            /**
+             * Returns a buffer positioned at the given position of the data file, with at least the given number of bytes remaining.
+             */
+            ByteBuffer window(long position, int length) throws IOException {
+                if (window == null || position < windowStart || position + length > windowStart + window.capacity()) {
+                    Window shared = mappedWindow;
+                    if (shared != null && shared.covers(position, length)) {
+                        window = shared.buffer.duplicate();
+                        windowStart = shared.start;
                     } else {
-                        decoder.skipBytes(readLength);
+                        int windowSize = MAP_FILES ? MAPPED_WINDOW_SIZE : READ_WINDOW_SIZE;
+                        long size = Math.min(Math.max(windowSize, length), dataFile.getChannel().size() - position);
+                        window = read(dataFile.getChannel(), position, (int) size, window);
+                        windowStart = position;
+                        if (MAP_FILES) {
+                            mappedWindow = new Window(window, position);
+                            window = window.duplicate();
+                        }
                     }
                 }
-            } catch (IOException e1) {
-                throw new UncheckedIOException(e1);
+                window.clear();
+                window.position((int) (position - windowStart));
+                return window;
+            }
+
+            void writeMessage(ByteBuffer input, java.io.Writer writer) throws IOException {
+                charsetDecoder.reset();
+                CoderResult result;
+                do {
+                    result = charsetDecoder.decode(input, chars, true);
+                    flushChars(writer);
+                } while (result.isOverflow());
+                while (charsetDecoder.flush(chars).isOverflow()) {
+                    flushChars(writer);
+                }
+                flushChars(writer);
             }
+
+            private void flushChars(java.io.Writer writer) throws IOException {
+                chars.flip();
+                writer.write(chars.array(), chars.arrayOffset(), chars.remaining());
+                chars.clear();
+            }
+        }
+    }
+
+    private static class Window {
+        final ByteBuffer buffer;
+        final long start;
+
+        Window(ByteBuffer buffer, long start) {
+            this.buffer = buffer;
+            this.start = start;
+        }
+
+        boolean covers(long position, int length) {
+            return position >= start && position + length <= start + buffer.capacity();
         }
     }
 
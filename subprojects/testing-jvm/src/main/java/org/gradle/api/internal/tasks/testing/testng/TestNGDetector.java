@@ -17,7 +17,7 @@ package org.gradle.api.internal.tasks.testing.testng;
 
 import org.gradle.api.internal.tasks.testing.detection.AbstractTestFrameworkDetector;
 import org.gradle.api.internal.tasks.testing.detection.ClassFileExtractionManager;
-import org.gradle.api.internal.tasks.testing.detection.TestClassVisitor;
+import org.gradle.api.internal.tasks.testing.detection.TestClassScan;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,12 +42,12 @@ class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetect
      */
     @Override
     protected boolean processTestClass(final File testClassFile, boolean superClass) {
-        final TestClassVisitor classVisitor = classVisitor(testClassFile);
+        final TestClassScan classScan = scanClass(testClassFile);
 
-        boolean isTest = classVisitor.isTest();
+        boolean isTest = classScan.isTest();
 
         if (!isTest) {
-            final String superClassName = classVisitor.getSuperClassName();
+            final String superClassName = classScan.getSuperClassName();
 
             final File superClassFile = getSuperTestClassFile(superClassName);
 
@@ -59,7 +59,7 @@ class TestNGDetector extends AbstractTestFrameworkDetector<TestNGTestClassDetect
             }
         }
 
-        publishTestClass(isTest, classVisitor, superClass);
+        publishTestClass(isTest, classScan, superClass);
 
         return isTest;
     }
@@ -22,16 +22,24 @@ import org.gradle.api.GradleException;
 import org.gradle.api.Incubating;
 import org.gradle.api.file.*;
 import org.gradle.api.internal.ConventionTask;
+import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter;
+import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.file.FileResolver;
 import org.gradle.api.internal.file.FileTreeElementComparator;
 import org.gradle.api.internal.file.FileTreeElementHasher;
 import org.gradle.api.internal.initialization.loadercache.ClassLoaderCache;
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches;
 import org.gradle.api.internal.tasks.options.Option;
 import org.gradle.api.internal.tasks.testing.DefaultTestTaskReports;
 import org.gradle.api.internal.tasks.testing.NoMatchingTestsReporter;
 import org.gradle.api.internal.tasks.testing.TestFramework;
+import org.gradle.api.internal.tasks.testing.TestClassProcessor;
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo;
 import org.gradle.api.internal.tasks.testing.TestResultProcessor;
 import org.gradle.api.internal.tasks.testing.detection.DefaultTestExecuter;
+import org.gradle.api.internal.tasks.testing.detection.RegressionTestSelection;
+import org.gradle.api.internal.tasks.testing.detection.TestClassScanCache;
+import org.gradle.api.internal.tasks.testing.detection.TestClassShard;
 import org.gradle.api.internal.tasks.testing.detection.TestExecuter;
 import org.gradle.api.internal.tasks.testing.filter.DefaultTestFilter;
 import org.gradle.api.internal.tasks.testing.junit.JUnitTestFramework;
@@ -47,14 +55,20 @@ import org.gradle.api.logging.LogLevel;
 import org.gradle.api.reporting.DirectoryReport;
 import org.gradle.api.reporting.Reporting;
 import org.gradle.api.specs.Spec;
+import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.*;
+import org.gradle.api.tasks.testing.junit.JUnitOptions;
 import org.gradle.api.tasks.testing.logging.TestLogging;
 import org.gradle.api.tasks.testing.logging.TestLoggingContainer;
+import org.gradle.api.tasks.testing.testng.TestNGOptions;
 import org.gradle.api.tasks.util.PatternFilterable;
+import org.gradle.cache.CacheRepository;
 import org.gradle.internal.Factory;
 import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.hash.HashUtil;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.listener.ClosureBackedMethodInvocationDispatch;
 import org.gradle.logging.ConsoleRenderer;
@@ -66,6 +80,7 @@ import org.gradle.process.ProcessForkOptions;
 import org.gradle.process.internal.DefaultJavaForkOptions;
 import org.gradle.process.internal.WorkerProcessBuilder;
 import org.gradle.util.ConfigureUtil;
+import org.gradle.util.GFileUtils;
 
 import javax.inject.Inject;
 import java.io.File;
@@ -139,6 +154,10 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
     private boolean scanForTestClasses = true;
     private long forkEvery;
     private int maxParallelForks = 1;
+    private int maxFailures;
+    private int shardIndex;
+    private int shardCount = 1;
+    private final List<Object> shardingHistory = new ArrayList<Object>();
     private TestReporter testReporter;
 
     @Nested
@@ -204,6 +223,36 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         throw new UnsupportedOperationException();
     }
 
+    @Inject
+    protected TestClassScanCache getTestClassScanCache() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected ExecutorFactory getExecutorFactory() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected CacheRepository getCacheRepository() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected GeneralCompileCaches getGeneralCompileCaches() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected FileOperations getFileOperations() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Inject
+    protected CachingFileSnapshotter getFileSnapshotter() {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * ATM. for testing only
      */
@@ -538,6 +587,20 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         }
 
         File binaryResultsDir = getBinResultsDir();
+        Map<String, Long> previousClassDurations = readClassDurations(binaryResultsDir);
+        File previousResultsDir = new File(getTemporaryDir(), "previousResults");
+        RegressionTestSelection regressionTestSelection = null;
+        PreviousTestResults previousResults = null;
+        if (RegressionTestSelection.isEnabled()) {
+            getProject().delete(previousResultsDir);
+            if (binaryResultsDir.isDirectory()) {
+                GFileUtils.moveDirectory(binaryResultsDir, previousResultsDir);
+            }
+            previousResults = readPreviousResults(previousResultsDir);
+            regressionTestSelection = new RegressionTestSelection(getCacheRepository(), this, getGeneralCompileCaches(), getFileOperations(), getFileSnapshotter(),
+                previousResults.getPassedClassNames());
+            regressionTestSelection.snapshot(getRegressionTestSelectionClasspath(), getRegressionTestSelectionInputsKey());
+        }
         getProject().delete(binaryResultsDir);
         getProject().mkdir(binaryResultsDir);
 
@@ -557,18 +620,35 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
 
         TestResultProcessor resultProcessor = new StateTrackingTestResultProcessor(testListenerInternalBroadcaster.getSource());
 
+        List<Spec<? super TestClassRunInfo>> classSelection = new ArrayList<Spec<? super TestClassRunInfo>>();
+        if (shardCount > 1) {
+            classSelection.add(createShard());
+        }
+        if (regressionTestSelection != null) {
+            classSelection.add(regressionTestSelection);
+        }
+
         if (testExecuter == null) {
-            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory());
+            testExecuter = new DefaultTestExecuter(getProcessBuilderFactory(), getActorFactory(), previousClassDurations, getTestClassScanCache(), getExecutorFactory(),
+                classSelection.isEmpty() ? null : Specs.intersect(classSelection));
         }
 
         try {
             testExecuter.execute(this, resultProcessor);
+            if (regressionTestSelection != null) {
+                Set<String> skippedClasses = regressionTestSelection.getSkippedClasses();
+                getLogger().info("Reusing the results of the previous execution for {} test classes that are not affected by changes.", skippedClasses.size());
+                previousResults.copyTo(skippedClasses, results, outputWriter);
+                regressionTestSelection.storeSnapshot();
+            }
         } finally {
             testExecuter = null;
             testListenerBroadcaster.removeAll();
             testOutputListenerBroadcaster.removeAll();
             testListenerInternalBroadcaster.removeAll();
             outputWriter.close();
+            CompositeStoppable.stoppable(previousResults).stop();
+            getProject().delete(previousResultsDir);
         }
 
         new TestResultSerializer(binaryResultsDir).write(results.values());
@@ -577,7 +657,7 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
 
         try {
             if (testReporter == null) {
-                testReporter = new DefaultTestReport();
+                testReporter = new DefaultTestReport(getExecutorFactory());
             }
 
             JUnitXmlReport junitXml = reports.getJunitXml();
@@ -585,7 +665,8 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
                 TestOutputAssociation outputAssociation = junitXml.isOutputPerTestCase()
                         ? TestOutputAssociation.WITH_TESTCASE
                         : TestOutputAssociation.WITH_SUITE;
-                Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getDestination(), testResultsProvider, outputAssociation);
+                Binary2JUnitXmlReportGenerator binary2JUnitXmlReportGenerator = new Binary2JUnitXmlReportGenerator(junitXml.getDestination(), testResultsProvider, outputAssociation,
+                        getExecutorFactory(), getPath());
                 binary2JUnitXmlReportGenerator.generate();
             }
 
@@ -1059,6 +1140,111 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         this.maxParallelForks = maxParallelForks;
     }
 
+    /**
+     * Returns the number of test failures after which test execution is stopped. The default value is 0 (test execution is never stopped early).
+     *
+     * <p>When test execution is stopped, the test classes that are still queued are not executed and the forked test processes are killed, so
+     * the results of the test classes that were executing at the time are incomplete.</p>
+     *
+     * @return The maximum number of test failures.
+     */
+    @Input
+    @Incubating
+    public int getMaxFailures() {
+        return maxFailures;
+    }
+
+    /**
+     * Sets the number of test failures after which test execution is stopped. Set to 0 to always execute all tests.
+     *
+     * @param maxFailures The maximum number of test failures.
+     */
+    @Incubating
+    public void setMaxFailures(int maxFailures) {
+        if (maxFailures < 0) {
+            throw new IllegalArgumentException("Cannot set maxFailures to a value less than 0.");
+        }
+        this.maxFailures = maxFailures;
+    }
+
+    /**
+     * Returns the index of the shard of the test classes to execute, in the range 0 to {@link #getShardCount()} - 1. The default value is 0.
+     *
+     * @return The shard index.
+     */
+    @Input
+    @Incubating
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * Sets the index of the shard of the test classes to execute.
+     *
+     * @param shardIndex The shard index, in the range 0 to {@link #getShardCount()} - 1.
+     */
+    @Incubating
+    public void setShardIndex(int shardIndex) {
+        if (shardIndex < 0) {
+            throw new IllegalArgumentException("Cannot set shardIndex to a value less than 0.");
+        }
+        this.shardIndex = shardIndex;
+    }
+
+    /**
+     * Returns the number of shards the test classes are split into. The default value is 1 (all test classes are executed).
+     *
+     * <p>When greater than 1, the candidate test classes are split into this many shards of roughly equal total duration, and only the
+     * classes of the shard given by {@link #getShardIndex()} are executed. This allows the tests to be split across several builds, for example
+     * on different machines, whose binary results can then be combined using a {@link TestReport} task.</p>
+     *
+     * @return The number of shards.
+     */
+    @Input
+    @Incubating
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Sets the number of shards the test classes are split into. Set to 1 to execute all test classes.
+     *
+     * @param shardCount The number of shards.
+     */
+    @Incubating
+    public void setShardCount(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Cannot set shardCount to a value less than 1.");
+        }
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Returns the binary test results directories to read the durations of test classes from, when splitting the test classes into shards.
+     * All shards must use the same durations to calculate the same split, so these are typically the results of all shards of a previous
+     * execution. The durations recorded by this task on the current machine are not used. When no durations are available, the test classes
+     * are split evenly by count.
+     *
+     * @return The binary test results directories.
+     */
+    @InputFiles
+    @Incubating
+    public FileCollection getShardingHistory() {
+        return getProject().files(shardingHistory.toArray());
+    }
+
+    /**
+     * Sets the binary test results directories to read the durations of test classes from, when splitting the test classes into shards. The
+     * given values are evaluated as per {@link org.gradle.api.Project#files(Object...)}.
+     *
+     * @param resultsDirs The binary test results directories.
+     */
+    @Incubating
+    public void setShardingHistory(Object... resultsDirs) {
+        shardingHistory.clear();
+        Collections.addAll(shardingHistory, resultsDirs);
+    }
+
     /**
      * Returns the classes files to scan for test classes.
      *
@@ -1175,6 +1361,88 @@ public class Test extends ConventionTask implements JavaForkOptions, PatternFilt
         throw new AssertionError("could not determine current log level");
     }
 
+    private TestClassShard createShard() {
+        // Split only the detected test classes, as inner and other non-test classes would unbalance the shards
+        final List<String> testClassNames = new ArrayList<String>();
+        DefaultTestExecuter.createTestClassScanner(this, new TestClassProcessor() {
+            public void startProcessing(TestResultProcessor resultProcessor) {
+            }
+
+            public void processTestClass(TestClassRunInfo testClass) {
+                testClassNames.add(testClass.getTestClassName());
+            }
+
+            public void stop() {
+            }
+        }, getTestClassScanCache(), getExecutorFactory()).run();
+        Map<String, Long> durations = new HashMap<String, Long>();
+        for (File resultsDir : getShardingHistory()) {
+            durations.putAll(readClassDurations(resultsDir));
+        }
+        TestClassShard shard = new TestClassShard(testClassNames, durations, shardIndex, shardCount);
+        getLogger().info("Executing shard {} of {}, using the durations of {} test classes from previous executions.", shardIndex + 1, shardCount, durations.size());
+        return shard;
+    }
+
+    private Map<String, Long> readClassDurations(File binaryResultsDir) {
+        final Map<String, Long> durations = new HashMap<String, Long>();
+        try {
+            new TestResultSerializer(binaryResultsDir).read(new Action<TestClassResult>() {
+                public void execute(TestClassResult result) {
+                    durations.put(result.getClassName(), result.getDuration());
+                }
+            });
+        } catch (RuntimeException e) {
+            // Results written by another Gradle version, ignore
+            getLogger().debug("Could not read test class durations from {}.", binaryResultsDir, e);
+            durations.clear();
+        }
+        return durations;
+    }
+
+    private PreviousTestResults readPreviousResults(File resultsDir) {
+        try {
+            return new PreviousTestResults(resultsDir);
+        } catch (RuntimeException e) {
+            // Results written by another Gradle version, ignore
+            getLogger().debug("Could not read previous test results from {}.", resultsDir, e);
+            getProject().delete(resultsDir);
+            return new PreviousTestResults(resultsDir);
+        }
+    }
+
+    private List<File> getRegressionTestSelectionClasspath() {
+        List<File> classpath = new ArrayList<File>();
+        classpath.add(getTestClassesDir());
+        for (File file : getClasspath()) {
+            if (!classpath.contains(file)) {
+                classpath.add(file);
+            }
+        }
+        return classpath;
+    }
+
+    private String getRegressionTestSelectionInputsKey() {
+        List<Object> inputs = new ArrayList<Object>();
+        inputs.add(getTestFramework().getClass().getName());
+        inputs.add(getAllJvmArgs());
+        inputs.add(new TreeMap<String, Object>(getEnvironment()));
+        inputs.add(getWorkingDir());
+        inputs.add(getExecutable());
+        inputs.add(getIncludes());
+        inputs.add(getExcludes());
+        inputs.add(getFilter().getIncludePatterns());
+        TestFrameworkOptions options = getTestFramework().getOptions();
+        if (options instanceof JUnitOptions) {
+            inputs.add(((JUnitOptions) options).getIncludeCategories());
+            inputs.add(((JUnitOptions) options).getExcludeCategories());
+        } else if (options instanceof TestNGOptions) {
+            inputs.add(((TestNGOptions) options).getIncludeGroups());
+            inputs.add(((TestNGOptions) options).getExcludeGroups());
+        }
+        return HashUtil.createCompactMD5(inputs.toString());
+    }
+
     private TestExceptionFormatter getExceptionFormatter(TestLogging testLogging) {
         switch (testLogging.getExceptionFormat()) {
             case SHORT:
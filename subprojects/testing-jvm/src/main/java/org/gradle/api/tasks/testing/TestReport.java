@@ -23,13 +23,18 @@ import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.file.UnionFileCollection;
 import org.gradle.api.internal.tasks.testing.junit.report.DefaultTestReport;
 import org.gradle.api.internal.tasks.testing.junit.result.AggregateTestResultsProvider;
+import org.gradle.api.internal.tasks.testing.junit.result.Binary2JUnitXmlReportGenerator;
 import org.gradle.api.internal.tasks.testing.junit.result.BinaryResultBackedTestResultsProvider;
+import org.gradle.api.internal.tasks.testing.junit.result.TestOutputAssociation;
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider;
 import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Optional;
 import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.SkipWhenEmpty;
 import org.gradle.api.tasks.TaskAction;
+import org.gradle.internal.concurrent.ExecutorFactory;
 
+import javax.inject.Inject;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -44,6 +49,7 @@ import static org.gradle.util.CollectionUtils.collect;
 @Incubating
 public class TestReport extends DefaultTask {
     private File destinationDir;
+    private File junitXmlDestinationDir;
     private List<Object> results = new ArrayList<Object>();
 
     /**
@@ -61,6 +67,23 @@ public class TestReport extends DefaultTask {
         this.destinationDir = destinationDir;
     }
 
+    /**
+     * Returns the directory to write JUnit XML results for the combined test results to, or null when no JUnit XML results should be written.
+     */
+    @OutputDirectory
+    @Optional
+    public File getJunitXmlDestinationDir() {
+        return junitXmlDestinationDir;
+    }
+
+    /**
+     * Sets the directory to write JUnit XML results for the combined test results to. This can be used to combine the results of several
+     * shards of a {@link Test} task into a single set of JUnit XML results.
+     */
+    public void setJunitXmlDestinationDir(File junitXmlDestinationDir) {
+        this.junitXmlDestinationDir = junitXmlDestinationDir;
+    }
+
     /**
      * Returns the set of binary test results to include in the report.
      */
@@ -121,12 +144,20 @@ public class TestReport extends DefaultTask {
         }
     }
 
+    @Inject
+    protected ExecutorFactory getExecutorFactory() {
+        throw new UnsupportedOperationException();
+    }
+
     @TaskAction
     void generateReport() {
         TestResultsProvider resultsProvider = createAggregateProvider();
         try {
             if (resultsProvider.isHasResults()) {
-                DefaultTestReport testReport = new DefaultTestReport();
+                if (getJunitXmlDestinationDir() != null) {
+                    new Binary2JUnitXmlReportGenerator(getJunitXmlDestinationDir(), resultsProvider, TestOutputAssociation.WITH_SUITE, getExecutorFactory(), getPath()).generate();
+                }
+                DefaultTestReport testReport = new DefaultTestReport(getExecutorFactory());
                 testReport.generateReport(resultsProvider, getDestinationDir());
             } else {
                 getLogger().info("{} - no binary test results found in dirs: {}.", getPath(), getTestResultDirs().getFiles());
@@ -31,6 +31,8 @@ public class JUnitOptions extends TestFrameworkOptions {
 
     private Set<String> excludeCategories = new HashSet<String>();
 
+    private int maxParallelClasses = 1;
+
     @Incubating
     public JUnitOptions includeCategories(String... includeCategories) {
         this.includeCategories.addAll(Arrays.asList(includeCategories));
@@ -68,5 +70,23 @@ public class JUnitOptions extends TestFrameworkOptions {
         this.excludeCategories = excludeCategories;
     }
 
+    /**
+     * The maximum number of test classes to execute concurrently in each forked test process, each on its own thread. The default value is 1
+     * (test classes are executed one at a time).
+     *
+     * <p>Use this for test classes that spend most of their time waiting rather than computing, and that do not share mutable static state
+     * with other test classes. The methods of a test class are always executed one at a time.</p>
+     */
+    @Incubating
+    public int getMaxParallelClasses() {
+        return maxParallelClasses;
+    }
 
+    @Incubating
+    public void setMaxParallelClasses(int maxParallelClasses) {
+        if (maxParallelClasses < 1) {
+            throw new IllegalArgumentException("Cannot set maxParallelClasses to a value less than 1.");
+        }
+        this.maxParallelClasses = maxParallelClasses;
+    }
 }
@@ -16,6 +16,9 @@
 
 package org.gradle.jvm.test.internal.services;
 
+import org.gradle.api.internal.tasks.testing.detection.DefaultTestClassScanCache;
+import org.gradle.api.internal.tasks.testing.detection.TestClassScanCache;
+import org.gradle.cache.CacheRepository;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
 import org.gradle.jvm.test.internal.JUnitTestSuiteBinaryRenderer;
@@ -38,11 +41,17 @@ public class JvmTestingServices implements PluginServiceRegistry {
 
     @Override
     public void registerGradleServices(ServiceRegistration registration) {
-
+        registration.addProvider(new GradleScopeTestingServices());
     }
 
     @Override
     public void registerProjectServices(ServiceRegistration registration) {
 
     }
+
+    private static class GradleScopeTestingServices {
+        TestClassScanCache createTestClassScanCache(CacheRepository cacheRepository) {
+            return new DefaultTestClassScanCache(cacheRepository);
+        }
+    }
 }
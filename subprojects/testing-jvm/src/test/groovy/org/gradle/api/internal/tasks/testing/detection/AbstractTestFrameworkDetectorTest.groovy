@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.tasks.testing.TestClassProcessor
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.api.internal.tasks.testing.junit.JUnitDetector
+import org.gradle.internal.Factory
+import org.gradle.internal.hash.HashValue
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class AbstractTestFrameworkDetectorTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def processor = Mock(TestClassProcessor)
+    def scanCache = Mock(TestClassScanCache)
+    def detector = new JUnitDetector(new ClassFileExtractionManager({ tmpDir.createDir("tmp") } as Factory))
+
+    def setup() {
+        detector.startDetection(processor)
+        detector.scanCache = scanCache
+    }
+
+    def "uses cached scan result for class file with same content"() {
+        def class1 = tmpDir.file("a/Test1.class") << "content"
+        def class2 = tmpDir.file("b/Test1.class") << "content"
+        def keys = []
+
+        when:
+        detector.processTestClass(class1)
+        detector.processTestClass(class2)
+
+        then:
+        2 * scanCache.get(_, _) >> { HashValue key, Factory factory ->
+            keys << key
+            new TestClassScan("org/gradle/Test1", "java/lang/Object", true, false)
+        }
+        2 * processor.processTestClass({ TestClassRunInfo info -> info.testClassName == "org.gradle.Test1" })
+        keys[0] == keys[1]
+    }
+
+    def "does not publish abstract test class"() {
+        def classFile = tmpDir.file("Test1.class") << "content"
+
+        when:
+        detector.processTestClass(classFile)
+
+        then:
+        1 * scanCache.get(_, _) >> new TestClassScan("org/gradle/Test1", "java/lang/Object", true, true)
+        0 * processor._
+    }
+}
@@ -27,6 +27,12 @@ import org.jmock.Sequence
 import org.gradle.api.file.FileTree
 import static org.hamcrest.Matchers.*
 import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestClassRunInfo
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
 
 @RunWith(JMock.class)
 public class DefaultTestClassScannerTest {
@@ -55,4 +61,44 @@ public class DefaultTestClassScannerTest {
         
         scanner.run()
     }
+
+    @Test
+    public void publishesTestClassesInVisitOrderWhenScanningConcurrently() {
+        def published = []
+        def secondScanned = new CountDownLatch(1)
+        TestClassProcessor publisher = null
+        def concurrentDetector = [
+            startDetection: { TestClassProcessor p -> publisher = p },
+            processTestClass: { File file ->
+                if (file.name == 'class1.class') {
+                    // Let the second class file be scanned first, when there are threads to spare
+                    secondScanned.await(5, TimeUnit.SECONDS)
+                }
+                publisher.processTestClass(new DefaultTestClassRunInfo(file.name - '.class'))
+                if (file.name == 'class2.class') {
+                    secondScanned.countDown()
+                }
+                true
+            }
+        ] as TestFrameworkDetector
+        def recordingProcessor = [processTestClass: { TestClassRunInfo testClass -> published << testClass.testClassName }] as TestClassProcessor
+        def executorFactory = new DefaultExecutorFactory()
+        DefaultTestClassScanner scanner = new DefaultTestClassScanner(files, concurrentDetector, recordingProcessor, executorFactory)
+
+        context.checking {
+            one(files).visit(withParam(notNullValue()))
+            will { visitor ->
+                visitor.visitFile({new File('class1.class')} as FileVisitDetails)
+                visitor.visitFile({new File('class2.class')} as FileVisitDetails)
+            }
+        }
+
+        try {
+            scanner.run()
+        } finally {
+            executorFactory.stop()
+        }
+
+        assert published == ['class1', 'class2']
+    }
 }
@@ -69,4 +69,24 @@ class DefaultTestExecuterTest extends Specification {
         1 * testTask.getClasspath() >> testClasspath
         1 * testFrameworkTestDetector.setTestClasspath(testClasspath)
     }
+
+    def "hands test classes to the workers round-robin when there is a single worker or no previous durations"() {
+        expect:
+        DefaultTestExecuter.getSchedulingDurations(maxParallelForks, durations) == null
+
+        where:
+        maxParallelForks | durations
+        1                | null
+        1                | [:]
+        1                | [Test1: 10L]
+        4                | null
+        4                | [:]
+    }
+
+    def "schedules test classes by their previous durations when there are several workers"() {
+        def durations = [Test1: 10L]
+
+        expect:
+        DefaultTestExecuter.getSchedulingDurations(2, durations).is(durations)
+    }
 }
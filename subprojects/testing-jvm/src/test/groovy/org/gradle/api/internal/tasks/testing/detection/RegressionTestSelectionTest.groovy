@@ -0,0 +1,192 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.changedetection.state.CachingFileSnapshotter
+import org.gradle.api.internal.hash.DefaultHasher
+import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassAnalysisCache
+import org.gradle.api.internal.tasks.compile.incremental.cache.GeneralCompileCaches
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarSnapshotCache
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.cache.internal.CacheScopeMapping
+import org.gradle.cache.internal.DefaultCacheFactory
+import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.cache.internal.DefaultFileLockManagerTestHelper
+import org.gradle.cache.internal.MapBackedInMemoryStore
+import org.gradle.internal.Factory
+import org.gradle.internal.hash.HashValue
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.TestUtil
+import org.junit.Rule
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Opcodes
+import spock.lang.Specification
+
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+class RegressionTestSelectionTest extends Specification {
+    @Rule TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def fileOperations = TestUtil.createRootProject(tmpDir.createDir("project"))
+    def mapping = Stub(CacheScopeMapping) {
+        getBaseDirectory(_, _, _) >> tmpDir.createDir("cache")
+    }
+    def cacheRepository = new DefaultCacheRepository(mapping, new DefaultCacheFactory(DefaultFileLockManagerTestHelper.createDefaultFileLockManager()))
+    def compileCaches = Stub(GeneralCompileCaches) {
+        getClassAnalysisCache() >> Stub(ClassAnalysisCache) {
+            get(_, _) >> { HashValue hash, Factory factory -> factory.create() }
+        }
+        getJarSnapshotCache() >> Stub(JarSnapshotCache) {
+            get(_, _) >> { HashValue hash, Factory factory -> factory.create() }
+        }
+    }
+    def classesDir = tmpDir.createDir("classes")
+    def jar = tmpDir.file("lib.jar")
+
+    def setup() {
+        writeClass("A")
+        writeClass("TestA", "A")
+        writeClass("TestB", "B")
+        writeClass("TestLib", "Lib")
+        writeJar(["B": "java/lang/Object", "Lib": "java/lang/Object"], ["lib.properties": "a=b"])
+        classesDir.file("test.properties").text = "a=b"
+    }
+
+    def "selects all test classes when there is no previous execution"() {
+        when:
+        def selection = execute()
+
+        then:
+        selected(selection) == ["TestA", "TestB", "TestLib"]
+        selection.skippedClasses.empty
+    }
+
+    def "selects only the test classes affected by a changed class"() {
+        given:
+        execute().storeSnapshot()
+
+        when:
+        writeClass("A", "java/lang/Object", "changed")
+        def selection = execute()
+
+        then:
+        selected(selection) == ["TestA"]
+        selection.skippedClasses == ["TestB", "TestLib"] as Set
+    }
+
+    def "selects the test classes affected by a changed class in a jar"() {
+        given:
+        execute().storeSnapshot()
+
+        when:
+        writeJar(["B": "java/lang/Object", "Lib": "java/lang/Object"], ["lib.properties": "a=b"], "Lib")
+        def selection = execute()
+
+        then:
+        selected(selection) == ["TestLib"]
+    }
+
+    def "selects test classes that did not pass in the previous execution"() {
+        given:
+        execute().storeSnapshot()
+
+        when:
+        def selection = execute("inputs", ["TestA", "TestLib"])
+
+        then:
+        selected(selection) == ["TestB"]
+    }
+
+    def "selects all test classes when the inputs of the test task change"() {
+        given:
+        execute().storeSnapshot()
+
+        when:
+        def selection = execute("changed inputs")
+
+        then:
+        selected(selection) == ["TestA", "TestB", "TestLib"]
+    }
+
+    def "selects all test classes when a resource in a directory changes"() {
+        given:
+        execute().storeSnapshot()
+
+        when:
+        classesDir.file("test.properties").text = "a=changed"
+        def selection = execute()
+
+        then:
+        selected(selection) == ["TestA", "TestB", "TestLib"]
+    }
+
+    def "selects all test classes when a resource in a jar changes along with a class"() {
+        given:
+        execute().storeSnapshot()
+
+        when:
+        writeJar(["B": "java/lang/Object", "Lib": "java/lang/Object"], ["lib.properties": "a=changed"], "Lib")
+        def selection = execute()
+
+        then:
+        selected(selection) == ["TestA", "TestB", "TestLib"]
+    }
+
+    private RegressionTestSelection execute(String inputsKey = "inputs", Collection<String> passedClasses = ["TestA", "TestB", "TestLib"]) {
+        // A new snapshotter for each execution, as the test files can change within the resolution of their modification time
+        def fileSnapshotter = new CachingFileSnapshotter(new DefaultHasher(), new MapBackedInMemoryStore(), new StringInterner())
+        def selection = new RegressionTestSelection(cacheRepository, "test", compileCaches, fileOperations, fileSnapshotter, passedClasses)
+        selection.snapshot([classesDir, jar], inputsKey)
+        return selection
+    }
+
+    private static List<String> selected(RegressionTestSelection selection) {
+        return ["TestA", "TestB", "TestLib"].findAll { selection.isSatisfiedBy(new DefaultTestClassRunInfo(it)) }
+    }
+
+    private void writeClass(String name, String superName = "java/lang/Object", String field = null) {
+        classesDir.file(name + ".class").bytes = classBytes(name, superName, field)
+    }
+
+    private void writeJar(Map<String, String> classes, Map<String, String> resources, String changedClass = null) {
+        jar.delete()
+        def zip = new ZipOutputStream(new FileOutputStream(jar))
+        try {
+            classes.each { name, superName ->
+                zip.putNextEntry(new ZipEntry(name + ".class"))
+                zip.write(classBytes(name, superName, name == changedClass ? "changed" : null))
+            }
+            resources.each { name, text ->
+                zip.putNextEntry(new ZipEntry(name))
+                zip.write(text.bytes)
+            }
+        } finally {
+            zip.close()
+        }
+    }
+
+    private static byte[] classBytes(String name, String superName, String field) {
+        def writer = new ClassWriter(0)
+        writer.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, name, null, superName, null)
+        if (field != null) {
+            writer.visitField(Opcodes.ACC_PUBLIC, field, "Ljava/lang/String;", null, null).visitEnd()
+        }
+        writer.visitEnd()
+        return writer.toByteArray()
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.testing.detection
+
+import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import spock.lang.Specification
+
+class TestClassShardTest extends Specification {
+    def classes = (1..10).collect { "org.gradle.Test$it".toString() }
+
+    def "shards are disjoint and cover all classes"() {
+        when:
+        def shards = (0..2).collect { new TestClassShard(classes, [:], it, 3).classNames }
+
+        then:
+        shards*.size() == [4, 3, 3]
+        shards.flatten() as Set == classes as Set
+        shards[0].intersect(shards[1]).empty
+        shards[1].intersect(shards[2]).empty
+    }
+
+    def "assignment does not depend on the order of candidate classes"() {
+        expect:
+        new TestClassShard(classes, [:], 1, 3).classNames == new TestClassShard(classes.reverse(), [:], 1, 3).classNames
+    }
+
+    def "balances shards by duration"() {
+        def durations = ["org.gradle.Test1": 1000L, "org.gradle.Test2": 600L, "org.gradle.Test3": 400L]
+
+        when:
+        def first = new TestClassShard(classes.take(3), durations, 0, 2)
+        def second = new TestClassShard(classes.take(3), durations, 1, 2)
+
+        then:
+        first.classNames == ["org.gradle.Test1"] as Set
+        second.classNames == ["org.gradle.Test2", "org.gradle.Test3"] as Set
+        first.isSatisfiedBy(new DefaultTestClassRunInfo("org.gradle.Test1"))
+        !second.isSatisfiedBy(new DefaultTestClassRunInfo("org.gradle.Test1"))
+    }
+
+    def "classes with unknown duration are assumed to take the average duration"() {
+        def durations = ["org.gradle.Test1": 1000L, "org.gradle.Test2": 1000L]
+
+        when:
+        def shard = new TestClassShard(classes.take(4), durations, 0, 2)
+
+        then:
+        shard.classNames.size() == 2
+        shard.classNames.count { durations.containsKey(it) } == 1
+    }
+
+    def "fails for shard index out of range"() {
+        when:
+        new TestClassShard(classes, [:], 3, 3)
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Shard index 3 is not in the range 0 to 2."
+    }
+}
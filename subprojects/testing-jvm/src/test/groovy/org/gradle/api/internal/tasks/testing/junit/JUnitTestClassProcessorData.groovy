@@ -33,6 +33,9 @@ import org.junit.runners.Parameterized
 import org.junit.runners.Suite
 import org.junit.runners.model.RunnerBuilder
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 import static org.junit.Assume.assumeTrue
 
 public class ATestClass {
@@ -355,3 +358,36 @@ public class AnEmptyParameterizedTest {
     @Test public void helpfulTest() {}
     @Test public void unhelpfulTest() {}
 }
+
+// Named so that the test classes are excluded from the test task, as they are only meaningful when executed concurrently
+public class ConcurrentTestClasses {
+    static CountDownLatch started
+
+    static void waitForOtherClasses() {
+        started.countDown()
+        assert started.await(20, TimeUnit.SECONDS) : "test classes did not execute concurrently"
+    }
+}
+
+public class ATestClassThatWaitsForOtherClasses {
+    @Test
+    public void ok() {
+        ConcurrentTestClasses.waitForOtherClasses()
+    }
+}
+
+public class ATestClassThatWaitsForOtherClassesAndKeepsExecuting {
+    @Test
+    public void ok() {
+        ConcurrentTestClasses.waitForOtherClasses()
+        // Keeps executing while the other class finishes
+        Thread.sleep(200)
+    }
+}
+
+public class ATestClassThatRenamesItselfWhileOtherClassesExecute extends TestCase {
+    public void testOk() {
+        ConcurrentTestClasses.waitForOtherClasses()
+        setName('another test')
+    }
+}
@@ -16,8 +16,11 @@
 
 package org.gradle.api.internal.tasks.testing.junit
 import org.gradle.api.internal.tasks.testing.DefaultTestClassRunInfo
+import org.gradle.api.internal.tasks.testing.TestDescriptorInternal
+import org.gradle.api.internal.tasks.testing.TestStartEvent
 import org.gradle.api.internal.tasks.testing.TestResultProcessor
 import org.gradle.internal.TrueTimeProvider
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.id.LongIdGenerator
 import org.gradle.messaging.actor.TestActorFactory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -27,6 +30,8 @@ import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.Unroll
 
+import java.util.concurrent.CountDownLatch
+
 import static org.gradle.api.tasks.testing.TestResult.ResultType.SKIPPED
 
 class JUnitTestClassProcessorTest extends Specification {
@@ -451,4 +456,56 @@ class JUnitTestClassProcessorTest extends Specification {
         then: 1 * processor.completed(1, { it.resultType == null })
         0 * processor._
     }
+
+    def "attaches each test to its class when executing test classes concurrently"() {
+        classProcessor = new JUnitTestClassProcessor(new JUnitSpec([] as Set, [] as Set, [] as Set, 2), new LongIdGenerator(), new TestActorFactory(),
+            new TrueTimeProvider(), new DefaultExecutorFactory())
+        def classIds = [:]
+        def parents = [:]
+
+        when: process(ATestClass, BTestClass, ATestClassWithIgnoredMethod)
+
+        then:
+        _ * processor.started(_, _) >> { TestDescriptorInternal test, TestStartEvent event ->
+            if (test.composite) {
+                assert event.parentId == null
+                classIds[test.className] = test.id
+            } else {
+                parents[test.className + "." + test.name] = event.parentId
+            }
+        }
+        _ * processor.completed(_, _)
+        0 * processor._
+        parents.size() == 4
+        parents.every { name, parentId -> parentId == classIds[name.substring(0, name.lastIndexOf('.'))] }
+    }
+
+    def "executes test classes concurrently"() {
+        classProcessor = new JUnitTestClassProcessor(new JUnitSpec([] as Set, [] as Set, [] as Set, 2), new LongIdGenerator(), new TestActorFactory(),
+            new TrueTimeProvider(), new DefaultExecutorFactory())
+        ConcurrentTestClasses.started = new CountDownLatch(2)
+
+        when: process(ATestClassThatWaitsForOtherClasses, ATestClassThatWaitsForOtherClassesAndKeepsExecuting)
+
+        then:
+        4 * processor.started(_, _)
+        4 * processor.completed(_, { it.resultType == null })
+        0 * processor._
+    }
+
+    def "attaches the end of a renamed test to the test started on the same thread when executing test classes concurrently"() {
+        classProcessor = new JUnitTestClassProcessor(new JUnitSpec([] as Set, [] as Set, [] as Set, 2), new LongIdGenerator(), new TestActorFactory(),
+            new TrueTimeProvider(), new DefaultExecutorFactory())
+        ConcurrentTestClasses.started = new CountDownLatch(2)
+        def started = []
+        def completed = []
+
+        when: process(ATestClassThatRenamesItselfWhileOtherClassesExecute, ATestClassThatWaitsForOtherClassesAndKeepsExecuting)
+
+        then:
+        4 * processor.started(_, _) >> { TestDescriptorInternal test, TestStartEvent event -> started << test.id }
+        4 * processor.completed(_, { it.resultType == null }) >> { args -> completed << args[0] }
+        0 * processor._
+        completed as Set == started as Set
+    }
 }
@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.testing.junit.report
 import org.gradle.api.internal.tasks.testing.BuildableTestResultsProvider
 import org.gradle.api.internal.tasks.testing.junit.result.AggregateTestResultsProvider
 import org.gradle.api.internal.tasks.testing.junit.result.TestResultsProvider
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.ConfigureUtil
@@ -477,6 +478,72 @@ class DefaultTestReportTest extends Specification {
         testClassFile.assertHasStandardError('err:\u0102')
     }
 
+    def rendersClassPagesInParallel() {
+        given:
+        def parallelReport = new DefaultTestReport(new DefaultExecutorFactory())
+        def testTestResults = failingBuildResults()
+
+        when:
+        parallelReport.generateReport(testTestResults, reportDir)
+
+        then:
+        def index = results(indexFile)
+        index.assertHasTests(7)
+        index.assertHasFailures(1)
+
+        def failingClassFile = results(reportDir.file('classes/org.gradle.failing.SomeIgnoredSomePassedSomeFailed.html'))
+        failingClassFile.assertHasTests(3)
+        failingClassFile.testDetails('failed').assertFailed()
+        results(reportDir.file('classes/org.gradle.passing.Passed.html')).assertHasTests(1)
+    }
+
+    def rendersOnlyClassPagesWhoseResultsHaveChanged() {
+        given:
+        report.generateReport(passingBuildResults(), reportDir)
+        def passedClassFile = reportDir.file('classes/org.gradle.passing.Passed.html')
+        def alsoPassedClassFile = reportDir.file('classes/org.gradle.passing.subpackage.AlsoPassed.html')
+        passedClassFile.text = "unchanged"
+        alsoPassedClassFile.text = "unchanged"
+
+        when:
+        report.generateReport(buildResults {
+            testClassResult("org.gradle.passing.Passed") {
+                testcase("passed") {
+                    duration = 1000;
+                }
+            }
+            testClassResult("org.gradle.passing.subpackage.AlsoPassed") {
+                startTime = 5000
+                testcase("passedToo") {
+                    duration = 1000;
+                    stdout "this is\nchanged output"
+                }
+            }
+        }, reportDir)
+
+        then:
+        passedClassFile.text == "unchanged"
+        results(alsoPassedClassFile).assertHasTests(1)
+    }
+
+    def keepsClassPagesOfClassesNotInResults() {
+        given:
+        report.generateReport(passingBuildResults(), reportDir)
+
+        when:
+        report.generateReport(buildResults {
+            testClassResult("org.gradle.passing.Passed") {
+                testcase("passed") {
+                    duration = 1000;
+                }
+            }
+        }, reportDir)
+
+        then:
+        reportDir.file('classes/org.gradle.passing.Passed.html').file
+        reportDir.file('classes/org.gradle.passing.subpackage.AlsoPassed.html').file
+    }
+
     TestResultsProvider buildResults(Closure closure) {
         ConfigureUtil.configure(closure, new BuildableTestResultsProvider())
     }
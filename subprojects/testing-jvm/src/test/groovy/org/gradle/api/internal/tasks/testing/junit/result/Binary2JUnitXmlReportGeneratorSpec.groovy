@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.testing.junit.result
 
 import org.gradle.api.Action
 import org.gradle.api.GradleException
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.junit.Rule
 import spock.lang.Specification
@@ -71,4 +72,85 @@ class Binary2JUnitXmlReportGeneratorSpec extends Specification {
         ex.message.startsWith('Could not write XML test results for FooTest')
         ex.cause.message == "Boo!"
     }
+
+    def "does not write files for classes whose results are unchanged"() {
+        def fooTest = new TestClassResult(1, 'FooTest', 100)
+            .add(new TestMethodResult(1, "foo"))
+        def barTest = new TestClassResult(2, 'BarTest', 100)
+            .add(new TestMethodResult(2, "bar"))
+        resultsProvider.visitClasses(_) >> { Action action ->
+            action.execute(fooTest)
+            action.execute(barTest)
+        }
+        generator.generate()
+
+        when:
+        barTest.add(new TestMethodResult(3, "bar2"))
+        generator.generate()
+
+        then:
+        0 * generator.xmlWriter.write(fooTest, _)
+        1 * generator.xmlWriter.write(barTest, _)
+    }
+
+    def "keeps files for classes that are no longer present"() {
+        def fooTest = new TestClassResult(1, 'FooTest', 100)
+            .add(new TestMethodResult(1, "foo"))
+        def barTest = new TestClassResult(2, 'BarTest', 100)
+            .add(new TestMethodResult(2, "bar"))
+        def runs = 0
+        resultsProvider.visitClasses(_) >> { Action action ->
+            action.execute(fooTest)
+            if (runs++ == 0) {
+                action.execute(barTest)
+            }
+        }
+
+        when:
+        generator.generate()
+        generator.generate()
+
+        then:
+        temp.file("TEST-FooTest.xml").file
+        temp.file("TEST-BarTest.xml").file
+    }
+
+    def "keeps the files and digests of other results written to the same directory"() {
+        def fooTest = new TestClassResult(1, 'FooTest', 100)
+            .add(new TestMethodResult(1, "foo"))
+        def barTest = new TestClassResult(1, 'BarTest', 100)
+            .add(new TestMethodResult(1, "bar"))
+        resultsProvider.visitClasses(_) >> { Action action -> action.execute(fooTest) }
+        def otherResultsProvider = Stub(TestResultsProvider) {
+            visitClasses(_) >> { Action action -> action.execute(barTest) }
+        }
+        def testGenerator = new Binary2JUnitXmlReportGenerator(temp.testDirectory, resultsProvider, TestOutputAssociation.WITH_SUITE, null, ":test")
+        def integTestGenerator = new Binary2JUnitXmlReportGenerator(temp.testDirectory, otherResultsProvider, TestOutputAssociation.WITH_SUITE, null, ":integTest")
+        testGenerator.xmlWriter = Mock(JUnitXmlResultWriter)
+        integTestGenerator.xmlWriter = Mock(JUnitXmlResultWriter)
+        testGenerator.generate()
+        integTestGenerator.generate()
+
+        when:
+        testGenerator.generate()
+
+        then:
+        0 * testGenerator.xmlWriter.write(fooTest, _)
+        temp.file("TEST-FooTest.xml").file
+        temp.file("TEST-BarTest.xml").file
+    }
+
+    def "writes results in parallel"() {
+        def parallelGenerator = new Binary2JUnitXmlReportGenerator(temp.testDirectory, resultsProvider, TestOutputAssociation.WITH_SUITE, new DefaultExecutorFactory(), ":test")
+        def results = (1..20).collect { new TestClassResult(it, "Test$it", 100).add(new TestMethodResult(it, "test")) }
+        resultsProvider.visitClasses(_) >> { Action action ->
+            results.each { action.execute(it) }
+        }
+
+        when:
+        parallelGenerator.generate()
+
+        then:
+        (1..20).every { temp.file("TEST-Test${it}.xml").text.contains("name=\"Test$it\"") }
+    }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.testing.junit.result
+
+import org.gradle.api.internal.tasks.testing.DefaultTestOutputEvent
+import org.gradle.test.fixtures.file.WorkspaceTest
+
+import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
+import static org.gradle.api.tasks.testing.TestResult.ResultType.FAILURE
+import static org.gradle.api.tasks.testing.TestResult.ResultType.SUCCESS
+
+class PreviousTestResultsTest extends WorkspaceTest {
+
+    def "copies results and output of passed classes with new ids"() {
+        def previousDir = file("previous").createDir()
+        def passed = new TestClassResult(1, "Passed", 100).add(new TestMethodResult(2, "ok", SUCCESS, 10, 110))
+        def failed = new TestClassResult(3, "Failed", 100).add(new TestMethodResult(4, "broken", FAILURE, 10, 110))
+        new TestResultSerializer(previousDir).write([passed, failed])
+        def previousWriter = new TestOutputStore(previousDir).writer()
+        previousWriter.onOutput(1, new DefaultTestOutputEvent(StdOut, "[class]"))
+        previousWriter.onOutput(1, 2, new DefaultTestOutputEvent(StdOut, "[method]"))
+        previousWriter.close()
+
+        def currentDir = file("current").createDir()
+        def results = ["Other": new TestClassResult(1, "Other", 200).add(new TestMethodResult(2, "ok", SUCCESS, 10, 210))]
+        def writer = new TestOutputStore(currentDir).writer()
+
+        when:
+        def previousResults = new PreviousTestResults(previousDir)
+        previousResults.copyTo(["Passed", "Failed", "Unknown"], results, writer)
+        previousResults.close()
+        writer.close()
+
+        then:
+        previousResults.passedClassNames == ["Passed"] as Set
+        results.keySet() == ["Other", "Passed"] as Set
+        def copy = results["Passed"]
+        copy.id == 3
+        copy.startTime == 100
+        copy.results*.id == [4]
+        copy.results*.name == ["ok"]
+        copy.results*.duration == [10]
+
+        and:
+        def reader = new TestOutputStore(currentDir).reader()
+        def classOutput = new StringWriter()
+        reader.writeNonTestOutput(3, StdOut, classOutput)
+        def methodOutput = new StringWriter()
+        reader.writeTestOutput(3, 4, StdOut, methodOutput)
+        reader.close()
+        classOutput.toString() == "[class]"
+        methodOutput.toString() == "[method]"
+    }
+
+    def "has no passed classes when there are no previous results"() {
+        when:
+        def previousResults = new PreviousTestResults(file("missing"))
+
+        then:
+        previousResults.passedClassNames.empty
+
+        cleanup:
+        previousResults?.close()
+    }
+}
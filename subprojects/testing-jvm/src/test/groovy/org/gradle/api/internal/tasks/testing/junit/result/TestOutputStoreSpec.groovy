@@ -20,6 +20,10 @@ import org.gradle.api.internal.tasks.testing.TestDescriptorInternal
 import org.gradle.api.tasks.testing.TestOutputEvent
 import org.gradle.test.fixtures.file.WorkspaceTest
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
 import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdErr
 import static org.gradle.api.tasks.testing.TestOutputEvent.Destination.StdOut
 
@@ -169,6 +173,91 @@ class TestOutputStoreSpec extends WorkspaceTest {
         thrown(IllegalStateException)
     }
 
+    def "reads output of many interleaved classes and tests"() {
+        when:
+        def writer = output.writer()
+        (1..50).each { test ->
+            (1..20).each { classId ->
+                writer.onOutput(classId, test, output(StdOut, "[$classId-$test]"))
+            }
+        }
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectAllOutput(reader, 7, StdOut) == (1..50).collect { "[7-$it]" }.join()
+        collectOutput(reader, 20, 50, StdOut) == "[20-50]"
+        collectOutput(reader, 1, 1, StdErr) == ""
+
+        cleanup:
+        reader.close()
+    }
+
+    def "reads large and non-ascii messages"() {
+        def message = "\u00e9\u4e2d" * 100000
+
+        when:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[out-1]"))
+        writer.onOutput(1, 1, output(StdOut, message))
+        writer.onOutput(1, 1, output(StdOut, "[out-2]"))
+        writer.close()
+        def reader = output.reader()
+
+        then:
+        collectOutput(reader, 1, 1, StdOut) == "[out-1]" + message + "[out-2]"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "a slow writer does not block reads from other threads"() {
+        given:
+        def writer = output.writer()
+        writer.onOutput(1, 1, output(StdOut, "[out-1]"))
+        writer.onOutput(2, 1, output(StdOut, "[out-2]"))
+        writer.close()
+        def reader = output.reader()
+        def writing = new CountDownLatch(1)
+        def otherReadFinished = new CountDownLatch(1)
+        def otherReadFinishedFirst = new AtomicBoolean()
+        def slowWriter = new StringWriter() {
+            @Override
+            void write(char[] chars, int offset, int length) {
+                writing.countDown()
+                otherReadFinishedFirst.set(otherReadFinished.await(20, TimeUnit.SECONDS))
+                super.write(chars, offset, length)
+            }
+        }
+
+        when:
+        def slowRead = Thread.start {
+            reader.writeAllOutput(1, StdOut, slowWriter)
+        }
+        assert writing.await(20, TimeUnit.SECONDS)
+        def otherOutput = collectAllOutput(reader, 2, StdOut)
+        otherReadFinished.countDown()
+        slowRead.join()
+
+        then:
+        otherReadFinishedFirst.get()
+        otherOutput == "[out-2]"
+        slowWriter.toString() == "[out-1]"
+
+        cleanup:
+        reader.close()
+    }
+
+    def "exception if index file has unexpected format"() {
+        when:
+        output.outputsFile.createNewFile()
+        output.indexFile.bytes = [0, 0, 0, 1, 0, 0, 0, 0] as byte[]
+        output.reader()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
     String collectAllOutput(TestOutputStore.Reader reader, long classId, TestOutputEvent.Destination destination) {
         def writer = new StringWriter()
         reader.writeAllOutput(classId, destination, writer)
@@ -16,10 +16,16 @@
 
 package org.gradle.tooling.internal.provider.runner;
 
+import org.gradle.StartParameter;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.initialization.Settings;
 import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.execution.ProjectConfigurer;
+import org.gradle.groovy.scripts.Script;
+import org.gradle.groovy.scripts.ScriptExecutionListener;
+import org.gradle.groovy.scripts.ScriptSource;
 import org.gradle.internal.invocation.BuildAction;
 import org.gradle.internal.invocation.BuildActionRunner;
 import org.gradle.internal.invocation.BuildController;
@@ -32,7 +38,18 @@ import org.gradle.tooling.provider.model.ToolingModelBuilder;
 import org.gradle.tooling.provider.model.ToolingModelBuilderRegistry;
 import org.gradle.tooling.provider.model.UnknownModelException;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public class BuildModelActionRunner implements BuildActionRunner {
+    private final ToolingModelCache modelCache;
+
+    public BuildModelActionRunner(ToolingModelCache modelCache) {
+        this.modelCache = modelCache;
+    }
+
     @Override
     public void run(BuildAction action, BuildController buildController) {
         if (!(action instanceof BuildModelAction)) {
@@ -41,6 +58,22 @@ public class BuildModelActionRunner implements BuildActionRunner {
 
         BuildModelAction buildModelAction = (BuildModelAction) action;
         GradleInternal gradle = buildController.getGradle();
+        String modelName = buildModelAction.getModelName();
+        StartParameter startParameter = buildModelAction.getStartParameter();
+        boolean useCache = !buildModelAction.isRunTasks() && modelCache.isEnabled(startParameter);
+
+        if (useCache) {
+            BuildActionResult cachedResult = modelCache.get(modelName, startParameter);
+            if (cachedResult != null) {
+                buildController.setResult(cachedResult);
+                return;
+            }
+        }
+
+        ScriptInputsCollector scriptInputs = new ScriptInputsCollector();
+        if (useCache) {
+            gradle.addListener(scriptInputs);
+        }
 
         if (buildModelAction.isRunTasks()) {
             buildController.run();
@@ -55,7 +88,6 @@ public class BuildModelActionRunner implements BuildActionRunner {
             }
         }
 
-        String modelName = buildModelAction.getModelName();
         ToolingModelBuilderRegistry builderRegistry = getToolingModelBuilderRegistry(gradle);
         ToolingModelBuilder builder;
         try {
@@ -74,9 +106,61 @@ public class BuildModelActionRunner implements BuildActionRunner {
         PayloadSerializer payloadSerializer = gradle.getServices().get(PayloadSerializer.class);
         BuildActionResult buildActionResult = new BuildActionResult(payloadSerializer.serialize(result), null);
         buildController.setResult(buildActionResult);
+
+        if (useCache) {
+            gradle.removeListener(scriptInputs);
+            File rootDir = gradle.getRootProject().getRootDir();
+            modelCache.put(modelName, startParameter, collectInputFiles(gradle, startParameter, scriptInputs.files), buildSrcDirs(rootDir), buildActionResult);
+        }
+    }
+
+    private Set<File> collectInputFiles(GradleInternal gradle, StartParameter startParameter, Set<File> scriptFiles) {
+        Set<File> files = new LinkedHashSet<File>(scriptFiles);
+        File rootDir = gradle.getRootProject().getRootDir();
+        if (startParameter.getSettingsFile() != null) {
+            files.add(startParameter.getSettingsFile());
+        } else {
+            files.add(new File(startParameter.getCurrentDir(), Settings.DEFAULT_SETTINGS_FILE));
+            files.add(new File(rootDir, Settings.DEFAULT_SETTINGS_FILE));
+        }
+        files.add(new File(rootDir, Project.GRADLE_PROPERTIES));
+        files.add(new File(startParameter.getGradleUserHomeDir(), Project.GRADLE_PROPERTIES));
+        files.addAll(startParameter.getAllInitScripts());
+        files.add(new File(rootDir, "buildSrc/" + Project.DEFAULT_BUILD_FILE));
+        files.add(new File(rootDir, "buildSrc/" + Settings.DEFAULT_SETTINGS_FILE));
+        for (Project project : gradle.getRootProject().getAllprojects()) {
+            files.add(project.getBuildFile());
+            addResolvedFiles(project.getBuildscript().getConfigurations(), files);
+            addResolvedFiles(project.getConfigurations(), files);
+        }
+        return files;
+    }
+
+    private void addResolvedFiles(Iterable<Configuration> configurations, Set<File> files) {
+        for (Configuration configuration : configurations) {
+            if (configuration.getState() == Configuration.State.RESOLVED) {
+                files.addAll(configuration.getFiles());
+            }
+        }
+    }
+
+    private Set<File> buildSrcDirs(File rootDir) {
+        return Collections.singleton(new File(rootDir, "buildSrc/src"));
     }
 
     private ToolingModelBuilderRegistry getToolingModelBuilderRegistry(GradleInternal gradle) {
         return gradle.getDefaultProject().getServices().get(ToolingModelBuilderRegistry.class);
     }
+
+    private static class ScriptInputsCollector implements ScriptExecutionListener {
+        private final Set<File> files = new LinkedHashSet<File>();
+
+        @Override
+        public void scriptClassLoaded(ScriptSource source, Class<? extends Script> scriptClass) {
+            File file = source.getResource().getFile();
+            if (file != null) {
+                files.add(file);
+            }
+        }
+    }
 }
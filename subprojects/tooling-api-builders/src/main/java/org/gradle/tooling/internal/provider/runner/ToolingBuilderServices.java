@@ -16,6 +16,7 @@
 
 package org.gradle.tooling.internal.provider.runner;
 
+import org.gradle.api.internal.cache.SheddableCacheRegistry;
 import org.gradle.internal.composite.CompositeBuildActionRunner;
 import org.gradle.internal.invocation.BuildActionRunner;
 import org.gradle.internal.service.ServiceRegistration;
@@ -30,9 +31,15 @@ public class ToolingBuilderServices implements PluginServiceRegistry {
     public void registerGlobalServices(ServiceRegistration registration) {
 
         registration.addProvider(new Object() {
-            BuildActionRunner createBuildActionRunner() {
+            ToolingModelCache createToolingModelCache(SheddableCacheRegistry sheddableCacheRegistry) {
+                ToolingModelCache cache = new ToolingModelCache();
+                sheddableCacheRegistry.register(cache, SheddableCacheRegistry.PRIORITY_HIGH);
+                return cache;
+            }
+
+            BuildActionRunner createBuildActionRunner(ToolingModelCache toolingModelCache) {
                 return new SubscribableBuildActionRunner(new ChainingBuildActionRunner(Arrays.asList(
-                                                                new BuildModelActionRunner(),
+                                                                new BuildModelActionRunner(toolingModelCache),
                                                                 new TestExecutionRequestActionRunner(),
                                                                 new ClientProvidedBuildActionRunner())));
             }
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.runner;
+
+import org.gradle.StartParameter;
+import org.gradle.api.internal.cache.SheddableCache;
+import org.gradle.tooling.internal.provider.BuildActionResult;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * A daemon scoped cache of serialized tooling models. Each entry records the state of the files that were used to build the model, such as
+ * the settings, init and build scripts, gradle.properties files, the buildSrc sources and the resolved dependency files. An entry is reused
+ * only while all of these files remain unchanged.
+ *
+ * <p>Changes that are not reflected in the file system, such as new versions of dynamic or changing dependencies, are not detected. For this
+ * reason the cache is opt-in, and is enabled by setting the {@value #CACHE_PROPERTY} system property to {@code true}.</p>
+ */
+public class ToolingModelCache implements SheddableCache {
+    public static final String CACHE_PROPERTY = "org.gradle.tooling.model.cache";
+    private static final int MAX_ENTRIES = 20;
+
+    private final Map<List<Object>, CachedModel> models = new LinkedHashMap<List<Object>, CachedModel>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedModel> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public boolean isEnabled(StartParameter startParameter) {
+        if (startParameter.isRefreshDependencies() || startParameter.isRerunTasks()) {
+            return false;
+        }
+        String value = startParameter.getSystemPropertiesArgs().get(CACHE_PROPERTY);
+        if (value == null) {
+            value = System.getProperty(CACHE_PROPERTY);
+        }
+        return "true".equals(value);
+    }
+
+    /**
+     * Returns the cached result for the given model, or null when there is no entry or any of the inputs of the entry have changed.
+     */
+    public synchronized BuildActionResult get(String modelName, StartParameter startParameter) {
+        List<Object> key = key(modelName, startParameter);
+        CachedModel cachedModel = models.get(key);
+        if (cachedModel == null) {
+            return null;
+        }
+        if (!cachedModel.inputs.equals(snapshot(cachedModel.inputFiles, cachedModel.inputDirs))) {
+            models.remove(key);
+            return null;
+        }
+        return cachedModel.result;
+    }
+
+    public synchronized void put(String modelName, StartParameter startParameter, Collection<File> inputFiles, Collection<File> inputDirs, BuildActionResult result) {
+        List<File> files = new ArrayList<File>(inputFiles);
+        List<File> dirs = new ArrayList<File>(inputDirs);
+        models.put(key(modelName, startParameter), new CachedModel(files, dirs, snapshot(files, dirs), result));
+    }
+
+    public synchronized void clear() {
+        models.clear();
+    }
+
+    public String getDisplayName() {
+        return "tooling model cache";
+    }
+
+    public synchronized long getEntryCount() {
+        return models.size();
+    }
+
+    public synchronized void shed(float fraction) {
+        int toRemove = fraction >= 1 ? models.size() : (int) (models.size() * fraction);
+        Iterator<List<Object>> keys = models.keySet().iterator();
+        while (toRemove > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            toRemove--;
+        }
+    }
+
+    private static List<Object> key(String modelName, StartParameter startParameter) {
+        return Arrays.<Object>asList(
+            modelName,
+            startParameter.getCurrentDir(),
+            startParameter.getProjectDir(),
+            startParameter.getBuildFile(),
+            startParameter.getSettingsFile(),
+            startParameter.getGradleUserHomeDir(),
+            new ArrayList<File>(startParameter.getInitScripts()),
+            new HashMap<String, String>(startParameter.getProjectProperties()),
+            new HashMap<String, String>(startParameter.getSystemPropertiesArgs()),
+            startParameter.isOffline(),
+            startParameter.isSearchUpwards(),
+            new HashMap<String, String>(System.getenv()));
+    }
+
+    private static Map<File, FileState> snapshot(List<File> files, List<File> dirs) {
+        Map<File, FileState> states = new HashMap<File, FileState>();
+        for (File file : files) {
+            states.put(file, FileState.of(file));
+        }
+        for (File dir : dirs) {
+            visit(dir, states);
+        }
+        return states;
+    }
+
+    private static void visit(File dir, Map<File, FileState> states) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            states.put(dir, FileState.of(dir));
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                visit(child, states);
+            } else {
+                states.put(child, FileState.of(child));
+            }
+        }
+    }
+
+    private static class CachedModel {
+        final List<File> inputFiles;
+        final List<File> inputDirs;
+        final Map<File, FileState> inputs;
+        final BuildActionResult result;
+
+        CachedModel(List<File> inputFiles, List<File> inputDirs, Map<File, FileState> inputs, BuildActionResult result) {
+            this.inputFiles = inputFiles;
+            this.inputDirs = inputDirs;
+            this.inputs = inputs;
+            this.result = result;
+        }
+    }
+
+    private static class FileState {
+        private static final FileState MISSING = new FileState(-1, -1);
+        private final long length;
+        private final long lastModified;
+
+        private FileState(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        static FileState of(File file) {
+            if (!file.exists()) {
+                return MISSING;
+            }
+            return new FileState(file.length(), file.lastModified());
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj == null || obj.getClass() != getClass()) {
+                return false;
+            }
+            FileState other = (FileState) obj;
+            return length == other.length && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (length ^ lastModified);
+        }
+    }
+}
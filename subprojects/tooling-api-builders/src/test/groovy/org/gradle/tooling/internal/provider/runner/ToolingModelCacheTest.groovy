@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider.runner
+
+import org.gradle.StartParameter
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.tooling.internal.provider.BuildActionResult
+import org.junit.Rule
+import spock.lang.Specification
+
+class ToolingModelCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def cache = new ToolingModelCache()
+    def startParameter = new StartParameter()
+    def result = new BuildActionResult(null, null)
+
+    def "is disabled unless requested"() {
+        expect:
+        !cache.isEnabled(startParameter)
+
+        when:
+        startParameter.systemPropertiesArgs.put(ToolingModelCache.CACHE_PROPERTY, "true")
+
+        then:
+        cache.isEnabled(startParameter)
+
+        when:
+        startParameter.refreshDependencies = true
+
+        then:
+        !cache.isEnabled(startParameter)
+    }
+
+    def "reuses result while inputs are unchanged"() {
+        def buildFile = tmpDir.createFile("build.gradle")
+        def srcDir = tmpDir.createDir("buildSrc/src")
+        srcDir.createFile("main/groovy/Thing.groovy")
+
+        when:
+        cache.put("model", startParameter, [buildFile], [srcDir], result)
+
+        then:
+        cache.get("model", startParameter).is(result)
+        cache.get("other", startParameter) == null
+    }
+
+    def "discards result when an input file changes"() {
+        def buildFile = tmpDir.createFile("build.gradle")
+        cache.put("model", startParameter, [buildFile], [], result)
+
+        when:
+        buildFile.text = "apply plugin: 'java'"
+
+        then:
+        cache.get("model", startParameter) == null
+    }
+
+    def "discards result when a missing input file is created"() {
+        def settingsFile = tmpDir.file("settings.gradle")
+        cache.put("model", startParameter, [settingsFile], [], result)
+
+        when:
+        settingsFile.createFile()
+
+        then:
+        cache.get("model", startParameter) == null
+    }
+
+    def "discards result when a file is added to an input directory"() {
+        def srcDir = tmpDir.createDir("buildSrc/src")
+        cache.put("model", startParameter, [], [srcDir], result)
+
+        when:
+        srcDir.createFile("main/groovy/Thing.groovy")
+
+        then:
+        cache.get("model", startParameter) == null
+    }
+
+    def "does not reuse result for different start parameters"() {
+        cache.put("model", startParameter, [], [], result)
+
+        when:
+        def other = new StartParameter()
+        other.projectProperties.put("prop", "value")
+
+        then:
+        cache.get("model", other) == null
+        cache.get("model", startParameter).is(result)
+    }
+}